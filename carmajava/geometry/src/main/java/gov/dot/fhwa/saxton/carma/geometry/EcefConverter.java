@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+
+/**
+ * Conversion between ECEF coordinates and WGS-84 geodesic coordinates without per point allocation
+ * <p>
+ * All ellipsoid constants are computed once at construction and the class holds no other state, so a single instance
+ * can be shared between threads. {@link #WGS84} is provided for that purpose.
+ * <p>
+ * ECEF to geodesic conversion uses Heikkinen's closed form solution which needs no iteration and one atan2 per
+ * latitude and longitude. Against a fully converged iterative solution the error is below 1e-9 degrees in latitude
+ * and longitude and below 0.1 mm in altitude for altitudes between -10 km and 1000 km. Points within
+ * {@link #INNER_RADIUS} m of the earth's center, where the closed form loses precision, fall back to Bowring's method.
+ * Points on the polar axis are returned with a longitude of 0.
+ * <p>
+ * The batch methods operate on parallel primitive arrays and write into caller provided arrays. The output arrays may
+ * be the same as the input arrays to convert in place.
+ */
+public class EcefConverter {
+
+  /**
+   * Shared converter for the WGS-84 ellipsoid
+   */
+  public static final EcefConverter WGS84 = new EcefConverter(6378137.0, 1.0 / 298.257223563);
+
+  /**
+   * Radius in m inside of which Bowring's method is used instead of the closed form solution
+   */
+  public static final double INNER_RADIUS = 100000.0;
+
+  private static final double INNER_RADIUS_SQR = INNER_RADIUS * INNER_RADIUS;
+  private static final double POLE_EPSILON = 1.0e-10;
+
+  private final double a; // Semi-major axis
+  private final double aSqr;
+  private final double b; // Semi-minor axis
+  private final double bSqr;
+  private final double eSqr; // First eccentricity squared
+  private final double e4; // First eccentricity to the 4th power
+  private final double epSqr; // Second eccentricity squared
+  private final double oneMinusESqr;
+  private final double aSqrMinusBSqr;
+
+  /**
+   * Constructor
+   *
+   * @param semiMajorAxis The semi-major axis of the ellipsoid in m
+   * @param flattening The flattening factor of the ellipsoid
+   */
+  public EcefConverter(double semiMajorAxis, double flattening) {
+    this.a = semiMajorAxis;
+    this.aSqr = a * a;
+    this.b = a * (1.0 - flattening);
+    this.bSqr = b * b;
+    this.aSqrMinusBSqr = aSqr - bSqr;
+    this.eSqr = aSqrMinusBSqr / aSqr;
+    this.e4 = eSqr * eSqr;
+    this.epSqr = aSqrMinusBSqr / bSqr;
+    this.oneMinusESqr = 1.0 - eSqr;
+  }
+
+  /**
+   * Converts an ECEF point into a geodesic coordinate
+   *
+   * @param x The ECEF x coordinate in m
+   * @param y The ECEF y coordinate in m
+   * @param z The ECEF z coordinate in m
+   * @param out Array of at least length 3 which is set to { latitude deg, longitude deg, altitude m }
+   */
+  public void ecefToGeodesic(double x, double y, double z, double[] out) {
+    ecefToGeodesic(x, y, z, out, 0);
+  }
+
+  /**
+   * Converts a geodesic coordinate into an ECEF point
+   *
+   * @param latDeg The latitude in degrees
+   * @param lonDeg The longitude in degrees
+   * @param alt The altitude above the ellipsoid in m
+   * @param out Array of at least length 3 which is set to { x, y, z } in m
+   */
+  public void geodesicToEcef(double latDeg, double lonDeg, double alt, double[] out) {
+    geodesicToEcef(latDeg, lonDeg, alt, out, 0);
+  }
+
+  /**
+   * Converts an ECEF point into a geodesic location
+   *
+   * @param x The ECEF x coordinate in m
+   * @param y The ECEF y coordinate in m
+   * @param z The ECEF z coordinate in m
+   * @return The geodesic location
+   */
+  public Location ecefToLocation(double x, double y, double z) {
+    double[] out = new double[3];
+    ecefToGeodesic(x, y, z, out, 0);
+    return new Location(out[0], out[1], out[2]);
+  }
+
+  /**
+   * Converts a geodesic location into an ECEF point
+   *
+   * @param location The geodesic location
+   * @return The point in the ECEF frame
+   */
+  public Point3D locationToEcef(Location location) {
+    double[] out = new double[3];
+    geodesicToEcef(location.getLatitude(), location.getLongitude(), location.getAltitude(), out, 0);
+    return new Point3D(out[0], out[1], out[2]);
+  }
+
+  /**
+   * Converts count ECEF points into geodesic coordinates
+   *
+   * @param x The ECEF x coordinates in m
+   * @param y The ECEF y coordinates in m
+   * @param z The ECEF z coordinates in m
+   * @param latOut Set to the latitudes in degrees
+   * @param lonOut Set to the longitudes in degrees
+   * @param altOut Set to the altitudes in m
+   * @param count The number of points to convert starting at index 0
+   */
+  public void ecefToGeodesic(double[] x, double[] y, double[] z,
+    double[] latOut, double[] lonOut, double[] altOut, int count) {
+    checkLengths(count, x, y, z, latOut, lonOut, altOut);
+    double[] result = new double[3];
+    for (int i = 0; i < count; i++) {
+      ecefToGeodesic(x[i], y[i], z[i], result, 0);
+      latOut[i] = result[0];
+      lonOut[i] = result[1];
+      altOut[i] = result[2];
+    }
+  }
+
+  /**
+   * Converts count geodesic coordinates into ECEF points
+   *
+   * @param lat The latitudes in degrees
+   * @param lon The longitudes in degrees
+   * @param alt The altitudes in m
+   * @param xOut Set to the ECEF x coordinates in m
+   * @param yOut Set to the ECEF y coordinates in m
+   * @param zOut Set to the ECEF z coordinates in m
+   * @param count The number of points to convert starting at index 0
+   */
+  public void geodesicToEcef(double[] lat, double[] lon, double[] alt,
+    double[] xOut, double[] yOut, double[] zOut, int count) {
+    checkLengths(count, lat, lon, alt, xOut, yOut, zOut);
+    double[] result = new double[3];
+    for (int i = 0; i < count; i++) {
+      geodesicToEcef(lat[i], lon[i], alt[i], result, 0);
+      xOut[i] = result[0];
+      yOut[i] = result[1];
+      zOut[i] = result[2];
+    }
+  }
+
+  /**
+   * Converts count ECEF points held as interleaved { x, y, z } triples into interleaved { lat, lon, alt } triples
+   *
+   * @param xyz The ECEF points in m
+   * @param latLonAltOut Set to the geodesic coordinates in degrees and m
+   * @param count The number of points to convert starting at index 0
+   */
+  public void ecefToGeodesic(double[] xyz, double[] latLonAltOut, int count) {
+    checkLengths(count * 3, xyz, latLonAltOut);
+    for (int i = 0; i < count * 3; i += 3) {
+      ecefToGeodesic(xyz[i], xyz[i + 1], xyz[i + 2], latLonAltOut, i);
+    }
+  }
+
+  /**
+   * Converts count geodesic coordinates held as interleaved { lat, lon, alt } triples into interleaved { x, y, z }
+   * triples
+   *
+   * @param latLonAlt The geodesic coordinates in degrees and m
+   * @param xyzOut Set to the ECEF points in m
+   * @param count The number of points to convert starting at index 0
+   */
+  public void geodesicToEcef(double[] latLonAlt, double[] xyzOut, int count) {
+    checkLengths(count * 3, latLonAlt, xyzOut);
+    for (int i = 0; i < count * 3; i += 3) {
+      geodesicToEcef(latLonAlt[i], latLonAlt[i + 1], latLonAlt[i + 2], xyzOut, i);
+    }
+  }
+
+  private void ecefToGeodesic(double x, double y, double z, double[] out, int offset) {
+    double pSqr = x * x + y * y;
+    double p = Math.sqrt(pSqr);
+    // Handle special case of poles
+    if (p < POLE_EPSILON) {
+      out[offset] = z < 0 ? -90.0 : 90.0;
+      out[offset + 1] = 0.0;
+      out[offset + 2] = Math.abs(z) - b;
+      return;
+    }
+
+    double lon = Math.atan2(y, x);
+    double zSqr = z * z;
+    double lat;
+    double alt;
+    if (pSqr + zSqr < INNER_RADIUS_SQR) {
+      // Bowring's method. Inside the evolute of the ellipse the denominator can be negative, atan keeps the result
+      // within +-90 degrees as GeodesicCartesianConverter does
+      double theta = Math.atan2(z * a, p * b);
+      double sinTheta = Math.sin(theta);
+      double cosTheta = Math.cos(theta);
+      lat = Math.atan((z + epSqr * b * sinTheta * sinTheta * sinTheta)
+        / (p - eSqr * a * cosTheta * cosTheta * cosTheta));
+      double sinLat = Math.sin(lat);
+      double N = a / Math.sqrt(1.0 - eSqr * sinLat * sinLat);
+      alt = p * Math.cos(lat) + z * sinLat - a * a / N;
+    } else {
+      // Heikkinen's closed form solution
+      double F = 54.0 * bSqr * zSqr;
+      double G = pSqr + oneMinusESqr * zSqr - eSqr * aSqrMinusBSqr;
+      double c = e4 * F * pSqr / (G * G * G);
+      double s = Math.cbrt(1.0 + c + Math.sqrt(c * c + 2.0 * c));
+      double k = s + 1.0 + 1.0 / s;
+      double P = F / (3.0 * k * k * G * G);
+      double Q = Math.sqrt(1.0 + 2.0 * e4 * P);
+      double r0 = -(P * eSqr * p) / (1.0 + Q)
+        + Math.sqrt(Math.max(0.0,
+          0.5 * aSqr * (1.0 + 1.0 / Q) - P * oneMinusESqr * zSqr / (Q * (1.0 + Q)) - 0.5 * P * pSqr));
+      double pMinusR0 = p - eSqr * r0;
+      double pMinusR0Sqr = pMinusR0 * pMinusR0;
+      double U = Math.sqrt(pMinusR0Sqr + zSqr);
+      double V = Math.sqrt(pMinusR0Sqr + oneMinusESqr * zSqr);
+      double z0 = bSqr * z / (a * V);
+      lat = Math.atan2(z + epSqr * z0, p);
+      alt = U * (1.0 - bSqr / (a * V));
+    }
+
+    out[offset] = Math.toDegrees(lat);
+    out[offset + 1] = Math.toDegrees(lon);
+    out[offset + 2] = alt;
+  }
+
+  private void geodesicToEcef(double latDeg, double lonDeg, double alt, double[] out, int offset) {
+    double latRad = Math.toRadians(latDeg);
+    double lonRad = Math.toRadians(lonDeg);
+    double sinLat = Math.sin(latRad);
+    double cosLat = Math.cos(latRad);
+
+    double Ne = a / Math.sqrt(1.0 - eSqr * sinLat * sinLat); // The prime vertical radius of curvature
+    double horizontal = (Ne + alt) * cosLat;
+
+    out[offset] = horizontal * Math.cos(lonRad);
+    out[offset + 1] = horizontal * Math.sin(lonRad);
+    out[offset + 2] = (Ne * oneMinusESqr + alt) * sinLat;
+  }
+
+  private static void checkLengths(int required, double[]... arrays) {
+    if (required < 0) {
+      throw new IllegalArgumentException("Count must not be negative");
+    }
+    for (double[] array : arrays) {
+      if (array.length < required) {
+        throw new IllegalArgumentException("Array of length " + array.length + " is shorter than " + required);
+      }
+    }
+  }
+
+  /**
+   * @return The semi-major axis in m
+   */
+  public double getSemiMajorAxis() {
+    return a;
+  }
+
+  /**
+   * @return The semi-minor axis in m
+   */
+  public double getSemiMinorAxis() {
+    return b;
+  }
+}
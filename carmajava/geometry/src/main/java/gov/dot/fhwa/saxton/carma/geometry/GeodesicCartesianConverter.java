@@ -29,6 +29,7 @@ import org.ros.rosjava_geometry.Vector3;
  * Initially, it will only support conversion between a WGS-84 lat/lon/alt and a cartesian point.
  * cartesian points are referenced from a provided frame defined with a transform to the Earth Centered Earth Fixed Coordinate Frame (ECEF).
  * See the Geometry design document for the calculations used
+ * For repeated or batch conversions directly in the ECEF frame see {@link EcefConverter}
  */
 public class GeodesicCartesianConverter {
 
@@ -120,9 +121,8 @@ public class GeodesicCartesianConverter {
    * @return The calculated transform between the two frames.
    */
   public Transform ecefToNEDFromLocaton(Location loc) {
-    GeodesicCartesianConverter gcc = new GeodesicCartesianConverter();
     Point3D locInECEF =
-      gcc.geodesic2Cartesian(loc, Transform.identity()); //TODO validate that this works even with an earth map transform
+      geodesic2Cartesian(loc, Transform.identity()); //TODO validate that this works even with an earth map transform
 
     Vector3 trans = new Vector3(locInECEF.getX(), locInECEF.getY(), locInECEF.getZ());
 
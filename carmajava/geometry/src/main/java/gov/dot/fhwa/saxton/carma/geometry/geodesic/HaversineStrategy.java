@@ -29,6 +29,7 @@ import org.ros.rosjava_geometry.Transform;
  */
 public class HaversineStrategy implements IDistanceStrategy{
   protected final double R = 6371009; // Mean earth radius for WGS84 ellipsoid. Defined as R = (2Rea+Reb) / 3
+  protected final GeodesicCartesianConverter gCC = new GeodesicCartesianConverter(); // Stateless so shared between calls
 
   @Override public double distanceLoc2Loc(Location loc1, Location loc2) {
     double lat1 = loc1.getLatRad();
@@ -47,7 +48,6 @@ public class HaversineStrategy implements IDistanceStrategy{
 
   @Override public double crossTrackDistance(Location loc, GreatCircleSegment seg) {
     // Get vectors from earth center to path and external location
-    GeodesicCartesianConverter gCC = new GeodesicCartesianConverter();
     Vector3D vec2StartPoint = new Vector3D(gCC.geodesic2Cartesian(seg.getLoc1(), Transform.identity()));
     Vector3D vec2EndPoint = new Vector3D(gCC.geodesic2Cartesian(seg.getLoc2(), Transform.identity()));
     Vector3D vec2ExternalPoint = new Vector3D(gCC.geodesic2Cartesian(loc, Transform.identity()));
@@ -82,7 +82,6 @@ public class HaversineStrategy implements IDistanceStrategy{
 
   @Override public double downtrackDistance(Location loc, GreatCircleSegment seg) {
     // Get vectors from earth center to path and external location
-    GeodesicCartesianConverter gCC = new GeodesicCartesianConverter();
     Vector vec2StartPoint = new Vector(gCC.geodesic2Cartesian(seg.getLoc1(), Transform.identity()));
     Vector vec2EndPoint = new Vector(gCC.geodesic2Cartesian(seg.getLoc2(), Transform.identity()));
     Vector vec2ExternalPoint = new Vector(gCC.geodesic2Cartesian(loc, Transform.identity()));
@@ -101,7 +100,6 @@ public class HaversineStrategy implements IDistanceStrategy{
 
   @Override public Location projectOntoSegment(Location loc, GreatCircleSegment seg) {
     // Get vectors from earth center to path and external location
-    GeodesicCartesianConverter gCC = new GeodesicCartesianConverter();
     Vector vec2StartPoint = new Vector(gCC.geodesic2Cartesian(seg.getLoc1(), Transform.identity()));
     Vector vec2EndPoint = new Vector(gCC.geodesic2Cartesian(seg.getLoc2(), Transform.identity()));
     Vector vec2ExternalPoint = new Vector(gCC.geodesic2Cartesian(loc, Transform.identity()));
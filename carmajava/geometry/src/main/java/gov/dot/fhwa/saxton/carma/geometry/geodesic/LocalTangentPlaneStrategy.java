@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry.geodesic;
+
+import gov.dot.fhwa.saxton.carma.geometry.EcefConverter;
+
+/**
+ * Implements a distance strategy which projects locations onto the plane tangent to the WGS-84 ellipsoid at an anchor
+ * location and measures distances in that plane.
+ * <p>
+ * The trigonometry of the anchor is computed once. Projecting a location uses short series expansions of the sine and
+ * cosine of its offset from the anchor, so a query is a handful of multiplies and a square root per location. Within
+ * 5 km of the anchor distances agree with the ellipsoid surface to a few mm. Like the HaversineStrategy, altitude is
+ * ignored for distances and the cross track distance is positive to the right of the segment.
+ * <p>
+ * If any location in a query is further than the max error radius from the anchor the query is answered by the
+ * fallback strategy instead. Anchors above {@link #MAX_ANCHOR_LATITUDE} always use the fallback.
+ * Instances hold no mutable state and can be shared between threads.
+ */
+public class LocalTangentPlaneStrategy implements IDistanceStrategy {
+
+  /**
+   * The default radius in m around the anchor which is handled in the tangent plane
+   */
+  public static final double DEFAULT_MAX_ERROR_RADIUS = 5000.0;
+
+  /**
+   * The maximum absolute anchor latitude in degrees for which the tangent plane is used
+   */
+  public static final double MAX_ANCHOR_LATITUDE = 85.0;
+
+  private final Location anchor;
+  private final double anchorLatRad;
+  private final double anchorLonRad;
+  private final double sinAnchorLat;
+  private final double cosAnchorLat;
+  private final double sinAnchorLon;
+  private final double cosAnchorLon;
+  private final double a; // Semi-major axis
+  private final double eSqr; // First eccentricity squared
+  private final double anchorPrimeVerticalRadius;
+  private final double anchorNorthOffset; // North component of the anchor itself in the ECEF aligned ENU rotation
+  private final double maxErrorRadiusSqr;
+  private final boolean planeUsable;
+  private final IDistanceStrategy fallback;
+
+  /**
+   * Constructor which uses the default error radius and a HaversineStrategy fallback
+   *
+   * @param anchor The location at which the plane is tangent to the ellipsoid
+   */
+  public LocalTangentPlaneStrategy(Location anchor) {
+    this(anchor, DEFAULT_MAX_ERROR_RADIUS, new HaversineStrategy());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param anchor The location at which the plane is tangent to the ellipsoid
+   * @param maxErrorRadius The distance in m from the anchor beyond which the fallback strategy is used
+   * @param fallback The strategy used for queries involving locations outside the max error radius
+   */
+  public LocalTangentPlaneStrategy(Location anchor, double maxErrorRadius, IDistanceStrategy fallback) {
+    if (fallback == null) {
+      throw new IllegalArgumentException("A fallback distance strategy is required");
+    }
+    this.anchor = new Location(anchor);
+    this.anchorLatRad = anchor.getLatRad();
+    this.anchorLonRad = anchor.getLonRad();
+    this.sinAnchorLat = Math.sin(anchorLatRad);
+    this.cosAnchorLat = Math.cos(anchorLatRad);
+    this.sinAnchorLon = Math.sin(anchorLonRad);
+    this.cosAnchorLon = Math.cos(anchorLonRad);
+    this.maxErrorRadiusSqr = maxErrorRadius * maxErrorRadius;
+    this.planeUsable = Math.abs(anchor.getLatitude()) <= MAX_ANCHOR_LATITUDE && maxErrorRadius > 0.0;
+    this.fallback = fallback;
+
+    this.a = EcefConverter.WGS84.getSemiMajorAxis();
+    double b = EcefConverter.WGS84.getSemiMinorAxis();
+    this.eSqr = 1.0 - (b * b) / (a * a);
+    this.anchorPrimeVerticalRadius = a / Math.sqrt(1.0 - eSqr * sinAnchorLat * sinAnchorLat);
+    this.anchorNorthOffset = anchorPrimeVerticalRadius * eSqr * sinAnchorLat * cosAnchorLat;
+  }
+
+  /**
+   * Creates a strategy anchored at the midpoint of a segment
+   *
+   * @param seg The segment
+   * @param maxErrorRadius The distance in m from the anchor beyond which a HaversineStrategy is used
+   * @return The new strategy
+   */
+  public static LocalTangentPlaneStrategy forSegment(GreatCircleSegment seg, double maxErrorRadius) {
+    Location loc1 = seg.getLoc1();
+    Location loc2 = seg.getLoc2();
+    double lon = loc1.getLongitude() + 0.5 * normalizeLonDeg(loc2.getLongitude() - loc1.getLongitude());
+    Location mid = new Location(
+      0.5 * (loc1.getLatitude() + loc2.getLatitude()),
+      normalizeLonDeg(lon),
+      0.5 * (loc1.getAltitude() + loc2.getAltitude()));
+    return new LocalTangentPlaneStrategy(mid, maxErrorRadius, new HaversineStrategy());
+  }
+
+  /**
+   * Checks if a location is handled in the tangent plane rather than by the fallback strategy
+   *
+   * @param loc The location
+   * @return True if the location is within the max error radius of the anchor
+   */
+  public boolean isInPlane(Location loc) {
+    double[] en = new double[2];
+    return project(loc, en, 0);
+  }
+
+  /**
+   * Gets the location at which the plane is tangent to the ellipsoid
+   * @return A copy of the anchor location
+   */
+  public Location getAnchor() {
+    return new Location(anchor);
+  }
+
+  @Override public double distanceLoc2Loc(Location loc1, Location loc2) {
+    double[] en = new double[4];
+    if (!project(loc1, en, 0) || !project(loc2, en, 2)) {
+      return fallback.distanceLoc2Loc(loc1, loc2);
+    }
+    double de = en[2] - en[0];
+    double dn = en[3] - en[1];
+    return Math.sqrt(de * de + dn * dn);
+  }
+
+  @Override public double crossTrackDistance(Location loc, GreatCircleSegment seg) {
+    double[] en = new double[6];
+    if (!projectSegmentQuery(loc, seg, en)) {
+      return fallback.crossTrackDistance(loc, seg);
+    }
+    double segE = en[2] - en[0];
+    double segN = en[3] - en[1];
+    double toE = en[4] - en[0];
+    double toN = en[5] - en[1];
+    double length = Math.sqrt(segE * segE + segN * segN);
+    if (length == 0.0) {
+      return Math.sqrt(toE * toE + toN * toN);
+    }
+    // Negated z component of seg x toLoc so the right of the segment is positive
+    return (toE * segN - toN * segE) / length;
+  }
+
+  @Override public double downtrackDistance(Location loc, GreatCircleSegment seg) {
+    double[] en = new double[6];
+    if (!projectSegmentQuery(loc, seg, en)) {
+      return fallback.downtrackDistance(loc, seg);
+    }
+    double segE = en[2] - en[0];
+    double segN = en[3] - en[1];
+    double length = Math.sqrt(segE * segE + segN * segN);
+    if (length == 0.0) {
+      return 0.0;
+    }
+    return ((en[4] - en[0]) * segE + (en[5] - en[1]) * segN) / length;
+  }
+
+  @Override public Location projectOntoSegment(Location loc, GreatCircleSegment seg) {
+    double[] en = new double[6];
+    if (!projectSegmentQuery(loc, seg, en)) {
+      return fallback.projectOntoSegment(loc, seg);
+    }
+    double segE = en[2] - en[0];
+    double segN = en[3] - en[1];
+    double lengthSqr = segE * segE + segN * segN;
+    double fraction = lengthSqr == 0.0 ? 0.0 : ((en[4] - en[0]) * segE + (en[5] - en[1]) * segN) / lengthSqr;
+    double east = en[0] + fraction * segE;
+    double north = en[1] + fraction * segN;
+
+    // Place the point in the tangent plane in ECEF and take the location below it
+    double anchorX = anchorPrimeVerticalRadius * cosAnchorLat * cosAnchorLon;
+    double anchorY = anchorPrimeVerticalRadius * cosAnchorLat * sinAnchorLon;
+    double anchorZ = anchorPrimeVerticalRadius * (1.0 - eSqr) * sinAnchorLat;
+    double x = anchorX - sinAnchorLon * east - sinAnchorLat * cosAnchorLon * north;
+    double y = anchorY + cosAnchorLon * east - sinAnchorLat * sinAnchorLon * north;
+    double z = anchorZ + cosAnchorLat * north;
+    double[] latLonAlt = new double[3];
+    EcefConverter.WGS84.ecefToGeodesic(x, y, z, latLonAlt);
+
+    Location loc1 = seg.getLoc1();
+    double alt = loc1.getAltitude() + fraction * (seg.getLoc2().getAltitude() - loc1.getAltitude());
+    return new Location(latLonAlt[0], latLonAlt[1], alt);
+  }
+
+  /**
+   * Projects the two segment end points followed by the location
+   */
+  private boolean projectSegmentQuery(Location loc, GreatCircleSegment seg, double[] en) {
+    return project(seg.getLoc1(), en, 0) && project(seg.getLoc2(), en, 2) && project(loc, en, 4);
+  }
+
+  /**
+   * Projects a location on the ellipsoid surface into the tangent plane
+   *
+   * @param loc The location to project
+   * @param en Set to the east and north distances in m at offset and offset + 1
+   * @param offset The index to write to
+   * @return True if the location is within the max error radius of the anchor
+   */
+  private boolean project(Location loc, double[] en, int offset) {
+    if (!planeUsable) {
+      return false;
+    }
+    double dLat = loc.getLatRad() - anchorLatRad;
+    double dLon = loc.getLonRad() - anchorLonRad;
+    if (dLon > Math.PI) {
+      dLon -= 2.0 * Math.PI;
+    } else if (dLon < -Math.PI) {
+      dLon += 2.0 * Math.PI;
+    }
+    // Series expansions are accurate to well below a mm for offsets within the supported radius
+    double dLatSqr = dLat * dLat;
+    double dLonSqr = dLon * dLon;
+    double sinDLat = dLat * (1.0 - dLatSqr / 6.0);
+    double cosDLat = 1.0 - 0.5 * dLatSqr * (1.0 - dLatSqr / 12.0);
+    double sinDLon = dLon * (1.0 - dLonSqr / 6.0);
+    double cosDLon = 1.0 - 0.5 * dLonSqr * (1.0 - dLonSqr / 12.0);
+
+    double sinLat = sinAnchorLat * cosDLat + cosAnchorLat * sinDLat;
+    double cosLat = cosAnchorLat * cosDLat - sinAnchorLat * sinDLat;
+    double N = a / Math.sqrt(1.0 - eSqr * sinLat * sinLat); // The prime vertical radius of curvature
+
+    // ECEF position relative to the anchor rotated into east north
+    double east = N * cosLat * sinDLon;
+    double north = N * ((1.0 - eSqr) * sinLat * cosAnchorLat - cosLat * cosDLon * sinAnchorLat) + anchorNorthOffset;
+    en[offset] = east;
+    en[offset + 1] = north;
+    return east * east + north * north <= maxErrorRadiusSqr;
+  }
+
+  private static double normalizeLonDeg(double lon) {
+    if (lon > 180.0) {
+      return lon - 360.0;
+    } else if (lon < -180.0) {
+      return lon + 360.0;
+    }
+    return lon;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import org.junit.Test;
+import org.ros.rosjava_geometry.Transform;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs unit tests for the EcefConverter class
+ */
+public class EcefConverterTest {
+
+  private final EcefConverter converter = EcefConverter.WGS84;
+  private final GeodesicCartesianConverter reference = new GeodesicCartesianConverter();
+
+  private static final double[] ALTITUDES = { -10000.0, -100.0, 0.0, 250.0, 10000.0, 100000.0, 1000000.0 };
+
+  /**
+   * Converts a global grid of points to ECEF with the existing converter and checks the results of both directions
+   * against the existing converter and a converged iterative solution
+   */
+  @Test
+  public void testGlobalGridAgainstExistingConverter() {
+    double[] ecef = new double[3];
+    double[] geo = new double[3];
+    for (double alt : ALTITUDES) {
+      for (double lat = -90.0; lat <= 90.0; lat += 2.5) {
+        for (double lon = -180.0; lon < 180.0; lon += 5.0) {
+          Location loc = new Location(lat, lon, alt);
+          Point3D expected = reference.geodesic2Cartesian(loc, Transform.identity());
+
+          converter.geodesicToEcef(lat, lon, alt, ecef);
+          assertEquals(expected.getX(), ecef[0], 1e-6);
+          assertEquals(expected.getY(), ecef[1], 1e-6);
+          assertEquals(expected.getZ(), ecef[2], 1e-6);
+
+          converter.ecefToGeodesic(ecef[0], ecef[1], ecef[2], geo);
+          Location existing = reference.cartesian2Geodesic(expected, Transform.identity());
+          // Bowring's single step method used by the existing converter is accurate to a few mm near the surface
+          double altTolerance = Math.abs(alt) > 10000.0 ? 0.1 : 0.005;
+          assertEquals(existing.getLatitude(), geo[0], 1e-7);
+          assertEquals(existing.getAltitude(), geo[2], altTolerance);
+          if (Math.abs(lat) < 90.0) {
+            assertEquals(existing.getLongitude(), geo[1], 1e-9);
+          }
+
+          // Against the exact input
+          assertEquals(lat, geo[0], 1e-9);
+          assertEquals(alt, geo[2], 1e-4);
+          if (Math.abs(lat) < 90.0) {
+            assertEquals(lon, geo[1], 1e-9);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests the batch conversions with both array layouts
+   */
+  @Test
+  public void testBatchConversion() {
+    int count = 50;
+    double[] lat = new double[count];
+    double[] lon = new double[count];
+    double[] alt = new double[count];
+    double[] interleaved = new double[count * 3];
+    for (int i = 0; i < count; i++) {
+      lat[i] = -80.0 + i * 3.2;
+      lon[i] = -170.0 + i * 6.9;
+      alt[i] = i * 10.0;
+      interleaved[i * 3] = lat[i];
+      interleaved[i * 3 + 1] = lon[i];
+      interleaved[i * 3 + 2] = alt[i];
+    }
+
+    double[] x = new double[count];
+    double[] y = new double[count];
+    double[] z = new double[count];
+    converter.geodesicToEcef(lat, lon, alt, x, y, z, count);
+    double[] xyz = new double[count * 3];
+    converter.geodesicToEcef(interleaved, xyz, count);
+
+    double[] single = new double[3];
+    for (int i = 0; i < count; i++) {
+      converter.geodesicToEcef(lat[i], lon[i], alt[i], single);
+      assertEquals(single[0], x[i], 0.0);
+      assertEquals(single[1], y[i], 0.0);
+      assertEquals(single[2], z[i], 0.0);
+      assertEquals(single[0], xyz[i * 3], 0.0);
+      assertEquals(single[1], xyz[i * 3 + 1], 0.0);
+      assertEquals(single[2], xyz[i * 3 + 2], 0.0);
+    }
+
+    // Convert back in place
+    converter.ecefToGeodesic(x, y, z, x, y, z, count);
+    converter.ecefToGeodesic(xyz, xyz, count);
+    for (int i = 0; i < count; i++) {
+      assertEquals(lat[i], x[i], 1e-9);
+      assertEquals(lon[i], y[i], 1e-9);
+      assertEquals(alt[i], z[i], 1e-4);
+      assertEquals(lat[i], xyz[i * 3], 1e-9);
+      assertEquals(lon[i], xyz[i * 3 + 1], 1e-9);
+      assertEquals(alt[i], xyz[i * 3 + 2], 1e-4);
+    }
+
+    try {
+      converter.ecefToGeodesic(x, y, new double[count - 1], x, y, z, count);
+      fail("Short array accepted");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  /**
+   * Tests the poles and points near the earth's center
+   */
+  @Test
+  public void testSpecialCases() {
+    double[] geo = new double[3];
+    converter.ecefToGeodesic(0, 0, 6356752.314245, geo);
+    assertEquals(90.0, geo[0], 0.0);
+    assertEquals(0.0, geo[1], 0.0);
+    assertEquals(0.0, geo[2], 1e-5);
+
+    converter.ecefToGeodesic(0, 0, -6356852.314245, geo);
+    assertEquals(-90.0, geo[0], 0.0);
+    assertEquals(100.0, geo[2], 1e-5);
+
+    // Inside the inner radius Bowring's method gives the same latitude and longitude as the existing converter
+    Point3D inner = new Point3D(1000.0, -2000.0, 500.0);
+    Location expected = reference.cartesian2Geodesic(inner, Transform.identity());
+    Location loc = converter.ecefToLocation(inner.getX(), inner.getY(), inner.getZ());
+    assertEquals(expected.getLatitude(), loc.getLatitude(), 1e-9);
+    assertEquals(expected.getLongitude(), loc.getLongitude(), 1e-9);
+    assertEquals(expected.getAltitude(), loc.getAltitude(), 100.0);
+
+    Point3D point = converter.locationToEcef(new Location(38.956488, -77.150345, 0));
+    assertEquals(1104488, point.getX(), 1.0);
+    assertEquals(-4841993, point.getY(), 1.0);
+    assertEquals(3988562, point.getZ(), 1.0);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.geometry;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.GreatCircleSegment;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.HaversineStrategy;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.LocalTangentPlaneStrategy;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs unit tests for the LocalTangentPlaneStrategy class
+ */
+public class LocalTangentPlaneStrategyTest {
+
+  private final Location anchor = new Location(38.942201, -77.160108, 0);
+  private final LocalTangentPlaneStrategy strategy = new LocalTangentPlaneStrategy(anchor);
+  private final HaversineStrategy haversine = new HaversineStrategy();
+
+  private static double chordDistance(Location loc1, Location loc2) {
+    Point3D p1 = EcefConverter.WGS84.locationToEcef(loc1);
+    Point3D p2 = EcefConverter.WGS84.locationToEcef(loc2);
+    return p1.distanceFrom(p2);
+  }
+
+  /**
+   * Tests the distanceLoc2Loc function against ECEF chord distances, which match the surface distance to well under
+   * a mm at these ranges
+   */
+  @Test
+  public void testDistanceLoc2Loc() {
+    for (double dLat = -0.04; dLat <= 0.04; dLat += 0.005) {
+      for (double dLon = -0.05; dLon <= 0.05; dLon += 0.005) {
+        Location loc = new Location(anchor.getLatitude() + dLat, anchor.getLongitude() + dLon, 0);
+        Location other = new Location(anchor.getLatitude() - 0.5 * dLon, anchor.getLongitude() + 0.3 * dLat, 0);
+        if (!strategy.isInPlane(loc) || !strategy.isInPlane(other)) {
+          continue;
+        }
+        assertEquals(chordDistance(loc, other), strategy.distanceLoc2Loc(loc, other), 0.005);
+      }
+    }
+
+    // Same points used by the HaversineStrategy tests
+    Location loc1 = new Location(38.942201, -77.160108, 0);
+    Location loc2 = new Location(38.943804, -77.148832, 0);
+    assertEquals(991.4, strategy.distanceLoc2Loc(loc1, loc2), 991.4 * 0.005);
+  }
+
+  /**
+   * Tests the cross track, downtrack and projection functions against the HaversineStrategy
+   */
+  @Test
+  public void testSegmentQueries() {
+    Location loc1 = new Location(38.942201, -77.160108, 0);
+    Location loc2 = new Location(38.943804, -77.148832, 0);
+    GreatCircleSegment seg = new GreatCircleSegment(loc1, loc2);
+
+    // Right side is positive
+    Location right = new Location(38.942422, -77.154786, 0);
+    assertEquals(58.59, strategy.crossTrackDistance(right, seg), 0.1);
+    assertEquals(458.3, strategy.downtrackDistance(right, seg), 0.5);
+    Location left = new Location(38.94348, -77.15505, 0);
+    assertEquals(-61.14, strategy.crossTrackDistance(left, seg), 0.1);
+
+    assertEquals(0.0, strategy.crossTrackDistance(loc1, seg), 1e-6);
+    assertEquals(0.0, strategy.downtrackDistance(loc1, seg), 1e-6);
+    assertEquals(0.0, strategy.crossTrackDistance(loc2, seg), 1e-6);
+    assertEquals(strategy.distanceLoc2Loc(loc1, loc2), strategy.downtrackDistance(loc2, seg), 1e-6);
+
+    // The projection is on the segment at the downtrack distance
+    Location projected = strategy.projectOntoSegment(right, seg);
+    assertEquals(0.0, strategy.crossTrackDistance(projected, seg), 0.01);
+    assertEquals(strategy.downtrackDistance(right, seg), strategy.distanceLoc2Loc(loc1, projected), 0.01);
+    assertTrue(projected.almostEqual(haversine.projectOntoSegment(right, seg), 0.0001, 1.0));
+  }
+
+  /**
+   * Tests that locations outside of the error radius use the fallback strategy
+   */
+  @Test
+  public void testFallback() {
+    Location near = new Location(38.943804, -77.148832, 0);
+    Location far = new Location(39.3, -76.6, 0);
+    assertTrue(strategy.isInPlane(near));
+    assertFalse(strategy.isInPlane(far));
+    assertEquals(haversine.distanceLoc2Loc(near, far), strategy.distanceLoc2Loc(near, far), 0.0);
+
+    GreatCircleSegment seg = new GreatCircleSegment(near, far);
+    assertEquals(haversine.crossTrackDistance(anchor, seg), strategy.crossTrackDistance(anchor, seg), 0.0);
+    assertEquals(haversine.downtrackDistance(anchor, seg), strategy.downtrackDistance(anchor, seg), 0.0);
+
+    // Across the antimeridian
+    Location east = new Location(0.0, 179.99, 0);
+    Location west = new Location(0.0, -179.99, 0);
+    LocalTangentPlaneStrategy wrapped = LocalTangentPlaneStrategy.forSegment(new GreatCircleSegment(east, west), 5000.0);
+    assertTrue(wrapped.isInPlane(east));
+    assertEquals(chordDistance(east, west), wrapped.distanceLoc2Loc(east, west), 0.01);
+
+    // Near the poles the plane is not used
+    LocalTangentPlaneStrategy polar = new LocalTangentPlaneStrategy(new Location(89.0, 0.0, 0.0));
+    assertFalse(polar.isInPlane(new Location(89.0, 0.0, 0.0)));
+  }
+}
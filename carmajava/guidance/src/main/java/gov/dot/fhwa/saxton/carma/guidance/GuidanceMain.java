@@ -39,9 +39,9 @@ import gov.dot.fhwa.saxton.carma.guidance.util.ROSTimeProvider;
 import gov.dot.fhwa.saxton.carma.guidance.util.SaxtonLoggerProxyFactory;
 import gov.dot.fhwa.saxton.carma.guidance.util.V2IService;
 import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.TrajectoryConverter;
+import gov.dot.fhwa.saxton.carma.rosutils.AsyncLog;
 import gov.dot.fhwa.saxton.carma.rosutils.AlertSeverity;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonBaseNode;
-import gov.dot.fhwa.saxton.carma.route.Route;
 import gov.dot.fhwa.saxton.utils.ComponentVersion;
 
 import org.apache.commons.logging.Log;
@@ -112,12 +112,14 @@ public class GuidanceMain extends SaxtonBaseNode {
     double minMapMsgsPerSec = node.getParameterTree().getDouble("~v2i_min_map_msgs_per_sec", 0.9);
     double minSpatMsgsPerSec = node.getParameterTree().getDouble("~v2i_min_spat_msgs_per_sec", 8.0);
     long expiryTimeoutMs = node.getParameterTree().getInteger("~v2i_comms_data_expiry_timeout", 1000);
+    boolean v2iEventDriven = node.getParameterTree().getBoolean("~v2i_event_driven_updates", false);
     GuidanceV2IService v2iService = new GuidanceV2IService(pubSubService, mapCommsReliabilityCheckThreshold, spatCommsReliabilityCheckThreshold, 
-      minMapMsgsPerSec, minSpatMsgsPerSec, expiryTimeoutMs);
+      minMapMsgsPerSec, minSpatMsgsPerSec, expiryTimeoutMs, v2iEventDriven);
     v2iService.init();
 
-    routeService.registerNewRouteCallback((route) -> trajectoryConverter.setRoute(Route.fromMessage(route)));
-    routeService.registerNewRouteCallback((route) -> conflictManager.setRoute(Route.fromMessage(route)));
+    // The route service has already decoded the route by the time callbacks are invoked
+    routeService.registerNewRouteCallback((route) -> trajectoryConverter.setRoute(routeService.getCurrentRoute()));
+    routeService.registerNewRouteCallback((route) -> conflictManager.setRoute(routeService.getCurrentRoute()));
     routeService.registerNewRouteStateCallback((state) -> trajectoryConverter.setRouteState(state.getDownTrack(),
         state.getCrossTrack(), state.getCurrentSegment().getPrevWaypoint().getWaypointId(), state.getSegmentDownTrack(),
         state.getLaneIndex()));
@@ -172,8 +174,13 @@ public class GuidanceMain extends SaxtonBaseNode {
 
   /**
    * Initialize the Guidance logging system
+   * If asynchronous logging is enabled, records are written by a separate thread so that guidance loops never block on log I/O
    */
-  private void initLogger(Log baseLog) {
+  private void initLogger(ConnectedNode node, Log baseLog) {
+    ParameterTree params = node.getParameterTree();
+    if (params.getBoolean("~async_logging", false)) {
+      baseLog = new AsyncLog(baseLog, params.getInteger("~async_logging_queue_size", 4096));
+    }
     SaxtonLoggerProxyFactory slpf = new SaxtonLoggerProxyFactory(baseLog);
     LoggerManager.setLoggerFactory(slpf);
   }
@@ -236,7 +243,7 @@ public class GuidanceMain extends SaxtonBaseNode {
 
   @Override
   public void onSaxtonStart(final ConnectedNode connectedNode) {
-    initLogger(connectedNode.getLog());
+    initLogger(connectedNode, connectedNode.getLog());
     final ILogger log = LoggerManager.getLogger();
     Thread.currentThread().setName(this.getClass().getSimpleName() + "Thread");
 
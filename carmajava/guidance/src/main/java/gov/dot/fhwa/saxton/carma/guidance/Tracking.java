@@ -20,9 +20,7 @@ import cav_msgs.*;
 import cav_srvs.*;
 import geometry_msgs.AccelStamped;
 import geometry_msgs.TwistStamped;
-import gov.dot.fhwa.saxton.carma.geometry.GeodesicCartesianConverter;
-import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
-import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import gov.dot.fhwa.saxton.carma.geometry.EcefConverter;
 import gov.dot.fhwa.saxton.carma.guidance.arbitrator.Arbitrator;
 import gov.dot.fhwa.saxton.carma.guidance.maneuvers.LongitudinalManeuver;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
@@ -36,6 +34,7 @@ import gov.dot.fhwa.saxton.carma.guidance.pubsub.TopicNotFoundException;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.OnTrajectoryProgressCallback;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.Trajectory;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.TrajectoryExecutor;
+import gov.dot.fhwa.saxton.carma.guidance.util.SpeedHistoryBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.ros.exception.ParameterClassCastException;
 import org.ros.exception.ParameterNotFoundException;
@@ -52,12 +51,10 @@ import sensor_msgs.NavSatFix;
 import std_msgs.Float64;
 
 import java.nio.ByteOrder;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Random;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -71,6 +68,7 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
 	
 	protected final int SECONDS_TO_MILLISECONDS = 1000;
 	protected final long SLEEP_DURATION = 100; // Frequency for J2735, 10Hz
+	protected static final int SPEED_PROFILE_CAPACITY = 256; // Maximum number of maneuver end points tracked
 	
 	// TODO: brake information on each individual wheel is not available
 	// When brake is applied at any angle, we set brake status to be 0xF
@@ -108,10 +106,12 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
 	protected TrajectoryExecutor trajectoryExecutor = null;
 	protected Arbitrator arbitrator = null;
 	protected AtomicBoolean trajectory_start = new AtomicBoolean(false);
-	protected Queue<Trajectory> trajectoryQueue = new LinkedList<Trajectory>();
-	protected TreeMap<Long, double[]> speedTimeTree = new TreeMap<Long, double[]>((a, b) -> Long.compare(a, b));
-	protected double trajectoryStartLocation = 0;
-	protected long trajectoryStartTime = 0;
+	protected Queue<Trajectory> trajectoryQueue = new ConcurrentLinkedQueue<Trajectory>();
+	// Planned speed and downtrack of the current trajectory, written by the trajectory executor and read by the timing loop
+	protected SpeedHistoryBuffer speedTimeBuffer = new SpeedHistoryBuffer(SPEED_PROFILE_CAPACITY);
+	protected final double[] expectedSpeedAndDistance = new double[2];
+	protected volatile double trajectoryStartLocation = 0;
+	protected volatile long trajectoryStartTime = 0;
 	
 	private static final String CAN_DRIVER_BASE_PATH = "/can/";
 	private static final String STEERING_WHEEL_CAPABILITY = "steering_wheel_angle";
@@ -222,7 +222,7 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
                     Trajectory currentTrajectory = trajectoryQueue.poll();
                     trajectoryStartLocation = currentTrajectory.getStartLocation();
                     trajectoryStartTime = System.currentTimeMillis();
-                    constructSpeedTimeTree(currentTrajectory.getLongitudinalManeuvers());
+                    constructSpeedTimeBuffer(currentTrajectory.getLongitudinalManeuvers());
                     trajectory_start.set(true);
                 }
             }
@@ -233,7 +233,7 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
             @Override
             public void onProgress(double pct) {
                 trajectory_start.set(false);
-                speedTimeTree.clear();
+                speedTimeBuffer.clear();
             }
         });
 
@@ -256,7 +256,7 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
 
         // Reset member variables
         trajectoryQueue.clear();
-        speedTimeTree.clear();
+        speedTimeBuffer.clear();
         trajectoryStartLocation = 0;
         trajectoryStartTime = 0;
 		trajectory_start.set(false);
@@ -306,58 +306,47 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
 		Thread.sleep(Math.max(SLEEP_DURATION - (loop_end - loop_start), 0));
 	}
 
-	private void constructSpeedTimeTree(List<LongitudinalManeuver> maneuvers) {
+	private void constructSpeedTimeBuffer(List<LongitudinalManeuver> maneuvers) {
 		
-		speedTimeTree.clear();
+		speedTimeBuffer.clear();
 		long lastEntryTime = 0;
 		for(int i = 0; i < maneuvers.size(); i++) {
-			// Add the state of the start point of the first maneuver to the tree
+			// Add the state of the start point of the first maneuver to the buffer
 			if(i == 0) {
 				LongitudinalManeuver m = maneuvers.get(0);
-				double[] speedAndDistance = new double[2];
-				speedAndDistance[0] = m.getStartSpeed();
-				speedAndDistance[1] = trajectoryStartLocation;
-				speedTimeTree.put(trajectoryStartTime, speedAndDistance);
+				speedTimeBuffer.add(trajectoryStartTime, m.getStartSpeed(), trajectoryStartLocation);
 				lastEntryTime = trajectoryStartTime;
 			}
-			// Add the state of end points of maneuvers to the tree
+			// Add the state of end points of maneuvers to the buffer
 			LongitudinalManeuver m = maneuvers.get(i);
-			double[] speedAndDistance = new double[2];
-			speedAndDistance[0] = m.getTargetSpeed();
-			speedAndDistance[1] = m.getEndDistance();
-			long durationTime = (long) (Math.abs(m.getStartDistance() - m.getEndDistance()) / (0.5 * (m.getStartSpeed() + m.getTargetSpeed())));
-			long predictFinishTime = lastEntryTime + durationTime * SECONDS_TO_MILLISECONDS;
-			speedTimeTree.put(predictFinishTime, speedAndDistance);
+			double durationTime = Math.abs(m.getStartDistance() - m.getEndDistance()) / (0.5 * (m.getStartSpeed() + m.getTargetSpeed()));
+			if(!Double.isFinite(durationTime) || durationTime < 0) {
+				// The maneuver ends at a stop so later end points can not be predicted
+				break;
+			}
+			long predictFinishTime = lastEntryTime + (long) (durationTime * SECONDS_TO_MILLISECONDS);
+			speedTimeBuffer.add(predictFinishTime, m.getTargetSpeed(), m.getEndDistance());
 			lastEntryTime = predictFinishTime;
 		}
 	}
 	
 	private boolean hasTrajectoryError(long currentT, double currentD, double currentV) {
-		Entry<Long, double[]> floorEntry = speedTimeTree.floorEntry(currentT);
-		Entry<Long, double[]> ceilingEntry = speedTimeTree.ceilingEntry(currentT);
-		if(floorEntry == null || ceilingEntry == null) {
+		if(!speedTimeBuffer.interpolate(currentT, expectedSpeedAndDistance)) {
 			// This means that we are under the control of a complex maneuver and stop tracking errors.
 			return false;
 		}
-		// Calculate current progress percentage in the current maneuver
-		double factor = 1;
-		if(ceilingEntry.getKey() - floorEntry.getKey() != 0) {
-			factor = (currentT - floorEntry.getKey()) / (ceilingEntry.getKey() - floorEntry.getKey());
-		}
 		// Validate current speed with target speed
-		double speedChange = ceilingEntry.getValue()[0] - floorEntry.getValue()[0]; 
-		double targetSpeed = floorEntry.getValue()[0] + factor * speedChange;
+		double targetSpeed = expectedSpeedAndDistance[0];
 		double speed_error = currentV - targetSpeed;
-		log.debug("Current speed error is " + speed_error);
+		log.debug(() -> "Current speed error is " + speed_error);
 		if(Math.abs(speed_error) > speed_error_limit) {
 			log.warn("Speed error " + speed_error + " is larger than its limit!");
 			return true;
 		}
 		// Validate downtrack distance
-		double distanceChange = ceilingEntry.getValue()[1] - floorEntry.getValue()[1];
-		double targetDistance = floorEntry.getValue()[1] + factor * distanceChange;
+		double targetDistance = expectedSpeedAndDistance[1];
 		double distance_error = currentD - targetDistance;
-		log.debug("Current downtrack error is " + distance_error);
+		log.debug(() -> "Current downtrack error is " + distance_error);
 		if(Math.abs(distance_error) > downtrack_error_limit) {
 			log.warn("Distance error: " + distance_error + " is larger than its limit!");
 			return true;
@@ -393,11 +382,13 @@ public class Tracking extends GuidanceComponent implements IStateChangeListener,
 				// No transform so leave the lat/lon/elev marked as unavailable
 				log.info("TRANSFORM", "Could not get transform for BSM");
 			} else {
-				GeodesicCartesianConverter gcc = new GeodesicCartesianConverter();
-				Location loc = gcc.cartesian2Geodesic(new Point3D(0,0,0), earthToHostVehicle);
-				double lat = loc.getLatitude();
-				double Lon = loc.getLongitude();
-				float elev = (float) loc.getAltitude();
+				// The host vehicle origin in the earth frame is the translation of the transform
+				Vector3 hostInEarth = earthToHostVehicle.getTranslation();
+				double[] latLonAlt = new double[3];
+				EcefConverter.WGS84.ecefToGeodesic(hostInEarth.getX(), hostInEarth.getY(), hostInEarth.getZ(), latLonAlt);
+				double lat = latLonAlt[0];
+				double Lon = latLonAlt[1];
+				float elev = (float) latLonAlt[2];
 				if(lat >= BSMCoreData.LATITUDE_MIN && lat <= BSMCoreData.LATITUDE_MAX) {
 					coreData.setLatitude(lat);
 					coreData.setPresenceVector((short)(coreData.getPresenceVector() | BSMCoreData.LATITUDE_AVAILABLE));
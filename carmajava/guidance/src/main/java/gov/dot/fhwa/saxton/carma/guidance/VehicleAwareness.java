@@ -173,12 +173,14 @@ public class VehicleAwareness extends GuidanceComponent implements IStateChangeL
         }
         log.debug("PATH", "    getPathPrediction returning pathPrediction of size " + pathPrediction.size());
 
-        String hostLog = "The host path during request which was current was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n";
-        for (RoutePointStamped rp : pathPrediction) {
-            hostLog = hostLog + rp.getDowntrack() + ", " + rp.getCrosstrack() + ", " + rp.getStamp() + ", "
-                    + rp.getSegmentIdx() + ", " + rp.getSegDowntrack() + "\n";
-        }
-        log.debug(hostLog);
+        log.debug(() -> {
+            StringBuilder hostLog = new StringBuilder("The host path during request which was current was as follows (downtrack, crosstrack, time, segmentIdx, segmentDowntrack)\n");
+            for (RoutePointStamped rp : pathPrediction) {
+                hostLog.append(rp.getDowntrack()).append(", ").append(rp.getCrosstrack()).append(", ").append(rp.getStamp()).append(", ")
+                        .append(rp.getSegmentIdx()).append(", ").append(rp.getSegDowntrack()).append("\n");
+            }
+            return hostLog.toString();
+        });
 
         return pathPrediction;
     }
@@ -23,15 +23,17 @@ import gov.dot.fhwa.saxton.carma.guidance.IStateChangeListener;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IService;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
-import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnServiceResponseCallback;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.TopicNotFoundException;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.ros.node.ConnectedNode;
 import org.ros.node.parameter.ParameterTree;
@@ -45,18 +47,38 @@ import cav_srvs.SetLightsResponse;
 /**
  * Guidance component which exposes control of the light bar to plugins
  * Maintains its own light bar state machine which can be overruled by plugins using a parameter
+ * 
+ * Control of each indicator is held in a slot indexed by the indicator ordinal which is acquired, preempted, and released
+ * with compare and set, so plugins never block each other when requesting or releasing control.
+ * Control lost notifications and set_lights service calls are made from a single worker thread.
+ * Service calls are coalesced so only the latest desired light bar state is sent.
  */
 public class LightBarManager extends GuidanceComponent implements IStateChangeListener, ILightBarManager, ILightBarStateMachine {
  
+  private static final int NUM_INDICATORS = LightBarIndicator.values().length;
+  private static final int LOWEST_PRIORITY = Integer.MAX_VALUE;
+  private static final long LIGHTS_CALL_TIMEOUT_MS = 1000;
+
+  // Light bar state bits
+  private static final int GREEN_SOLID = 1;
+  private static final int GREEN_FLASH = 1 << 1;
+  private static final int YELLOW_FLASH = 1 << 2;
+  private static final int LEFT_ARROW = 1 << 3;
+  private static final int RIGHT_ARROW = 1 << 4;
+  private static final int YELLOW_ALL = YELLOW_FLASH | LEFT_ARROW | RIGHT_ARROW;
+  private static final int GREEN_ALL = GREEN_SOLID | GREEN_FLASH;
+
   private List<String> controlPriorities;
-  private Map<LightBarIndicator, String> lightControlMap = Collections.synchronizedMap(new HashMap<>());
-  private Map<String, ILightBarControlChangeHandler> handlerMap = Collections.synchronizedMap(new HashMap<>());
+  private final Map<String, Integer> priorityRanks = new HashMap<>();
+  private final AtomicReferenceArray<IndicatorOwner> indicatorOwners = new AtomicReferenceArray<>(NUM_INDICATORS);
   private IService<SetLightsRequest, SetLightsResponse> lightBarService;
-  private LightBarStatus statusMsg;
+  private final AtomicInteger desiredLights = new AtomicInteger(0);
+  private final AtomicBoolean lightsUpdatePending = new AtomicBoolean(false);
+  private final ExecutorService notificationExecutor;
   private final String BSM_TOPIC = "bsm";
   private final LightBarStateMachine lightBarStateMachine;
   private final ISubscriber<BSM> bsmTopic;
-  private long lastBSM = 0;
+  private volatile long lastBSM = 0;
   private long TIMEOUT_MS = 1000;
   private AtomicBoolean haveRecentBSM = new AtomicBoolean();
 
@@ -76,6 +98,14 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
     // Echo params
     log.info("Param light_bar_priorities: " + controlPriorities);
     log.info("Param light_bar_comms_timeout: " + TIMEOUT_MS);
+    for (int i = controlPriorities.size() - 1; i >= 0; i--) {
+      priorityRanks.put(controlPriorities.get(i), i); // Iterate backwards so the first occurrence of a component wins
+    }
+    notificationExecutor = Executors.newSingleThreadExecutor((r) -> {
+      Thread t = new Thread(r, "LightBarManagerNotifications");
+      t.setDaemon(true);
+      return t;
+    });
     // Init State Machine
     lightBarStateMachine = new LightBarStateMachine(this);
     // Get incoming bsm topic
@@ -141,7 +171,12 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
   @Override
   public void timingLoop() throws InterruptedException {
     try {
-        Thread.sleep(TIMEOUT_MS);
+        // While BSMs are being received wake up just after the current timeout deadline instead of a full period later
+        long sleepMs = TIMEOUT_MS;
+        if (haveRecentBSM.get()) {
+          sleepMs = Math.max(1, lastBSM + TIMEOUT_MS + 1 - System.currentTimeMillis());
+        }
+        Thread.sleep(sleepMs);
         if (System.currentTimeMillis() - lastBSM > TIMEOUT_MS && lightBarService != null) {
           lightBarStateMachine.next(LightBarEvent.DSRC_MESSAGE_TIMEOUT);
           haveRecentBSM.set(false);
@@ -153,36 +188,64 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
 }
 
   @Override
-  public synchronized List<LightBarIndicator> requestControl(List<LightBarIndicator> indicators, String requestingComponent, ILightBarControlChangeHandler lightBarChangeHandler) {
+  public List<LightBarIndicator> requestControl(List<LightBarIndicator> indicators, String requestingComponent, ILightBarControlChangeHandler lightBarChangeHandler) {
     List<LightBarIndicator> deniedIndicators = new LinkedList<>();
+    final IndicatorOwner requester = new IndicatorOwner(requestingComponent, lightBarChangeHandler, getPriorityRank(requestingComponent));
     // Attempt to acquire control of all indicators
     for (LightBarIndicator indicator: indicators) {
       if (indicator == null) {
         log.warn("Control of a null light bar indicator was requested by " + requestingComponent);
         continue;
       }
-      // Attempt control
-      String controllingComponent = lightControlMap.get(indicator);
-      if (controllingComponent == null) { // If no other component has claimed this indicator
-        // Add new controller
-        lightControlMap.put(indicator, requestingComponent);
-        handlerMap.put(requestingComponent, lightBarChangeHandler);
-      } else if (!controllingComponent.equals(requestingComponent)) { // If this indicator is already controlled
-        // If the requesting component has higher priority it may take control of this indicator
-        if (hasHigherPriority(requestingComponent, controllingComponent)) {
-          // Add new controller
-          lightControlMap.put(indicator, requestingComponent);
-          handlerMap.put(requestingComponent, lightBarChangeHandler);
-          //call handler of previous controller
-          handlerMap.get(controllingComponent).controlLost(indicator);
+      final int slot = indicator.ordinal();
+      // Attempt control. Retry if another component changed the owner of this indicator during the attempt
+      while (true) {
+        IndicatorOwner controller = indicatorOwners.get(slot);
+        if (controller == null) { // If no other component has claimed this indicator
+          if (indicatorOwners.compareAndSet(slot, null, requester)) {
+            break;
+          }
+        } else if (controller.component.equals(requestingComponent)) { // Already in control
+          break;
+        } else if (hasHigherPriority(requester, controller)) {
+          // If the requesting component has higher priority it may take control of this indicator
+          if (indicatorOwners.compareAndSet(slot, controller, requester)) {
+            notifyControlLost(controller, indicator); // Call handler of previous controller
+            break;
+          }
         } else {
           deniedIndicators.add(indicator); // Notify caller of failure to take control of component
+          break;
         }
       }
     }
     return deniedIndicators;
   }
 
+  /**
+   * Helper function which delivers a control lost notification on the notification thread
+   */
+  private void notifyControlLost(IndicatorOwner previousController, LightBarIndicator indicator) {
+    if (previousController.handler == null) {
+      return;
+    }
+    notificationExecutor.execute(() -> {
+      try {
+        previousController.handler.controlLost(indicator);
+      } catch (RuntimeException e) {
+        log.warn("Light bar control lost handler of " + previousController.component + " threw an exception", e);
+      }
+    });
+  }
+
+  /**
+   * Helper function which gets the priority rank of a component. Lower ranks have higher priority.
+   */
+  private int getPriorityRank(String component) {
+    Integer rank = priorityRanks.get(component);
+    return rank == null ? LOWEST_PRIORITY : rank;
+  }
+
   /**
    * Helper function for comparing two light bar controllers
    * 
@@ -191,28 +254,25 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
    * 
    * @return True if the requester has higher priority than the controller
    */
-  private boolean hasHigherPriority(String requester, String controller) {
-    final int requesterPriority = controlPriorities.indexOf(requester);
-    final int controllerPriority = controlPriorities.indexOf(controller);
-
+  private boolean hasHigherPriority(IndicatorOwner requester, IndicatorOwner controller) {
     // Components not in the priority list are assumed to have lowest priority
-    if (requesterPriority < 0) {
-      log.warn(requester + " tried to set the light bar but is not in the priority list");
+    if (requester.priorityRank == LOWEST_PRIORITY) {
+      log.warn(requester.component + " tried to set the light bar but is not in the priority list");
       return false;
-    } else if (controllerPriority < 0) {
-      log.warn(controller + " a component controls the light bar but is not in the priority list");
+    } else if (controller.priorityRank == LOWEST_PRIORITY) {
+      log.warn(controller.component + " a component controls the light bar but is not in the priority list");
       return true; 
     }
-    return requesterPriority < controllerPriority;
+    return requester.priorityRank < controller.priorityRank;
   }
 
   @Override
   public boolean setIndicator(LightBarIndicator indicator, IndicatorStatus status, String requestingComponent) {
-    String controllingComponent = lightControlMap.get(indicator);
+    IndicatorOwner controller = indicatorOwners.get(indicator.ordinal());
     // Check if the requester has control of this light
-    if (controllingComponent != null && !controllingComponent.equals(requestingComponent)) {
+    if (controller != null && !controller.component.equals(requestingComponent)) {
       log.info(requestingComponent + " failed to set the LightBarIndicator " + indicator + 
-      " as this was already controlled by " + controllingComponent);
+      " as this was already controlled by " + controller.component);
       return false;
     }
 
@@ -221,100 +281,116 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
       " as lightBarService was null");
       return false;
     }
-    
-    if (statusMsg == null) {
-      statusMsg = lightBarService.newMessage().getSetState();
-    }
 
-    final String warningString = requestingComponent + " failed to set the LightBarIndicator " + indicator + 
-    " as the status" + status + "was unsupported";
-    // TODO brake this big switch statement out if possible
-    // Set indicator and validate request
-    // TODO brake this big switch statement out if possible
+    // Validate request and find the change it makes to the light bar state
+    final int clearBits;
+    final int setBits;
     switch(status) {
       case FLASH:
         switch(indicator) {
           case GREEN:
-            statusMsg.setGreenFlash(LightBarStatus.ON);
-            statusMsg.setGreenSolid(LightBarStatus.OFF);
+            clearBits = GREEN_SOLID;
+            setBits = GREEN_FLASH;
             break;
           case YELLOW:
-            statusMsg.setFlash(LightBarStatus.ON);
-            statusMsg.setLeftArrow(LightBarStatus.OFF);
-            statusMsg.setRightArrow(LightBarStatus.OFF);
+            clearBits = LEFT_ARROW | RIGHT_ARROW;
+            setBits = YELLOW_FLASH;
             break;
           default:
-            log.warn(warningString);
-            return false;
+            return unsupportedStatus(indicator, status, requestingComponent);
         }
         break;
       case LEFT_ARROW:
         if (indicator != LightBarIndicator.YELLOW) {
-          log.warn(warningString);
-          return false;
+          return unsupportedStatus(indicator, status, requestingComponent);
         }
-        statusMsg.setFlash(LightBarStatus.OFF);
-        statusMsg.setRightArrow(LightBarStatus.OFF);
-        statusMsg.setLeftArrow(LightBarStatus.ON);
+        clearBits = YELLOW_FLASH | RIGHT_ARROW;
+        setBits = LEFT_ARROW;
         break;
       case RIGHT_ARROW:
         if (indicator != LightBarIndicator.YELLOW) {
-          log.warn(warningString);
-          return false;
+          return unsupportedStatus(indicator, status, requestingComponent);
         }
-        statusMsg.setFlash(LightBarStatus.OFF);
-        statusMsg.setRightArrow(LightBarStatus.ON); 
-        statusMsg.setLeftArrow(LightBarStatus.OFF);
+        clearBits = YELLOW_FLASH | LEFT_ARROW;
+        setBits = RIGHT_ARROW;
         break;
       case SOLID: 
         if (indicator != LightBarIndicator.GREEN) {
-          log.warn(warningString);
-          return false;
+          return unsupportedStatus(indicator, status, requestingComponent);
         }
-        statusMsg.setGreenSolid(LightBarStatus.ON);
-        statusMsg.setGreenFlash(LightBarStatus.OFF); 
+        clearBits = GREEN_FLASH;
+        setBits = GREEN_SOLID;
         break;
       case OFF:
         switch(indicator) {
           case GREEN:
-            statusMsg.setGreenSolid(LightBarStatus.OFF);
-            statusMsg.setGreenFlash(LightBarStatus.OFF);
+            clearBits = GREEN_ALL;
+            setBits = 0;
             break;
           case YELLOW:
-            statusMsg.setLeftArrow(LightBarStatus.OFF);
-            statusMsg.setRightArrow(LightBarStatus.OFF);
-            statusMsg.setFlash(LightBarStatus.OFF);
+            clearBits = YELLOW_ALL;
+            setBits = 0;
             break;
           default:
-            log.warn(warningString);
-            return false;
+            return unsupportedStatus(indicator, status, requestingComponent);
         }
         break;
       default:
-        log.warn(warningString);
-        return false;
+        return unsupportedStatus(indicator, status, requestingComponent);
     }
-    // Take down state is currently unsupported
-    statusMsg.setTakedown(LightBarStatus.OFF);
-    // Publish new status
-    SetLightsRequest req = lightBarService.newMessage();
-    req.setSetState(statusMsg);
-    lightBarService.call(req, new OnServiceResponseCallback<SetLightsResponse>() {
-
-      @Override
-      public void onSuccess(SetLightsResponse msg) {
-        log.info("Set light bar for " + requestingComponent + " for LightBarIndicator " + indicator + 
-        " with status " + status);
-      }
 
-      @Override
-      public void onFailure(Exception e) {
-        log.warn("Failed to set light bar for " + requestingComponent + " for LightBarIndicator " + indicator + 
-        " with status" + status + " due to service call error");
-      }
+    desiredLights.updateAndGet((lights) -> (lights & ~clearBits) | setBits);
+    log.debug("LightBarIndicator " + indicator + " set to " + status + " by " + requestingComponent);
+    requestLightsUpdate();
+    return true;
+  }
+
+  private boolean unsupportedStatus(LightBarIndicator indicator, IndicatorStatus status, String requestingComponent) {
+    log.warn(requestingComponent + " failed to set the LightBarIndicator " + indicator + 
+    " as the status" + status + "was unsupported");
+    return false;
+  }
 
+  /**
+   * Schedules a set_lights service call unless one is already pending.
+   * The pending call sends the desired state at the time it runs, so rapid changes are coalesced into one call.
+   */
+  private void requestLightsUpdate() {
+    if (!lightsUpdatePending.compareAndSet(false, true)) {
+      return;
+    }
+    notificationExecutor.execute(() -> {
+      lightsUpdatePending.set(false);
+      final int lights = desiredLights.get();
+      // A new message is built for each call as messages are serialized after the call returns
+      SetLightsRequest req = lightBarService.newMessage();
+      LightBarStatus statusMsg = req.getSetState();
+      statusMsg.setGreenSolid(lightStatus(lights, GREEN_SOLID));
+      statusMsg.setGreenFlash(lightStatus(lights, GREEN_FLASH));
+      statusMsg.setFlash(lightStatus(lights, YELLOW_FLASH));
+      statusMsg.setLeftArrow(lightStatus(lights, LEFT_ARROW));
+      statusMsg.setRightArrow(lightStatus(lights, RIGHT_ARROW));
+      // Take down state is currently unsupported
+      statusMsg.setTakedown(LightBarStatus.OFF);
+      // Publish new status
+      lightBarService.callAsync(req, LIGHTS_CALL_TIMEOUT_MS).whenComplete((msg, error) -> {
+        if (error == null) {
+          log.info("Set light bar state to " + describeLights(lights));
+        } else {
+          log.warn("Failed to set light bar state to " + describeLights(lights) + " due to service call error");
+        }
+      });
     });
-    return true;
+  }
+
+  private static byte lightStatus(int lights, int bit) {
+    return (lights & bit) != 0 ? LightBarStatus.ON : LightBarStatus.OFF;
+  }
+
+  private static String describeLights(int lights) {
+    return "[greenSolid=" + ((lights & GREEN_SOLID) != 0) + ", greenFlash=" + ((lights & GREEN_FLASH) != 0)
+      + ", flash=" + ((lights & YELLOW_FLASH) != 0) + ", leftArrow=" + ((lights & LEFT_ARROW) != 0)
+      + ", rightArrow=" + ((lights & RIGHT_ARROW) != 0) + "]";
   }
 
   /**
@@ -330,28 +406,38 @@ public class LightBarManager extends GuidanceComponent implements IStateChangeLi
   }
 
   @Override
-  public synchronized void releaseControl(List<LightBarIndicator> indicators, String requestingComponent) {
+  public void releaseControl(List<LightBarIndicator> indicators, String requestingComponent) {
 
     for (LightBarIndicator indicator: indicators) {
       if (indicator == null) {
         log.warn("Tried to release control of null indicator for " + requestingComponent);
         continue;
       }
-      // Release control
-      String controllingComponent = lightControlMap.get(indicator);
-      // If the requester controls this indicator
-      if (controllingComponent != null && controllingComponent.equals(requestingComponent)) { 
-        // Remove control
-        lightControlMap.remove(indicator);
-        // Check if the requesting component still controls any indicators
-        // Remove the handler if it does
-        if (!lightControlMap.containsValue(requestingComponent)) {
-          handlerMap.remove(requestingComponent);
-        }
+      // Release control if the requester controls this indicator
+      // A failed compare and set means another component has since taken control
+      final int slot = indicator.ordinal();
+      IndicatorOwner controller = indicatorOwners.get(slot);
+      if (controller != null && controller.component.equals(requestingComponent)) { 
+        indicatorOwners.compareAndSet(slot, controller, null);
       }
     }
   }
 
+  /**
+   * Immutable record of the component controlling an indicator
+   */
+  private static final class IndicatorOwner {
+    private final String component;
+    private final ILightBarControlChangeHandler handler;
+    private final int priorityRank;
+
+    IndicatorOwner(String component, ILightBarControlChangeHandler handler, int priorityRank) {
+      this.component = component;
+      this.handler = handler;
+      this.priorityRank = priorityRank;
+    }
+  }
+
   /*
     * This method add the right job in the jobQueue base on the instruction given by GuidanceStateMachine
     * The actual changing of GuidanceState local copy is happened when each job is performed
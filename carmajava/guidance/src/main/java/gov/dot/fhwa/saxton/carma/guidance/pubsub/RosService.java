@@ -18,6 +18,8 @@ package gov.dot.fhwa.saxton.carma.guidance.pubsub;
 
 import gov.dot.fhwa.saxton.carma.rosutils.*;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.ros.exception.RemoteException;
 import org.ros.internal.node.response.StatusCode;
 import org.ros.node.service.ServiceClient;
@@ -27,8 +29,8 @@ import org.ros.node.service.ServiceResponseListener;
  * Concrete ROS implementation of the logic outlined in {@link IService}
  *
  * Shares a {@link ServiceClient} between its coworkers (other RosService instances for the same
- * topic) and its parent {@link RosServiceChannel}. Passes all service calls up to it's parent for execution in a single
- * threaded manner to avoid data race conditions.
+ * topic) and its parent {@link RosServiceChannel}. Passes all service calls up to it's parent, which sends them to the
+ * shared client in order to avoid data race conditions.
  * 
  * @param <T> Type parameter for the request message type for the service
  * @param <S> Type parameter for the response message type for the service
@@ -50,6 +52,16 @@ public class RosService<T, S> implements IService<T, S> {
         }
     }
 
+    @Override
+    public CompletableFuture<S> callAsync(T request, long timeoutMs) {
+        if (open) {
+            return parent.submitAsync(request, timeoutMs);
+        }
+        CompletableFuture<S> closed = new CompletableFuture<>();
+        closed.completeExceptionally(new RemoteException(StatusCode.FAILURE, "Service resource has already been closed!"));
+        return closed;
+    }
+
     @Override
     public T newMessage() {
         return parent.newMessage();
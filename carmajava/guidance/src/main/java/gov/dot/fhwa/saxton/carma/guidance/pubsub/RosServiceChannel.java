@@ -16,60 +16,97 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.pubsub;
 
-import org.ros.exception.RemoteException;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.ros.internal.message.DefaultMessageSerializer;
+import org.ros.internal.message.Message;
+import org.ros.internal.message.MessageBuffers;
 import org.ros.node.service.ServiceClient;
-import org.ros.node.service.ServiceResponseListener;
 
-import gov.dot.fhwa.saxton.carma.rosutils.RosServiceResult;
 import gov.dot.fhwa.saxton.carma.rosutils.RosServiceSynchronizer;
-import javassist.bytecode.analysis.ControlFlow.Block;
 
-import java.util.concurrent.BlockingQueue;
+import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Concrete ROS implementation of the logic outlined in {@link IServiceChannel}
  *
  * Shares access to a {@link ServiceClient} created by an {@link IServiceChannelFactory} between
  * any number of child {@link RosService} instances
+ * <p>
+ * Calls are sent without waiting for earlier calls to complete. The ServiceClient matches responses to calls in the
+ * order the calls were sent, so sending is serialized on the client. Responses, deadlines and dependent actions are
+ * handled on a small executor shared by all channels. Identical requests which are already in flight are joined
+ * rather than sent again, and a {@link ServiceCircuitBreaker} stops calls to a service which keeps failing.
+ * <p>
+ * Every sent call has a deadline, callTimeoutMs unless the caller asks for one, so its outcome always reaches the
+ * circuit breaker. Blocking calls wait at most callTimeoutMs for a response. They are rejected when made on the shared
+ * executor, since a blocked executor thread could keep the response and the deadline itself from ever being handled.
+ *
  * @param <T> Type parameter for the service request message
  * @param <S> Type parameter for the service response message
  */
 public class RosServiceChannel<T, S> implements IServiceChannel<T, S> {
+    protected static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    protected static final long CIRCUIT_OPEN_DURATION_MS = 2000;
+    protected static final int SHARED_EXECUTOR_THREADS = 2;
+    protected static final long DEFAULT_CALL_TIMEOUT_MS = 5000;
+
+    protected static final ScheduledThreadPoolExecutor sharedExecutor = newSharedExecutor();
+
     protected int numOpenChannels = 0;
     protected boolean open = true;
     protected ServiceClient<T, S> serviceClient;
-    protected BlockingQueue<ServiceTask> tasks;
-    protected Thread workerThread;
-
-    protected class ServiceTask {
-        protected T request;
-        protected ServiceResponseListener<S> callback;
-    }
-
-    protected class ServiceWorker implements Runnable {
-		@Override
-		public void run() {
-            // Spin on the task queue and run the tasks in order, waiting for each response in turn
-            while (!Thread.interrupted()) {
-                try {
-                    ServiceTask task = tasks.take();
-                    RosServiceSynchronizer.callSync(serviceClient, task.request, task.callback);
-                } catch (InterruptedException e) {
-                }
-            }
-		}
-    }
+    // Keyed by a snapshot of the request, see keyOf
+    protected final ConcurrentMap<RequestKey, CompletableFuture<S>> inFlight = new ConcurrentHashMap<>();
+    protected final ServiceCircuitBreaker circuitBreaker;
+    protected final AtomicLong joinedCalls = new AtomicLong(0);
+    protected final long callTimeoutMs;
 
     RosServiceChannel(ServiceClient<T, S> serviceClient) {
+        this(serviceClient, CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_DURATION_MS, DEFAULT_CALL_TIMEOUT_MS);
+    }
+
+    RosServiceChannel(ServiceClient<T, S> serviceClient, int failureThreshold, long openDurationMs) {
+        this(serviceClient, failureThreshold, openDurationMs, DEFAULT_CALL_TIMEOUT_MS);
+    }
+
+    RosServiceChannel(ServiceClient<T, S> serviceClient, int failureThreshold, long openDurationMs,
+        long callTimeoutMs) {
         this.serviceClient = serviceClient;
-        this.tasks = new LinkedBlockingQueue<>();
-        this.workerThread = new Thread(new ServiceWorker());
-        this.workerThread.setName(this.getClass().getSimpleName() + "ServiceWorkerThread");
-        workerThread.start();
+        this.circuitBreaker = new ServiceCircuitBreaker(failureThreshold, openDurationMs);
+        this.callTimeoutMs = callTimeoutMs;
+    }
+
+    /**
+     * Thread type of the shared executor, so blocking calls made from it can be detected
+     */
+    private static final class SharedExecutorThread extends Thread {
+        SharedExecutorThread(Runnable r, String name) {
+            super(r, name);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newSharedExecutor() {
+        final AtomicInteger count = new AtomicInteger(0);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(SHARED_EXECUTOR_THREADS, r -> {
+            Thread t = new SharedExecutorThread(r, "RosServiceChannelExecutor" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Deadlines are cancelled when calls complete, so drop them from the queue right away
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
     }
 
     /**
@@ -110,31 +147,188 @@ public class RosServiceChannel<T, S> implements IServiceChannel<T, S> {
         return numOpenChannels;
     }
 
+    /**
+     * Get the number of calls which joined an identical call already in flight instead of being sent
+     */
+    public long getJoinedCallCount() {
+        return joinedCalls.get();
+    }
+
+    /**
+     * Get the number of calls rejected because the service kept failing
+     */
+    public long getRejectedCallCount() {
+        return circuitBreaker.getRejectedCount();
+    }
+
+    /**
+     * Call the service and wait at most callTimeoutMs for the outcome, executing the callback on the calling thread
+     */
     protected void submitCall(T request, OnServiceResponseCallback<S> callback) {
-        CompletableFuture<Void> blocker = new CompletableFuture<>();
-        ServiceTask t = new ServiceTask();
-        t.request = request;
-        t.callback = new ServiceResponseListener<S>() {
-			@Override
-			public void onFailure(RemoteException arg0) {
-                callback.onFailure(arg0);
-                blocker.complete(null);
-			}
-			@Override
-			public void onSuccess(S arg0) {
-				callback.onSuccess(arg0);
-                blocker.complete(null);
-			}
-        };
-
-		try {
-			tasks.put(t);
-            blocker.get();
-		} catch (InterruptedException e) {
+        if (Thread.currentThread() instanceof SharedExecutorThread) {
+            callback.onFailure(new IllegalStateException("Blocking call to service " + serviceClient.getName()
+                + " made from a service response handler. Use callAsync instead"));
+            return;
+        }
+
+        S response;
+        try {
+            response = submitAsync(request, callTimeoutMs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         } catch (ExecutionException e) {
-		}
+            callback.onFailure(asException(e.getCause()));
+            return;
+        }
+        callback.onSuccess(response);
     }
-    
+
+    /**
+     * Call the service without blocking. See {@link IService#callAsync(Object, long)}
+     */
+    protected CompletableFuture<S> submitAsync(T request, long timeoutMs) {
+        CompletableFuture<S> result = new CompletableFuture<>();
+        if (!circuitBreaker.allowRequest(currentTimeMillis())) {
+            result.completeExceptionally(
+                new ServiceUnavailableException("Service " + serviceClient.getName() + " is failing, call rejected"));
+            return result;
+        }
+
+        final RequestKey key = keyOf(request);
+        CompletableFuture<S> call = new CompletableFuture<>();
+        CompletableFuture<S> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            // Join the identical call, but still honor this caller's deadline
+            joinedCalls.incrementAndGet();
+            existing.whenComplete((response, error) -> complete(result, response, error));
+            scheduleDeadline(result, timeoutMs);
+            return result;
+        }
+
+        final CompletableFuture<S> sentCall = call;
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        // A call without a deadline could leave a half open circuit breaker waiting for its outcome forever
+        final long sentTimeoutMs = (timeoutMs > 0) ? timeoutMs : callTimeoutMs;
+        ScheduledFuture<?> deadline = sharedExecutor.schedule(() -> {
+            finishCall(key, sentCall, finished, null,
+                new TimeoutException("Service call timed out after " + sentTimeoutMs + " ms"));
+        }, sentTimeoutMs, TimeUnit.MILLISECONDS);
+        sentCall.whenComplete((r, error) -> deadline.cancel(false));
+
+        CompletableFuture<S> response;
+        try {
+            // Calls must reach the client in the same order as their response listeners
+            synchronized (serviceClient) {
+                response = RosServiceSynchronizer.callFuture(serviceClient, request);
+            }
+        } catch (RuntimeException e) {
+            finishCall(key, sentCall, finished, null, e);
+            return sentCall;
+        }
+        // Move completion off the ROS thread so dependent actions can not stall it
+        response.whenCompleteAsync((r, error) -> finishCall(key, sentCall, finished, r, error), sharedExecutor);
+        return sentCall;
+    }
+
+    /**
+     * Completes a sent call with its response or the first error, whichever happens first. The outcome is recorded
+     * and the call removed from the in flight calls before any caller sees it complete.
+     */
+    private void finishCall(RequestKey key, CompletableFuture<S> call, AtomicBoolean finished, S response,
+        Throwable error) {
+        // Only the first outcome for a call counts, so a late response after a deadline is ignored
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        inFlight.remove(key, call);
+        if (error == null) {
+            circuitBreaker.recordSuccess();
+        } else {
+            circuitBreaker.recordFailure(currentTimeMillis());
+        }
+        complete(call, response, error);
+    }
+
+    /**
+     * Returns the key identifying identical requests in flight. ROS messages are keyed by their serialized content,
+     * so changes the caller makes to the message after the call can not change the key of the sent call.
+     */
+    private RequestKey keyOf(T request) {
+        if (request instanceof Message) {
+            ChannelBuffer buffer = MessageBuffers.dynamicBuffer();
+            new DefaultMessageSerializer().serialize((Message) request, buffer);
+            byte[] content = new byte[buffer.readableBytes()];
+            buffer.readBytes(content);
+            return new RequestKey(ByteBuffer.wrap(content));
+        }
+        return new RequestKey(request);
+    }
+
+    /**
+     * Key of an in flight call. The hash is fixed when the call is sent, so the call can always be removed again
+     * even if a request which is not a ROS message is modified afterwards.
+     */
+    protected static final class RequestKey {
+        private final Object content;
+        private final int hash;
+
+        RequestKey(Object content) {
+            this.content = content;
+            this.hash = content.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) o;
+            return hash == other.hash && content.equals(other.content);
+        }
+    }
+
+    private static void scheduleDeadline(CompletableFuture<?> future, long timeoutMs) {
+        if (timeoutMs <= 0 || future.isDone()) {
+            return;
+        }
+        ScheduledFuture<?> deadline = sharedExecutor.schedule(() -> {
+            future.completeExceptionally(new TimeoutException("Service call timed out after " + timeoutMs + " ms"));
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((r, error) -> deadline.cancel(false));
+    }
+
+    private static <S> void complete(CompletableFuture<S> future, S response, Throwable error) {
+        if (error == null) {
+            future.complete(response);
+        } else {
+            future.completeExceptionally(unwrap(error));
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private static Exception asException(Throwable error) {
+        return error instanceof Exception ? (Exception) error : new RuntimeException(error);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
     protected T newMessage() {
         return serviceClient.newMessage();
     }
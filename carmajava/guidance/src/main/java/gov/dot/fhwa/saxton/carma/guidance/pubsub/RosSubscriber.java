@@ -32,7 +32,8 @@ import gov.dot.fhwa.saxton.carma.guidance.*;
 public class RosSubscriber<T> implements ISubscriber<T> {
     protected Subscriber<T> subscriber;
     protected RosSubscriptionChannel<T> parent;
-    protected T lastMessage = null;
+    // Sequence number of the last message on the topic before this subscriber was created
+    protected final long startSequence;
     protected GuidanceExceptionHandler exceptionHandler;
     protected List<MessageListener<T>> listeners = new LinkedList<>();
 
@@ -40,16 +41,30 @@ public class RosSubscriber<T> implements ISubscriber<T> {
         this.subscriber = subscriber;
         this.parent = parent;
         this.exceptionHandler = exceptionHandler;
-
-        subscriber.addMessageListener(new MessageListener<T>() {
-            @Override public void onNewMessage(T t) {
-                lastMessage = t;
-            }
-        });
+        this.startSequence = parent.getLastSequence();
     }
 
     @Override public T getLastMessage() {
-        return lastMessage;
+        MessageSample<T> sample = getLastSample();
+        return sample != null ? sample.getMessage() : null;
+    }
+
+    @Override public MessageSample<T> getLastSample() {
+        // Only expose messages received after this subscriber was created
+        MessageSample<T> sample = parent.getLastSample();
+        return (sample != null && sample.isNewerThan(startSequence)) ? sample : null;
+    }
+
+    @Override public double getMessageRate() {
+        return parent.getMessageRate();
+    }
+
+    @Override public long getTimeSinceLastMessage() {
+        return parent.getTimeSinceLastMessage();
+    }
+
+    @Override public long getStaleCount() {
+        return parent.getStaleCount();
     }
 
     @Override public void registerOnMessageCallback(final OnMessageCallback<T> callback) {
@@ -16,6 +16,9 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.pubsub;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.ros.message.MessageListener;
 import org.ros.node.topic.Subscriber;
 import gov.dot.fhwa.saxton.carma.guidance.*;
 
@@ -24,6 +27,9 @@ import gov.dot.fhwa.saxton.carma.guidance.*;
  * <p>
  * Responsible for keeping track of the subscription channel resources associated with any number of ISubscriptionChannels
  * for a given topic.
+ * <p>
+ * A single listener records each message received on the topic as a {@link MessageSample} in an atomic reference
+ * shared by all subscribers, along with the message rate and staleness statistics for the topic. Readers never lock.
  *
  * @param <T> Type parameter for the message of the topic
  */
@@ -33,9 +39,91 @@ public class RosSubscriptionChannel<T> implements ISubscriptionChannel<T> {
     protected Subscriber<T> subscriber;
     protected GuidanceExceptionHandler exceptionHandler;
 
+    // Weight of the newest inter-arrival period in the average period
+    protected static final double PERIOD_SMOOTHING = 0.1;
+    // A gap longer than this multiple of the average period counts as stale
+    protected static final double STALE_PERIOD_FACTOR = 3.0;
+    // Number of periods which must be observed before gaps are judged against the average
+    protected static final int MIN_PERIODS_FOR_STALENESS = 3;
+
+    protected final AtomicReference<MessageSample<T>> lastSample = new AtomicReference<>(null);
+    // Statistics are only written by the listener thread and read without locks by subscribers
+    protected volatile double averagePeriodMs = 0.0;
+    protected volatile long staleCount = 0;
+
     RosSubscriptionChannel(Subscriber<T> subscriber, GuidanceExceptionHandler exceptionHandler) {
         this.subscriber = subscriber;
         this.exceptionHandler = exceptionHandler;
+
+        subscriber.addMessageListener(new MessageListener<T>() {
+            @Override public void onNewMessage(T t) {
+                onMessage(t);
+            }
+        });
+    }
+
+    /**
+     * Records a message received on the topic and updates the topic statistics
+     */
+    protected void onMessage(T msg) {
+        long now = currentTimeMillis();
+        MessageSample<T> prev = lastSample.get();
+        long sequence = 1;
+        if (prev != null) {
+            sequence = prev.getSequence() + 1;
+            double period = Math.max(0, now - prev.getReceiveTime());
+            double avg = averagePeriodMs;
+            if (sequence > MIN_PERIODS_FOR_STALENESS + 1 && period > STALE_PERIOD_FACTOR * avg) {
+                staleCount++;
+            }
+            averagePeriodMs = (prev.getSequence() == 1) ? period : avg + PERIOD_SMOOTHING * (period - avg);
+        }
+        lastSample.set(new MessageSample<>(msg, sequence, now));
+    }
+
+    /**
+     * @return The current time in ms since the epoch
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @return The last message received on the topic or null if none has been received
+     */
+    public MessageSample<T> getLastSample() {
+        return lastSample.get();
+    }
+
+    /**
+     * @return The sequence number of the last message received on the topic or 0 if none has been received
+     */
+    public long getLastSequence() {
+        MessageSample<T> sample = lastSample.get();
+        return sample != null ? sample.getSequence() : 0;
+    }
+
+    /**
+     * @return The average message rate on the topic in Hz or 0 if fewer than two messages have been received
+     */
+    public double getMessageRate() {
+        double avg = averagePeriodMs;
+        return avg > 0.0 ? 1000.0 / avg : 0.0;
+    }
+
+    /**
+     * @return The time since the last message was received in ms or -1 if none has been received
+     */
+    public long getTimeSinceLastMessage() {
+        MessageSample<T> sample = lastSample.get();
+        return sample != null ? Math.max(0, currentTimeMillis() - sample.getReceiveTime()) : -1;
+    }
+
+    /**
+     * @return The number of messages which arrived more than STALE_PERIOD_FACTOR average periods after the previous one
+     */
+    public long getStaleCount() {
+        return staleCount;
     }
 
     /**
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.pubsub;
+
+/**
+ * Package private class for use in the RosServiceChannel
+ * <p>
+ * Tracks the outcome of calls to a service and stops calls from being sent once the service has failed
+ * failureThreshold times in a row. After openDurationMs a single trial call is let through. If it succeeds the
+ * service is considered healthy again, otherwise calls are blocked for another openDurationMs.
+ */
+class ServiceCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private long rejectedCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param failureThreshold The number of consecutive failures after which calls are blocked
+     * @param openDurationMs The time in ms to block calls before a trial call is allowed
+     */
+    ServiceCircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Check whether a call may be sent
+     *
+     * @param now The current time in ms
+     * @return True if the call may be sent. False if it should be rejected
+     */
+    synchronized boolean allowRequest(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt >= openDurationMs) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                break;
+            case HALF_OPEN:
+                // Only the trial call is allowed until its outcome is known, every sent call has a deadline
+                break;
+        }
+        rejectedCount++;
+        return false;
+    }
+
+    /**
+     * Record a successful call
+     */
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Record a failed call
+     *
+     * @param now The current time in ms
+     */
+    synchronized void recordFailure(long now) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable index of route attributes sorted by downtrack location.
+ * <p>
+ * Locations are held in a primitive array so point queries are a binary search, and range queries return
+ * lightweight {@link SortedSet} views over a slice of the index instead of building a new set on each call.
+ * A view copies its slice into a private TreeSet the first time it is modified, so callers which add to a
+ * returned range never affect the index or other views.
+ *
+ * @param <T> The attribute type
+ */
+public final class DowntrackIndex<T> {
+
+  private final Object[] items;
+  private final double[] locations;
+  private final ToDoubleFunction<T> locationFunction;
+  private final Comparator<T> comparator;
+
+  /**
+   * Constructor
+   *
+   * @param sorted The attributes in increasing location order. Locations must be unique, as in a set ordered by location.
+   * @param locationFunction Function which returns the downtrack location of an attribute
+   */
+  public DowntrackIndex(Collection<T> sorted, ToDoubleFunction<T> locationFunction) {
+    this.items = sorted.toArray();
+    this.locations = new double[items.length];
+    for (int i = 0; i < items.length; i++) {
+      locations[i] = locationFunction.applyAsDouble(item(i));
+    }
+    this.locationFunction = locationFunction;
+    this.comparator = (a, b) -> Double.compare(locationFunction.applyAsDouble(a), locationFunction.applyAsDouble(b));
+  }
+
+  /**
+   * @return The number of attributes in the index
+   */
+  public int size() {
+    return items.length;
+  }
+
+  /**
+   * @param i The index of an attribute
+   * @return The attribute at the provided index
+   */
+  public T get(int i) {
+    return item(i);
+  }
+
+  /**
+   * Gets the index of the first attribute whose location is greater than or equal to the provided location
+   *
+   * @param location The downtrack location in m
+   * @return The index or size() if there is no such attribute
+   */
+  public int firstAtOrAfter(double location) {
+    int lo = 0;
+    int hi = locations.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (locations[mid] < location) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Gets the index of the first attribute whose location is strictly greater than the provided location
+   *
+   * @param location The downtrack location in m
+   * @return The index or size() if there is no such attribute
+   */
+  public int firstAfter(double location) {
+    int lo = 0;
+    int hi = locations.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (locations[mid] <= location) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Gets the first attribute whose location is greater than or equal to the provided location
+   *
+   * @param location The downtrack location in m
+   * @return The attribute or null if there is no such attribute
+   */
+  public T atOrAfter(double location) {
+    int i = firstAtOrAfter(location);
+    return i < items.length ? item(i) : null;
+  }
+
+  /**
+   * Gets a view of the attributes with locations in (start, end]
+   *
+   * @param start The exclusive start location in m
+   * @param end The inclusive end location in m
+   * @return A sorted view of the attributes in range
+   */
+  public SortedSet<T> range(double start, double end) {
+    int from = firstAfter(start);
+    return view(from, Math.max(from, firstAfter(end)));
+  }
+
+  /**
+   * Gets a view of a contiguous slice of this index
+   *
+   * @param from The first index included in the view
+   * @param to One past the last index included in the view
+   * @return The view
+   */
+  public SortedSet<T> view(int from, int to) {
+    return new View(from, to);
+  }
+
+  @SuppressWarnings("unchecked")
+  private T item(int i) {
+    return (T) items[i];
+  }
+
+  /**
+   * Copy on write sorted view over a slice of the index
+   */
+  private final class View extends AbstractSet<T> implements SortedSet<T> {
+    private final int from;
+    private final int to;
+    private TreeSet<T> copy; // Created on first modification
+
+    View(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    private TreeSet<T> mutable() {
+      if (copy == null) {
+        copy = new TreeSet<>(comparator);
+        for (int i = from; i < to; i++) {
+          copy.add(item(i));
+        }
+      }
+      return copy;
+    }
+
+    @Override public Iterator<T> iterator() {
+      if (copy != null) {
+        return copy.iterator();
+      }
+      return new Iterator<T>() {
+        private int i = from;
+
+        @Override public boolean hasNext() {
+          return i < to;
+        }
+
+        @Override public T next() {
+          if (i >= to) {
+            throw new NoSuchElementException();
+          }
+          return item(i++);
+        }
+      };
+    }
+
+    @Override public int size() {
+      return copy != null ? copy.size() : to - from;
+    }
+
+    @Override public boolean add(T t) {
+      return mutable().add(t);
+    }
+
+    @Override public boolean addAll(Collection<? extends T> c) {
+      return mutable().addAll(c);
+    }
+
+    @Override public boolean remove(Object o) {
+      return mutable().remove(o);
+    }
+
+    @Override public boolean removeAll(Collection<?> c) {
+      return mutable().removeAll(c);
+    }
+
+    @Override public boolean retainAll(Collection<?> c) {
+      return mutable().retainAll(c);
+    }
+
+    @Override public boolean removeIf(Predicate<? super T> filter) {
+      return mutable().removeIf(filter);
+    }
+
+    @Override public void clear() {
+      mutable().clear();
+    }
+
+    @Override public Comparator<? super T> comparator() {
+      return comparator;
+    }
+
+    @Override public SortedSet<T> subSet(T fromElement, T toElement) {
+      if (copy != null) {
+        return copy.subSet(fromElement, toElement);
+      }
+      int start = clamp(firstAtOrAfter(locationFunction.applyAsDouble(fromElement)));
+      return view(start, Math.max(start, clamp(firstAtOrAfter(locationFunction.applyAsDouble(toElement)))));
+    }
+
+    @Override public SortedSet<T> headSet(T toElement) {
+      if (copy != null) {
+        return copy.headSet(toElement);
+      }
+      return view(from, clamp(firstAtOrAfter(locationFunction.applyAsDouble(toElement))));
+    }
+
+    @Override public SortedSet<T> tailSet(T fromElement) {
+      if (copy != null) {
+        return copy.tailSet(fromElement);
+      }
+      return view(clamp(firstAtOrAfter(locationFunction.applyAsDouble(fromElement))), to);
+    }
+
+    @Override public T first() {
+      if (copy != null) {
+        return copy.first();
+      }
+      if (from == to) {
+        throw new NoSuchElementException();
+      }
+      return item(from);
+    }
+
+    @Override public T last() {
+      if (copy != null) {
+        return copy.last();
+      }
+      if (from == to) {
+        throw new NoSuchElementException();
+      }
+      return item(to - 1);
+    }
+
+    private int clamp(int i) {
+      return Math.min(Math.max(i, from), to);
+    }
+  }
+}
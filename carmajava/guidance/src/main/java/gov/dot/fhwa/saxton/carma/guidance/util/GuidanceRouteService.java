@@ -42,6 +42,12 @@ public class GuidanceRouteService implements RouteService {
   protected SortedSet<SpeedLimit> limits;
   protected SortedSet<AlgorithmFlags> disabledAlgorithms;
   protected SortedSet<RequiredLane> requiredLanes;
+  // Downtrack sorted indexes rebuilt on each route for O(log n) queries
+  protected DowntrackIndex<SpeedLimit> limitIndex = new DowntrackIndex<>(Collections.<SpeedLimit>emptyList(), SpeedLimit::getLocation);
+  protected DowntrackIndex<AlgorithmFlags> flagIndex = new DowntrackIndex<>(Collections.<AlgorithmFlags>emptyList(), AlgorithmFlags::getLocation);
+  protected DowntrackIndex<RequiredLane> requiredLaneIndex = new DowntrackIndex<>(Collections.<RequiredLane>emptyList(), RequiredLane::getLocation);
+  protected RouteSegment[] segments = new RouteSegment[0];
+  protected double[] segmentEnds = new double[0]; // Downtrack location of the end of each segment
   protected List<Consumer<cav_msgs.Route>> routeCallbacks = Collections.synchronizedList(new ArrayList<>());
   protected List<Consumer<cav_msgs.RouteState>> routeStateCallbacks = Collections.synchronizedList(new ArrayList<>());
 
@@ -84,12 +90,16 @@ public class GuidanceRouteService implements RouteService {
     disabledAlgorithms = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
     requiredLanes = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
 
+    RouteSegment[] segs = currentRoute.getSegments().toArray(new RouteSegment[0]);
+    double[] ends = new double[segs.length];
+    int segIdx = 0;
     double dtdAccum = 0;
     for (RouteSegment seg : currentRoute.getSegments()) {
       RequiredLane requiredLane = new RequiredLane(dtdAccum, seg.getDowntrackWaypoint().getRequiredLaneIndex());
       requiredLanes.add(requiredLane);
 
       dtdAccum += seg.length();
+      ends[segIdx++] = dtdAccum;
 
       SpeedLimit segmentLimit = new SpeedLimit(dtdAccum, convertMphToMps(seg.getDowntrackWaypoint().getUpperSpeedLimit()));
       limits.add(segmentLimit);
@@ -112,6 +122,12 @@ public class GuidanceRouteService implements RouteService {
 
     requiredLanes = requiredLaneChanges;
 
+    segments = segs;
+    segmentEnds = ends;
+    limitIndex = new DowntrackIndex<>(limits, SpeedLimit::getLocation);
+    flagIndex = new DowntrackIndex<>(disabledAlgorithms, AlgorithmFlags::getLocation);
+    requiredLaneIndex = new DowntrackIndex<>(requiredLanes, RequiredLane::getLocation);
+
     for (Consumer<cav_msgs.Route> callback : routeCallbacks) {
       callback.accept(newRoute);
     }
@@ -119,18 +135,20 @@ public class GuidanceRouteService implements RouteService {
 
   @Override
   public RouteSegment getRouteSegmentAtLocation(double location) {
-    double dtdAccum = 0;
-    RouteSegment out = null;
-    for (RouteSegment segment : currentRoute.getSegments()) {
-      dtdAccum += segment.length();
-
-      if (dtdAccum > location) {
-        out = segment;
-        break;
+    // Find the first segment ending past the location
+    RouteSegment[] segs = segments;
+    double[] ends = segmentEnds;
+    int lo = 0;
+    int hi = Math.min(ends.length, segs.length);
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ends[mid] <= location) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
       }
     }
-
-    return out;
+    return lo < segs.length ? segs[lo] : null;
   }
 
   @Override
@@ -160,11 +178,9 @@ public class GuidanceRouteService implements RouteService {
 
   @Override
   public SpeedLimit getSpeedLimitAtLocation(double location) {
-
-    for (SpeedLimit limit : limits) {
-      if (limit.getLocation() >= location) {
-        return limit;
-      }
+    SpeedLimit limit = limitIndex.atOrAfter(location);
+    if (limit != null) {
+      return limit;
     }
 
     // Should be unreachable
@@ -173,45 +189,17 @@ public class GuidanceRouteService implements RouteService {
 
   @Override
   public AlgorithmFlags getAlgorithmFlagsAtLocation(double location) {
-    for (AlgorithmFlags flags : disabledAlgorithms) {
-      if (flags.getLocation() >= location) {
-        return flags;
-      }
-    }
-
-    return null;
+    return flagIndex.atOrAfter(location);
   }
 
   @Override
   public SortedSet<SpeedLimit> getSpeedLimitsInRange(double start, double end) {
-    SortedSet<SpeedLimit> out = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
-    for (SpeedLimit limit : limits) {
-      if (limit.getLocation() > start && limit.getLocation() <= end) {
-        out.add(limit);
-      }
-
-      if (limit.getLocation() > end) {
-        break;
-      }
-    }
-
-    return out;
+    return limitIndex.range(start, end);
   }
 
   @Override
   public SortedSet<AlgorithmFlags> getAlgorithmFlagsInRange(double start, double end) {
-    SortedSet<AlgorithmFlags> out = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
-    for (AlgorithmFlags flags : disabledAlgorithms) {
-      if (flags.getLocation() > start && flags.getLocation() <= end) {
-        out.add(flags);
-      }
-
-      if (flags.getLocation() > end) {
-        break;
-      }
-    }
-
-    return out;
+    return flagIndex.range(start, end);
   }
 
   @Override
@@ -256,10 +244,16 @@ public class GuidanceRouteService implements RouteService {
   }
 
   private SortedSet<AlgorithmFlags> getAlgorithmFlagsInRangeIncludingEnd(double start, double end) {
-    SortedSet<AlgorithmFlags> flags = this.getAlgorithmFlagsInRange(start, end);
-    AlgorithmFlags flagsAtEnd = this.getAlgorithmFlagsAtLocation(end);
-    if (flagsAtEnd != null) {
-      flags.add(flagsAtEnd);
+    int from = flagIndex.firstAfter(start);
+    int to = Math.max(from, flagIndex.firstAfter(end));
+    int atEnd = flagIndex.firstAtOrAfter(end);
+    if (atEnd == to && atEnd < flagIndex.size()) {
+      // The flags at the end follow the range directly so the view can be extended
+      return flagIndex.view(from, to + 1);
+    }
+    SortedSet<AlgorithmFlags> flags = flagIndex.view(from, to);
+    if (atEnd < from) {
+      flags.add(flagIndex.get(atEnd)); // Only possible when end precedes start
     }
     return flags;
   }
@@ -271,29 +265,12 @@ public class GuidanceRouteService implements RouteService {
 
   @Override
   public RequiredLane getRequiredLaneAtLocation(double location) {
-    for (RequiredLane lane : requiredLanes) {
-      if (lane.getLocation() >= location) {
-        return lane;
-      }
-    }
-
-    return null;
+    return requiredLaneIndex.atOrAfter(location);
   }
 
   @Override
   public SortedSet<RequiredLane> getRequiredLanesInRange(double start, double end) {
-    SortedSet<RequiredLane> out = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
-    for (RequiredLane lane : requiredLanes) {
-      if (lane.getLocation() > start && lane.getLocation() <= end) {
-        out.add(lane);
-      }
-
-      if (lane.getLocation() > end) {
-        break;
-      }
-    }
-
-    return out;
+    return requiredLaneIndex.range(start, end);
   }
 
   /**
@@ -24,8 +24,19 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.SortedMap;
 import java.util.TimeZone;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -36,6 +47,19 @@ import cav_msgs.SPAT;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
 import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
 
+/**
+ * Tracks MAP and SPAT comms for each intersection and provides the intersections with reliable comms to V2I consumers
+ * <p>
+ * Two modes are supported. By default a thread periodically scans all tracked intersections for expiry, and callbacks
+ * are invoked on the ROS thread for each intersection in each message.
+ * <p>
+ * In event driven mode each intersection has a single pending expiry check in a deadline ordered delay queue. The check is
+ * scheduled for the earliest time the intersection's state could change without new messages: when its comms would become
+ * unreliable or when it becomes old enough to be removed. Checks which fire early are simply rescheduled. The reliable
+ * intersections are published as an immutable map which is replaced, copy on write, whenever an intersection is updated,
+ * so getV2IData() does not evaluate reliability. Callbacks are invoked on a dedicated executor once per message,
+ * and notifications which arrive while one is pending are coalesced.
+ */
 public class GuidanceV2IService implements V2IService {
     private ISubscriber<MapData> mapSub;
     private ISubscriber<SPAT> spatSub;
@@ -44,8 +68,15 @@ public class GuidanceV2IService implements V2IService {
     private final double minMapMsgsPerSec;
     private final double minSpatMsgsPerSec;
     private final long expiryTimeoutMs;
+    private final boolean eventDriven;
     private Thread expiryCheckThread;
-    private List<V2IDataCallback> callbacks = Collections.synchronizedList(new ArrayList<>());
+    private List<V2IDataCallback> callbacks = new CopyOnWriteArrayList<>();
+
+    // Event driven mode
+    private final DelayQueue<ExpiryCheck> expiryQueue = new DelayQueue<>();
+    private final AtomicReference<SortedMap<Integer, IntersectionData>> reliableIntersections = new AtomicReference<>(Collections.emptySortedMap());
+    private final AtomicBoolean callbackPending = new AtomicBoolean(false);
+    private ExecutorService callbackExecutor;
 
     private final ConcurrentHashMap<Integer, I2VData> trackedI2Vs = new ConcurrentHashMap<>(10); // Initialize with capacity of 10. Unlikely we will see more intersections than this at one time.
 
@@ -55,8 +86,20 @@ public class GuidanceV2IService implements V2IService {
     public GuidanceV2IService(IPubSubService pubSub, int mapCommsReliabilityCheckThreshold,
     int spatCommsReliabilityCheckThreshold, 
     double minMapMsgsPerSec, double minSpatMsgsPerSec, long expiryTimeoutMs) {
+        this(pubSub, mapCommsReliabilityCheckThreshold, spatCommsReliabilityCheckThreshold, minMapMsgsPerSec, minSpatMsgsPerSec, expiryTimeoutMs, false);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param eventDriven If true, expiry checks are deadline ordered and callbacks are invoked on a dedicated executor
+     */
+    public GuidanceV2IService(IPubSubService pubSub, int mapCommsReliabilityCheckThreshold,
+    int spatCommsReliabilityCheckThreshold, 
+    double minMapMsgsPerSec, double minSpatMsgsPerSec, long expiryTimeoutMs, boolean eventDriven) {
 
         this.pubSub = pubSub;
+        this.eventDriven = eventDriven;
         this.mapCommsReliabilityCheckThreshold = mapCommsReliabilityCheckThreshold;
         this.spatCommsReliabilityCheckThreshold = spatCommsReliabilityCheckThreshold;
         this.minMapMsgsPerSec = minMapMsgsPerSec;
@@ -66,8 +109,13 @@ public class GuidanceV2IService implements V2IService {
 
     public void init() {
         log.infof("GuidanceV2IService init'd with mapCommsReliabilityCheckThreshold=%d, spatCommsReliabilityCheckThreshold=%d, " + 
-        "minMapMsgsPerSec=%.02f, minSpatMsgsPerSec=%.02f, expiryTimeoutMs=%d",
-        mapCommsReliabilityCheckThreshold, spatCommsReliabilityCheckThreshold, minMapMsgsPerSec, minSpatMsgsPerSec, expiryTimeoutMs);
+        "minMapMsgsPerSec=%.02f, minSpatMsgsPerSec=%.02f, expiryTimeoutMs=%d, eventDriven=%b",
+        mapCommsReliabilityCheckThreshold, spatCommsReliabilityCheckThreshold, minMapMsgsPerSec, minSpatMsgsPerSec, expiryTimeoutMs, eventDriven);
+
+        if (eventDriven) {
+            initEventDriven();
+            return;
+        }
 
         mapSub = pubSub.getSubscriberForTopic("incoming_map", MapData._TYPE);
 
@@ -128,6 +176,205 @@ public class GuidanceV2IService implements V2IService {
         expiryCheckThread.start();
     }
 
+    /**
+     * Subscribes to MAP and SPAT in event driven mode and starts the deadline ordered expiry thread
+     */
+    private void initEventDriven() {
+        callbackExecutor = Executors.newSingleThreadExecutor((r) -> {
+            Thread t = new Thread(r, "V2IServiceCallbacks");
+            t.setDaemon(true);
+            return t;
+        });
+
+        mapSub = pubSub.getSubscriberForTopic("incoming_map", MapData._TYPE);
+        mapSub.registerOnMessageCallback((map) -> {
+            LocalDateTime msgTs = LocalDateTime.ofInstant(Instant.ofEpochMilli((long) (map.getHeader().getStamp().toSeconds() * 1000.0)), TimeZone.getDefault().toZoneId());
+            boolean changed = false;
+            for (IntersectionGeometry geometry : map.getIntersections()) {
+                int id = geometry.getId().getId();
+                reportNewMapComms(id, msgTs, geometry);
+                changed |= updateIntersection(id, null);
+            }
+            if (changed) {
+                fireCallbacksAsync();
+            }
+        });
+
+        spatSub = pubSub.getSubscriberForTopic("incoming_spat", SPAT._TYPE);
+        spatSub.registerOnMessageCallback((spat) -> {
+            LocalDateTime msgTs = LocalDateTime.now(); // TODO: Improve methodology for determining data age
+            boolean changed = false;
+            for (IntersectionState state : spat.getIntersectionStateList()) {
+                int id = state.getId().getId();
+                reportNewSPATComms(id, msgTs, state);
+                changed |= updateIntersection(id, null);
+            }
+            if (changed) {
+                fireCallbacksAsync();
+            }
+        });
+
+        expiryCheckThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    ExpiryCheck check = expiryQueue.take(); // Blocks until the earliest deadline is reached
+                    if (updateIntersection(check.id, check)) {
+                        fireCallbacksAsync();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "V2IServiceExpiryCheck");
+        expiryCheckThread.setDaemon(true);
+        expiryCheckThread.start();
+    }
+
+    /**
+     * Re-evaluates a tracked intersection in event driven mode after new comms or when its expiry check is due.
+     * Runs under the map entry lock so it is ordered with message updates and other checks for the same intersection.
+     * 
+     * @param id The intersection id
+     * @param check The expiry check which is due or null if called for new comms
+     * 
+     * @return True if the published reliable intersections changed
+     */
+    private boolean updateIntersection(int id, ExpiryCheck check) {
+        final boolean[] changed = {false};
+        trackedI2Vs.computeIfPresent(id, (Integer key, I2VData data) -> {
+            if (check != null) {
+                if (data.pendingCheck != check) {
+                    return data; // Stale check for an intersection which has since been removed and tracked again
+                }
+                data.pendingCheck = null;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            if (check != null && isExpired(id, data, now)) {
+                changed[0] = publish(id, null);
+                return null;
+            }
+
+            boolean reliable = isReliable(data);
+            changed[0] = publish(id, reliable ? data.intersection : null);
+
+            if (data.pendingCheck == null) {
+                LocalDateTime deadline = nextCheckTime(data, reliable);
+                if (deadline != null) {
+                    data.pendingCheck = new ExpiryCheck(id, deadline);
+                    expiryQueue.put(data.pendingCheck);
+                }
+            }
+            return data;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Replaces the published entry for an intersection. Data which only refreshes the MAP rx time of the published
+     * geometry is not published, the refreshed time goes out with the next change to the intersection.
+     * 
+     * @param id The intersection id
+     * @param data The data to publish or null if the intersection is not reliable
+     * 
+     * @return True if the published map changed
+     */
+    private boolean publish(int id, IntersectionData data) {
+        while (true) {
+            SortedMap<Integer, IntersectionData> current = reliableIntersections.get();
+            IntersectionData published = current.get(id);
+            if (published == data || (published != null && data != null && sameContent(published, data))) {
+                return false;
+            }
+            SortedMap<Integer, IntersectionData> next = new TreeMap<>(current);
+            if (data == null) {
+                next.remove(id);
+            } else {
+                next.put(id, data);
+            }
+            if (reliableIntersections.compareAndSet(current, Collections.unmodifiableSortedMap(next))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * A repeated MAP revision keeps the tracked geometry, so the same geometry and state mean nothing but the MAP rx
+     * time changed
+     */
+    private static boolean sameContent(IntersectionData a, IntersectionData b) {
+        return a.getIntersectionGeometry() == b.getIntersectionGeometry()
+            && a.getIntersectionState() == b.getIntersectionState()
+            && Objects.equals(a.getIntersectionStateRxTimestamp(), b.getIntersectionStateRxTimestamp());
+    }
+
+    private boolean isReliable(I2VData data) {
+        return data.intersection != null
+            && data.mapComms != null && data.spatComms != null
+            && data.mapComms.isReliable() && data.spatComms.isReliable();
+    }
+
+    /**
+     * Applies the expiry condition of the periodic expiry check to a single intersection
+     */
+    private boolean isExpired(int id, I2VData data, LocalDateTime now) {
+        boolean oldEnoughCreationTime = now.minus(expiryTimeoutMs, ChronoUnit.MILLIS).isAfter(data.creationTime);
+        boolean mapIsNull = data.mapComms == null;
+        boolean spatIsNull = data.spatComms == null;
+        if (oldEnoughCreationTime
+            && ((mapIsNull || spatIsNull)
+            || (!data.mapComms.isReliable() ||  !data.spatComms.isReliable())))
+        {
+            log.info("Removing unreliable intersection with id: " + id
+                + " causes: mapIsNull: " + mapIsNull + " spatIsNull: " + spatIsNull
+                + " mapIsNotReliable: " + (!mapIsNull ? !data.mapComms.isReliable() : false)
+                + " spatIsNotReliable: " + (!spatIsNull ? !data.spatComms.isReliable() : false)
+            );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the earliest time an intersection's state can change if no new messages arrive.
+     * An unreliable intersection can only be removed once it is old enough.
+     * A reliable intersection can only change when one of its comms streams falls below its minimum rate.
+     * 
+     * @return The time of the next check or null if no check is needed
+     */
+    private LocalDateTime nextCheckTime(I2VData data, boolean reliable) {
+        LocalDateTime removable = data.creationTime.plus(expiryTimeoutMs + 1, ChronoUnit.MILLIS);
+        if (!reliable) {
+            return removable;
+        }
+        LocalDateTime mapDeadline = data.mapComms.unreliableAfter();
+        LocalDateTime spatDeadline = data.spatComms.unreliableAfter();
+        if (mapDeadline == null) {
+            return spatDeadline;
+        }
+        if (spatDeadline == null) {
+            return mapDeadline;
+        }
+        return mapDeadline.isBefore(spatDeadline) ? mapDeadline : spatDeadline;
+    }
+
+    /**
+     * Schedules the callbacks on the callback executor unless a notification is already pending.
+     * The callbacks always receive the latest published data.
+     */
+    private void fireCallbacksAsync() {
+        if (callbackPending.compareAndSet(false, true)) {
+            callbackExecutor.execute(() -> {
+                callbackPending.set(false);
+                try {
+                    fireCallbacks();
+                } catch (RuntimeException e) {
+                    log.error("Exception in V2I data callback: ", e);
+                }
+            });
+        }
+    }
+
     private void fireCallbacks() {
         List<IntersectionData> recentData = getV2IData();
         callbacks.forEach((V2IDataCallback cb) -> {
@@ -178,9 +425,12 @@ public class GuidanceV2IService implements V2IService {
             if (existingData.intersection == null) {
                 existingData.intersection = newIntersectionData;
             } else {
+                IntersectionGeometry curGeometry = existingData.intersection.getIntersectionGeometry();
                 IntersectionState curState = existingData.intersection.getIntersectionState();
                 LocalDateTime curStateStamp = existingData.intersection.getIntersectionStateRxTimestamp();
-                IntersectionData newIntData = new IntersectionData(geometry, ts, curState, curStateStamp);
+                // The same revision carries the same geometry, so the tracked geometry is kept and only its rx time is refreshed
+                IntersectionGeometry newGeometry = (curGeometry.getRevision() == geometry.getRevision()) ? curGeometry : geometry;
+                IntersectionData newIntData = new IntersectionData(newGeometry, ts, curState, curStateStamp);
                 existingData.intersection = newIntData;
             }
             log.debug("Updated map comms for id: " + id);
@@ -219,6 +469,18 @@ public class GuidanceV2IService implements V2IService {
                 return true;
             }
        }
+
+        /**
+         * @return The time after which isReliable() will be false if no new messages are received,
+         * or null if the comms are not rate limited
+         */
+        protected LocalDateTime unreliableAfter() {
+            if (minMsgsPerSec <= 0.0 || stamps.isEmpty()) {
+                return null;
+            }
+            long windowMs = (long) Math.ceil(stamps.size() / minMsgsPerSec * 1000.0);
+            return stamps.get(0).plus(windowMs + 1, ChronoUnit.MILLIS);
+        }
     }
 
     private class I2VData {
@@ -231,6 +493,33 @@ public class GuidanceV2IService implements V2IService {
         private IntersectionData intersection;
         private DsrcCommsCheck mapComms;
         private DsrcCommsCheck spatComms;
+        private ExpiryCheck pendingCheck; // Event driven mode only
+    }
+
+    /**
+     * A deadline at which a tracked intersection must be re-evaluated
+     */
+    private static class ExpiryCheck implements Delayed {
+        private final int id;
+        private final LocalDateTime deadline;
+
+        ExpiryCheck(int id, LocalDateTime deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), deadline).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof ExpiryCheck) {
+                return deadline.compareTo(((ExpiryCheck) other).deadline);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
     }
 
 	@Override
@@ -240,6 +529,10 @@ public class GuidanceV2IService implements V2IService {
 
 	@Override
 	public List<IntersectionData> getV2IData() {
+        if (eventDriven) {
+            return new ArrayList<>(reliableIntersections.get().values());
+        }
+
         // Ensure we only get intersections which are reliable when the intersection was grabbed. This guarantees map and spat are present.
         List<I2VData> intersections = trackedI2Vs.values().stream()
         .filter(e -> e.intersection != null 
@@ -19,6 +19,8 @@ package gov.dot.fhwa.saxton.carma.guidance.util;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 import org.apache.commons.logging.Log;
 
+import java.util.function.Supplier;
+
 /**
  * SaxtonLogger backed implementation of ILogger
  * <p>
@@ -154,61 +156,121 @@ public class SaxtonLoggerProxy implements ILogger {
 
 	@Override
 	public void debugf(String message, Object... args) {
-		log.debug(String.format(message, args));
+		log.debugf(message, args);
 	}
 
 	@Override
 	public void debugf(String tag, String message, Object... args) {
-		log.debug(tag, String.format(message, args));
+		log.debugf(tag, message, args);
 	}
 
 	@Override
 	public void infof(String message, Object... args) {
-		log.info(String.format(message, args));
+		log.infof(message, args);
 	}
 
 	@Override
 	public void infof(String tag, String message, Object... args) {
-		log.info(tag, String.format(message, args));
+		log.infof(tag, message, args);
 	}
 	
 	@Override
 	public void warnf(String message, Object... args) {
-		log.warn(String.format(message, args));
+		log.warnf(message, args);
 	}
 
 	@Override
 	public void warnf(String tag, String message, Object... args) {
-		log.warn(tag, String.format(message, args));
+		log.warnf(tag, message, args);
 	}
 	
 	@Override
 	public void errorf(String message, Object... args) {
-		log.error(String.format(message, args));
+		log.errorf(message, args);
 	}
 
 	@Override
 	public void errorf(String tag, String message, Object... args) {
-		log.error(tag, String.format(message, args));
+		log.errorf(tag, message, args);
 	}
 	
 	@Override
 	public void fatalf(String message, Object... args) {
-		log.fatal(String.format(message, args));
+		log.fatalf(message, args);
 	}
 
 	@Override
 	public void fatalf(String tag, String message, Object... args) {
-		log.fatal(tag, String.format(message, args));
+		log.fatalf(tag, message, args);
 	}
 
 	@Override
 	public void tracef(String message, Object... args) {
-		log.trace(String.format(message, args));
+		log.tracef(message, args);
 	}
 
 	@Override
 	public void tracef(String tag, String message, Object... args) {
-		log.trace(tag, String.format(message, args));
+		log.tracef(tag, message, args);
+	}
+
+	@Override
+	public void debug(Supplier<String> message) {
+		log.debug(message);
+	}
+
+	@Override
+	public void debug(String tag, Supplier<String> message) {
+		log.debug(tag, message);
+	}
+
+	@Override
+	public void info(Supplier<String> message) {
+		log.info(message);
+	}
+
+	@Override
+	public void info(String tag, Supplier<String> message) {
+		log.info(tag, message);
+	}
+
+	@Override
+	public void warn(Supplier<String> message) {
+		log.warn(message);
+	}
+
+	@Override
+	public void warn(String tag, Supplier<String> message) {
+		log.warn(tag, message);
+	}
+
+	@Override
+	public void error(Supplier<String> message) {
+		log.error(message);
+	}
+
+	@Override
+	public void error(String tag, Supplier<String> message) {
+		log.error(tag, message);
+	}
+
+	@Override
+	public void fatal(Supplier<String> message) {
+		log.fatal(message);
+	}
+
+	@Override
+	public void fatal(String tag, Supplier<String> message) {
+		log.fatal(tag, message);
+	}
+
+	@Override
+	public void trace(Supplier<String> message) {
+		log.trace(message);
+	}
+
+	@Override
+	public void trace(String tag, Supplier<String> message) {
+		log.trace(tag, message);
 	}
 }
\ No newline at end of file
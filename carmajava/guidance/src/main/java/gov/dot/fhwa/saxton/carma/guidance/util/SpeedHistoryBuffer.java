@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed capacity ring buffer of time stamped speed and downtrack samples held in primitive arrays
+ * <p>
+ * Samples must be added in non-decreasing time order. A sample with the same time as the newest sample replaces it,
+ * and once the buffer is full the oldest sample is dropped to make room. Lookups by time are a binary search and
+ * linearly interpolate between the samples on either side of the requested time.
+ * <p>
+ * Writers are serialized by a {@link StampedLock}. Readers use optimistic reads, so they never block the writer and
+ * only take the read lock if a write happened while they were reading.
+ */
+public class SpeedHistoryBuffer {
+
+  private final int capacity;
+  private final long[] times;
+  private final double[] speeds;
+  private final double[] downtracks;
+  private int head = 0; // Index of the oldest sample
+  private int size = 0;
+  private final StampedLock lock = new StampedLock();
+
+  /**
+   * Constructor
+   *
+   * @param capacity The maximum number of samples held
+   */
+  public SpeedHistoryBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.times = new long[capacity];
+    this.speeds = new double[capacity];
+    this.downtracks = new double[capacity];
+  }
+
+  /**
+   * Adds a sample to the end of the buffer, dropping the oldest sample if the buffer is full
+   *
+   * @param time The time of the sample in ms
+   * @param speed The speed in m/s
+   * @param downtrack The downtrack distance in m
+   * @throws IllegalArgumentException If the time is before the time of the newest sample
+   */
+  public void add(long time, double speed, double downtrack) {
+    long stamp = lock.writeLock();
+    try {
+      int i;
+      if (size > 0 && times[index(size - 1)] == time) {
+        i = index(size - 1);
+      } else {
+        if (size > 0 && time < times[index(size - 1)]) {
+          throw new IllegalArgumentException("Sample time " + time + " is before newest sample " + times[index(size - 1)]);
+        }
+        if (size == capacity) {
+          head = index(1);
+          size--;
+        }
+        i = index(size);
+        size++;
+      }
+      times[i] = time;
+      speeds[i] = speed;
+      downtracks[i] = downtrack;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes samples which are no longer needed to interpolate at or after the provided time.
+   * The newest sample at or before the time is kept.
+   *
+   * @param time The time in ms
+   */
+  public void evictBefore(long time) {
+    long stamp = lock.writeLock();
+    try {
+      int floor = firstAfter(head, size, time) - 1;
+      if (floor > 0) {
+        head = index(floor);
+        size -= floor;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes all samples
+   */
+  public void clear() {
+    long stamp = lock.writeLock();
+    try {
+      head = 0;
+      size = 0;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * @return The number of samples in the buffer
+   */
+  public int size() {
+    long stamp = lock.tryOptimisticRead();
+    int result = size;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        result = size;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Interpolates the speed and downtrack distance at the provided time
+   *
+   * @param time The time in ms
+   * @param out Array of at least length 2 which is set to { speed, downtrack }. Its contents are unspecified if
+   * false is returned
+   * @return True if the time is between the oldest and newest samples inclusive
+   */
+  public boolean interpolate(long time, double[] out) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      // Local copies keep every index in bounds even if a write happens while reading
+      boolean found = interpolate(head, size, time, out);
+      if (lock.validate(stamp)) {
+        return found;
+      }
+    }
+
+    stamp = lock.readLock();
+    try {
+      return interpolate(head, size, time, out);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private boolean interpolate(int h, int n, long time, double[] out) {
+    int ceil = firstAtOrAfter(h, n, time);
+    if (ceil >= n) {
+      return false;
+    }
+    int ci = (h + ceil) % capacity;
+    if (times[ci] == time) {
+      out[0] = speeds[ci];
+      out[1] = downtracks[ci];
+      return true;
+    }
+    if (ceil == 0) {
+      return false;
+    }
+    int fi = (h + ceil - 1) % capacity;
+    double factor = (double) (time - times[fi]) / (double) (times[ci] - times[fi]);
+    out[0] = speeds[fi] + factor * (speeds[ci] - speeds[fi]);
+    out[1] = downtracks[fi] + factor * (downtracks[ci] - downtracks[fi]);
+    return true;
+  }
+
+  private int index(int i) {
+    return (head + i) % capacity;
+  }
+
+  // Position of the first sample with a time >= the provided time, or n if there is none
+  private int firstAtOrAfter(int h, int n, long time) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (times[(h + mid) % capacity] < time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  // Position of the first sample with a time > the provided time, or n if there is none
+  private int firstAfter(int h, int n, long time) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (times[(h + mid) % capacity] <= time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter;
+
+import java.util.List;
+
+import cav_msgs.LocationOffsetECEF;
+
+/**
+ * Streams the ECEF points of a trajectory described by a starting location and a flat array of offsets.
+ * Offsets are stored as consecutive x, y, z triples in cm as in the MobilityPath message.
+ * The current point is updated in place, so no object is allocated per point.
+ *
+ * Positions are accumulated in integer cm so the points are exact regardless of the number of offsets.
+ */
+public class ECEFOffsetIterator {
+
+  private static final double CM_PER_M = 100.0;
+
+  private int[] offsets;
+  private int count;
+  private int index;
+  private long x;
+  private long y;
+  private long z;
+
+  /**
+   * Starts iterating over a new trajectory
+   *
+   * @param startX The starting ECEF x coordinate in cm
+   * @param startY The starting ECEF y coordinate in cm
+   * @param startZ The starting ECEF z coordinate in cm
+   * @param offsets The offsets as [x0, y0, z0, x1, y1, z1, ...] in cm
+   * @param count The number of offsets in the array
+   *
+   * @return This iterator positioned at the starting point
+   */
+  public ECEFOffsetIterator reset(long startX, long startY, long startZ, int[] offsets, int count) {
+    if (count < 0 || 3 * count > offsets.length) {
+      throw new IllegalArgumentException("Offset count " + count + " does not fit in an array of length " + offsets.length);
+    }
+    this.offsets = offsets;
+    this.count = count;
+    this.index = 0;
+    this.x = startX;
+    this.y = startY;
+    this.z = startZ;
+    return this;
+  }
+
+  /**
+   * @return True if there are offsets left to apply
+   */
+  public boolean hasNext() {
+    return index < count;
+  }
+
+  /**
+   * Moves the current point by the next offset
+   */
+  public void next() {
+    int i = 3 * index;
+    x += offsets[i];
+    y += offsets[i + 1];
+    z += offsets[i + 2];
+    index++;
+  }
+
+  /**
+   * @return The number of offsets applied to the starting point so far
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return The ECEF x coordinate of the current point in m
+   */
+  public double getX() {
+    return x / CM_PER_M;
+  }
+
+  /**
+   * @return The ECEF y coordinate of the current point in m
+   */
+  public double getY() {
+    return y / CM_PER_M;
+  }
+
+  /**
+   * @return The ECEF z coordinate of the current point in m
+   */
+  public double getZ() {
+    return z / CM_PER_M;
+  }
+
+  /**
+   * Copies a list of offset messages into a flat array of x, y, z triples
+   *
+   * @param offsetMsgs The offsets to copy
+   * @param offsets The array to copy into. A larger array is allocated if it is null or too small
+   *
+   * @return The array holding the offsets
+   */
+  public static int[] toFlatOffsets(List<LocationOffsetECEF> offsetMsgs, int[] offsets) {
+    int length = 3 * offsetMsgs.size();
+    if (offsets == null || offsets.length < length) {
+      offsets = new int[length];
+    }
+    int i = 0;
+    for (LocationOffsetECEF offset: offsetMsgs) {
+      offsets[i++] = offset.getOffsetX();
+      offsets[i++] = offset.getOffsetY();
+      offsets[i++] = offset.getOffsetZ();
+    }
+    return offsets;
+  }
+}
@@ -32,6 +32,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.ros.message.MessageFactory;
+import org.ros.rosjava_geometry.Quaternion;
 import org.ros.rosjava_geometry.Transform;
 import org.ros.rosjava_geometry.Vector3;
 
@@ -313,7 +314,14 @@ public class TrajectoryConverter implements ITrajectoryConverter {
   
   @Override
   public List<RoutePointStamped> messageToPath(cav_msgs.Trajectory trajMsg, int currentSegmentIdx, double segDowntrack) {
-    log.info("Converting message with " + (trajMsg.getOffsets().size() + 1) +" points to path");
+    List<LocationOffsetECEF> offsetMsgs = trajMsg.getOffsets();
+    int[] offsets = ECEFOffsetIterator.toFlatOffsets(offsetMsgs, null);
+    return messageToPath(trajMsg.getLocation(), offsets, offsetMsgs.size(), currentSegmentIdx, segDowntrack);
+  }
+
+  @Override
+  public List<RoutePointStamped> messageToPath(LocationECEF startMsg, int[] offsets, int offsetCount, int currentSegmentIdx, double segDowntrack) {
+    log.info("Converting message with " + (offsetCount + 1) +" points to path");
     log.debug("messageToPath: entering with currentSegmentIdx = " + currentSegmentIdx + ", segDowntrack = " + segDowntrack);
 
     // Get segments within DSRC range
@@ -321,48 +329,55 @@ public class TrajectoryConverter implements ITrajectoryConverter {
     log.debug("messageToPath: segments is " + segments.size() + " elements long.");
 
     // Get starting location in m
-    cav_msgs.LocationECEF startMsg = trajMsg.getLocation();
-    Vector3 ecefPoint = new Vector3((double)startMsg.getEcefX() / CM_PER_M, (double)startMsg.getEcefY()  / CM_PER_M, (double)startMsg.getEcefZ()  / CM_PER_M);
+    ECEFOffsetIterator ecefPoints = new ECEFOffsetIterator().reset(startMsg.getEcefX(), startMsg.getEcefY(), startMsg.getEcefZ(), offsets, offsetCount);
     
-    //Point3D ecef3d = new Point3D(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ());
     // Get starting segment and remaining segments to search
-    RouteSegment startingSegment = route.routeSegmentOfPoint(new Point3D(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()), segments);
+    Point3D startPoint = new Point3D(ecefPoints.getX(), ecefPoints.getY(), ecefPoints.getZ());
+    RouteSegment startingSegment;
+    if (segments.isEmpty()) {
+      // The current segment is not on the route so locate the starting point using the route's segment index
+      startingSegment = route.routeSegmentOfPoint(startPoint, DISTANCE_FORWARD_TO_SEARCH);
+      if (startingSegment == null) {
+        return new ArrayList<>();
+      }
+    } else {
+      startingSegment = route.routeSegmentOfPoint(startPoint, segments);
+    }
     int startIdx = startingSegment.getUptrackWaypoint().getWaypointId();
-    log.debug("messageToPath: initial ecefPoint = " + ecefPoint.toString() + ", corresponding to startIdx = " + startIdx);
+    log.debug("messageToPath: initial ecefPoint = " + startPoint.toString() + ", corresponding to startIdx = " + startIdx);
     
     // Build list of route points
-    List<RoutePointStamped> routePoints = new ArrayList<>(trajMsg.getOffsets().size() + 1);
+    List<RoutePointStamped> routePoints = new ArrayList<>(offsetCount + 1);
     // Get starting time in seconds
     double time = startMsg.getTimestamp() / MS_PER_SEC;
     // Get starting route point
-    Transform ecefInSegment = startingSegment.getECEFToSegmentTransform().invert();
-    Vector3 segmentPoint = ecefInSegment.apply(ecefPoint);
-    log.debug("messageToPath: segmentPoint = " + segmentPoint.toString());
+    SegmentFrame ecefInSegment = new SegmentFrame(startingSegment.getECEFToSegmentTransform().invert());
+    double segmentX = ecefInSegment.toSegmentX(ecefPoints);
+    double segmentY = ecefInSegment.toSegmentY(ecefPoints);
+    log.debug("messageToPath: segmentPoint = " + segmentX + ", " + segmentY);
     double downtrackOfSegment = route.lengthOfSegments(0, startIdx - 1);
-    RoutePointStamped routePoint = new RoutePointStamped(segmentPoint.getX() + downtrackOfSegment, segmentPoint.getY(), time, startIdx, segDowntrack);
+    RoutePointStamped routePoint = new RoutePointStamped(segmentX + downtrackOfSegment, segmentY, time, startIdx, segDowntrack);
     log.debug("messageToPath: routePoint = " + routePoint.toString());
     routePoints.add(routePoint);
 
     RouteSegment currentSegment = startingSegment;
     int segmentIdx = startIdx;
-    // Iterate over offsets
-    for (LocationOffsetECEF offset: trajMsg.getOffsets()) {
+    // Iterate over offsets updating the ECEF point in place
+    while (ecefPoints.hasNext()) {
+      ecefPoints.next();
       time += this.timeStep;
-      ecefPoint = new Vector3(
-        ecefPoint.getX() + ((double)offset.getOffsetX() / CM_PER_M),
-        ecefPoint.getY() + ((double)offset.getOffsetY() / CM_PER_M),
-        ecefPoint.getZ() + ((double)offset.getOffsetZ() / CM_PER_M)
-      );
       
-      segmentPoint = ecefInSegment.apply(ecefPoint);
-      if (segmentPoint.getX() > currentSegment.length() && segmentIdx < route.getSegments().size() - 1) {
+      segmentX = ecefInSegment.toSegmentX(ecefPoints);
+      segmentY = ecefInSegment.toSegmentY(ecefPoints);
+      if (segmentX > currentSegment.length() && segmentIdx < route.getSegments().size() - 1) {
         downtrackOfSegment += currentSegment.length();
         segmentIdx++;
         currentSegment = route.getSegments().get(segmentIdx);
-        ecefInSegment = currentSegment.getECEFToSegmentTransform().invert();
-        segmentPoint =  ecefInSegment.apply(ecefPoint);
+        ecefInSegment.set(currentSegment.getECEFToSegmentTransform().invert());
+        segmentX = ecefInSegment.toSegmentX(ecefPoints);
+        segmentY = ecefInSegment.toSegmentY(ecefPoints);
       }
-      routePoints.add(new RoutePointStamped(segmentPoint.getX() + downtrackOfSegment, segmentPoint.getY(), time, segmentIdx, segmentPoint.getX()));
+      routePoints.add(new RoutePointStamped(segmentX + downtrackOfSegment, segmentY, time, segmentIdx, segmentX));
     }
     
     return routePoints;
@@ -609,4 +624,37 @@ public class TrajectoryConverter implements ITrajectoryConverter {
     final double x_cb = x_sqr * x;
     return a[3] * x_cb + a[2] * x_sqr + a[1] * x + a[0];
   }
+
+  /**
+   * Transform from the ECEF frame into a segment frame applied to coordinates without creating vectors.
+   * The rotation is extracted once per segment so that each point only costs a few multiplications.
+   * Only the downtrack and crosstrack components are computed as elevation is ignored.
+   */
+  private static final class SegmentFrame {
+    private double r00, r01, r02, r10, r11, r12;
+    private double tx, ty;
+
+    SegmentFrame(Transform transform) {
+      set(transform);
+    }
+
+    void set(Transform transform) {
+      Quaternion rotation = transform.getRotationAndScale();
+      Vector3 xColumn = rotation.rotateAndScaleVector(new Vector3(1.0, 0.0, 0.0));
+      Vector3 yColumn = rotation.rotateAndScaleVector(new Vector3(0.0, 1.0, 0.0));
+      Vector3 zColumn = rotation.rotateAndScaleVector(new Vector3(0.0, 0.0, 1.0));
+      r00 = xColumn.getX(); r01 = yColumn.getX(); r02 = zColumn.getX();
+      r10 = xColumn.getY(); r11 = yColumn.getY(); r12 = zColumn.getY();
+      tx = transform.getTranslation().getX();
+      ty = transform.getTranslation().getY();
+    }
+
+    double toSegmentX(ECEFOffsetIterator point) {
+      return r00 * point.getX() + r01 * point.getY() + r02 * point.getZ() + tx;
+    }
+
+    double toSegmentY(ECEFOffsetIterator point) {
+      return r10 * point.getX() + r11 * point.getY() + r12 * point.getZ() + ty;
+    }
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.lightbar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.message.MessageFactory;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+import org.ros.node.parameter.ParameterTree;
+
+import cav_msgs.LightBarStatus;
+import cav_srvs.SetLights;
+import cav_srvs.SetLightsRequest;
+import cav_srvs.SetLightsResponse;
+import gov.dot.fhwa.saxton.carma.guidance.GuidanceStateMachine;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IService;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+public class LightBarManagerTest {
+
+  private static final String HIGH = "HighPriorityPlugin";
+  private static final String LOW = "LowPriorityPlugin";
+  private static final String UNLISTED = "UnlistedPlugin";
+  private static final long TIMEOUT_MS = 5000;
+
+  NodeConfiguration nodeConfiguration = NodeConfiguration.newPrivate();
+  MessageFactory requestFactory = nodeConfiguration.getServiceRequestMessageFactory();
+
+  private LightBarManager lightBarManager;
+  private final BlockingQueue<SetLightsRequest> lightsCalls = new LinkedBlockingQueue<>();
+  private final CountDownLatch firstCallEntered = new CountDownLatch(1);
+  private volatile CountDownLatch releaseFirstCall = new CountDownLatch(0);
+
+  /**
+   * Handler which records the indicators it lost control of
+   */
+  private static class RecordingHandler implements ILightBarControlChangeHandler {
+    final BlockingQueue<LightBarIndicator> lost = new LinkedBlockingQueue<>();
+
+    @Override
+    public void controlLost(LightBarIndicator lostIndicator) {
+      lost.add(lostIndicator);
+    }
+  }
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setup() throws Exception {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class);
+    ILogger mockLogger = mock(ILogger.class);
+    when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+
+    ConnectedNode node = mock(ConnectedNode.class);
+    ParameterTree params = mock(ParameterTree.class);
+    when(node.getParameterTree()).thenReturn(params);
+    when(params.getList(eq("~light_bar_priorities"), any())).thenReturn((List) Arrays.asList(HIGH, LOW));
+    when(params.getInteger(eq("~light_bar_comms_timeout"), anyInt())).thenReturn(1000);
+
+    IPubSubService pubSub = mock(IPubSubService.class);
+    when(pubSub.getSubscriberForTopic(anyString(), anyString())).thenReturn((ISubscriber) mock(ISubscriber.class));
+    IService<SetLightsRequest, SetLightsResponse> lightsService = mock(IService.class);
+    when(pubSub.getServiceForTopic(eq("set_lights"), eq(SetLights._TYPE))).thenReturn((IService) lightsService);
+    when(lightsService.newMessage()).thenAnswer((invocation) -> requestFactory.newFromType(SetLights._TYPE));
+    when(lightsService.callAsync(any(), anyLong())).thenAnswer((invocation) -> {
+      lightsCalls.add(invocation.getArgument(0));
+      firstCallEntered.countDown();
+      releaseFirstCall.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      return CompletableFuture.completedFuture(null);
+    });
+
+    lightBarManager = new LightBarManager(mock(GuidanceStateMachine.class), pubSub, node);
+    lightBarManager.onSystemReady();
+  }
+
+  @Test
+  public void testRequestControl() {
+    RecordingHandler handler = new RecordingHandler();
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, handler).isEmpty());
+    // Requesting control again while in control succeeds
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, handler).isEmpty());
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.FLASH, LOW));
+
+    // Other components can't set an indicator they don't control
+    assertFalse(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.OFF, UNLISTED));
+    // Components missing from the priority list can't take control of a controlled indicator
+    assertEquals(Arrays.asList(LightBarIndicator.YELLOW),
+      lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), UNLISTED, new RecordingHandler()));
+    assertTrue(handler.lost.isEmpty());
+  }
+
+  @Test
+  public void testPreemption() throws InterruptedException {
+    RecordingHandler lowHandler = new RecordingHandler();
+    RecordingHandler highHandler = new RecordingHandler();
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, lowHandler).isEmpty());
+
+    // The higher priority component takes control and the previous controller is notified
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), HIGH, highHandler).isEmpty());
+    assertEquals(LightBarIndicator.YELLOW, lowHandler.lost.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertFalse(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.FLASH, LOW));
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.FLASH, HIGH));
+
+    // The lower priority component can't take control back
+    assertEquals(Arrays.asList(LightBarIndicator.YELLOW),
+      lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, lowHandler));
+    assertTrue(highHandler.lost.isEmpty());
+
+    // Listed components preempt the light bar state machine which is not in the priority list
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.GREEN), LOW, lowHandler).isEmpty());
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.GREEN, IndicatorStatus.SOLID, LOW));
+    assertNull(lowHandler.lost.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testReleaseControl() throws InterruptedException {
+    RecordingHandler lowHandler = new RecordingHandler();
+    RecordingHandler highHandler = new RecordingHandler();
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), HIGH, highHandler).isEmpty());
+    assertEquals(Arrays.asList(LightBarIndicator.YELLOW),
+      lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, lowHandler));
+
+    // Releasing an indicator controlled by another component has no effect
+    lightBarManager.releaseControl(Arrays.asList(LightBarIndicator.YELLOW, null), LOW);
+    assertFalse(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.FLASH, LOW));
+
+    // Once released, control can be handed to the lower priority component
+    lightBarManager.releaseControl(Arrays.asList(LightBarIndicator.YELLOW), HIGH);
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), LOW, lowHandler).isEmpty());
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.LEFT_ARROW, LOW));
+    assertFalse(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.LEFT_ARROW, HIGH));
+
+    // And taken back by the higher priority component
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.YELLOW), HIGH, highHandler).isEmpty());
+    assertEquals(LightBarIndicator.YELLOW, lowHandler.lost.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    // Releasing does not notify the releasing component
+    lightBarManager.releaseControl(Collections.singletonList(LightBarIndicator.YELLOW), HIGH);
+    assertNull(highHandler.lost.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testCoalescedLightsCalls() throws InterruptedException {
+    assertTrue(lightBarManager.requestControl(Arrays.asList(LightBarIndicator.GREEN, LightBarIndicator.YELLOW),
+      HIGH, new RecordingHandler()).isEmpty());
+    releaseFirstCall = new CountDownLatch(1);
+
+    // Block the worker thread in the first service call
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.GREEN, IndicatorStatus.SOLID, HIGH));
+    assertTrue(firstCallEntered.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    SetLightsRequest first = lightsCalls.poll();
+    assertNotNull(first);
+    assertEquals(LightBarStatus.ON, first.getSetState().getGreenSolid());
+
+    // Rapid changes while the call is in progress are sent as a single call with the last state
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.FLASH, HIGH));
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.LEFT_ARROW, HIGH));
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.GREEN, IndicatorStatus.FLASH, HIGH));
+    assertTrue(lightBarManager.setIndicator(LightBarIndicator.YELLOW, IndicatorStatus.RIGHT_ARROW, HIGH));
+    releaseFirstCall.countDown();
+
+    SetLightsRequest coalesced = lightsCalls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertNotNull(coalesced);
+    LightBarStatus state = coalesced.getSetState();
+    assertEquals(LightBarStatus.OFF, state.getGreenSolid());
+    assertEquals(LightBarStatus.ON, state.getGreenFlash());
+    assertEquals(LightBarStatus.OFF, state.getFlash());
+    assertEquals(LightBarStatus.OFF, state.getLeftArrow());
+    assertEquals(LightBarStatus.ON, state.getRightArrow());
+    assertEquals(LightBarStatus.OFF, state.getTakedown());
+    assertNull(lightsCalls.poll(200, TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.pubsub;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.exception.RemoteException;
+import org.ros.internal.node.response.StatusCode;
+import org.ros.node.service.ServiceClient;
+import org.ros.node.service.ServiceResponseListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RosServiceChannelTest {
+    private long now = 0;
+    private List<String> requests;
+    private List<ServiceResponseListener<String>> listeners;
+    private ServiceClient<String, String> client;
+    private RosServiceChannel<String, String> channel;
+    private IService<String, String> service;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        requests = new ArrayList<>();
+        listeners = new ArrayList<>();
+        client = mock(ServiceClient.class);
+        doAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            listeners.add(invocation.getArgument(1));
+            return null;
+        }).when(client).call(any(), any());
+
+        channel = new RosServiceChannel<String, String>(client, 2, 1000, 200) {
+            @Override protected long currentTimeMillis() {
+                return now;
+            }
+        };
+        service = channel.getService();
+    }
+
+    /**
+     * Callback which records the outcome of a synchronous call
+     */
+    private static class RecordingCallback implements OnServiceResponseCallback<String> {
+        final CompletableFuture<String> outcome = new CompletableFuture<>();
+
+        @Override public void onSuccess(String msg) {
+            outcome.complete(msg);
+        }
+
+        @Override public void onFailure(Exception e) {
+            outcome.completeExceptionally(e);
+        }
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            fail("Future was not completed");
+        }
+        fail("Future did not fail");
+        return null;
+    }
+
+    @Test
+    public void testAsyncCallAndDeduplication() throws Exception {
+        CompletableFuture<String> first = service.callAsync("a", 0);
+        CompletableFuture<String> joined = service.callAsync("a", 0);
+        CompletableFuture<String> other = service.callAsync("b", 0);
+        assertFalse(first.isDone());
+
+        // The identical request is only sent once
+        assertEquals(2, requests.size());
+        assertEquals(1, channel.getJoinedCallCount());
+
+        listeners.get(0).onSuccess("A");
+        listeners.get(1).onSuccess("B");
+        assertEquals("A", first.get(1, TimeUnit.SECONDS));
+        assertEquals("A", joined.get(1, TimeUnit.SECONDS));
+        assertEquals("B", other.get(1, TimeUnit.SECONDS));
+
+        // Once complete the same request is sent again
+        service.callAsync("a", 0);
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        CompletableFuture<String> call = service.callAsync("a", 50);
+        assertTrue(failureOf(call) instanceof TimeoutException);
+
+        // A late response is ignored and the next identical call is sent
+        listeners.get(0).onSuccess("late");
+        CompletableFuture<String> retry = service.callAsync("a", 1000);
+        assertEquals(2, requests.size());
+        listeners.get(1).onSuccess("A");
+        assertEquals("A", retry.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        RemoteException error = new RemoteException(StatusCode.FAILURE, "failed");
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<String> call = service.callAsync("a", 0);
+            listeners.get(i).onFailure(error);
+            assertSame(error, failureOf(call));
+        }
+
+        // Open, calls fail without being sent
+        assertTrue(failureOf(service.callAsync("b", 0)) instanceof ServiceUnavailableException);
+        assertEquals(2, requests.size());
+        assertEquals(1, channel.getRejectedCallCount());
+
+        // After the open duration a single trial is sent
+        now += 1000;
+        CompletableFuture<String> trial = service.callAsync("c", 0);
+        assertTrue(failureOf(service.callAsync("d", 0)) instanceof ServiceUnavailableException);
+        assertEquals(3, requests.size());
+
+        listeners.get(2).onSuccess("C");
+        assertEquals("C", trial.get(1, TimeUnit.SECONDS));
+        service.callAsync("d", 0);
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    public void testLostTrialResponseReopensCircuit() throws Exception {
+        RemoteException error = new RemoteException(StatusCode.FAILURE, "failed");
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<String> call = service.callAsync("a", 0);
+            listeners.get(i).onFailure(error);
+            assertSame(error, failureOf(call));
+        }
+
+        // The trial asks for no deadline and its response never arrives, the default deadline still ends it
+        now += 1000;
+        CompletableFuture<String> trial = service.callAsync("c", 0);
+        assertTrue(failureOf(trial) instanceof TimeoutException);
+        assertTrue(failureOf(service.callAsync("d", 0)) instanceof ServiceUnavailableException);
+
+        now += 1000;
+        service.callAsync("d", 0);
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testModifiedRequestStillCompletes() throws Exception {
+        List<ServiceResponseListener<String>> listListeners = new ArrayList<>();
+        ServiceClient<List<String>, String> listClient = mock(ServiceClient.class);
+        doAnswer(invocation -> {
+            listListeners.add(invocation.getArgument(1));
+            return null;
+        }).when(listClient).call(any(), any());
+        RosServiceChannel<List<String>, String> listChannel = new RosServiceChannel<>(listClient, 2, 1000, 200);
+
+        List<String> request = new ArrayList<>(Arrays.asList("a"));
+        CompletableFuture<String> call = listChannel.getService().callAsync(request, 0);
+        // Changes the hash code of the request the call was sent with
+        request.add("b");
+        listListeners.get(0).onSuccess("A");
+        assertEquals("A", call.get(1, TimeUnit.SECONDS));
+        assertTrue(listChannel.inFlight.isEmpty());
+
+        listChannel.getService().callAsync(request, 0);
+        assertEquals(2, listListeners.size());
+    }
+
+    @Test
+    public void testSynchronousCall() throws Exception {
+        final String[] result = new String[1];
+        Thread caller = new Thread(() -> service.call("a", new OnServiceResponseCallback<String>() {
+            @Override public void onSuccess(String msg) {
+                result[0] = msg;
+            }
+
+            @Override public void onFailure(Exception e) {
+                fail();
+            }
+        }));
+        caller.start();
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (requests.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        listeners.get(0).onSuccess("A");
+        caller.join(1000);
+        assertEquals("A", result[0]);
+    }
+
+    @Test
+    public void testSynchronousCallDeadline() throws Exception {
+        RecordingCallback callback = new RecordingCallback();
+        long start = System.currentTimeMillis();
+        service.call("a", callback);
+        assertTrue(failureOf(callback.outcome) instanceof TimeoutException);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+
+        // A synchronous trial call which times out reopens the circuit rather than leaving it waiting forever
+        service.call("b", new RecordingCallback());
+        now += 1000;
+        RecordingCallback trial = new RecordingCallback();
+        service.call("c", trial);
+        assertTrue(failureOf(trial.outcome) instanceof TimeoutException);
+        assertEquals(3, requests.size());
+        assertTrue(failureOf(service.callAsync("d", 0)) instanceof ServiceUnavailableException);
+
+        now += 1000;
+        CompletableFuture<String> retry = service.callAsync("d", 0);
+        assertEquals(4, requests.size());
+        listeners.get(3).onSuccess("D");
+        assertEquals("D", retry.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSynchronousCallFromResponseHandler() throws Exception {
+        RecordingCallback nested = new RecordingCallback();
+        CompletableFuture<String> call = service.callAsync("a", 0).thenApply(response -> {
+            service.call("b", nested);
+            return response;
+        });
+        listeners.get(0).onSuccess("A");
+
+        // The blocking call is rejected instead of tying up the shared executor
+        assertEquals("A", call.get(1, TimeUnit.SECONDS));
+        assertTrue(failureOf(nested.outcome) instanceof IllegalStateException);
+        assertEquals(1, requests.size());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.pubsub;
+
+import gov.dot.fhwa.saxton.carma.guidance.GuidanceExceptionHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.message.MessageListener;
+import org.ros.node.topic.Subscriber;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RosSubscriptionChannelTest {
+    private long now = 1000;
+    private RosSubscriptionChannel<String> channel;
+    private MessageListener<String> listener;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Subscriber<String> subscriber = mock(Subscriber.class);
+        channel = new RosSubscriptionChannel<String>(subscriber, mock(GuidanceExceptionHandler.class)) {
+            @Override protected long currentTimeMillis() {
+                return now;
+            }
+        };
+        ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(subscriber).addMessageListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    private void receive(String msg, long delay) {
+        now += delay;
+        listener.onNewMessage(msg);
+    }
+
+    @Test
+    public void testSequenceAndNewMessageDetection() {
+        ISubscriber<String> early = channel.getSubscriber();
+        assertNull(early.getLastMessage());
+        assertNull(early.getLastSample());
+        assertFalse(early.hasMessageSince(0));
+        assertEquals(-1, early.getTimeSinceLastMessage());
+
+        receive("a", 100);
+        MessageSample<String> sample = early.getLastSample();
+        assertEquals("a", sample.getMessage());
+        assertEquals(1, sample.getSequence());
+        assertEquals(1100, sample.getReceiveTime());
+        assertFalse(early.hasMessageSince(sample.getSequence()));
+
+        receive("b", 100);
+        assertTrue(early.hasMessageSince(sample.getSequence()));
+        assertEquals("b", early.getLastMessage());
+        assertEquals(2, early.getLastSample().getSequence());
+
+        // A subscriber created later only sees messages received after its creation
+        ISubscriber<String> late = channel.getSubscriber();
+        assertNull(late.getLastMessage());
+        assertFalse(late.hasMessageSince(0));
+        receive("c", 100);
+        assertEquals("c", late.getLastMessage());
+        assertSame(early.getLastSample(), late.getLastSample());
+
+        now += 50;
+        assertEquals(50, late.getTimeSinceLastMessage());
+    }
+
+    @Test
+    public void testRateAndStaleness() {
+        ISubscriber<String> sub = channel.getSubscriber();
+        receive("0", 0);
+        assertEquals(0.0, sub.getMessageRate(), 0.0);
+
+        // Steady 10 Hz
+        for (int i = 1; i <= 20; i++) {
+            receive(Integer.toString(i), 100);
+        }
+        assertEquals(10.0, sub.getMessageRate(), 0.0001);
+        assertEquals(0, sub.getStaleCount());
+
+        // Jitter below the stale threshold is not counted
+        receive("jitter", 250);
+        assertEquals(0, sub.getStaleCount());
+
+        // A long gap is counted once and lowers the rate
+        receive("gap", 1000);
+        assertEquals(1, sub.getStaleCount());
+        assertTrue(sub.getMessageRate() < 10.0);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public class DowntrackIndexTest {
+    private TreeSet<SpeedLimit> limits;
+    private DowntrackIndex<SpeedLimit> index;
+
+    @Before
+    public void setup() {
+        limits = new TreeSet<>((a, b) -> Double.compare(a.getLocation(), b.getLocation()));
+        for (int i = 1; i <= 10; i++) {
+            limits.add(new SpeedLimit(i * 10.0, i));
+        }
+        index = new DowntrackIndex<>(limits, SpeedLimit::getLocation);
+    }
+
+    @Test
+    public void testPointQueries() {
+        assertEquals(10, index.size());
+        assertEquals(10.0, index.atOrAfter(0.0).getLocation(), 0.0);
+        assertEquals(30.0, index.atOrAfter(30.0).getLocation(), 0.0);
+        assertEquals(40.0, index.atOrAfter(30.5).getLocation(), 0.0);
+        assertNull(index.atOrAfter(100.5));
+        assertEquals(3, index.firstAfter(30.0));
+        assertEquals(2, index.firstAtOrAfter(30.0));
+    }
+
+    @Test
+    public void testRangeMatchesLinearScan() {
+        for (double start = -5.0; start < 110.0; start += 2.5) {
+            for (double end = start; end < 115.0; end += 5.0) {
+                TreeSet<SpeedLimit> expected = new TreeSet<>(limits.comparator());
+                for (SpeedLimit limit : limits) {
+                    if (limit.getLocation() > start && limit.getLocation() <= end) {
+                        expected.add(limit);
+                    }
+                }
+                SortedSet<SpeedLimit> actual = index.range(start, end);
+                assertEquals(expected.size(), actual.size());
+                assertArrayEquals(expected.toArray(), actual.toArray());
+                if (!expected.isEmpty()) {
+                    assertSame(expected.first(), actual.first());
+                    assertSame(expected.last(), actual.last());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testViewCopyOnWrite() {
+        SortedSet<SpeedLimit> view = index.range(15.0, 45.0);
+        assertEquals(3, view.size());
+
+        // Adding to a view does not change the index or other views
+        view.add(index.atOrAfter(50.0));
+        view.remove(view.first());
+        assertEquals(3, view.size());
+        assertEquals(30.0, view.first().getLocation(), 0.0);
+        assertEquals(50.0, view.last().getLocation(), 0.0);
+        assertEquals(3, index.range(15.0, 45.0).size());
+        assertEquals(10, index.size());
+
+        // Sub views follow the same bounds as a TreeSet
+        SortedSet<SpeedLimit> all = index.range(0.0, 100.0);
+        assertEquals(4, all.headSet(new SpeedLimit(50.0, 0)).size());
+        assertEquals(6, all.tailSet(new SpeedLimit(50.0, 0)).size());
+        assertEquals(2, all.subSet(new SpeedLimit(25.0, 0), new SpeedLimit(50.0, 0)).size());
+    }
+}
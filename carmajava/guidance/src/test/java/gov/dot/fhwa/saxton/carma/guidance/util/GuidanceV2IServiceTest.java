@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.IntersectionGeometry;
+import cav_msgs.IntersectionState;
+import cav_msgs.MapData;
+import cav_msgs.SPAT;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnMessageCallback;
+
+/**
+ * Runs unit tests for the event driven mode of the GuidanceV2IService class
+ */
+public class GuidanceV2IServiceTest {
+
+  NodeConfiguration nodeConfiguration = NodeConfiguration.newPrivate();
+  MessageFactory messageFactory = nodeConfiguration.getTopicMessageFactory();
+
+  private OnMessageCallback<MapData> mapCallback;
+  private OnMessageCallback<SPAT> spatCallback;
+  private GuidanceV2IService service;
+
+  @Before
+  public void setup() {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class);
+    ILogger mockLogger = mock(ILogger.class);
+    when(mockFact.createLoggerForClass(any())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+
+    // Spat is reliable at 20 Hz with 3 messages, so it becomes unreliable 150 ms after the last of 3 rapid messages
+    initService(20.0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void initService(double minSpatMsgsPerSec) {
+    IPubSubService pubSub = mock(IPubSubService.class);
+    ISubscriber<MapData> mapSub = mock(ISubscriber.class);
+    ISubscriber<SPAT> spatSub = mock(ISubscriber.class);
+    when(pubSub.getSubscriberForTopic(eq("incoming_map"), anyString())).thenReturn((ISubscriber) mapSub);
+    when(pubSub.getSubscriberForTopic(eq("incoming_spat"), anyString())).thenReturn((ISubscriber) spatSub);
+
+    service = new GuidanceV2IService(pubSub, 1, 3, 0.5, minSpatMsgsPerSec, 300, true);
+    service.init();
+
+    ArgumentCaptor<OnMessageCallback> mapCaptor = ArgumentCaptor.forClass(OnMessageCallback.class);
+    ArgumentCaptor<OnMessageCallback> spatCaptor = ArgumentCaptor.forClass(OnMessageCallback.class);
+    verify(mapSub).registerOnMessageCallback(mapCaptor.capture());
+    verify(spatSub).registerOnMessageCallback(spatCaptor.capture());
+    mapCallback = mapCaptor.getValue();
+    spatCallback = spatCaptor.getValue();
+  }
+
+  @Test
+  public void testEventDrivenUpdatesAndExpiry() throws Exception {
+    LinkedBlockingQueue<List<IntersectionData>> updates = new LinkedBlockingQueue<>();
+    AtomicReference<Thread> callbackThread = new AtomicReference<>();
+    service.registerV2IDataCallback((data) -> {
+      callbackThread.set(Thread.currentThread());
+      updates.add(data);
+    });
+
+    MapData map = messageFactory.newFromType(MapData._TYPE);
+    map.getHeader().setStamp(Time.fromMillis(System.currentTimeMillis()));
+    IntersectionGeometry geometry = messageFactory.newFromType(IntersectionGeometry._TYPE);
+    geometry.getId().setId(7);
+    map.getIntersections().add(geometry);
+
+    SPAT spat = messageFactory.newFromType(SPAT._TYPE);
+    IntersectionState state = messageFactory.newFromType(IntersectionState._TYPE);
+    state.getId().setId(7);
+    spat.getIntersectionStateList().add(state);
+
+    // The first message for an intersection only starts tracking it
+    mapCallback.onMessage(map);
+    mapCallback.onMessage(map);
+    for (int i = 0; i < 5; i++) {
+      spatCallback.onMessage(spat);
+      Thread.sleep(10);
+    }
+
+    assertEquals(1, service.getV2IData().size());
+    List<IntersectionData> update = updates.poll(1, TimeUnit.SECONDS);
+    assertTrue(update != null && update.size() <= 1);
+    assertNotEquals(Thread.currentThread(), callbackThread.get()); // Callbacks run on the callback executor
+
+    // Without new spat messages the intersection becomes unreliable and is then removed without any polling
+    long deadline = System.currentTimeMillis() + 2000;
+    while (!service.getV2IData().isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(service.getV2IData().isEmpty());
+  }
+
+  private MapData newMap(int id, int revision) {
+    return newMap(id, revision, System.currentTimeMillis());
+  }
+
+  private MapData newMap(int id, int revision, long stampMs) {
+    MapData map = messageFactory.newFromType(MapData._TYPE);
+    map.getHeader().setStamp(Time.fromMillis(stampMs));
+    IntersectionGeometry geometry = messageFactory.newFromType(IntersectionGeometry._TYPE);
+    geometry.getId().setId(id);
+    geometry.setRevision((byte) revision);
+    map.getIntersections().add(geometry);
+    return map;
+  }
+
+  @Test
+  public void testUnchangedMapRevisionKeepsGeometry() throws Exception {
+    initService(0.5); // Spat stays reliable while the test waits for callbacks
+    LinkedBlockingQueue<List<IntersectionData>> updates = new LinkedBlockingQueue<>();
+    service.registerV2IDataCallback(updates::add);
+    SPAT spat = messageFactory.newFromType(SPAT._TYPE);
+    IntersectionState state = messageFactory.newFromType(IntersectionState._TYPE);
+    state.getId().setId(9);
+    spat.getIntersectionStateList().add(state);
+
+    long stamp = System.currentTimeMillis() - 100;
+    MapData first = newMap(9, 1, stamp);
+    mapCallback.onMessage(first); // Starts tracking the intersection
+    mapCallback.onMessage(first);
+    for (int i = 0; i < 3; i++) {
+      spatCallback.onMessage(spat);
+    }
+    IntersectionGeometry firstGeometry = first.getIntersections().get(0);
+    assertSame(firstGeometry, service.getV2IData().get(0).getIntersectionGeometry());
+    LocalDateTime firstRx = service.getV2IData().get(0).getIntersectionGeometryRxTimestamp();
+
+    // Wait until the callbacks for the updates so far are done
+    while (updates.poll(200, TimeUnit.MILLISECONDS) != null) {
+    }
+
+    // A repeated revision is not published again and does not notify consumers
+    IntersectionData published = service.getV2IData().get(0);
+    mapCallback.onMessage(newMap(9, 1, stamp + 50));
+    assertSame(published, service.getV2IData().get(0));
+    assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+
+    // The tracked geometry is kept and its refreshed rx time goes out with the next update
+    spatCallback.onMessage(spat);
+    IntersectionData refreshed = service.getV2IData().get(0);
+    assertSame(firstGeometry, refreshed.getIntersectionGeometry());
+    assertEquals(firstRx.plus(50, ChronoUnit.MILLIS), refreshed.getIntersectionGeometryRxTimestamp());
+    assertSame(state, refreshed.getIntersectionState());
+
+    // A new revision replaces the geometry
+    MapData revised = newMap(9, 2);
+    mapCallback.onMessage(revised);
+    assertSame(revised.getIntersections().get(0), service.getV2IData().get(0).getIntersectionGeometry());
+  }
+}
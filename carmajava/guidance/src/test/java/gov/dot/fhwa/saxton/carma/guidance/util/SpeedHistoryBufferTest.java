@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SpeedHistoryBufferTest {
+
+    @Test
+    public void testInterpolation() {
+        SpeedHistoryBuffer buffer = new SpeedHistoryBuffer(8);
+        double[] out = new double[2];
+        assertFalse(buffer.interpolate(0, out));
+
+        buffer.add(1000, 10.0, 0.0);
+        buffer.add(2000, 20.0, 15.0);
+        buffer.add(4000, 20.0, 55.0);
+
+        // Outside the buffer
+        assertFalse(buffer.interpolate(999, out));
+        assertFalse(buffer.interpolate(4001, out));
+
+        // Exact samples
+        assertTrue(buffer.interpolate(1000, out));
+        assertEquals(10.0, out[0], 0.0);
+        assertEquals(0.0, out[1], 0.0);
+        assertTrue(buffer.interpolate(4000, out));
+        assertEquals(55.0, out[1], 0.0);
+
+        // Between samples uses a fractional factor
+        assertTrue(buffer.interpolate(1250, out));
+        assertEquals(12.5, out[0], 1e-9);
+        assertEquals(3.75, out[1], 1e-9);
+        assertTrue(buffer.interpolate(3000, out));
+        assertEquals(20.0, out[0], 1e-9);
+        assertEquals(35.0, out[1], 1e-9);
+
+        // A sample at the same time replaces the newest sample
+        buffer.add(4000, 25.0, 60.0);
+        assertEquals(3, buffer.size());
+        assertTrue(buffer.interpolate(4000, out));
+        assertEquals(25.0, out[0], 0.0);
+
+        try {
+            buffer.add(3000, 0.0, 0.0);
+            fail("Out of order sample accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testCapacityAndEviction() {
+        SpeedHistoryBuffer buffer = new SpeedHistoryBuffer(4);
+        double[] out = new double[2];
+        for (int i = 0; i < 10; i++) {
+            buffer.add(i * 100, i, i * 10.0);
+        }
+        // Only the newest samples are kept once the buffer wraps
+        assertEquals(4, buffer.size());
+        assertFalse(buffer.interpolate(550, out));
+        assertTrue(buffer.interpolate(650, out));
+        assertEquals(6.5, out[0], 1e-9);
+        assertEquals(65.0, out[1], 1e-9);
+
+        // Eviction keeps the sample needed to interpolate at the window start
+        buffer.evictBefore(750);
+        assertEquals(3, buffer.size());
+        assertTrue(buffer.interpolate(750, out));
+        assertEquals(7.5, out[0], 1e-9);
+        assertFalse(buffer.interpolate(650, out));
+
+        buffer.evictBefore(900);
+        assertEquals(1, buffer.size());
+        assertTrue(buffer.interpolate(900, out));
+        assertEquals(9.0, out[0], 0.0);
+
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.interpolate(900, out));
+    }
+
+    @Test
+    public void testConcurrentReader() throws Exception {
+        SpeedHistoryBuffer buffer = new SpeedHistoryBuffer(16);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicBoolean done = new AtomicBoolean(false);
+
+        // Speed and downtrack always equal time / 10 so any interpolated result must keep that relation
+        Thread reader = new Thread(() -> {
+            double[] out = new double[2];
+            long t = 0;
+            while (!done.get()) {
+                if (buffer.interpolate(t, out) && (Math.abs(out[0] - t / 10.0) > 1e-6 || Math.abs(out[1] - t / 10.0) > 1e-6)) {
+                    failed.set(true);
+                }
+                t = (t + 7) % 100000;
+            }
+        });
+        reader.start();
+        for (long t = 0; t < 100000; t += 10) {
+            buffer.add(t, t / 10.0, t / 10.0);
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(failed.get());
+    }
+}
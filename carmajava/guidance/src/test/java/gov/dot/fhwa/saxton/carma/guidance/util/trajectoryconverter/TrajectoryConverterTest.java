@@ -119,6 +119,72 @@ public class TrajectoryConverterTest {
       }
   }
   
+  @Test
+  public void testECEFOffsetIterator() {
+    int[] offsets = { 100, -50, 0, 1, 2, 3, -101, 48, -3, 7, 7, 7 };
+    ECEFOffsetIterator points = new ECEFOffsetIterator().reset(110449015, -484206432, 398858656, offsets, 3);
+    assertEquals(1104490.15, points.getX(), 1e-9);
+    assertEquals(-4842064.32, points.getY(), 1e-9);
+    assertEquals(3988586.56, points.getZ(), 1e-9);
+    points.next();
+    points.next();
+    points.next();
+    assertFalse(points.hasNext()); // The last triple is beyond the count
+    assertEquals(3, points.getIndex());
+    // Offsets are accumulated in cm so the point returns exactly to the start
+    assertEquals(1104490.15, points.getX(), 0.0);
+    assertEquals(-4842064.32, points.getY(), 0.0);
+    assertEquals(3988586.56, points.getZ(), 0.0);
+
+    LocationOffsetECEF offset = mock(LocationOffsetECEF.class);
+    when(offset.getOffsetX()).thenReturn((short) 12);
+    when(offset.getOffsetY()).thenReturn((short) -34);
+    when(offset.getOffsetZ()).thenReturn((short) 56);
+    int[] flat = ECEFOffsetIterator.toFlatOffsets(Arrays.asList(offset, offset), new int[3]);
+    assertArrayEquals(new int[] { 12, -34, 56, 12, -34, 56 }, flat);
+    assertSame(flat, ECEFOffsetIterator.toFlatOffsets(Arrays.asList(offset), flat));
+  }
+
+  @Test
+  public void testFlatOffsetsToPath() {
+    final int MAX_POINTS_IN_PATH = 60;
+    final double TIME_STEP = 0.1;
+    TrajectoryConverter tc = new TrajectoryConverter(MAX_POINTS_IN_PATH, TIME_STEP, messageFactory);
+    tc.setRoute(route);
+
+    // Path crossing several segments of the route
+    List<RoutePointStamped> path = new ArrayList<>();
+    int segmentIdx = 0;
+    double segmentStart = 0;
+    for (int i = 0; i < MAX_POINTS_IN_PATH; i++) {
+      double downtrack = 2.0 + 1.5 * i;
+      while (downtrack - segmentStart > route.getSegments().get(segmentIdx).length()) {
+        segmentStart += route.getSegments().get(segmentIdx).length();
+        segmentIdx++;
+      }
+      path.add(new RoutePointStamped(downtrack, 0.5, 10.0 + i * TIME_STEP, segmentIdx, downtrack - segmentStart));
+    }
+    assertTrue(segmentIdx > 0);
+
+    cav_msgs.Trajectory message = tc.pathToMessage(path);
+    int count = message.getOffsets().size();
+    int[] offsets = ECEFOffsetIterator.toFlatOffsets(message.getOffsets(), null);
+    List<RoutePointStamped> fromFlat = tc.messageToPath(message.getLocation(), offsets, count, 0, 0.0);
+    List<RoutePointStamped> fromMessage = tc.messageToPath(message, 0, 0.0);
+
+    assertEquals(path.size(), fromFlat.size());
+    assertEquals(path.size(), fromMessage.size());
+    for (int i = 0; i < path.size(); i++) {
+      assertEquals(fromMessage.get(i).getDowntrack(), fromFlat.get(i).getDowntrack(), 0.0);
+      assertEquals(fromMessage.get(i).getCrosstrack(), fromFlat.get(i).getCrosstrack(), 0.0);
+      assertEquals(fromMessage.get(i).getSegmentIdx(), fromFlat.get(i).getSegmentIdx());
+      // Offsets are truncated to cm in the message
+      assertEquals(path.get(i).getDowntrack(), fromFlat.get(i).getDowntrack(), 1.0);
+      assertEquals(path.get(i).getCrosstrack(), fromFlat.get(i).getCrosstrack(), 1.0);
+      assertEquals(path.get(i).getStamp(), fromFlat.get(i).getStamp(), 0.01);
+    }
+  }
+
   @Test
   public void testConvertToPath() {
     final int MAX_POINTS_IN_PATH = 1000;
@@ -18,6 +18,8 @@ package gov.dot.fhwa.saxton.carma.guidance.pubsub;
 
 import gov.dot.fhwa.saxton.carma.rosutils.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Generic interface for supporting calls to a remote service. Designed to share an underlying
  * resource between many clients to avoid duplication.
@@ -28,13 +30,34 @@ import gov.dot.fhwa.saxton.carma.rosutils.*;
 public interface IService<T, S> {
     /**
      * Perform a synchronous call for the service, waiting until the response is returned and executing the appropriate
-     * callback.
+     * callback. The call fails with a {@link java.util.concurrent.TimeoutException} if no response arrives within a
+     * default deadline set by the implementation.
+     * <p>
+     * Must not be used from dependent actions attached to a future returned by {@link #callAsync(Object, long)}, as
+     * those run on the shared executor which handles responses. Such calls fail immediately.
      * 
      * @param request The message for the request
      * @param callback The callback to execute on message failure or success
      */
     void call(T request, OnServiceResponseCallback<S> callback);
 
+    /**
+     * Perform an asynchronous call of the service. Returns immediately with a future which completes with the
+     * response, or exceptionally with a {@link java.util.concurrent.TimeoutException} if no response arrives before
+     * the deadline. Identical requests which are already in flight are not sent again; the caller joins the existing
+     * call instead. Services which keep failing stop accepting calls for a while, during which the returned future
+     * completes immediately with a {@link ServiceUnavailableException}.
+     * <p>
+     * Dependent actions attached to the future run on a small executor shared by all services, so they should not
+     * block.
+     *
+     * @param request The message for the request
+     * @param timeoutMs The deadline for the response in ms. Values less than or equal to 0 use the default deadline
+     * of the implementation
+     * @return A future for the response
+     */
+    CompletableFuture<S> callAsync(T request, long timeoutMs);
+
     /**
     * Generate a new (empty) request-type message instance to have it's fields populated before transmission.
     *
@@ -30,6 +30,48 @@ public interface ISubscriber<T> {
      */
     T getLastMessage();
 
+    /**
+     * Get the last message received on this channel along with its sequence number and receive time. The sample
+     * is read from an atomic reference, so polling it does not take any locks. Compare its sequence number
+     * against that of a previously read sample to detect whether a new message has arrived.
+     *
+     * @return Either the last received sample or null if none has been received yet
+     */
+    MessageSample<T> getLastSample();
+
+    /**
+     * Check if a message newer than a previously observed sample has been received
+     *
+     * @param sequence The sequence number of the previously observed sample, 0 if none has been observed
+     * @return True if a newer message has been received
+     */
+    default boolean hasMessageSince(long sequence) {
+        MessageSample<T> sample = getLastSample();
+        return sample != null && sample.isNewerThan(sequence);
+    }
+
+    /**
+     * Get the average rate at which messages are received on this topic
+     *
+     * @return The exponentially weighted average rate in Hz or 0 if fewer than two messages have been received
+     */
+    double getMessageRate();
+
+    /**
+     * Get the time elapsed since the last message was received on this topic
+     *
+     * @return The elapsed time in ms or -1 if no message has been received
+     */
+    long getTimeSinceLastMessage();
+
+    /**
+     * Get the number of times a message on this topic arrived later than expected. A message is late when the gap
+     * since the previous message is several times longer than the average period of the topic.
+     *
+     * @return The number of late messages
+     */
+    long getStaleCount();
+
     /**
      * Add a callback to be executed whenever a new message is received for this ISubscriptionChannel
      *
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.guidance.pubsub;
+
+/**
+ * Immutable record of a message received on a topic
+ * <p>
+ * Sequence numbers start at 1 and increase by one for every message received on the topic, so a consumer which
+ * remembers the sequence number of the last sample it processed can detect new messages with a single comparison.
+ *
+ * @param <T> Type parameter for the message type of the topic
+ */
+public final class MessageSample<T> {
+    private final T message;
+    private final long sequence;
+    private final long receiveTime;
+
+    /**
+     * Constructor
+     *
+     * @param message The received message
+     * @param sequence The sequence number of the message on its topic
+     * @param receiveTime The time the message was received in ms since the epoch
+     */
+    public MessageSample(T message, long sequence, long receiveTime) {
+        this.message = message;
+        this.sequence = sequence;
+        this.receiveTime = receiveTime;
+    }
+
+    /**
+     * @return The received message
+     */
+    public T getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The sequence number of the message on its topic
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The time the message was received in ms since the epoch
+     */
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+
+    /**
+     * @param sequence A previously observed sequence number
+     * @return True if this sample was received after the sample with the provided sequence number
+     */
+    public boolean isNewerThan(long sequence) {
+        return this.sequence > sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageSample [sequence=" + sequence + ", receiveTime=" + receiveTime + ", message=" + message + "]";
+    }
+}
@@ -16,6 +16,12 @@
 
 package gov.dot.fhwa.saxton.carma.guidance.util;
 
+import java.util.function.Supplier;
+
+/**
+ * Logger used by guidance and its plugins.
+ * The Supplier and format variants only build the message if the level is enabled.
+ */
 public interface ILogger {
   public void debug(String message);
 
@@ -27,6 +33,10 @@ public interface ILogger {
 
   public void debugf(String tag, String message, Object... args);
 
+  public void debug(Supplier<String> message);
+
+  public void debug(String tag, Supplier<String> message);
+
   public void debug(String tag, String message, Throwable t);
 
   public void info(String message);
@@ -41,6 +51,10 @@ public interface ILogger {
 
   public void infof(String tag, String message, Object... args);
 
+  public void info(Supplier<String> message);
+
+  public void info(String tag, Supplier<String> message);
+
   public void warn(String message);
 
   public void warn(String message, Throwable t);
@@ -53,6 +67,10 @@ public interface ILogger {
 
   public void warnf(String tag, String message, Object... args);
 
+  public void warn(Supplier<String> message);
+
+  public void warn(String tag, Supplier<String> message);
+
   public void error(String message);
 
   public void error(String message, Throwable t);
@@ -65,6 +83,10 @@ public interface ILogger {
 
   public void errorf(String tag, String message, Object... args);
 
+  public void error(Supplier<String> message);
+
+  public void error(String tag, Supplier<String> message);
+
   public void fatal(String message);
 
   public void fatal(String message, Throwable t);
@@ -77,6 +99,10 @@ public interface ILogger {
 
   public void fatalf(String tag, String message, Object... args);
 
+  public void fatal(Supplier<String> message);
+
+  public void fatal(String tag, Supplier<String> message);
+
   public void trace(String message);
 
   public void trace(String message, Throwable t);
@@ -88,4 +114,8 @@ public interface ILogger {
   public void tracef(String message, Object... args);
 
   public void tracef(String tag, String message, Object... args);
+
+  public void trace(Supplier<String> message);
+
+  public void trace(String tag, Supplier<String> message);
 }
\ No newline at end of file
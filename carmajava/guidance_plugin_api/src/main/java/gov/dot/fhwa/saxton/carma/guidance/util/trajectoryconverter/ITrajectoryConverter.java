@@ -191,6 +191,21 @@ public interface ITrajectoryConverter {
    * @return The path described as points along a route
    */
   List<RoutePointStamped> messageToPath(cav_msgs.Trajectory trajMsg);
+
+   /**
+   * Helper function for converting a trajectory described by a starting location and flat offsets into List of RoutePointStamped
+   * 
+   * The offsets are streamed without creating an object per offset
+   * 
+   * @param startLocation The starting location of the trajectory
+   * @param offsets The offsets from each point to the next as [x0, y0, z0, x1, y1, z1, ...] in cm
+   * @param offsetCount The number of offsets in the offsets array
+   * @param currentSegmentIdx The current route segment index
+   * @param segDowntrack the downtrack distance along the segment, m
+   * 
+   * @return The path described as points along a route
+   */
+  List<RoutePointStamped> messageToPath(LocationECEF startLocation, int[] offsets, int offsetCount, int currentSegmentIdx, double segDowntrack);
   
   /**
    * Function converts a path to a cav_msgs.Trajectory message using the provided message factory
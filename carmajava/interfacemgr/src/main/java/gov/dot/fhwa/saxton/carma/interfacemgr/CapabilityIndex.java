@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.interfacemgr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable inverted index from short capability name (the last element of a fully-qualified capability
+ * such as "position/pinpoint/latitude") to the live drivers that provide it.
+ *
+ * An index is built from a snapshot of the known drivers whenever that list changes (driver discovery or a
+ * bond change), which is rare compared to capability queries. Since it is never modified after construction
+ * it may be shared between the discovery, bond recovery and service threads without locking.
+ */
+class CapabilityIndex {
+
+    /**
+     * A single driver's view in the index: the driver itself plus its capabilities keyed by short name.
+     */
+    private static class Entry {
+        final DriverInfo            driver;
+        final Map<String, String>   capsByName = new HashMap<>();
+
+        Entry(DriverInfo driver) {
+            this.driver = driver;
+        }
+    }
+
+    static final CapabilityIndex EMPTY = new CapabilityIndex(Collections.<DriverInfo>emptyList());
+
+    //each list is kept in the same order as the driver list it was built from
+    private final Map<String, List<Entry>> byCapability_ = new HashMap<>();
+
+    /**
+     * Builds the index from the given drivers
+     *
+     * @param drivers - the currently available drivers, in the order results should be returned
+     */
+    CapabilityIndex(List<DriverInfo> drivers) {
+        for (DriverInfo driver : drivers) {
+            Entry entry = new Entry(driver);
+            List<String> caps = driver.getCapabilities();
+            if (caps == null) {
+                continue;
+            }
+            for (String cap : caps) {
+                String name = shortName(cap);
+                //only the first occurrence of a capability name is used, so a driver is indexed once per name
+                if (!entry.capsByName.containsKey(name)) {
+                    entry.capsByName.put(name, cap);
+                    List<Entry> providers = byCapability_.get(name);
+                    if (providers == null) {
+                        providers = new ArrayList<>();
+                        byCapability_.put(name, providers);
+                    }
+                    providers.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the fully-qualified capabilities of each driver that can satisfy all of the requested capabilities.
+     * Only the drivers providing the first requested capability are examined, so the cost is proportional to the
+     * number of those drivers rather than to the total number of drivers and capabilities.
+     * See {@link InterfaceWorker#getDrivers(List)} for the format of the request.
+     *
+     * @param requestedCapabilities - a list of capabilities that must be met (inclusive)
+     * @return - matching fully-qualified capabilities, grouped by driver in driver order
+     */
+    List<String> find(List<String> requestedCapabilities) {
+        List<String> result = new ArrayList<>();
+        int numReq = requestedCapabilities.size();
+        if (numReq == 0) {
+            return result;
+        }
+
+        //parse the request once rather than once per driver
+        String[] reqNames = new String[numReq];
+        DriverCategory[] reqCats = new DriverCategory[numReq];
+        for (int req = 0;  req < numReq;  ++req) {
+            String[] items = requestedCapabilities.get(req).split("/");
+            reqCats[req] = DriverCategory.UNDEFINED;
+            if (items.length > 1) {
+                reqCats[req] = DriverCategory.getCat(items[items.length - 2]);
+            }
+            reqNames[req] = items[items.length - 1];
+        }
+
+        List<Entry> candidates = byCapability_.get(reqNames[0]);
+        if (candidates == null) {
+            return result;
+        }
+
+        for (Entry candidate : candidates) {
+            int start = result.size();
+            boolean foundAll = true;
+            for (int req = 0;  req < numReq;  ++req) {
+                String cap = candidate.driver.hasCategory(reqCats[req]) ? candidate.capsByName.get(reqNames[req]) : null;
+                if (cap == null) {
+                    foundAll = false;
+                    break;
+                }
+                result.add(cap);
+            }
+
+            //discard any partial match from this driver
+            if (!foundAll) {
+                result.subList(start, result.size()).clear();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param capability - a capability name, possibly qualified with a driver name and/or category
+     * @return the last element of the name
+     */
+    private static String shortName(String capability) {
+        int slash = capability.lastIndexOf('/');
+        return slash < 0 ? capability : capability.substring(slash + 1);
+    }
+}
@@ -30,6 +30,7 @@ import org.ros.exception.RemoteException;
 import org.ros.message.MessageListener;
 import org.ros.namespace.GraphName;
 import org.ros.node.ConnectedNode;
+import org.ros.node.Node;
 import org.ros.node.parameter.ParameterTree;
 import org.ros.node.service.ServiceClient;
 import org.ros.node.service.ServiceResponseBuilder;
@@ -302,6 +303,14 @@ public class  InterfaceMgr extends SaxtonBaseNode implements IInterfaceMgr {
     }
 
 
+    @Override
+    public void onShutdown(Node node) {
+        if (worker_ != null) {
+            worker_.shutdown();
+        }
+        super.onShutdown(node);
+    }
+
     @Override
     public boolean isShutdownUnderway() {
         return shutdownInitiated_;
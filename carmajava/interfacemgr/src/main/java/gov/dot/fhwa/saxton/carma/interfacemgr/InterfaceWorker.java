@@ -20,6 +20,11 @@ import gov.dot.fhwa.saxton.carma.rosutils.AlertSeverity;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonBaseNode;
@@ -35,11 +40,22 @@ public class InterfaceWorker {
     protected AtomicBoolean                 systemOperational_ = new AtomicBoolean(false);
     protected AtomicBoolean                 lonControllerReady_ = new AtomicBoolean(false);
     protected AtomicBoolean                 positionReady_ = new AtomicBoolean(false);
+    protected volatile CapabilityIndex      capabilityIndex_ = CapabilityIndex.EMPTY;
+    protected long                          bondRecoveryDelay_ = 1000; //ms to wait for a driver's status to settle after a broken bond
+    protected ScheduledExecutorService      bondRecoveryExecutor_;
 
     InterfaceWorker(IInterfaceMgr mgr, SaxtonLogger log) {
         mgr_ = mgr;
         log_ = log;
         startedWaiting_ = System.currentTimeMillis();
+        bondRecoveryExecutor_ = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "InterfaceWorker-bond-recovery");
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     /**
@@ -64,21 +80,36 @@ public class InterfaceWorker {
      * Only Operational drivers are added to the list of drivers available to other nodes.
      * If a driver starts in a degraded state it will only be added once it becomes operational. (TODO Support initially degraded drivers)
      *
+     * The driver list is only locked while it is read or updated; the calls to the driver's services are made
+     * outside the lock so a slow driver can't hold up status updates and bond handling for the others.
+     *
      * @param newDriver - all available details about the driver publishing its status
      */
     public void handleNewDriverStatus(DriverInfo newDriver) {
         String name = newDriver.getName();
 
         //if we already know about this driver then
-        int index = getDriverIndex(name);
-        if (index >= 0) {
+        DriverInfo known;
+        synchronized (this) {
+            int index = getDriverIndex(name);
+            known = (index >= 0) ? drivers_.get(index) : null;
+        }
+        if (known != null) {
 
             //if its info has changed then
-            if (!newDriver.equalCategoryAndState(drivers_.get(index))) {
+            if (!newDriver.equalCategoryAndState(known)) {
                 log_.debug("DRIVER", "InterfaceWorker.handleNewDriverStatus: status changed for " + name);
                 //record the updates. Will need to fetch new driver api as well
                 newDriver.setCapabilities(mgr_.getDriverApi(name));
-                drivers_.set(index, newDriver);
+                synchronized (this) {
+                    //if the driver was removed in the meantime its next status will rediscover it
+                    int index = getDriverIndex(name);
+                    if (index < 0) {
+                        return;
+                    }
+                    drivers_.set(index, newDriver);
+                    rebuildCapabilityIndex();
+                }
                 if ((newDriver.isPosition() || newDriver.isLonController())
                   && (newDriver.getState() == DriverState.FAULT
                   || newDriver.getState() == DriverState.OFF)) {
@@ -97,28 +128,32 @@ public class InterfaceWorker {
                 //add the info to the list of known drivers
                 newDriver.setCapabilities(cap);
 
-                // Only operational drivers are considered available for use
-                if (newDriver.getState() == DriverState.OPERATIONAL) {
-                    drivers_.add(newDriver);
-                    //request InterfaceMgr to bind with it
-                    mgr_.bindWithDriver(name);
+                // Only operational drivers are considered available for use; a position driver in a degraded state
+                // is allowed as well
+                boolean available = newDriver.getState() == DriverState.OPERATIONAL
+                        || (newDriver.getState() == DriverState.DEGRADED  &&  newDriver.isPosition());
+                if (available) {
+                    synchronized (this) {
+                        //if another status for this driver added it in the meantime then it is already bound
+                        if (getDriverIndex(name) >= 0) {
+                            return;
+                        }
+                        drivers_.add(newDriver);
+                        rebuildCapabilityIndex();
+
+                        //indicate if this is one of the critical drivers
+                        if (newDriver.isPosition()) {
+                            positionReady_.set(true);
+                        }else if (newDriver.isLonController()) {
+                            lonControllerReady_ .set(true);
+                        }
 
-                    //indicate if this is one of the critical drivers
-                    if (newDriver.isPosition()) {
-                        positionReady_.set(true);
-                    }else if (newDriver.isLonController()) {
-                        lonControllerReady_ .set(true);
+                        //reset the wait timer
+                        startedWaiting_ = System.currentTimeMillis();
                     }
 
-                    //reset the wait timer
-                    startedWaiting_ = System.currentTimeMillis();
-
-                //else if it is a position driver in a degraded state, allow it
-                }else if(newDriver.getState() == DriverState.DEGRADED  &&  newDriver.isPosition()) {
-                    drivers_.add(newDriver);
+                    //request InterfaceMgr to bind with it
                     mgr_.bindWithDriver(name);
-                    positionReady_.set(true);
-                    startedWaiting_ = System.currentTimeMillis();
                 }
 
                 log_.info("STARTUP", "InterfaceWorker.handleNewDriverStatus: discovered new driver " + name +
@@ -127,37 +162,65 @@ public class InterfaceWorker {
         }
     }
 
+    /**
+     * Schedules handling of a broken bond without blocking the caller. The bond is processed on the bond recovery
+     * thread after a short delay, which gives the driver time to publish its latest status info to the discovery
+     * topic so that it has been updated in our internal "database" before we examine it.
+     *
+     * @param driverName - unique ID of the driver
+     * @return - handle to the pending recovery, which may be used to wait for or cancel it
+     */
+    public ScheduledFuture<?> scheduleBrokenBond(final String driverName) {
+        return bondRecoveryExecutor_.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handleBrokenBond(driverName);
+                } catch (IndexOutOfBoundsException e) {
+                    //already logged by handleBrokenBond
+                } catch (Exception e) {
+                    log_.warn("DRIVER", "InterfaceWorker.scheduleBrokenBond: exception handling bond for " + driverName
+                            + ": " + e.getMessage());
+                }
+            }
+        }, bondRecoveryDelay_, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Updates the status of a driver that has broken its bond.  A broken bond simply indicates a status change for
      * that driver; it may still be alive and functioning, but at a different level of capability (it may have even
      * corrected a previous deficiency, e.g. gone from DEGRADED to fully functional).
      *
+     * This examines the driver's status immediately; callers reacting to a bond notification should normally use
+     * {@link #scheduleBrokenBond(String)} so that the latest status has a chance to arrive first. The system alert
+     * is published after the driver list has been released.
+     *
      * @param driverName - unique ID of the driver
      */
     public void handleBrokenBond(String driverName) throws IndexOutOfBoundsException {
 
-        //wait a second to make sure that the latest status info from that driver has been published to the
-        // discovery topic and therefore updated in our internal "database"
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-        }
-
         //look up the driver and determine its new set of properties (they will have been stored via the
         // /driver_discovery topic update)
-        int index = getDriverIndex(driverName);
-        if (index < 0) {
-            String msg = "InterfaceWorker.handleBrokenBond can't find driver" + driverName + ". ABORTING.";
-            log_.warn("DRIVER", msg);
-            throw new IndexOutOfBoundsException(msg);
+        DriverInfo driver;
+        DriverState state;
+        synchronized (this) {
+            int index = getDriverIndex(driverName);
+            if (index < 0) {
+                String msg = "InterfaceWorker.handleBrokenBond can't find driver" + driverName + ". ABORTING.";
+                log_.warn("DRIVER", msg);
+                throw new IndexOutOfBoundsException(msg);
+            }
+            driver = drivers_.get(index);
+
+            //if functionality is totally unavailable then
+            state = driver.getState();
+            if (state == DriverState.FAULT  ||  state == DriverState.OFF) {
+                //remove the driver from the list of available drivers
+                drivers_.remove(index);
+                rebuildCapabilityIndex();
+            }
         }
-        DriverInfo driver = drivers_.get(index);
-
-        //if functionality is totally unavailable then
-        DriverState state = driver.getState();
         if (state == DriverState.FAULT  ||  state == DriverState.OFF) {
-            //remove the driver from the list of available drivers
-            drivers_.remove(index);
             log_.warn("DRIVER", "InterfaceWorker.handleBrokenBond: driver " + driverName + " is no longer available.");
         }
 
@@ -208,63 +271,21 @@ public class InterfaceWorker {
      *     [driver category]/[name]
      * If the driver category is not specified then we will assume any category of driver is acceptable. If it
      * is specified, then only drivers of that category will be considered.
+     * The lookup is served from an inverted capability index, so its cost depends only on the number of drivers
+     * that provide the first requested capability.
      *
      * @param requestedCapabilities - a list of capabilities that must be met (inclusive)
      * @return - a list of fully-qualified driver names and capabilities where each driver involved can satisfy
      * all of the requestedCapabilities
      */
     public List<String> getDrivers(List<String> requestedCapabilities) {
-        List<String> result = new ArrayList<String>();
 
-        //if the system is ready for operation then
+        //if the system is ready for operation then look up the capable drivers
         if (systemOperational_.get()) {
-
-            //loop through all known drivers
-            for (int driverIndex = 0;  driverIndex < drivers_.size();  ++driverIndex) {
-                DriverInfo driver = drivers_.get(driverIndex);
-                List<String> driverCaps = driver.getCapabilities();
-                List<String> tentativeResult = new ArrayList<>();
-
-                //loop through all requested capabilities
-                boolean foundAllCapabilities = true;
-                for (int req = 0;  req < requestedCapabilities.size();  ++req) {
-
-                    //get the requested driver category, if any, and the requested capability
-                    String[] items = requestedCapabilities.get(req).split("/");
-                    DriverCategory cat = DriverCategory.UNDEFINED;
-                    if (items.length > 1) {
-                        cat = DriverCategory.getCat(items[items.length - 2]);
-                    }
-                    String reqCapability = items[items.length - 1];
-
-                    //if this driver cannot provide this capability then break out of loop
-                    boolean foundThisCapability = false;
-                    if (driver.hasCategory(cat)) {
-                        for (int capIndex = 0;  capIndex < driverCaps.size();  ++capIndex) {
-                            String[] capBreakout = driverCaps.get(capIndex).split("/");
-                            String driverCap = capBreakout[capBreakout.length - 1];
-                            if (reqCapability.equals(driverCap)) {
-                                foundThisCapability = true;
-                                tentativeResult.add(driverCaps.get(capIndex));
-                                break;
-                            }
-                        }
-                    }
-                    if (!foundThisCapability) {
-                        foundAllCapabilities = false;
-                        break;
-                    }
-                }
-
-                //if the driver is satisfactory then
-                if (foundAllCapabilities) {
-                    //add them all to the return list
-                    result.addAll(tentativeResult);
-                }
-            }
+            return capabilityIndex_.find(requestedCapabilities);
         }
 
-        return result;
+        return new ArrayList<String>();
     }
 
     /**
@@ -316,10 +337,26 @@ public class InterfaceWorker {
     	return System.currentTimeMillis() - systemReadyTime_;
     }
 
+    /**
+     * Stops the bond recovery thread. Any pending bond recoveries are abandoned.
+     */
+    public void shutdown() {
+        bondRecoveryExecutor_.shutdownNow();
+    }
+
     //////////
 
     /**
-     * Returns the index in the drivers_ array that matches the name of the given driver.
+     * Replaces the capability index with one built from the current list of drivers. Must be called
+     * whenever drivers_ is modified.
+     */
+    protected void rebuildCapabilityIndex() {
+        capabilityIndex_ = new CapabilityIndex(new ArrayList<DriverInfo>(drivers_));
+    }
+
+    /**
+     * Returns the index in the drivers_ array that matches the name of the given driver. Callers must hold the
+     * lock on this object while using the index.
      *
      * @param givenName - the one we are looking for
      * @return - index of the driver that matches given
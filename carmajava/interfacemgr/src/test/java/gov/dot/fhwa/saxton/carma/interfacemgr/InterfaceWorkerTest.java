@@ -24,6 +24,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -286,8 +289,102 @@ public class InterfaceWorkerTest {
         w_.handleBrokenBond("sensor1"); //this should write a message to the log AND THROW AN EXCEPTION
     }
 
+    @Test
+    public void testScheduleBrokenBond() throws Exception {
+        log_.info("///// Entering testScheduleBrokenBond.");
+
+        addNewDrivers();
+        addDuplicateDrivers(); //this will set sensor1 to FAULT
+        assertTrue(w_.getDriverIndex("sensor1") >= 0);
+
+        //scheduling must not block the caller for the recovery delay
+        long start = System.currentTimeMillis();
+        ScheduledFuture<?> pending = w_.scheduleBrokenBond("sensor1");
+        assertTrue(System.currentTimeMillis() - start < 500);
+        assertFalse(pending.isDone());
+
+        //once the recovery runs the faulted driver is no longer available
+        pending.get(5, TimeUnit.SECONDS);
+        assertEquals(-1, w_.getDriverIndex("sensor1"));
+        assertTrue(w_.getDriverIndex("position3") >= 0);
+
+        //an unknown driver is logged and swallowed on the recovery thread
+        w_.scheduleBrokenBond("sensor/sensor1").get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testSlowDriverDoesNotBlockOthers() throws Exception {
+        log_.info("///// Entering testSlowDriverDoesNotBlockOthers.");
+
+        final CountDownLatch apiRequested = new CountDownLatch(1);
+        final CountDownLatch releaseApi = new CountDownLatch(1);
+        final InterfaceWorker worker = new InterfaceWorker(new FakeInterfaceMgr() {
+            @Override
+            public List<String> getDriverApi(String driverName) {
+                if (driverName.equals("slow1")) {
+                    apiRequested.countDown();
+                    try {
+                        releaseApi.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getDriverApi(driverName);
+            }
+        }, log_);
+
+        try {
+            DriverInfo sensor1 = new DriverInfo();
+            sensor1.setSensor(true);
+            sensor1.setName("sensor1");
+            sensor1.setState(DriverState.OPERATIONAL);
+            worker.handleNewDriverStatus(sensor1);
+
+            //a driver whose api call is slow to respond
+            final DriverInfo slow1 = new DriverInfo();
+            slow1.setSensor(true);
+            slow1.setName("slow1");
+            slow1.setState(DriverState.OPERATIONAL);
+            Thread discovery = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    worker.handleNewDriverStatus(slow1);
+                }
+            });
+            discovery.start();
+            assertTrue(apiRequested.await(5, TimeUnit.SECONDS));
+
+            //other drivers are still handled while it waits
+            long start = System.currentTimeMillis();
+            DriverInfo position1 = new DriverInfo();
+            position1.setPosition(true);
+            position1.setName("position1");
+            position1.setState(DriverState.OPERATIONAL);
+            worker.handleNewDriverStatus(position1);
+            sensor1 = new DriverInfo();
+            sensor1.setSensor(true);
+            sensor1.setName("sensor1");
+            sensor1.setState(DriverState.FAULT);
+            worker.handleNewDriverStatus(sensor1);
+            worker.handleBrokenBond("sensor1");
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertTrue(worker.getDriverIndex("position1") >= 0);
+            assertEquals(-1, worker.getDriverIndex("sensor1"));
+            assertEquals(-1, worker.getDriverIndex("slow1"));
+
+            //the slow driver is added once its api arrives
+            releaseApi.countDown();
+            discovery.join(5000);
+            assertTrue(worker.getDriverIndex("slow1") >= 0);
+        } finally {
+            releaseApi.countDown();
+            worker.shutdown();
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
+        w_.shutdown();
     }
 
 
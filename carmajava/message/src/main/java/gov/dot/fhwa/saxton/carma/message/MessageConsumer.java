@@ -38,6 +38,8 @@ import cav_msgs.MobilityRequest;
 import cav_msgs.MobilityResponse;
 import cav_msgs.SystemAlert;
 
+import diagnostic_msgs.DiagnosticArray;
+
 import j2735_msgs.BSM;
 import j2735_msgs.SPAT;
 import j2735_msgs.MapData;
@@ -74,6 +76,7 @@ public class MessageConsumer extends SaxtonBaseNode {
 	protected Publisher<MobilityOperation> mobilityOperationPub_; //incoming mobility operation message after decoded
 	protected Publisher<MapData> mapPub_; //incoming MAP message after decoded
 	protected Publisher<SPAT> spatPub_; //incoming SPAT message after decoded
+	protected Publisher<DiagnosticArray> statisticsPub_; //message rates and latencies
 	
 	// Subscribers
 	protected Subscriber<SystemAlert> alertSub_;
@@ -102,6 +105,8 @@ public class MessageConsumer extends SaxtonBaseNode {
     protected boolean publishOutboundMobilityPath_ = true;
     protected boolean publishOutboundMobilityResponse_ = true;
     protected boolean publishOutboundMobilityOperation_ = true;
+    protected double statisticsPeriod_ = 1.0;
+    protected double statisticsWindow_ = 5.0;
     
 	@Override
 	public GraphName getDefaultNodeName() {
@@ -123,6 +128,8 @@ public class MessageConsumer extends SaxtonBaseNode {
             publishOutboundMobilityPath_ = param.getBoolean("~/publish_outbound_mobility_path", true);
             publishOutboundMobilityResponse_ = param.getBoolean("~/publish_outbound_mobility_response", true);
             publishOutboundMobilityOperation_ = param.getBoolean("~/publish_outbound_mobility_operation", true);
+            statisticsPeriod_ = param.getDouble("~/statistics_publish_period", 1.0);
+            statisticsWindow_ = param.getDouble("~/statistics_window", 5.0);
         }catch (Exception e) {
             log_.warn("STARTUP", "Error reading Message parameters. Using defaults.");
         }
@@ -131,7 +138,7 @@ public class MessageConsumer extends SaxtonBaseNode {
         log_.debug("Read params to publish outbound: OPERATION = " + publishOutboundMobilityOperation_);
 
         //initialize message statistic
-		messageCounters = new MessageStatistic(connectedNode_, log_);
+		messageCounters = new MessageStatistic(connectedNode_, log_, statisticsWindow_);
 		
 		//initialize alert sub, pub
 		alertSub_ = this.connectedNode_.newSubscriber("system_alert", SystemAlert._TYPE);
@@ -173,9 +180,10 @@ public class MessageConsumer extends SaxtonBaseNode {
 		mobilityOperationPub_ = connectedNode_.newPublisher("incoming_mobility_operation", MobilityOperation._TYPE);
 		mapPub_ = connectedNode_.newPublisher("incoming_j2735_map", MapData._TYPE);
 		spatPub_ = connectedNode_.newPublisher("incoming_j2735_spat", SPAT._TYPE);
+		statisticsPub_ = connectedNode_.newPublisher("/diagnostics", DiagnosticArray._TYPE);
 		if(bsmPub_ == null || outboundPub_ == null || mobilityReqPub_ == null ||
 		   mobilityPathPub_ == null || mobilityResponsePub_ == null ||
-		   mobilityOperationPub_ == null || mapPub_ == null || spatPub_ == null) {
+		   mobilityOperationPub_ == null || mapPub_ == null || spatPub_ == null || statisticsPub_ == null) {
 		    log_.error("Cannot initialize necessary publishers.");
 		    handleException(new RosRuntimeException("Cannot initialize necessary publishers."));
 		}
@@ -210,7 +218,9 @@ public class MessageConsumer extends SaxtonBaseNode {
 		    messageCounters.onMessageReceiving(msg.getMessageType());
 		    IMessage<?> message = DSRCMessageFactory.getMessage(msg.getMessageType(), connectedNode_, log_, connectedNode_.getTopicMessageFactory());
 		    if(message != null) {
+		        long decodeStart = System.nanoTime();
 		        MessageContainer decodedMessage = message.decode(msg);
+		        messageCounters.onMessageDecoded(msg.getMessageType(), System.nanoTime() - decodeStart);
 	            if(decodedMessage.getMessage() != null) {
 	                switch (decodedMessage.getType()) {
 	                case "BSM":
@@ -265,9 +275,11 @@ public class MessageConsumer extends SaxtonBaseNode {
 			        IMessage<?> message = DSRCMessageFactory.getMessage(outgoingMessage.getType(), connectedNode_, log_, connectedNode_.getTopicMessageFactory());
                     if(message != null) {
                         log_.debug("Found message factory on type " + outgoingMessage.getType());
+                        long encodeStart = System.nanoTime();
                         MessageContainer encodedMessage = message.encode(outgoingMessage.getMessage());
                         if(encodedMessage.getMessage() != null) {
                             log_.debug("We encode " + outgoingMessage.getType());
+                            messageCounters.onMessageEncoded(((ByteArray) encodedMessage.getMessage()).getMessageType(), System.nanoTime() - encodeStart);
                             messageCounters.onMessageSending(((ByteArray) encodedMessage.getMessage()).getMessageType());
                             outboundPub_.publish((ByteArray) encodedMessage.getMessage());
                         } else {
@@ -279,6 +291,16 @@ public class MessageConsumer extends SaxtonBaseNode {
 			}
 		});
 		
+		// Publish message rates and latencies over the sliding window
+		final long statisticsPeriodMs = (long) (statisticsPeriod_ * 1000);
+		connectedNode_.executeCancellableLoop(new CancellableLoop() {
+		    @Override
+		    protected void loop() throws InterruptedException {
+		        messageCounters.publishStatistics(statisticsPub_);
+		        Thread.sleep(statisticsPeriodMs);
+		    }
+		});
+		
 	}
 	
 	@Override
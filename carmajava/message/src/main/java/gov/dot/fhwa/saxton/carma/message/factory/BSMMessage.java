@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -26,8 +27,10 @@ import org.ros.message.MessageFactory;
 import org.ros.node.ConnectedNode;
 
 import j2735_msgs.BSM;
+import j2735_msgs.BSMCoreData;
 import cav_msgs.ByteArray;
 import gov.dot.fhwa.saxton.carma.message.helper.BSMMessageHelper;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
 /**
@@ -36,6 +39,37 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
  */
 public class BSMMessage implements IMessage<BSM> {
 
+    // Indices of the BSM core data fields in the flat int array used by the direct buffer natives
+    protected static final int MSG_COUNT = 0;
+    protected static final int ID = 1; // 4 elements
+    protected static final int SEC_MARK = 5;
+    protected static final int LAT = 6;
+    protected static final int LON = 7;
+    protected static final int ELEV = 8;
+    protected static final int SEMI_MAJOR = 9;
+    protected static final int SEMI_MINOR = 10;
+    protected static final int ORIENTATION = 11;
+    protected static final int TRANSMISSION = 12;
+    protected static final int SPEED = 13;
+    protected static final int HEADING = 14;
+    protected static final int ANGLE = 15;
+    protected static final int ACCEL_LAT = 16;
+    protected static final int ACCEL_LONG = 17;
+    protected static final int ACCEL_VERT = 18;
+    protected static final int ACCEL_YAW = 19;
+    protected static final int WHEEL_BRAKES = 20;
+    protected static final int TRACTION = 21;
+    protected static final int ABS = 22;
+    protected static final int SCS = 23;
+    protected static final int BRAKE_BOOST = 24;
+    protected static final int AUX_BRAKES = 25;
+    protected static final int WIDTH = 26;
+    protected static final int LENGTH = 27;
+    protected static final int FIELD_COUNT = 28;
+
+    // Cleared when the loaded shared library predates the direct buffer natives
+    protected static volatile boolean directCodecSupported = true;
+
     protected ConnectedNode node_;
     protected SaxtonLogger log_;
     protected MessageFactory messageFactory_;
@@ -50,7 +84,7 @@ public class BSMMessage implements IMessage<BSM> {
 	static {
 		try {
 			System.loadLibrary("asn1c");
-		} catch (Exception e) {
+		} catch (Exception | UnsatisfiedLinkError e) {
 			System.out.println("Exception trapped while trying to load the asn1c library" + e.toString());
 		}
 	}
@@ -63,7 +97,7 @@ public class BSMMessage implements IMessage<BSM> {
      * 
 	 * @return encoded BSM message
 	 */
-	private native byte[] encode_BSM(
+	protected native byte[] encode_BSM(
 			int msgCnt, int[] id, int secMark, int lat, int lon, int elev, int[] accuracy,
 			int transmission, int speed, int heading, int angle, int[] acceleration,
 			int[] wheel_brakes, int[] vehicle_size);
@@ -84,12 +118,94 @@ public class BSMMessage implements IMessage<BSM> {
 	 * @param size Decoded size of the vehicle
 	 * @return -1 means decode failed; 0 means decode is successful
 	 */
-	private native int decode_BSM(byte[] encoded_array, Object plain_msg, byte[] bsm_id, Object accuracy,
+	protected native int decode_BSM(byte[] encoded_array, Object plain_msg, byte[] bsm_id, Object accuracy,
 			Object transmission, Object accelset, byte[] brakeStatus, Object size);
-	
+
+	/**
+	 * This is the declaration for native method. It will take the BSM core data fields as a flat
+	 * int array indexed by the field constants of this class and encode them into a direct buffer.
+	 *
+	 * @param fields The BSM core data fields
+	 * @param encoded_buffer The direct buffer the encoded message is written to
+	 * @return the number of encoded bytes; -1 means encode failed
+	 */
+	protected native int encodeBSMDirect(int[] fields, ByteBuffer encoded_buffer);
+
+	/**
+	 * This is the declaration for native method. It will decode the encoded BSM held in a direct buffer
+	 * without copying it and write the BSM core data fields into a flat int array indexed by the field
+	 * constants of this class with a single copy.
+	 *
+	 * @param encoded_buffer The direct buffer holding the encoded message from position 0
+	 * @param length The number of encoded bytes
+	 * @param fields The decoded BSM core data fields
+	 * @return -1 means decode failed; 0 means decode is successful
+	 */
+	protected native int decodeBSMDirect(ByteBuffer encoded_buffer, int length, int[] fields);
+
 	@Override
     public MessageContainer encode(Message plainMessage) {
         BSMMessageHelper helper_bsm = new BSMMessageHelper(((BSM) plainMessage).getCoreData());
+        ChannelBuffer buffer = null;
+        if(directCodecSupported) {
+            try {
+                buffer = encodeDirect(helper_bsm);
+            } catch (UnsatisfiedLinkError e) {
+                directCodecSupported = false;
+                log_.warn("BSM", "Direct buffer natives are not available in the asn1c library, using byte array natives");
+            }
+        }
+        if(!directCodecSupported) {
+            buffer = encodeArray(helper_bsm);
+        }
+        if(buffer == null) {
+            log_.error("BSM", "BSMMessage cannot encode bsm message.");
+            return new MessageContainer("ByteArray", null);
+        }
+        ByteArray binary_msg = messageFactory_.newFromType(ByteArray._TYPE);
+        binary_msg.setContent(buffer);
+        binary_msg.setMessageType("BSM");
+        binary_msg.getHeader().setFrameId("0");
+        binary_msg.getHeader().setStamp(node_.getCurrentTime());
+        return new MessageContainer("ByteArray", binary_msg);
+    }
+
+    private ChannelBuffer encodeDirect(BSMMessageHelper helper_bsm) {
+        NativeCodecBuffers buffers = NativeCodecBuffers.get();
+        int[] fields = buffers.getFields();
+        fields[MSG_COUNT] = helper_bsm.getMsgCnt();
+        System.arraycopy(helper_bsm.getId(), 0, fields, ID, 4);
+        fields[SEC_MARK] = helper_bsm.getSecMark();
+        fields[LAT] = helper_bsm.getLat();
+        fields[LON] = helper_bsm.getLon();
+        fields[ELEV] = helper_bsm.getElev();
+        int[] accuracy = helper_bsm.getAccuracy();
+        fields[SEMI_MAJOR] = accuracy[0];
+        fields[SEMI_MINOR] = accuracy[1];
+        fields[ORIENTATION] = accuracy[2];
+        fields[TRANSMISSION] = helper_bsm.getTransmission();
+        fields[SPEED] = helper_bsm.getSpeed();
+        fields[HEADING] = helper_bsm.getHeading();
+        fields[ANGLE] = helper_bsm.getAngle();
+        int[] acceleration = helper_bsm.getAcceleration();
+        fields[ACCEL_LAT] = acceleration[0];
+        fields[ACCEL_LONG] = acceleration[1];
+        fields[ACCEL_VERT] = acceleration[2];
+        fields[ACCEL_YAW] = acceleration[3];
+        fields[WHEEL_BRAKES] = helper_bsm.getWheel_brakes();
+        fields[TRACTION] = helper_bsm.getTraction();
+        fields[ABS] = helper_bsm.getAbs();
+        fields[SCS] = helper_bsm.getScs();
+        fields[BRAKE_BOOST] = helper_bsm.getBba();
+        fields[AUX_BRAKES] = helper_bsm.getAux();
+        int[] vehicle_size = helper_bsm.getVehicle_size();
+        fields[WIDTH] = vehicle_size[0];
+        fields[LENGTH] = vehicle_size[1];
+        int length = encodeBSMDirect(fields, buffers.getOutput());
+        return length < 0 ? null : buffers.copyOutput(length);
+    }
+
+    private ChannelBuffer encodeArray(BSMMessageHelper helper_bsm) {
         int[] brakes_status = {
                 helper_bsm.getWheel_brakes(), helper_bsm.getTraction(), helper_bsm.getAbs(),
                 helper_bsm.getScs(), helper_bsm.getBba(), helper_bsm.getAux()};
@@ -100,26 +216,78 @@ public class BSMMessage implements IMessage<BSM> {
                 helper_bsm.getHeading(), helper_bsm.getAngle(), helper_bsm.getAcceleration(),
                 brakes_status, helper_bsm.getVehicle_size()
                 );
-        if(encode_msg == null) {
-            log_.error("BSM", "BSMMessage cannot encode bsm message.");
-            return new MessageContainer("ByteArray", null);
-        }
-        ByteArray binary_msg = messageFactory_.newFromType(ByteArray._TYPE);
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encode_msg);
-        binary_msg.setContent(buffer);
-        binary_msg.setMessageType("BSM");
-        binary_msg.getHeader().setFrameId("0");
-        binary_msg.getHeader().setStamp(node_.getCurrentTime());
-        return new MessageContainer("ByteArray", binary_msg);
+        // The array is not used after this call so it is wrapped instead of copied
+        return encode_msg == null ? null : ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, encode_msg);
     }
 
     @Override
     public MessageContainer decode(ByteArray binaryMessage) {
         ChannelBuffer channelBuffer = binaryMessage.getContent();
-        byte[] encoded_bsm = new byte[channelBuffer.capacity()];
-        for(int i = 0; i < channelBuffer.capacity(); i++) {
-            encoded_bsm[i] = channelBuffer.getByte(i);
+        BSM msg_object = null;
+        if(directCodecSupported) {
+            try {
+                msg_object = decodeDirect(channelBuffer);
+            } catch (UnsatisfiedLinkError e) {
+                directCodecSupported = false;
+                log_.warn("BSM", "Direct buffer natives are not available in the asn1c library, using byte array natives");
+            }
+        }
+        if(!directCodecSupported) {
+            msg_object = decodeArray(channelBuffer);
         }
+        if(msg_object == null) {
+            log_.error("BSM", "BSMMessage cannot decode bsm message");
+            return new MessageContainer("BSM", null);
+        }
+        msg_object.getHeader().setFrameId("MessageConsumer");
+        msg_object.getHeader().setStamp(node_.getCurrentTime());
+        return new MessageContainer("BSM", msg_object);
+    }
+
+    private BSM decodeDirect(ChannelBuffer channelBuffer) {
+        NativeCodecBuffers buffers = NativeCodecBuffers.get();
+        int[] fields = buffers.getFields();
+        int result = decodeBSMDirect(buffers.load(channelBuffer), channelBuffer.capacity(), fields);
+        if(result == -1) {
+            return null;
+        }
+        BSM msg_object = messageFactory_.newFromType(BSM._TYPE);
+        BSMCoreData core = msg_object.getCoreData();
+        core.setMsgCount((byte) fields[MSG_COUNT]);
+        byte[] temp_ID = new byte[4];
+        for(int i = 0; i < temp_ID.length; i++) {
+            temp_ID[i] = (byte) fields[ID + i];
+        }
+        core.setId(ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, temp_ID));
+        core.setSecMark((short) fields[SEC_MARK]);
+        core.setLatitude(fields[LAT]);
+        core.setLongitude(fields[LON]);
+        core.setElev(fields[ELEV]);
+        core.getAccuracy().setSemiMajor((byte) fields[SEMI_MAJOR]);
+        core.getAccuracy().setSemiMinor((byte) fields[SEMI_MINOR]);
+        core.getAccuracy().setOrientation((short) fields[ORIENTATION]);
+        core.getTransmission().setTransmissionState((byte) fields[TRANSMISSION]);
+        core.setSpeed((short) fields[SPEED]);
+        core.setHeading((short) fields[HEADING]);
+        core.setAngle((byte) fields[ANGLE]);
+        core.getAccelSet().setLateral((short) fields[ACCEL_LAT]);
+        core.getAccelSet().setLongitudinal((short) fields[ACCEL_LONG]);
+        core.getAccelSet().setVert((byte) fields[ACCEL_VERT]);
+        core.getAccelSet().setYawRate((short) fields[ACCEL_YAW]);
+        //Set BrakeAppliedStatus after default shift in asn1c library
+        core.getBrakes().getWheelBrakes().setBrakeAppliedStatus((byte) (((byte) fields[WHEEL_BRAKES]) >> 3));
+        core.getBrakes().getTraction().setTractionControlStatus((byte) fields[TRACTION]);
+        core.getBrakes().getAbs().setAntiLockBrakeStatus((byte) fields[ABS]);
+        core.getBrakes().getScs().setStabilityControlStatus((byte) fields[SCS]);
+        core.getBrakes().getBrakeBoost().setBrakeBoostApplied((byte) fields[BRAKE_BOOST]);
+        core.getBrakes().getAuxBrakes().setAuxiliaryBrakeStatus((byte) fields[AUX_BRAKES]);
+        core.getSize().setVehicleWidth((short) fields[WIDTH]);
+        core.getSize().setVehicleLength((short) fields[LENGTH]);
+        return msg_object;
+    }
+
+    private BSM decodeArray(ChannelBuffer channelBuffer) {
+        byte[] encoded_bsm = NativeCodecBuffers.toByteArray(channelBuffer);
         byte[] temp_ID = new byte[4];
         Arrays.fill(temp_ID, (byte) 0);
         byte[] brakeStatus = new byte[6];
@@ -132,10 +300,9 @@ public class BSMMessage implements IMessage<BSM> {
                 brakeStatus, msg_object.getCoreData().getSize()
                 );
         if(result == -1) {
-            log_.error("BSM", "BSMMessage cannot decode bsm message");
-            return new MessageContainer("BSM", null);
+            return null;
         }
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, temp_ID);
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, temp_ID);
         msg_object.getCoreData().setId(buffer);
         //Set BrakeAppliedStatus after default shift in asn1c library
         msg_object.getCoreData().getBrakes().getWheelBrakes().setBrakeAppliedStatus((byte) (brakeStatus[0] >> 3));
@@ -144,8 +311,6 @@ public class BSMMessage implements IMessage<BSM> {
         msg_object.getCoreData().getBrakes().getScs().setStabilityControlStatus(brakeStatus[3]);
         msg_object.getCoreData().getBrakes().getBrakeBoost().setBrakeBoostApplied(brakeStatus[4]);
         msg_object.getCoreData().getBrakes().getAuxBrakes().setAuxiliaryBrakeStatus(brakeStatus[5]);
-        msg_object.getHeader().setFrameId("MessageConsumer");
-        msg_object.getHeader().setStamp(node_.getCurrentTime());
-        return new MessageContainer("BSM", msg_object);
+        return msg_object;
     }
 }
@@ -12,6 +12,8 @@ import j2735_msgs.MapData;
 import j2735_msgs.NodeListXY;
 import j2735_msgs.NodeOffsetPointXY;
 import j2735_msgs.NodeXY;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
+import gov.dot.fhwa.saxton.carma.message.helper.PayloadCache;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
 public class MapMessage implements IMessage<MapData>{
@@ -21,6 +23,11 @@ public class MapMessage implements IMessage<MapData>{
     protected static final int MAX_LANE_LIST_SIZE = 255;
     protected static final int NODE_OFFSETS_DATA_SIZE = 189;
     protected static final int CONNECTION_DATA_SIZE = 32;
+    protected static final int DECODE_CACHE_SIZE = 16;
+
+    // An intersection broadcasts the same MAP payload repeatedly, so decoded MAPs are kept by payload.
+    // It is shared because the message factory creates a MapMessage for each received message.
+    protected static final PayloadCache<MapData> decodedMaps = new PayloadCache<>(DECODE_CACHE_SIZE);
 
     protected SaxtonLogger log;
     protected MessageFactory messageFactory;
@@ -57,9 +64,11 @@ public class MapMessage implements IMessage<MapData>{
     public MessageContainer decode(ByteArray binaryMessage) {
         // Copy binary message from ChannelBuffer to byte array
         ChannelBuffer buffer = binaryMessage.getContent();
-        byte[] encodedMsg = new byte[buffer.capacity()];
-        for (int i = 0; i < buffer.capacity(); i++) {
-            encodedMsg[i] = buffer.getByte(i);
+        byte[] encodedMsg = NativeCodecBuffers.toByteArray(buffer);
+        // An identical payload carries the same message revision and geometry, so the previous result is reused
+        MapData cached = decodedMaps.get(encodedMsg);
+        if (cached != null) {
+            return new MessageContainer("MAP", shareGeometry(cached));
         }
         // Initialize empty arrays to hold MAP data
         int[] intersectionData = new int[INTERSECTION_DATA_SIZE];
@@ -189,7 +198,20 @@ public class MapMessage implements IMessage<MapData>{
             map.getIntersections().add(intersection);
         }
         map.getHeader().setFrameId("0");
+        decodedMaps.put(encodedMsg, map);
         return new MessageContainer("MAP", map);
     }
 
+    /**
+     * Creates a MAP message with its own header which shares the decoded intersections of a cached MAP.
+     * Decoded intersections are never modified, so they can be published any number of times.
+     */
+    private MapData shareGeometry(MapData decoded) {
+        MapData map = messageFactory.newFromType(MapData._TYPE);
+        map.setIntersectionsExists(decoded.getIntersectionsExists());
+        map.setIntersections(decoded.getIntersections());
+        map.getHeader().setFrameId(decoded.getHeader().getFrameId());
+        return map;
+    }
+
 }
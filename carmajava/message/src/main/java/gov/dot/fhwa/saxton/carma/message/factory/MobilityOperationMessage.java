@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -28,6 +29,7 @@ import org.ros.message.Time;
 import cav_msgs.ByteArray;
 import cav_msgs.MobilityOperation;
 import gov.dot.fhwa.saxton.carma.message.helper.MobilityHeaderHelper;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
 import gov.dot.fhwa.saxton.carma.message.helper.StringConverterHelper;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
@@ -40,6 +42,9 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
     protected static final int STRATEGY_MAX_LENGTH = 50;
     protected static final int STRATEGY_PARAMS_MAX_LENGTH = 100;
     
+    // Cleared when the loaded shared library predates the direct buffer natives
+    private static volatile boolean directCodecSupported = true;
+
     private MessageFactory factory;
     private SaxtonLogger   log;
     
@@ -75,6 +80,14 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
     public native int decodeMobilityOperation(byte[] encodedArray, byte[] senderId, byte[] targetId, byte[] bsmId,
             byte[] planId, byte[] timestamp, byte[] strategy, byte[] params);
     
+    /**
+     * This is the declaration for native method. It is the same as decodeMobilityOperation except that the
+     * encoded message is read in place from a direct buffer instead of being copied out of a byte array.
+     * @return -1 means decode failed; 0 means decode is successful
+     */
+    public native int decodeMobilityOperationDirect(ByteBuffer encodedBuffer, int length, byte[] senderId,
+            byte[] targetId, byte[] bsmId, byte[] planId, byte[] timestamp, byte[] strategy, byte[] params);
+    
     @Override
     public MessageContainer encode(Message plainMessage) {
         byte[] encodedMsg = callJniEncode((MobilityOperation) plainMessage);
@@ -83,7 +96,7 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
             return new MessageContainer("ByteArray", null);
         }
         ByteArray binaryMsg = factory.newFromType(ByteArray._TYPE);
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
         binaryMsg.setContent(buffer);
         binaryMsg.setMessageType("MobilityOperation");
         binaryMsg.getHeader().setFrameId("0");
@@ -94,10 +107,6 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
     @Override
     public MessageContainer decode(ByteArray binaryMessage) {
         ChannelBuffer buffer = binaryMessage.getContent();
-        byte[] encodedMsg = new byte[buffer.capacity()];
-        for (int i = 0; i < buffer.capacity(); i++) {
-            encodedMsg[i] = buffer.getByte(i);
-        }
         byte[] senderId = new byte[16];
         byte[] targetId = new byte[16];
         byte[] bsmId = new byte[8];
@@ -108,7 +117,7 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
         // fill with character 'zero'
         Arrays.fill(timestamp, (byte) 48);
         MobilityOperation operation = factory.newFromType(MobilityOperation._TYPE);
-        int result = decodeMobilityOperation(encodedMsg, senderId, targetId, bsmId, planId, timestamp, strategy, strategyParams);
+        int result = callJniDecode(buffer, senderId, targetId, bsmId, planId, timestamp, strategy, strategyParams);
         if (result == -1) {
                 log.warn("MobilityOperationMessage cannot decode message.");
                 return new MessageContainer("MobilityOperation", null);
@@ -130,5 +139,20 @@ public class MobilityOperationMessage implements IMessage<MobilityOperation> {
                             StringConverterHelper.setDynamicLengthString(msg.getStrategy(), STRATEGY_MAX_LENGTH),
                             StringConverterHelper.setDynamicLengthString(msg.getStrategyParams(), STRATEGY_PARAMS_MAX_LENGTH));
     }
+
+    public int callJniDecode(ChannelBuffer encoded, byte[] senderId, byte[] targetId, byte[] bsmId,
+            byte[] planId, byte[] timestamp, byte[] strategy, byte[] params) {
+        if (directCodecSupported) {
+            try {
+                return decodeMobilityOperationDirect(NativeCodecBuffers.get().load(encoded), encoded.capacity(),
+                            senderId, targetId, bsmId, planId, timestamp, strategy, params);
+            } catch (UnsatisfiedLinkError e) {
+                directCodecSupported = false;
+                log.warn("MobilityOperation", "Direct buffer natives are not available in the asn1c library, using byte array natives");
+            }
+        }
+        return decodeMobilityOperation(NativeCodecBuffers.toByteArray(encoded), senderId, targetId, bsmId,
+                            planId, timestamp, strategy, params);
+    }
     
 }
@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -29,6 +30,7 @@ import cav_msgs.ByteArray;
 import cav_msgs.MobilityPath;
 import gov.dot.fhwa.saxton.carma.message.helper.MobilityPathHelper;
 import gov.dot.fhwa.saxton.carma.message.helper.MobilityTrajectoryHelper;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
 import gov.dot.fhwa.saxton.carma.message.helper.StringConverterHelper;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
@@ -38,6 +40,11 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
  */
 public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
 
+        // Cleared when the loaded shared library predates the direct buffer natives
+        private static volatile boolean directCodecSupported = true;
+        // Cleared when the loaded shared library predates the flat offsets native
+        private static volatile boolean flatCodecSupported = true;
+
         private MessageFactory factory;
         private SaxtonLogger log;
 
@@ -77,6 +84,24 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                         byte[] bsmId, byte[] planId, byte[] timestamp, Object currentLocation, byte[] locationTimestamp,
                         int[][] offsets);
 
+        /**
+         * This is the declaration for native method. It is the same as decodeMobilityPath except that the
+         * encoded message is read in place from a direct buffer instead of being copied out of a byte array.
+         * @return -1 means decode failed; 0 means decode is successful
+         */
+        public native int decodeMobilityPathDirect(ByteBuffer encodedBuffer, int length, Object mobilityPath,
+                        byte[] senderId, byte[] targetId, byte[] bsmId, byte[] planId, byte[] timestamp,
+                        Object currentLocation, byte[] locationTimestamp, int[][] offsets);
+
+        /**
+         * This is the declaration for native method. It is the same as decodeMobilityPathDirect except that the
+         * trajectory offsets are written with a single copy into a flat array as consecutive x, y, z triples.
+         * @return -1 means decode failed; otherwise the number of offsets written
+         */
+        public native int decodeMobilityPathFlat(ByteBuffer encodedBuffer, int length, Object mobilityPath,
+                        byte[] senderId, byte[] targetId, byte[] bsmId, byte[] planId, byte[] timestamp,
+                        Object currentLocation, byte[] locationTimestamp, int[] offsets);
+
         public byte[] callJniEncode(MobilityPath message) {
                 MobilityPathHelper helper = new MobilityPathHelper(message);
                 return encodeMobilityPath(helper.getHeaderHelper().getSenderId(),
@@ -97,7 +122,7 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                         return new MessageContainer("ByteArray", null);
                 }
                 ByteArray binaryMsg = factory.newFromType(ByteArray._TYPE);
-                ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
+                ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
                 binaryMsg.setContent(buffer);
                 binaryMsg.setMessageType("MobilityPath");
                 binaryMsg.getHeader().setFrameId("0");
@@ -108,25 +133,17 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
         @Override
         public MessageContainer decode(ByteArray binaryMessage) {
                 ChannelBuffer buffer = binaryMessage.getContent();
-                byte[] encodedMsg = new byte[buffer.capacity()];
-                for (int i = 0; i < buffer.capacity(); i++) {
-                        encodedMsg[i] = buffer.getByte(i);
-                }
                 byte[] senderId = new byte[16];
                 byte[] targetId = new byte[16];
                 byte[] bsmId = new byte[8];
                 byte[] planId = new byte[36];
                 byte[] timestamp = new byte[19];
                 byte[] trajectoryStartTime = new byte[19];
-                int[][] offsets = new int[3][60];
+                int[] offsets = NativeCodecBuffers.get().getOffsets();
                 // fill with character 'zero'
                 Arrays.fill(trajectoryStartTime, (byte) 48);
-                // fill with unavailable data 
-                Arrays.fill(offsets[0], 501);
-                Arrays.fill(offsets[1], 501);
-                Arrays.fill(offsets[2], 501);
                 MobilityPath path = factory.newFromType(MobilityPath._TYPE);
-                int result = decodeMobilityPath(encodedMsg, path, senderId, targetId, bsmId, planId, timestamp,
+                int result = callJniDecodeFlat(buffer, path, senderId, targetId, bsmId, planId, timestamp,
                                 path.getTrajectory().getLocation(), trajectoryStartTime, offsets);
                 if (result == -1) {
                         log.warn("MobilityPathMessage cannot decode message.");
@@ -139,8 +156,55 @@ public class MobilityPathMessage implements IMessage<MobilityPathMessage> {
                 path.getHeader().setTimestamp(Long.parseLong(new String(timestamp)));
                 path.getTrajectory().getLocation().setTimestamp(Long.parseLong(new String(trajectoryStartTime)));
                 MobilityTrajectoryHelper helper = new MobilityTrajectoryHelper(factory);
-                path.getTrajectory().setOffsets(helper.intArrayOffsetsToOffsetList(offsets));
+                path.getTrajectory().setOffsets(helper.flatOffsetsToOffsetList(offsets, result));
                 return new MessageContainer("MobilityPath", path);
         }
 
+        public int callJniDecode(ChannelBuffer encoded, Object mobilityPath, byte[] senderId, byte[] targetId,
+                        byte[] bsmId, byte[] planId, byte[] timestamp, Object currentLocation, byte[] locationTimestamp,
+                        int[][] offsets) {
+                if (directCodecSupported) {
+                        try {
+                                return decodeMobilityPathDirect(NativeCodecBuffers.get().load(encoded), encoded.capacity(),
+                                                mobilityPath, senderId, targetId, bsmId, planId, timestamp, currentLocation,
+                                                locationTimestamp, offsets);
+                        } catch (UnsatisfiedLinkError e) {
+                                directCodecSupported = false;
+                                log.warn("MobilityPath", "Direct buffer natives are not available in the asn1c library, using byte array natives");
+                        }
+                }
+                return decodeMobilityPath(NativeCodecBuffers.toByteArray(encoded), mobilityPath, senderId, targetId,
+                                bsmId, planId, timestamp, currentLocation, locationTimestamp, offsets);
+        }
+
+        /**
+         * Decodes a MobilityPath message writing its trajectory offsets into a flat array as consecutive x, y, z triples
+         * @return -1 means decode failed; otherwise the number of offsets written
+         */
+        public int callJniDecodeFlat(ChannelBuffer encoded, Object mobilityPath, byte[] senderId, byte[] targetId,
+                        byte[] bsmId, byte[] planId, byte[] timestamp, Object currentLocation, byte[] locationTimestamp,
+                        int[] offsets) {
+                if (flatCodecSupported) {
+                        try {
+                                return decodeMobilityPathFlat(NativeCodecBuffers.get().load(encoded), encoded.capacity(),
+                                                mobilityPath, senderId, targetId, bsmId, planId, timestamp, currentLocation,
+                                                locationTimestamp, offsets);
+                        } catch (UnsatisfiedLinkError e) {
+                                flatCodecSupported = false;
+                                log.warn("MobilityPath", "Flat offsets native is not available in the asn1c library, using offset arrays");
+                        }
+                }
+                int[][] offsetArrays = new int[3][60];
+                // fill with unavailable data 
+                Arrays.fill(offsetArrays[0], 501);
+                Arrays.fill(offsetArrays[1], 501);
+                Arrays.fill(offsetArrays[2], 501);
+                int result = callJniDecode(encoded, mobilityPath, senderId, targetId, bsmId, planId, timestamp,
+                                currentLocation, locationTimestamp, offsetArrays);
+                if (result == -1) {
+                        return -1;
+                }
+                return MobilityTrajectoryHelper.toFlatOffsets(offsetArrays, offsets);
+        }
+
 }
\ No newline at end of file
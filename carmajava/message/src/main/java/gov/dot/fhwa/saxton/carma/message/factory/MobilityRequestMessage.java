@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -29,6 +30,7 @@ import cav_msgs.ByteArray;
 import cav_msgs.MobilityRequest;
 import gov.dot.fhwa.saxton.carma.message.helper.MobilityRequestHelper;
 import gov.dot.fhwa.saxton.carma.message.helper.MobilityTrajectoryHelper;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
 import gov.dot.fhwa.saxton.carma.message.helper.StringConverterHelper;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
@@ -38,6 +40,9 @@ import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
  */
 public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
     
+    // Cleared when the loaded shared library predates the direct buffer natives
+    private static volatile boolean directCodecSupported = true;
+
     protected SaxtonLogger log_;
     protected MessageFactory messageFactory_;
     
@@ -80,6 +85,17 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
             Object currentLocation, byte[] locationTime, byte[] strategyParams, Object trajectoryStartLocation,
             byte[] trajectoryStartTime, int[][] offsets, byte[] expiration);
     
+    /**
+     * This is the declaration for native method. It is the same as decodeMobilityRequest except that the
+     * encoded message is read in place from a direct buffer instead of being copied out of a byte array.
+     * @return -1 means decode failed; 0 means decode is successful
+     */
+    private native int decodeMobilityRequestDirect(
+            ByteBuffer encodedBuffer, int length, Object mobilityReq, byte[] senderId, byte[] targetId,
+            byte[] bsmId, byte[] planId, byte[] timestamp, byte[] strategy, Object planType,
+            Object currentLocation, byte[] locationTime, byte[] strategyParams, Object trajectoryStartLocation,
+            byte[] trajectoryStartTime, int[][] offsets, byte[] expiration);
+    
     @Override
     public MessageContainer encode(Message plainMessage) {
         byte[] encodedMsg = this.callJniEncode((MobilityRequest) plainMessage);
@@ -88,7 +104,7 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
             return new MessageContainer("ByteArray", null);
         }
         ByteArray binaryMsg = messageFactory_.newFromType(ByteArray._TYPE);
-        ChannelBuffer buffer = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
+        ChannelBuffer buffer = ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, encodedMsg);
         binaryMsg.setContent(buffer);
         binaryMsg.setMessageType("MobilityRequest");
         binaryMsg.getHeader().setFrameId("0");
@@ -99,10 +115,6 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
     @Override
     public MessageContainer decode(ByteArray binaryMessage) {
         ChannelBuffer buffer = binaryMessage.getContent();
-        byte[] encodedMsg = new byte[buffer.capacity()];
-        for(int i = 0; i < buffer.capacity(); i++) {
-            encodedMsg[i] = buffer.getByte(i);
-        }
         byte[] senderId = new byte[16];
         byte[] targetId = new byte[16];
         byte[] bsmId = new byte[8];
@@ -124,7 +136,7 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
         Arrays.fill(offsets[2], 501);
         MobilityRequest request = messageFactory_.newFromType(MobilityRequest._TYPE);
         int result = callJniDecode(
-                encodedMsg, request, senderId, targetId, bsmId, planId, timestamp, strategy,
+                buffer, request, senderId, targetId, bsmId, planId, timestamp, strategy,
                 request.getPlanType(), request.getLocation(), locationTime, strategyParams,
                 request.getTrajectory().getLocation(), trajectoryStartTime, offsets, expiration);
         if(result == -1) {
@@ -172,4 +184,25 @@ public class MobilityRequestMessage implements IMessage<MobilityRequestMessage>{
                 trajectoryStartLocation, trajectoryStartTime, offsets, expiration);
         return res;
     }
+    
+    public int callJniDecode(ChannelBuffer encoded, Object mobilityReq, byte[] senderId, byte[] targetId,
+            byte[] bsmId, byte[] planId, byte[] timestamp, byte[] strategy, Object planType,
+            Object currentLocation, byte[] locationTime, byte[] strategyParams, Object trajectoryStartLocation,
+            byte[] trajectoryStartTime, int[][] offsets, byte[] expiration) {
+        if(directCodecSupported) {
+            try {
+                return decodeMobilityRequestDirect(
+                        NativeCodecBuffers.get().load(encoded), encoded.capacity(), mobilityReq, senderId, targetId,
+                        bsmId, planId, timestamp, strategy, planType, currentLocation, locationTime, strategyParams,
+                        trajectoryStartLocation, trajectoryStartTime, offsets, expiration);
+            } catch (UnsatisfiedLinkError e) {
+                directCodecSupported = false;
+                log_.warn("MobilityRequest", "Direct buffer natives are not available in the asn1c library, using byte array natives");
+            }
+        }
+        return callJniDecode(
+                NativeCodecBuffers.toByteArray(encoded), mobilityReq, senderId, targetId, bsmId, planId, timestamp,
+                strategy, planType, currentLocation, locationTime, strategyParams,
+                trajectoryStartLocation, trajectoryStartTime, offsets, expiration);
+    }
 }
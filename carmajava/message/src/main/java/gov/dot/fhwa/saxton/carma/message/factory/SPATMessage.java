@@ -1,5 +1,10 @@
 package gov.dot.fhwa.saxton.carma.message.factory;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.ros.internal.message.Message;
 import org.ros.message.MessageFactory;
@@ -9,6 +14,8 @@ import j2735_msgs.IntersectionState;
 import j2735_msgs.MovementEvent;
 import j2735_msgs.MovementState;
 import j2735_msgs.SPAT;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
+import gov.dot.fhwa.saxton.carma.message.helper.PayloadCache;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
 public class SPATMessage implements IMessage<SPAT> {
@@ -19,6 +26,23 @@ public class SPATMessage implements IMessage<SPAT> {
     protected static final int EVENT_DATA_SIZE = 9;
     // the extra space is for state region ID
     protected static final int STATE_DATA_SIZE = EVENT_DATA_SIZE * MAX_EVENT_LIST_SIZE + 1;  
+    protected static final int DECODE_CACHE_SIZE = 16;
+    protected static final int MAX_TRACKED_INTERSECTIONS = 16;
+
+    // Decoded SPATs kept by payload, for signals which repeat the same payload while their timing is unchanged.
+    // They are shared because the message factory creates a SPATMessage for each received message.
+    protected static final PayloadCache<SPAT> decodedSpats = new PayloadCache<>(DECODE_CACHE_SIZE);
+    // The movement states last built for each intersection, reused for movements whose decoded data did not change.
+    // Only the most recently heard intersections are kept, so intersections the vehicle has left are dropped.
+    protected static final Map<Integer, DecodedStates> lastStates = Collections.synchronizedMap(
+            new LinkedHashMap<Integer, DecodedStates>(MAX_TRACKED_INTERSECTIONS * 2, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, DecodedStates> eldest) {
+                    return size() > MAX_TRACKED_INTERSECTIONS;
+                }
+            });
     
     protected SaxtonLogger log;
     protected MessageFactory messageFactory;
@@ -54,9 +78,10 @@ public class SPATMessage implements IMessage<SPAT> {
     public MessageContainer decode(ByteArray binaryMessage) {
      // Copy binary message from ChannelBuffer to byte array
         ChannelBuffer buffer = binaryMessage.getContent();
-        byte[] encodedMsg = new byte[buffer.capacity()];
-        for (int i = 0; i < buffer.capacity(); i++) {
-            encodedMsg[i] = buffer.getByte(i);
+        byte[] encodedMsg = NativeCodecBuffers.toByteArray(buffer);
+        SPAT cached = decodedSpats.get(encodedMsg);
+        if (cached != null) {
+            return new MessageContainer("SPAT", shareIntersections(cached));
         }
         // Initialize empty arrays to hold MAP data
         int[] intersectionData = new int[INTERSECTION_DATA_SIZE];
@@ -85,6 +110,9 @@ public class SPATMessage implements IMessage<SPAT> {
         if(intersection.getTimeStampExists()) {
             intersection.setTimeStamp(intersectionData[6]);
         }
+        DecodedStates previous = lastStates.get(intersectionData[2]);
+        MovementState[] states = new MovementState[MAX_STATE_LIST_SIZE];
+        int stateCount = 0;
         for(int i = 0; i < MAX_STATE_LIST_SIZE; i++) {
             // row vector of statesData is: {signalGroupId, movementEvent * 16}
             // each movementEvent vector is: {movementPhaseState, startTime, startTimeExist, minEndTime, maxEndTime, maxEndTimeExist
@@ -93,7 +121,15 @@ public class SPATMessage implements IMessage<SPAT> {
             if(statesData[i][0] == -1) {
                 break;
             }
+            stateCount++;
+            // A movement whose data did not change since the last SPAT of this intersection keeps its built message
+            if(previous != null && i < previous.states.length && Arrays.equals(statesData[i], previous.data[i])) {
+                states[i] = previous.states[i];
+                intersection.getStates().getMovementList().add(states[i]);
+                continue;
+            }
             MovementState state = messageFactory.newFromType(MovementState._TYPE);
+            states[i] = state;
             state.setSignalGroup((byte) statesData[i][0]);
             for(int j = 0; j < MAX_EVENT_LIST_SIZE; j ++) {
                 // -1 movementPhaseState indicates there is no more events
@@ -122,8 +158,37 @@ public class SPATMessage implements IMessage<SPAT> {
             }
             intersection.getStates().getMovementList().add(state);
         }
+        // Only the rows of the movements present are kept, not the whole decode buffer
+        lastStates.put(intersectionData[2],
+                new DecodedStates(Arrays.copyOf(statesData, stateCount), Arrays.copyOf(states, stateCount)));
         spat.getIntersections().getIntersectionStateList().add(intersection);
+        decodedSpats.put(encodedMsg, spat);
         return new MessageContainer("SPAT", spat);
     }
 
+    /**
+     * Creates a SPAT message which shares the decoded intersections of a cached SPAT.
+     * Decoded intersections are never modified, so they can be published any number of times.
+     */
+    private SPAT shareIntersections(SPAT decoded) {
+        SPAT spat = messageFactory.newFromType(SPAT._TYPE);
+        spat.setTimeStampExists(decoded.getTimeStampExists());
+        spat.setTimeStamp(decoded.getTimeStamp());
+        spat.setIntersections(decoded.getIntersections());
+        return spat;
+    }
+
+    /**
+     * The decoded movement state data of an intersection and the movement states built from it
+     */
+    protected static class DecodedStates {
+        protected final int[][] data;
+        protected final MovementState[] states;
+
+        protected DecodedStates(int[][] data, MovementState[] states) {
+            this.data = data;
+            this.states = states;
+        }
+    }
+
 }
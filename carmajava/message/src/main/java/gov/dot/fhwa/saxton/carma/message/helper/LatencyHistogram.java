@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of encode or decode latencies with power of two buckets in microseconds.
+ * Bucket i counts latencies in [2^i, 2^(i+1)) us, bucket 0 also counts latencies under 1 us
+ * and the last bucket counts everything above its lower bound.
+ * Recording only increments a LongAdder so it can be called from any thread without contention.
+ */
+public class LatencyHistogram {
+
+    protected static final int BUCKET_COUNT = 24;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    public LatencyHistogram() {
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos The measured latency in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets[bucketOf(nanos / 1000)].increment();
+    }
+
+    /**
+     * @return The number of latencies recorded in each bucket so far
+     */
+    public long[] snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    protected static int bucketOf(long micros) {
+        if(micros < 2) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Finds the latency below which the given fraction of the counted latencies fall.
+     * The result is the upper bound of the bucket holding that latency, so it overestimates by at most a factor of two.
+     *
+     * @param counts The counts per bucket, usually the difference of two snapshots
+     * @param fraction The fraction of latencies in [0, 1], e.g. 0.99 for the 99th percentile
+     * @return The latency in milliseconds or 0 if nothing was counted
+     */
+    public static double percentile(long[] counts, double fraction) {
+        long total = 0;
+        for(long count : counts) {
+            total += count;
+        }
+        if(total == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return (1L << (i + 1)) / 1000.0;
+            }
+        }
+        return (1L << counts.length) / 1000.0;
+    }
+
+    /**
+     * @return The counts per bucket recorded between the older and the newer snapshot
+     */
+    public static long[] delta(long[] newer, long[] older) {
+        long[] counts = new long[newer.length];
+        for(int i = 0; i < newer.length; i++) {
+            counts[i] = newer[i] - older[i];
+        }
+        return counts;
+    }
+
+    /**
+     * @return The total number of latencies in the counts
+     */
+    public static long count(long[] counts) {
+        long total = 0;
+        for(long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
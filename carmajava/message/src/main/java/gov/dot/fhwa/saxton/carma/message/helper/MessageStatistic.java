@@ -16,92 +16,226 @@
 
 package gov.dot.fhwa.saxton.carma.message.helper;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.ros.message.MessageFactory;
 import org.ros.node.ConnectedNode;
+import org.ros.node.topic.Publisher;
 
+import diagnostic_msgs.DiagnosticArray;
+import diagnostic_msgs.DiagnosticStatus;
+import diagnostic_msgs.KeyValue;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
 /**
- * This class is for recording the frequency of outgoing DSRC messages
- * and recording the number of incoming DSRC messages in a period of time.
+ * This class is for recording the frequency of outgoing DSRC messages, the number of incoming
+ * DSRC messages and the encode and decode latencies of each message type.
+ *
+ * Counters are looked up by message type in a concurrent map and only increment LongAdders,
+ * so the message threads never block on each other. Rates and latency percentiles over a sliding
+ * window are computed from periodic snapshots taken by the thread publishing the statistics.
  */
 public class MessageStatistic {
 
-    private class MessageCounter {
-        String messageType;
-        double last_outgoing_sample_time = 0.0, last_incoming_sample_time = 0.0;
-        int outgoing_counter = 0, incoming_counter = 0;
-        
+    protected static class MessageCounter {
+        final String messageType;
+        final LongAdder outgoing = new LongAdder();
+        final LongAdder incoming = new LongAdder();
+        final LatencyHistogram encodeLatency = new LatencyHistogram();
+        final LatencyHistogram decodeLatency = new LatencyHistogram();
+        // Only accessed by the sampling thread
+        final Deque<Snapshot> snapshots = new ArrayDeque<>();
+
         public MessageCounter(String messageType) {
             this.messageType = messageType;
         }
     }
-    
-    protected final double sample_window = 5.0;
-    
-    protected List<MessageCounter> counters_;
+
+    private static class Snapshot {
+        final double time;
+        final long outgoing, incoming;
+        final long[] encodeLatency, decodeLatency;
+
+        Snapshot(double time, MessageCounter counter) {
+            this.time = time;
+            this.outgoing = counter.outgoing.sum();
+            this.incoming = counter.incoming.sum();
+            this.encodeLatency = counter.encodeLatency.snapshot();
+            this.decodeLatency = counter.decodeLatency.snapshot();
+        }
+    }
+
+    /**
+     * Statistics of one message type over the sliding window
+     */
+    public static class TypeStatistics {
+        public final String messageType;
+        public final double window;
+        public final double outgoingRate, incomingRate;
+        public final long outgoingTotal, incomingTotal;
+        public final long encodeCount, decodeCount;
+        public final double encodeMedian, encodeP99, decodeMedian, decodeP99;
+
+        TypeStatistics(String messageType, Snapshot oldest, Snapshot newest) {
+            this.messageType = messageType;
+            this.window = newest.time - oldest.time;
+            this.outgoingRate = window > 0 ? (newest.outgoing - oldest.outgoing) / window : 0.0;
+            this.incomingRate = window > 0 ? (newest.incoming - oldest.incoming) / window : 0.0;
+            this.outgoingTotal = newest.outgoing;
+            this.incomingTotal = newest.incoming;
+            long[] encode = LatencyHistogram.delta(newest.encodeLatency, oldest.encodeLatency);
+            long[] decode = LatencyHistogram.delta(newest.decodeLatency, oldest.decodeLatency);
+            this.encodeCount = LatencyHistogram.count(encode);
+            this.decodeCount = LatencyHistogram.count(decode);
+            this.encodeMedian = LatencyHistogram.percentile(encode, 0.5);
+            this.encodeP99 = LatencyHistogram.percentile(encode, 0.99);
+            this.decodeMedian = LatencyHistogram.percentile(decode, 0.5);
+            this.decodeP99 = LatencyHistogram.percentile(decode, 0.99);
+        }
+    }
+
+    protected final double sample_window;
+
+    protected ConcurrentMap<String, MessageCounter> counters_;
     protected ConnectedNode node_;
     protected SaxtonLogger log_;
-    
+
     public MessageStatistic(ConnectedNode node, SaxtonLogger log) {
-        this.counters_ = new LinkedList<MessageCounter>();
+        this(node, log, 5.0);
+    }
+
+    /**
+     * @param node The node providing the current time
+     * @param log The logger
+     * @param sampleWindow The length in seconds of the sliding window rates and latencies are computed over
+     */
+    public MessageStatistic(ConnectedNode node, SaxtonLogger log, double sampleWindow) {
+        this.counters_ = new ConcurrentHashMap<String, MessageCounter>();
         this.node_ = node;
         this.log_ = log;
+        this.sample_window = sampleWindow;
     }
-    
+
     public void registerEntry(String messageType) {
-        if(findMessageCounter(messageType) == null) {
+        if(counters_.putIfAbsent(messageType, new MessageCounter(messageType)) == null) {
             log_.info("MessageStatistic is register a new counter " + messageType);
-            counters_.add(new MessageCounter(messageType));
         } else {
             log_.warn("MessageStatistic already have " + messageType + " couter");
         }
     }
-    
+
     public void onMessageSending(String messageType) {
-        MessageCounter counter = findMessageCounter(messageType);
-        if(counter == null) {
-            //TODO: comment this out since we do not need to record mobility message freq for now
-            //log_.warn("Cannot find the right message counter based on given type.");
-        } else {
-            if(counter.last_outgoing_sample_time == 0) {
-                counter.last_outgoing_sample_time = node_.getCurrentTime().toSeconds();
-            }
-            counter.outgoing_counter++;
-            if(node_.getCurrentTime().toSeconds() - counter.last_outgoing_sample_time >= sample_window) {
-                double freq = counter.outgoing_counter / sample_window;
-                log_.info(messageType, String.format("Outgoing " + messageType + " is encoded and published in %.02f Hz", freq));
-                counter.outgoing_counter = 0;
-                counter.last_outgoing_sample_time = node_.getCurrentTime().toSeconds();
-            }
+        MessageCounter counter = counters_.get(messageType);
+        if(counter != null) {
+            counter.outgoing.increment();
         }
     }
-    
+
     public void onMessageReceiving(String messageType) {
-        MessageCounter counter = findMessageCounter(messageType);
+        MessageCounter counter = counters_.get(messageType);
         if(counter == null) {
             log_.warn("Cannot find the right message counter based on given type.");
         } else {
-            if(counter.last_incoming_sample_time == 0) {
-                counter.last_incoming_sample_time = node_.getCurrentTime().toSeconds();
-            }
-            counter.incoming_counter++;
-            if(node_.getCurrentTime().toSeconds() - counter.last_incoming_sample_time >= sample_window) {
-                log_.info(messageType, "There are " +  counter.incoming_counter + " incoming " + messageType + "s decoded in past " + sample_window + " seconds");
-                counter.incoming_counter = 0;
-                counter.last_incoming_sample_time = node_.getCurrentTime().toSeconds(); 
-            }
+            counter.incoming.increment();
+        }
+    }
+
+    /**
+     * @param messageType The type of the encoded message
+     * @param nanos The time spent encoding the message in nanoseconds
+     */
+    public void onMessageEncoded(String messageType, long nanos) {
+        MessageCounter counter = counters_.get(messageType);
+        if(counter != null) {
+            counter.encodeLatency.record(nanos);
         }
     }
-    
-    private MessageCounter findMessageCounter(String messageType) {
-        for(MessageCounter counter : counters_) {
-            if(counter.messageType.equals(messageType)) {
-                return counter;
+
+    /**
+     * @param messageType The type of the decoded message
+     * @param nanos The time spent decoding the message in nanoseconds
+     */
+    public void onMessageDecoded(String messageType, long nanos) {
+        MessageCounter counter = counters_.get(messageType);
+        if(counter != null) {
+            counter.decodeLatency.record(nanos);
+        }
+    }
+
+    /**
+     * Takes a snapshot of all counters and computes their statistics over the sliding window.
+     * The statistics cover the time since the first snapshot until a full window has been sampled.
+     * Must only be called from one thread at a time.
+     *
+     * @param now The current time in seconds
+     * @return The statistics of each registered message type
+     */
+    public List<TypeStatistics> sample(double now) {
+        List<TypeStatistics> statistics = new ArrayList<>(counters_.size());
+        for(MessageCounter counter : counters_.values()) {
+            Deque<Snapshot> snapshots = counter.snapshots;
+            snapshots.addLast(new Snapshot(now, counter));
+            // Keep the latest snapshot at least one window old as the start of the window
+            while(snapshots.size() > 2) {
+                Snapshot first = snapshots.removeFirst();
+                if(snapshots.peekFirst().time > now - sample_window) {
+                    snapshots.addFirst(first);
+                    break;
+                }
             }
+            statistics.add(new TypeStatistics(counter.messageType, snapshots.peekFirst(), snapshots.peekLast()));
         }
-        return null;
+        return statistics;
+    }
+
+    /**
+     * Samples the statistics and publishes them as one diagnostic status per message type
+     *
+     * @param publisher The diagnostics publisher
+     */
+    public void publishStatistics(Publisher<DiagnosticArray> publisher) {
+        List<TypeStatistics> statistics = sample(node_.getCurrentTime().toSeconds());
+        MessageFactory factory = node_.getTopicMessageFactory();
+        DiagnosticArray diagnostics = publisher.newMessage();
+        diagnostics.getHeader().setStamp(node_.getCurrentTime());
+        List<DiagnosticStatus> statuses = new ArrayList<>(statistics.size());
+        for(TypeStatistics stats : statistics) {
+            DiagnosticStatus status = factory.newFromType(DiagnosticStatus._TYPE);
+            status.setLevel(DiagnosticStatus.OK);
+            status.setName(node_.getName() + ": " + stats.messageType);
+            status.setHardwareId(node_.getName().toString());
+            status.setMessage(String.format("%s in %.02f Hz, out %.02f Hz", stats.messageType, stats.incomingRate, stats.outgoingRate));
+            List<KeyValue> values = new ArrayList<>();
+            values.add(keyValue(factory, "window_s", String.format("%.02f", stats.window)));
+            values.add(keyValue(factory, "incoming_hz", String.format("%.02f", stats.incomingRate)));
+            values.add(keyValue(factory, "outgoing_hz", String.format("%.02f", stats.outgoingRate)));
+            values.add(keyValue(factory, "incoming_total", Long.toString(stats.incomingTotal)));
+            values.add(keyValue(factory, "outgoing_total", Long.toString(stats.outgoingTotal)));
+            values.add(keyValue(factory, "decode_count", Long.toString(stats.decodeCount)));
+            values.add(keyValue(factory, "decode_p50_ms", String.format("%.03f", stats.decodeMedian)));
+            values.add(keyValue(factory, "decode_p99_ms", String.format("%.03f", stats.decodeP99)));
+            values.add(keyValue(factory, "encode_count", Long.toString(stats.encodeCount)));
+            values.add(keyValue(factory, "encode_p50_ms", String.format("%.03f", stats.encodeMedian)));
+            values.add(keyValue(factory, "encode_p99_ms", String.format("%.03f", stats.encodeP99)));
+            status.setValues(values);
+            statuses.add(status);
+            log_.debug(stats.messageType, status.getMessage() + String.format(", decode p99 %.03f ms, encode p99 %.03f ms",
+                    stats.decodeP99, stats.encodeP99));
+        }
+        diagnostics.setStatus(statuses);
+        publisher.publish(diagnostics);
+    }
+
+    private static KeyValue keyValue(MessageFactory factory, String key, String value) {
+        KeyValue keyValue = factory.newFromType(KeyValue._TYPE);
+        keyValue.setKey(key);
+        keyValue.setValue(value);
+        return keyValue;
     }
 }
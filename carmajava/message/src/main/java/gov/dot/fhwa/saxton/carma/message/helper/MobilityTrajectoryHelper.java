@@ -16,6 +16,7 @@
 
 package gov.dot.fhwa.saxton.carma.message.helper;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -36,6 +37,7 @@ public class MobilityTrajectoryHelper {
     protected static final int XYZ_MAX = 500;
     protected static final int XYZ_UNKNOWN = 0;
     protected static final int OFFSETS_LIST_MAX_LENGTH = 60; 
+    protected static final int OFFSET_UNAVAILABLE = 501;
     
     private MobilityECEFLocationHelper startLocationHelper;
     private int[][] offsets;
@@ -94,4 +96,43 @@ public class MobilityTrajectoryHelper {
         }
         return result;
     }
+    
+    /**
+     * Converts offsets stored as consecutive x, y, z triples into offset messages with a single pass over the array
+     * 
+     * @param flatOffsets The offsets as [x0, y0, z0, x1, y1, z1, ...] in cm
+     * @param count The number of offsets stored in the array
+     * @return The list of offset messages
+     */
+    public List<LocationOffsetECEF> flatOffsetsToOffsetList(int[] flatOffsets, int count) {
+        List<LocationOffsetECEF> result = new ArrayList<LocationOffsetECEF>(count);
+        for(int i = 0; i < 3 * count; i += 3) {
+            LocationOffsetECEF offset = this.factory.newFromType(LocationOffsetECEF._TYPE);
+            offset.setOffsetX((short) flatOffsets[i]);
+            offset.setOffsetY((short) flatOffsets[i + 1]);
+            offset.setOffsetZ((short) flatOffsets[i + 2]);
+            result.add(offset);
+        }
+        return result;
+    }
+    
+    /**
+     * Copies offsets decoded as separate x, y and z arrays into consecutive x, y, z triples
+     * 
+     * @param array The offsets as {x[], y[], z[]} terminated by unavailable values
+     * @param flatOffsets The array receiving the offsets
+     * @return The number of offsets copied
+     */
+    public static int toFlatOffsets(int[][] array, int[] flatOffsets) {
+        int count = Math.min(array[0].length, flatOffsets.length / 3);
+        for(int i = 0; i < count; i++) {
+            if(array[0][i] == OFFSET_UNAVAILABLE && array[1][i] == OFFSET_UNAVAILABLE && array[2][i] == OFFSET_UNAVAILABLE) {
+                return i;
+            }
+            flatOffsets[3 * i] = array[0][i];
+            flatOffsets[3 * i + 1] = array[1][i];
+            flatOffsets[3 * i + 2] = array[2][i];
+        }
+        return count;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * Per thread set of reusable buffers handed to the direct buffer natives of the J2735 shared library.
+ * The native code reads and writes direct buffers in place, so an encoded message crosses the JNI
+ * boundary with a single bulk copy instead of a copy per byte and a temporary Java array per call.
+ */
+public final class NativeCodecBuffers {
+
+    protected static final int INITIAL_INPUT_CAPACITY = 1024;
+    protected static final int OUTPUT_CAPACITY = 1024;
+    protected static final int FIELDS_CAPACITY = 64;
+    protected static final int OFFSETS_CAPACITY = 3 * MobilityTrajectoryHelper.OFFSETS_LIST_MAX_LENGTH;
+
+    private static final ThreadLocal<NativeCodecBuffers> BUFFERS = ThreadLocal.withInitial(NativeCodecBuffers::new);
+
+    private ByteBuffer input = ByteBuffer.allocateDirect(INITIAL_INPUT_CAPACITY);
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_CAPACITY);
+    private final int[] fields = new int[FIELDS_CAPACITY];
+    private final int[] offsets = new int[OFFSETS_CAPACITY];
+
+    private NativeCodecBuffers() {}
+
+    /**
+     * @return The buffers owned by the calling thread
+     */
+    public static NativeCodecBuffers get() {
+        return BUFFERS.get();
+    }
+
+    /**
+     * Copies the content of an encoded message into the direct input buffer with one bulk copy.
+     * The input buffer grows when the message does not fit.
+     *
+     * @param content The encoded message. As in the rest of the message factory all bytes up to its capacity are used
+     * @return The direct buffer holding the message from position 0 to content.capacity()
+     */
+    public ByteBuffer load(ChannelBuffer content) {
+        int length = content.capacity();
+        if(length > input.capacity()) {
+            input = ByteBuffer.allocateDirect(Integer.highestOneBit(length) << 1);
+        }
+        input.clear();
+        input.limit(length);
+        content.getBytes(0, input);
+        input.clear();
+        return input;
+    }
+
+    /**
+     * @return The direct buffer natives encode messages into
+     */
+    public ByteBuffer getOutput() {
+        return output;
+    }
+
+    /**
+     * Copies the first length bytes of the output buffer into a new channel buffer which can be published.
+     *
+     * @param length The number of encoded bytes reported by the native encoder
+     * @return A little endian channel buffer holding the encoded message
+     */
+    public ChannelBuffer copyOutput(int length) {
+        output.clear();
+        output.limit(length);
+        ChannelBuffer buffer = ChannelBuffers.buffer(ByteOrder.LITTLE_ENDIAN, length);
+        buffer.writeBytes(output);
+        output.clear();
+        return buffer;
+    }
+
+    /**
+     * @return A reusable int array for passing flat message fields to and from the natives
+     */
+    public int[] getFields() {
+        return fields;
+    }
+
+    /**
+     * @return A reusable int array holding trajectory offsets as consecutive x, y, z triples
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Copies the content of an encoded message into a new array with one bulk copy.
+     * Used by the byte array natives when the direct buffer natives are not available.
+     *
+     * @param content The encoded message. All bytes up to its capacity are copied
+     * @return The array holding the message
+     */
+    public static byte[] toByteArray(ChannelBuffer content) {
+        byte[] encoded = new byte[content.capacity()];
+        content.getBytes(0, encoded);
+        return encoded;
+    }
+}
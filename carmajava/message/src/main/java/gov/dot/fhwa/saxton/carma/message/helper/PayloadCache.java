@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message.helper;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of decoded messages keyed by the content of their encoded payload.
+ * Infrastructure broadcasts the same payload many times a second, so a hit allows the native decoding
+ * and the construction of the ROS message to be skipped. Keys are compared by the full payload content,
+ * so a hash collision can never return the result of a different payload.
+ */
+public class PayloadCache<V> {
+
+    private final int capacity;
+    private final LinkedHashMap<Key, V> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity The maximum number of payloads kept. The least recently used payload is dropped first
+     */
+    public PayloadCache(int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("PayloadCache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, V>(capacity * 2, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > PayloadCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param payload The encoded message
+     * @return The value decoded from an identical payload or null if there is none
+     */
+    public synchronized V get(byte[] payload) {
+        V value = entries.get(new Key(payload));
+        if(value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Stores the value decoded from a payload. The payload array must not be modified afterwards.
+     *
+     * @param payload The encoded message
+     * @param value The decoded value
+     */
+    public synchronized void put(byte[] payload, V value) {
+        entries.put(new Key(payload), value);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class Key {
+        private final byte[] payload;
+        private final int hash;
+
+        Key(byte[] payload) {
+            this.payload = payload;
+            this.hash = Arrays.hashCode(payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) {
+                return true;
+            }
+            if(!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && Arrays.equals(payload, other.payload);
+        }
+    }
+}
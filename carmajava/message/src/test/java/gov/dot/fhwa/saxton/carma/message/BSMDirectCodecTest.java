@@ -0,0 +1,222 @@
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.message.MessageFactory;
+import org.ros.message.Time;
+import org.ros.node.ConnectedNode;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.ByteArray;
+import j2735_msgs.BSM;
+import j2735_msgs.BSMCoreData;
+import gov.dot.fhwa.saxton.carma.message.factory.BSMMessage;
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+
+/**
+ * Tests the choice between the direct buffer and byte array natives of BSMMessage
+ */
+public class BSMDirectCodecTest {
+
+    private static final byte[] ARRAY_ENCODED = {1, 2, 3};
+
+    SaxtonLogger   mockLogger;
+    ConnectedNode  mockNode;
+    MessageFactory messageFactory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+
+    @Before
+    public void setup() {
+        mockLogger = mock(SaxtonLogger.class);
+        mockNode = mock(ConnectedNode.class);
+        when(mockNode.getCurrentTime()).thenReturn(Time.fromMillis(0));
+        CountingBSMMessage.setDirectCodecSupported(true);
+    }
+
+    @Test
+    public void fallsBackWhenDirectNativesAreMissing() {
+        CountingBSMMessage message = new CountingBSMMessage(mockNode, mockLogger, messageFactory);
+
+        ByteArray encoded = (ByteArray) message.encode(newBSM()).getMessage();
+        assertArrayEquals(ARRAY_ENCODED, NativeCodecBuffers.toByteArray(encoded.getContent()));
+        assertEquals(1, message.directEncodeCalls);
+        assertEquals(1, message.arrayEncodeCalls);
+
+        // The missing native is remembered, so later calls go straight to the byte array natives
+        message.encode(newBSM());
+        assertEquals(1, message.directEncodeCalls);
+        assertEquals(2, message.arrayEncodeCalls);
+
+        CountingBSMMessage.setDirectCodecSupported(true);
+        BSM decoded = (BSM) message.decode(encoded).getMessage();
+        assertNotNull(decoded);
+        assertEquals(100, decoded.getCoreData().getSpeed());
+        assertEquals(1, message.directDecodeCalls);
+        assertEquals(1, message.arrayDecodeCalls);
+        message.decode(encoded);
+        assertEquals(1, message.directDecodeCalls);
+        assertEquals(2, message.arrayDecodeCalls);
+
+        verify(mockLogger, times(2)).warn(eq("BSM"), anyString());
+    }
+
+    /**
+     * Runs only with a libasn1c which has been rebuilt with the direct buffer natives
+     */
+    @Test
+    public void directRoundTripMatchesByteArrayNatives() {
+        BSMMessage message;
+        boolean available;
+        try {
+            ProbeBSMMessage probe = new ProbeBSMMessage(mockNode, mockLogger, messageFactory);
+            available = probe.hasDirectNatives();
+            message = probe;
+        } catch (LinkageError e) {
+            available = false; // libasn1c itself could not be loaded
+            message = null;
+        }
+        assumeTrue(available);
+
+        BSM original = newBSM();
+        ByteArray direct = (ByteArray) message.encode(original).getMessage();
+        BSM directDecoded = (BSM) message.decode(direct).getMessage();
+
+        ProbeBSMMessage.setDirectCodecSupported(false);
+        ByteArray array = (ByteArray) message.encode(original).getMessage();
+        BSM arrayDecoded = (BSM) message.decode(array).getMessage();
+
+        assertArrayEquals(NativeCodecBuffers.toByteArray(array.getContent()),
+                NativeCodecBuffers.toByteArray(direct.getContent()));
+        assertCoreDataEquals(original.getCoreData(), directDecoded.getCoreData());
+        assertCoreDataEquals(original.getCoreData(), arrayDecoded.getCoreData());
+    }
+
+    private BSM newBSM() {
+        BSM bsm = messageFactory.newFromType(BSM._TYPE);
+        BSMCoreData core = bsm.getCoreData();
+        core.setMsgCount((byte) 12);
+        core.setId(ChannelBuffers.wrappedBuffer(ByteOrder.LITTLE_ENDIAN, new byte[] {1, 2, 3, 4}));
+        core.setSecMark((short) 30000);
+        core.setLatitude(389000000);
+        core.setLongitude(-771000000);
+        core.setElev(500);
+        core.getAccuracy().setSemiMajor((byte) 10);
+        core.getAccuracy().setSemiMinor((byte) 8);
+        core.getAccuracy().setOrientation((short) 1000);
+        core.getTransmission().setTransmissionState((byte) 2);
+        core.setSpeed((short) 1000);
+        core.setHeading((short) 9000);
+        core.setAngle((byte) 5);
+        core.getAccelSet().setLateral((short) 10);
+        core.getAccelSet().setLongitudinal((short) -20);
+        core.getAccelSet().setVert((byte) 3);
+        core.getAccelSet().setYawRate((short) 100);
+        core.getSize().setVehicleWidth((short) 200);
+        core.getSize().setVehicleLength((short) 500);
+        return bsm;
+    }
+
+    private static void assertCoreDataEquals(BSMCoreData expected, BSMCoreData actual) {
+        assertEquals(expected.getMsgCount(), actual.getMsgCount());
+        assertArrayEquals(NativeCodecBuffers.toByteArray(expected.getId()), NativeCodecBuffers.toByteArray(actual.getId()));
+        assertEquals(expected.getSecMark(), actual.getSecMark());
+        assertEquals(expected.getLatitude(), actual.getLatitude());
+        assertEquals(expected.getLongitude(), actual.getLongitude());
+        assertEquals(expected.getElev(), actual.getElev());
+        assertEquals(expected.getAccuracy().getSemiMajor(), actual.getAccuracy().getSemiMajor());
+        assertEquals(expected.getAccuracy().getSemiMinor(), actual.getAccuracy().getSemiMinor());
+        assertEquals(expected.getAccuracy().getOrientation(), actual.getAccuracy().getOrientation());
+        assertEquals(expected.getTransmission().getTransmissionState(), actual.getTransmission().getTransmissionState());
+        assertEquals(expected.getSpeed(), actual.getSpeed());
+        assertEquals(expected.getHeading(), actual.getHeading());
+        assertEquals(expected.getAngle(), actual.getAngle());
+        assertEquals(expected.getAccelSet().getLateral(), actual.getAccelSet().getLateral());
+        assertEquals(expected.getAccelSet().getLongitudinal(), actual.getAccelSet().getLongitudinal());
+        assertEquals(expected.getAccelSet().getVert(), actual.getAccelSet().getVert());
+        assertEquals(expected.getAccelSet().getYawRate(), actual.getAccelSet().getYawRate());
+        assertEquals(expected.getSize().getVehicleWidth(), actual.getSize().getVehicleWidth());
+        assertEquals(expected.getSize().getVehicleLength(), actual.getSize().getVehicleLength());
+    }
+
+    /**
+     * Behaves like a libasn1c which predates the direct buffer natives, with stub byte array natives
+     */
+    private static class CountingBSMMessage extends BSMMessage {
+        int directEncodeCalls = 0;
+        int directDecodeCalls = 0;
+        int arrayEncodeCalls = 0;
+        int arrayDecodeCalls = 0;
+
+        CountingBSMMessage(ConnectedNode node, SaxtonLogger log, MessageFactory messageFactory) {
+            super(node, log, messageFactory);
+        }
+
+        static void setDirectCodecSupported(boolean supported) {
+            directCodecSupported = supported;
+        }
+
+        @Override
+        protected int encodeBSMDirect(int[] fields, ByteBuffer encoded_buffer) {
+            directEncodeCalls++;
+            throw new UnsatisfiedLinkError("encodeBSMDirect");
+        }
+
+        @Override
+        protected int decodeBSMDirect(ByteBuffer encoded_buffer, int length, int[] fields) {
+            directDecodeCalls++;
+            throw new UnsatisfiedLinkError("decodeBSMDirect");
+        }
+
+        @Override
+        protected byte[] encode_BSM(int msgCnt, int[] id, int secMark, int lat, int lon, int elev, int[] accuracy,
+                int transmission, int speed, int heading, int angle, int[] acceleration,
+                int[] wheel_brakes, int[] vehicle_size) {
+            arrayEncodeCalls++;
+            return ARRAY_ENCODED.clone();
+        }
+
+        @Override
+        protected int decode_BSM(byte[] encoded_array, Object plain_msg, byte[] bsm_id, Object accuracy,
+                Object transmission, Object accelset, byte[] brakeStatus, Object size) {
+            arrayDecodeCalls++;
+            ((BSMCoreData) plain_msg).setSpeed((short) 100);
+            return 0;
+        }
+    }
+
+    private static class ProbeBSMMessage extends BSMMessage {
+
+        ProbeBSMMessage(ConnectedNode node, SaxtonLogger log, MessageFactory messageFactory) {
+            super(node, log, messageFactory);
+        }
+
+        static void setDirectCodecSupported(boolean supported) {
+            directCodecSupported = supported;
+        }
+
+        boolean hasDirectNatives() {
+            try {
+                // Rejected by the native before any decoding because the fields array is too small
+                decodeBSMDirect(ByteBuffer.allocateDirect(1), 0, new int[0]);
+                return true;
+            } catch (UnsatisfiedLinkError e) {
+                return false;
+            }
+        }
+    }
+}
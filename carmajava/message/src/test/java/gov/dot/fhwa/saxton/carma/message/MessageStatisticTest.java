@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.node.ConnectedNode;
+
+import gov.dot.fhwa.saxton.carma.message.helper.LatencyHistogram;
+import gov.dot.fhwa.saxton.carma.message.helper.MessageStatistic;
+import gov.dot.fhwa.saxton.carma.message.helper.MessageStatistic.TypeStatistics;
+import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
+
+public class MessageStatisticTest {
+
+    MessageStatistic statistic;
+
+    @Before
+    public void setup() {
+        statistic = new MessageStatistic(mock(ConnectedNode.class), mock(SaxtonLogger.class), 5.0);
+        statistic.registerEntry("BSM");
+    }
+
+    private static TypeStatistics only(List<TypeStatistics> statistics) {
+        assertEquals(1, statistics.size());
+        return statistics.get(0);
+    }
+
+    /**
+     * Test that rates are computed over the sliding window once a full window has been sampled
+     */
+    @Test
+    public void testSlidingWindowRates() {
+        assertEquals(0.0, only(statistic.sample(100.0)).incomingRate, 0.0);
+        for(int second = 1; second <= 10; second++) {
+            // 10 Hz incoming for the first 5 seconds then 20 Hz
+            int received = second <= 5 ? 10 : 20;
+            for(int i = 0; i < received; i++) {
+                statistic.onMessageReceiving("BSM");
+            }
+            statistic.onMessageSending("BSM");
+            TypeStatistics stats = only(statistic.sample(100.0 + second));
+            if(second == 2) {
+                assertEquals(2.0, stats.window, 1e-9);
+                assertEquals(10.0, stats.incomingRate, 1e-9);
+            }
+        }
+        TypeStatistics stats = only(statistic.sample(110.0));
+        assertEquals(5.0, stats.window, 1e-9);
+        assertEquals(20.0, stats.incomingRate, 1e-9);
+        assertEquals(1.0, stats.outgoingRate, 1e-9);
+        assertEquals(150, stats.incomingTotal);
+        assertEquals(10, stats.outgoingTotal);
+
+        // Unregistered types are ignored
+        statistic.onMessageReceiving("MAP");
+        statistic.onMessageSending("MAP");
+        assertEquals(150, only(statistic.sample(111.0)).incomingTotal);
+    }
+
+    /**
+     * Test that latency percentiles only cover the latencies recorded in the window
+     */
+    @Test
+    public void testLatencyPercentiles() {
+        statistic.sample(0.0);
+        for(int i = 0; i < 99; i++) {
+            statistic.onMessageDecoded("BSM", 100000); // 100 us
+        }
+        statistic.onMessageDecoded("BSM", 3000000); // 3 ms
+        statistic.onMessageEncoded("BSM", 500);
+        TypeStatistics stats = only(statistic.sample(1.0));
+        assertEquals(100, stats.decodeCount);
+        assertEquals(0.128, stats.decodeMedian, 1e-9); // Upper bound of the [64, 128) us bucket
+        assertEquals(0.128, stats.decodeP99, 1e-9);
+        assertEquals(1, stats.encodeCount);
+        assertEquals(0.002, stats.encodeMedian, 1e-9);
+
+        statistic.onMessageDecoded("BSM", 3000000);
+        stats = only(statistic.sample(7.0));
+        assertEquals(1, stats.decodeCount);
+        assertEquals(4.096, stats.decodeP99, 1e-9);
+        assertEquals(0, stats.encodeCount);
+        assertEquals(0.0, stats.encodeP99, 0.0);
+    }
+
+    @Test
+    public void testHistogramPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0.0, LatencyHistogram.percentile(histogram.snapshot(), 0.5), 0.0);
+        histogram.record(0);
+        histogram.record(1999);
+        histogram.record(2000);
+        histogram.record(Long.MAX_VALUE);
+        long[] counts = histogram.snapshot();
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[counts.length - 1]);
+        assertEquals(0.002, LatencyHistogram.percentile(counts, 0.5), 1e-9);
+        assertEquals(0.004, LatencyHistogram.percentile(counts, 0.75), 1e-9);
+        assertEquals((1L << counts.length) / 1000.0, LatencyHistogram.percentile(counts, 1.0), 1e-9);
+    }
+}
@@ -34,6 +34,7 @@ import cav_msgs.MobilityHeader;
 import cav_msgs.MobilityPath;
 import cav_msgs.Trajectory;
 import gov.dot.fhwa.saxton.carma.message.factory.MobilityPathMessage;
+import gov.dot.fhwa.saxton.carma.message.helper.MobilityTrajectoryHelper;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
 public class MobilityPathTest {
@@ -156,4 +157,28 @@ public class MobilityPathTest {
         System.out.println(Arrays.toString(offsets));
         assertEquals(0, res);
     }
+
+    @Test
+    public void offsetArraysToFlatOffsets() {
+        int[][] offsets = new int[3][60];
+        Arrays.fill(offsets[0], 501);
+        Arrays.fill(offsets[1], 501);
+        Arrays.fill(offsets[2], 501);
+        offsets[0][0] = 10; offsets[1][0] = 10; offsets[2][0] = 10;
+        offsets[0][1] = 20; offsets[1][1] = -20; offsets[2][1] = 501; // Only all three unavailable ends the list
+        offsets[0][2] = 20; offsets[1][2] = 25; offsets[2][2] = 30;
+        int[] flat = new int[180];
+        assertEquals(3, MobilityTrajectoryHelper.toFlatOffsets(offsets, flat));
+        assertArrayEquals(new int[] { 10, 10, 10, 20, -20, 501, 20, 25, 30 }, Arrays.copyOf(flat, 9));
+
+        // A full list is copied up to the capacity of the flat array
+        for(int i = 0; i < 60; i++) {
+            offsets[0][i] = i; offsets[1][i] = -i; offsets[2][i] = 2 * i;
+        }
+        assertEquals(60, MobilityTrajectoryHelper.toFlatOffsets(offsets, flat));
+        assertEquals(59, flat[177]);
+        assertEquals(-59, flat[178]);
+        assertEquals(118, flat[179]);
+        assertEquals(2, MobilityTrajectoryHelper.toFlatOffsets(offsets, new int[6]));
+    }
 }
@@ -0,0 +1,69 @@
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.message.helper.NativeCodecBuffers;
+
+public class NativeCodecBuffersTest {
+
+    private static byte[] bytes(int length) {
+        byte[] content = new byte[length];
+        for(int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+
+    /**
+     * Test that an encoded message is copied into the direct buffer from index 0 up to its capacity
+     */
+    @Test
+    public void testLoad() {
+        NativeCodecBuffers buffers = NativeCodecBuffers.get();
+        assertSame(buffers, NativeCodecBuffers.get());
+
+        byte[] content = bytes(39);
+        ChannelBuffer message = ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, content);
+        message.readerIndex(5); // The reader index is ignored as in the rest of the message factory
+        ByteBuffer direct = buffers.load(message);
+        assertTrue(direct.isDirect());
+        assertEquals(0, direct.position());
+        for(int i = 0; i < content.length; i++) {
+            assertEquals(content[i], direct.get(i));
+        }
+        assertArrayEquals(content, NativeCodecBuffers.toByteArray(message));
+
+        // Messages larger than the buffer grow it
+        byte[] large = bytes(5000);
+        direct = buffers.load(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, large));
+        assertTrue(direct.capacity() >= large.length);
+        for(int i = 0; i < large.length; i++) {
+            assertEquals(large[i], direct.get(i));
+        }
+    }
+
+    /**
+     * Test that the encoded bytes written by a native are copied out into a new channel buffer
+     */
+    @Test
+    public void testCopyOutput() {
+        NativeCodecBuffers buffers = NativeCodecBuffers.get();
+        byte[] content = bytes(40);
+        buffers.getOutput().put(content); // Stands in for the native encoder
+        ChannelBuffer message = buffers.copyOutput(content.length);
+        assertEquals(ByteOrder.LITTLE_ENDIAN, message.order());
+        assertEquals(content.length, message.readableBytes());
+        assertArrayEquals(content, NativeCodecBuffers.toByteArray(message));
+        assertEquals(0, buffers.getOutput().position());
+    }
+}
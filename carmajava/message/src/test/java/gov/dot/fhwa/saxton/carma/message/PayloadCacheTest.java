@@ -0,0 +1,36 @@
+package gov.dot.fhwa.saxton.carma.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import gov.dot.fhwa.saxton.carma.message.helper.PayloadCache;
+
+public class PayloadCacheTest {
+
+    /**
+     * Test that payloads are matched by content and that the least recently used payload is dropped
+     */
+    @Test
+    public void testPayloadCache() {
+        PayloadCache<String> cache = new PayloadCache<>(2);
+        byte[] first = {1, 2, 3};
+        byte[] second = {1, 2, 4};
+        cache.put(first, "first");
+        cache.put(second, "second");
+        assertEquals("first", cache.get(new byte[] {1, 2, 3}));
+        assertNull(cache.get(new byte[] {1, 2}));
+
+        // second is now the least recently used payload
+        String third = "third";
+        cache.put(new byte[] {9}, third);
+        assertEquals(2, cache.size());
+        assertNull(cache.get(second));
+        assertEquals("first", cache.get(first));
+        assertSame(third, cache.get(new byte[] {9}));
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+}
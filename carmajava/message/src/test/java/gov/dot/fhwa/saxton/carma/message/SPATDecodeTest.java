@@ -1,14 +1,22 @@
 package gov.dot.fhwa.saxton.carma.message;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Before;
 import org.junit.Test;
 import org.ros.message.MessageFactory;
+import org.ros.node.NodeConfiguration;
 
+import cav_msgs.ByteArray;
+import j2735_msgs.MovementState;
+import j2735_msgs.SPAT;
 import gov.dot.fhwa.saxton.carma.message.factory.SPATMessage;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 
@@ -43,5 +51,59 @@ public class SPATDecodeTest {
         System.out.println(Arrays.toString(movementStatesData[1]));
         System.out.println(Arrays.toString(movementStatesData[2]));
     }
-    
+
+    @Test
+    public void decodedStatesAreBounded() {
+        MessageFactory factory = NodeConfiguration.newPrivate().getTopicMessageFactory();
+        FixedSPATMessage fixed = new FixedSPATMessage(factory, mockLogger);
+        MovementState first = fixed.decodeIntersection(factory, 0);
+        // The unchanged movement of the same intersection is reused
+        assertSame(first, fixed.decodeIntersection(factory, 0));
+
+        // Hearing more intersections than are tracked drops the least recent one
+        for(int id = 1; id <= FixedSPATMessage.maxTracked(); id++) {
+            fixed.decodeIntersection(factory, id);
+        }
+        assertEquals(FixedSPATMessage.maxTracked(), FixedSPATMessage.tracked());
+        assertNotSame(first, fixed.decodeIntersection(factory, 0));
+    }
+
+    /**
+     * Decodes every payload as a SPAT of one intersection with one unchanging movement
+     */
+    private static class FixedSPATMessage extends SPATMessage {
+        private int intersectionId = 0;
+        private byte payload = 0;
+
+        FixedSPATMessage(MessageFactory factory, SaxtonLogger logger) {
+            super(factory, logger);
+        }
+
+        static int maxTracked() {
+            return MAX_TRACKED_INTERSECTIONS;
+        }
+
+        static int tracked() {
+            return lastStates.size();
+        }
+
+        MovementState decodeIntersection(MessageFactory factory, int id) {
+            intersectionId = id;
+            ByteArray binary = factory.newFromType(ByteArray._TYPE);
+            // A new payload each time so the decoded SPAT cache is not hit
+            binary.setContent(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, new byte[] { ++payload, (byte) id }));
+            SPAT spat = (SPAT) decode(binary).getMessage();
+            return spat.getIntersections().getIntersectionStateList().get(0).getStates().getMovementList().get(0);
+        }
+
+        @Override
+        public int decodeSPAT(byte[] encodedArray, int[] intersectionData, int[][] movementStatesData) {
+            intersectionData[2] = intersectionId;
+            movementStatesData[0][0] = 1;
+            movementStatesData[0][1] = 3;
+            movementStatesData[0][EVENT_DATA_SIZE + 1] = -1;
+            movementStatesData[1][0] = -1;
+            return 0;
+        }
+    }
 }
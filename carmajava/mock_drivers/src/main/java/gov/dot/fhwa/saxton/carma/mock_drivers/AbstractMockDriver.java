@@ -29,12 +29,15 @@ import org.ros.node.service.ServiceServer;
 import org.ros.node.topic.Publisher;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Abstract implementation of a simulated driver. Reads a simulated data file and publishes the data.
+ * <p>
+ * The data file is replayed through a {@link CsvReplayEngine}. The optional ~/playback_rate parameter scales
+ * playback relative to the recorded sample period (2.0 is twice as fast, 0 or less is as fast as possible)
+ * and the optional ~/playback_start_time parameter seeks to a time in ms from the start of the file.
  */
 public abstract class AbstractMockDriver implements IMockDriver {
   protected final ConnectedNode connectedNode;
@@ -48,6 +51,8 @@ public abstract class AbstractMockDriver implements IMockDriver {
   // Parameters
   protected final String rosRunID;
   protected final String dataFilePath;
+  protected final double playbackRate;
+  protected final long playbackStartTime;
 
   // Topics
   // Published
@@ -59,9 +64,10 @@ public abstract class AbstractMockDriver implements IMockDriver {
   protected final ServiceServer<GetDriverApiRequest, GetDriverApiResponse> getApiService;
   protected final ServiceServer<GetDriverStatusRequest, GetDriverStatusResponse> getStatusService;
 
-  protected final String delimiter = ","; // Comma for csv file
-  protected RandomAccessFile reader = null;
+  protected final char delimiter = ','; // Comma for csv file
+  protected CsvReplayEngine replay = null;
   protected byte driverStatus = cav_msgs.DriverStatus.OFF;
+  private boolean warnedMissingPublishData = false;
 
   /**
    * Constructor establishes the publishers and subscribers for the ROS network.
@@ -77,6 +83,8 @@ public abstract class AbstractMockDriver implements IMockDriver {
     // Parameters
     rosRunID = params.getString("/run_id");
     dataFilePath = params.getString("~/data_file_path");
+    playbackRate = params.getDouble("~/playback_rate", 1.0);
+    playbackStartTime = params.getInteger("~/playback_start_time", 0);
 
     // Topics
     // Published
@@ -114,16 +122,25 @@ public abstract class AbstractMockDriver implements IMockDriver {
 
   /**
    * Function which should be called in the onStart function of a containing ROS Node
-   * This implementation opens a data file to use for simulation
+   * This implementation maps and indexes a data file to use for simulation
    * @param connectedNode The node which is being started
    */
   @Override public void onStart(ConnectedNode connectedNode) {
     try {
-      reader = new RandomAccessFile(dataFilePath, "r");
+      replay = new CsvReplayEngine(dataFilePath, delimiter, getSampleIdIdx(), getExpectedColCount(), getSamplePeriod());
+      replay.setTimeScale(playbackRate);
+      replay.seek(playbackStartTime);
+      if (replay.getSkippedRowCount() > 0) {
+        log.warn(getGraphName() + " skipped " + replay.getSkippedRowCount() + " data lines with incorrect number of data elements. "
+          + "The required number of data elements is " + getExpectedColCount());
+      }
       driverStatus = cav_msgs.DriverStatus.OPERATIONAL;
     } catch (FileNotFoundException e) {
       log.warn(getGraphName() + " could not find file " + dataFilePath + ".No data published " + e.getMessage());
       driverStatus = cav_msgs.DriverStatus.DEGRADED;
+    } catch (IOException e) {
+      log.warn(getGraphName() + " failed to read data file. No data will be published " + e.getMessage());
+      driverStatus = cav_msgs.DriverStatus.FAULT;
     }
   }
 
@@ -137,55 +154,10 @@ public abstract class AbstractMockDriver implements IMockDriver {
   }
 
   @Override public void readAndPublishData() {
-    if (reader != null) {
-      try {
-        List<String[]> data = new LinkedList<>();
-        String dataLine;
-        String[] elements;
-        boolean exitBeforeEOF = false;
-        int prevSampleIndex = -1;
-        int currentSampleIndex;
-        long prevLineIndex = reader.getFilePointer();
-
-        while((dataLine = reader.readLine()) != null) {
-          // Skip the header line of all data files
-          if (prevLineIndex == 0) {
-            prevLineIndex = reader.getFilePointer();
-            continue;
-          }
-          // separate on delimiter
-          elements = dataLine.split(delimiter);
-          // Update sample index
-          if (elements.length != getExpectedColCount()) {
-            log.warn(
-              "Publish data requested for " + getGraphName() + " with incorrect number of data elements. "
-                + "The required number of data elements is " + getExpectedColCount());
-            continue; // Skip this invalid line
-          }
-
-          currentSampleIndex = Integer.parseInt(elements[getSampleIdIdx()]);
-          //If this is the first sample
-          if (prevSampleIndex == -1) {
-            prevSampleIndex = currentSampleIndex;
-          }
-          // If the end of this sample set then exit the loop
-          if (currentSampleIndex != prevSampleIndex) {
-            exitBeforeEOF = true;
-            break;
-          }
-          data.add(elements);
-        }
-        if (!exitBeforeEOF) {
-          reader.seek(0);
-        }
-        publishData(data);
-
-      } catch (IOException e) {
-        closeDataFile();
-        reader = null;
-        // Log warning if the node failed to read data in the file. All publishing will be stopped in this case as the file may be corrupt.
-        log.warn(getGraphName() + " failed to read data file. No data will be published " + e.getMessage());
-        driverStatus = cav_msgs.DriverStatus.FAULT;
+    if (replay != null) {
+      ReplaySample sample = replay.next();
+      if (sample != null) {
+        publishSample(sample);
       }
     }
   }
@@ -238,24 +210,40 @@ public abstract class AbstractMockDriver implements IMockDriver {
    * Safely closes the opened data file
    */
   protected void closeDataFile() {
-    if (reader != null) {
-      try {
-        reader.close();
-      } catch (IOException ex) {
-    	  log.warn(getGraphName() + " failed to close data reader. " + ex.getMessage());
-      }
-    }
+    // The mapped file is released once the replay engine is no longer referenced
+    replay = null;
   }
 
   @Override public GraphName getGraphName() {
     return graphName;
   }
 
+  /**
+   * Publishes one sample from the data file. Drivers which publish at high rates should override this
+   * to read only the fields they need directly from the sample.
+   * The default implementation converts the sample to strings and passes it to publishData.
+   * @param sample The sample to be published. Only valid for the duration of this call.
+   */
+  protected void publishSample(ReplaySample sample) {
+    List<String[]> data = new LinkedList<>();
+    for (int i = 0; i < sample.size(); i++) {
+      data.add(sample.row(i).toArray());
+    }
+    publishData(data);
+  }
+
   /**
    * Publishes the provided data array
+   * Drivers which override publishSample do not need to implement this.
+   * Drivers which implement neither publish nothing, which is reported once.
    * @param data The data to be published usually provided as a direct line from a data file
    */
-  protected abstract void publishData(List<String[]> data);
+  protected void publishData(List<String[]> data) {
+    if (!warnedMissingPublishData) {
+      warnedMissingPublishData = true;
+      log.warn(getGraphName() + " implements neither publishSample nor publishData. No data will be published");
+    }
+  }
 
   /**
    * Gets the expected number of row elements in a data line
@@ -277,7 +265,18 @@ public abstract class AbstractMockDriver implements IMockDriver {
 
   @Override public abstract List<String> getDriverAPI();
 
-  @Override public long getPublishDelay() {
+  /**
+   * Gets the time in ms between samples in the data file when played back in real time
+   * @return The sample period
+   */
+  protected long getSamplePeriod() {
     return 100;
   }
+
+  @Override public long getPublishDelay() {
+    if (replay != null) {
+      return replay.getDelayToNextSample();
+    }
+    return getSamplePeriod();
+  }
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.mock_drivers;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Replays a driver data file at a configurable rate.
+ * <p>
+ * The file is memory mapped and indexed once on construction. The index holds the byte range of every valid
+ * data row, the first row of every sample (consecutive rows sharing a sample id) and the time of every sample.
+ * Data files do not carry timestamps, so sample n is defined to occur n sample periods after the start of the file.
+ * <p>
+ * Samples are handed out through a single reused {@link ReplaySample} whose fields are parsed on demand,
+ * so steady state playback does not allocate. Playback loops back to the first sample at the end of the file.
+ * This class is not thread safe and is expected to be driven from a single publishing loop.
+ */
+public class CsvReplayEngine {
+
+  /**
+   * Time scale which publishes samples back to back with no delay
+   */
+  public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+  private final MappedByteBuffer data;
+  private final long samplePeriod;
+  private final int[] rowStarts;
+  private final int[] rowEnds;
+  private final int[] sampleFirstRows; // Has one extra entry marking the end of the last sample
+  private final int[] sampleIds;
+  private final long[] sampleTimes;
+  private final int skippedRows;
+  private final ReplaySample sample;
+
+  private int nextSample = 0;
+  private double timeScale = 1.0;
+
+  /**
+   * Constructor maps and indexes the data file. The first line of the file is treated as a header and skipped.
+   *
+   * @param filePath The path to the data file
+   * @param delimiter The field delimiter
+   * @param sampleIdIdx The column holding the sample id
+   * @param expectedColCount The number of fields a valid row contains. Other rows are skipped.
+   * @param samplePeriod The time in ms between consecutive samples at a time scale of 1
+   * @throws IOException If the file could not be read or is too large to map
+   */
+  public CsvReplayEngine(String filePath, char delimiter, int sampleIdIdx, int expectedColCount, long samplePeriod)
+    throws IOException {
+    this.samplePeriod = samplePeriod;
+
+    try (RandomAccessFile file = new RandomAccessFile(filePath, "r"); FileChannel channel = file.getChannel()) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Data file " + filePath + " is too large to replay");
+      }
+      // The mapping remains valid after the channel is closed
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    ReplayRow row = new ReplayRow(data, delimiter, expectedColCount);
+    int limit = data.limit();
+    int[] starts = new int[64];
+    int[] ends = new int[64];
+    int[] firstRows = new int[64];
+    int[] ids = new int[64];
+    int rowCount = 0;
+    int sampleCount = 0;
+    int skipped = 0;
+    boolean header = true;
+    int lineStart = 0;
+
+    while (lineStart < limit) {
+      int lineEnd = lineStart;
+      while (lineEnd < limit && data.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      int next = lineEnd + 1;
+      if (lineEnd > lineStart && data.get(lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+
+      // Skip the header line of all data files
+      if (header) {
+        header = false;
+        lineStart = next;
+        continue;
+      }
+
+      row.position(lineStart, lineEnd);
+      lineStart = next;
+      int sampleId;
+      try {
+        if (row.getFieldCount() != expectedColCount) {
+          skipped++;
+          continue;
+        }
+        sampleId = row.getInt(sampleIdIdx);
+      } catch (NumberFormatException e) {
+        skipped++;
+        continue;
+      }
+
+      if (rowCount == starts.length) {
+        starts = Arrays.copyOf(starts, rowCount * 2);
+        ends = Arrays.copyOf(ends, rowCount * 2);
+      }
+      starts[rowCount] = row.getStart();
+      ends[rowCount] = row.getEnd();
+
+      // A change in sample id starts a new sample
+      if (sampleCount == 0 || ids[sampleCount - 1] != sampleId) {
+        if (sampleCount + 1 >= firstRows.length) {
+          firstRows = Arrays.copyOf(firstRows, firstRows.length * 2);
+          ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        firstRows[sampleCount] = rowCount;
+        ids[sampleCount] = sampleId;
+        sampleCount++;
+      }
+      rowCount++;
+    }
+    firstRows[sampleCount] = rowCount;
+
+    rowStarts = Arrays.copyOf(starts, rowCount);
+    rowEnds = Arrays.copyOf(ends, rowCount);
+    sampleFirstRows = Arrays.copyOf(firstRows, sampleCount + 1);
+    sampleIds = Arrays.copyOf(ids, sampleCount);
+    sampleTimes = new long[sampleCount];
+    for (int i = 0; i < sampleCount; i++) {
+      sampleTimes[i] = i * samplePeriod;
+    }
+    skippedRows = skipped;
+    sample = new ReplaySample(this, row);
+  }
+
+  /**
+   * Gets the next sample in the file, looping back to the first sample after the last one
+   *
+   * @return The shared sample view, valid until the next call, or null if the file contains no valid samples
+   */
+  public ReplaySample next() {
+    if (sampleIds.length == 0) {
+      return null;
+    }
+    int i = nextSample;
+    sample.set(sampleFirstRows[i], sampleFirstRows[i + 1] - sampleFirstRows[i], sampleIds[i], sampleTimes[i]);
+    nextSample = (i + 1) % sampleIds.length;
+    return sample;
+  }
+
+  /**
+   * Moves playback so the next sample returned is the first one at or after the provided time.
+   * Times past the end of the file wrap around as they would during continuous playback.
+   *
+   * @param timestamp The time in ms from the start of the file
+   */
+  public void seek(long timestamp) {
+    if (sampleIds.length == 0) {
+      return;
+    }
+    long duration = getDuration();
+    long t = duration > 0 ? Math.max(0, timestamp) % duration : 0;
+    int i = Arrays.binarySearch(sampleTimes, t);
+    if (i < 0) {
+      i = -i - 1;
+    }
+    nextSample = i % sampleIds.length;
+  }
+
+  /**
+   * Sets the playback speed relative to real time. For example 2.0 plays back twice as fast as recorded.
+   *
+   * @param timeScale The playback speed. Values which are not positive and finite play as fast as possible.
+   */
+  public void setTimeScale(double timeScale) {
+    this.timeScale = (timeScale > 0 && !Double.isInfinite(timeScale) && !Double.isNaN(timeScale))
+      ? timeScale : AS_FAST_AS_POSSIBLE;
+  }
+
+  /**
+   * @return The current playback speed relative to real time
+   */
+  public double getTimeScale() {
+    return timeScale;
+  }
+
+  /**
+   * Gets the wall clock time to wait before publishing the next sample at the current time scale
+   *
+   * @return The delay in ms
+   */
+  public long getDelayToNextSample() {
+    if (timeScale == AS_FAST_AS_POSSIBLE) {
+      return 0;
+    }
+    return Math.round(samplePeriod / timeScale);
+  }
+
+  /**
+   * @return The length of one pass through the file in ms
+   */
+  public long getDuration() {
+    return sampleIds.length * samplePeriod;
+  }
+
+  /**
+   * @return The number of samples in the file
+   */
+  public int getSampleCount() {
+    return sampleIds.length;
+  }
+
+  /**
+   * @return The number of rows in the file
+   */
+  public int getRowCount() {
+    return rowStarts.length;
+  }
+
+  /**
+   * @return The number of data rows which were skipped because they were malformed
+   */
+  public int getSkippedRowCount() {
+    return skippedRows;
+  }
+
+  /**
+   * Points a row view at an indexed row
+   */
+  void positionRow(ReplayRow row, int rowIndex) {
+    row.position(rowStarts[rowIndex], rowEnds[rowIndex]);
+  }
+}
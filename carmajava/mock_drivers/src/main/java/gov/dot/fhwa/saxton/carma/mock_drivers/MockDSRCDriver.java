@@ -76,8 +76,9 @@ public class MockDSRCDriver extends AbstractMockDriver {
     });
   }
 
-  @Override protected void publishData(List<String[]> data) {
-    for (String[] elements : data) {
+  @Override protected void publishSample(ReplaySample sample) {
+    for (int r = 0; r < sample.size(); r++) {
+      ReplayRow row = sample.row(r);
       // Make messages
       cav_msgs.ByteArray recvMsg = recvPub.newMessage();
 
@@ -87,10 +88,10 @@ public class MockDSRCDriver extends AbstractMockDriver {
       hdr.setStamp(connectedNode.getCurrentTime());
 
       recvMsg.setHeader(hdr);
-      recvMsg.setMessageType(elements[MSG_TYPE_IDX]);
+      recvMsg.setMessageType(row.getString(MSG_TYPE_IDX));
 
       // Raw byte data has the form "0a 1f 23"
-      // String rawByteString = elements[RAW_BYTES_IDX];
+      // String rawByteString = row.getString(RAW_BYTES_IDX);
       // Set to static data for test
       
       String[] rawByteString = {
@@ -152,7 +153,7 @@ public class MockDSRCDriver extends AbstractMockDriver {
     return new ArrayList<>(Arrays.asList(recvTopic, outboundTopic));
   }
   
-  @Override public long getPublishDelay() {
+  @Override protected long getSamplePeriod() {
 	  
 	  return pulishDelay / vehicle_number; //Set delay here
   }
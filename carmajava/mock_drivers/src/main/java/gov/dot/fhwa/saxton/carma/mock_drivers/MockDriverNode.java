@@ -35,6 +35,8 @@ import org.ros.namespace.GraphName;
  */
 public class MockDriverNode extends SaxtonBaseNode {
   private String defaultName =  "mock_driver";
+  // Driver status is published at most this often (ms) so accelerated playback does not flood discovery
+  private static final long STATUS_PERIOD = 100;
 
   @Override public GraphName getDefaultNodeName() {
     return GraphName.of(defaultName);
@@ -78,9 +80,14 @@ public class MockDriverNode extends SaxtonBaseNode {
     // This CancellableLoop will be canceled automatically when the node shuts
     // down.
     connectedNode.executeCancellableLoop(new CancellableLoop() {
+      private long lastStatusTime = 0;
 
       @Override protected void loop() throws InterruptedException {
-        simulatedDriver.publishDriverStatus();
+        long now = System.currentTimeMillis();
+        if (now - lastStatusTime >= STATUS_PERIOD) {
+          simulatedDriver.publishDriverStatus();
+          lastStatusTime = now;
+        }
         simulatedDriver.readAndPublishData();
 
         Thread.sleep(simulatedDriver.getPublishDelay());
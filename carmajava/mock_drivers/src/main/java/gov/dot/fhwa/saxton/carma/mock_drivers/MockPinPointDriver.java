@@ -91,9 +91,10 @@ public class MockPinPointDriver extends AbstractMockDriver {
       connectedNode.newPublisher("position/velocity", geometry_msgs.TwistStamped._TYPE);
   }
 
-  @Override protected void publishData(List<String[]> data) throws IllegalArgumentException {
+  @Override protected void publishSample(ReplaySample sample) throws IllegalArgumentException {
 
-    for (String[] elements : data) {
+    for (int r = 0; r < sample.size(); r++) {
+      ReplayRow row = sample.row(r);
       // Make messages
       cav_msgs.HeadingStamped headingMsg = headingPub.newMessage();
       sensor_msgs.NavSatFix navMsg = navSatFixPub.newMessage();
@@ -101,7 +102,7 @@ public class MockPinPointDriver extends AbstractMockDriver {
       geometry_msgs.TwistStamped velocityMsg = velocityPub.newMessage();
 
       // Get data for headers
-      int seq = Integer.parseInt(elements[SAMPLE_ID_IDX]);
+      int seq = sample.getSampleId();
       Time time = connectedNode.getCurrentTime();
 
       // Set Data
@@ -109,7 +110,7 @@ public class MockPinPointDriver extends AbstractMockDriver {
       headingMsg.getHeader().setFrameId("0"); // Heading is deg east of north and therefore does not have a frame
       headingMsg.getHeader().setStamp(time);
       headingMsg.getHeader().setSeq(seq);
-      headingMsg.setHeading(Float.parseFloat(elements[HEADING_IDX]));
+      headingMsg.setHeading(row.getFloat(HEADING_IDX));
 
       // Build NavSatFix Message
       navMsg.getHeader().setFrameId("pinpoint");
@@ -117,18 +118,18 @@ public class MockPinPointDriver extends AbstractMockDriver {
       navMsg.getHeader().setStamp(time);
 
       sensor_msgs.NavSatStatus navSatStatus = navMsg.getStatus();
-      navSatStatus.setService(Short.parseShort(elements[NAV_SRV_IDX]));
-      navSatStatus.setStatus(Byte.parseByte(elements[NAV_STATUS_IDX]));
+      navSatStatus.setService(row.getShort(NAV_SRV_IDX));
+      navSatStatus.setStatus(row.getByte(NAV_STATUS_IDX));
       navMsg.setStatus(navSatStatus);
 
-      navMsg.setLatitude(Double.parseDouble(elements[NAV_LAT_IDX]));
-      navMsg.setLongitude(Double.parseDouble(elements[NAV_LON_IDX]));
-      navMsg.setAltitude(Double.parseDouble(elements[NAV_ALT_IDX]));
-      navMsg.setPositionCovarianceType(Byte.parseByte(elements[NAV_POS_COVR_TYPE_IDX]));
+      navMsg.setLatitude(row.getDouble(NAV_LAT_IDX));
+      navMsg.setLongitude(row.getDouble(NAV_LON_IDX));
+      navMsg.setAltitude(row.getDouble(NAV_ALT_IDX));
+      navMsg.setPositionCovarianceType(row.getByte(NAV_POS_COVR_TYPE_IDX));
 
       double[] posCovariance = new double[POS_COVARINCE_ELEMENT_COUNT];
       for (int i = 0; i < POS_COVARINCE_ELEMENT_COUNT; i++) {
-        posCovariance[i] = Double.parseDouble(elements[MIN_POSE_COVAR_IDX + i]);
+        posCovariance[i] = row.getDouble(MIN_POSE_COVAR_IDX + i);
       }
       navMsg.setPositionCovariance(posCovariance);
 
@@ -142,13 +143,13 @@ public class MockPinPointDriver extends AbstractMockDriver {
       geometry_msgs.Twist odomTwist = odomTwistWithCovar.getTwist();
       geometry_msgs.Vector3 odomAngularVel = odomTwist.getAngular();
       geometry_msgs.Vector3 odomLinearVel = odomTwist.getLinear();
-      odomAngularVel.setX(Double.parseDouble(elements[ODOM_TWIST_ANG_X_IDX]));
-      odomAngularVel.setY(Double.parseDouble(elements[ODOM_TWIST_ANG_Y_IDX]));
-      odomAngularVel.setZ(Double.parseDouble(elements[ODOM_TWIST_ANG_Z_IDX]));
+      odomAngularVel.setX(row.getDouble(ODOM_TWIST_ANG_X_IDX));
+      odomAngularVel.setY(row.getDouble(ODOM_TWIST_ANG_Y_IDX));
+      odomAngularVel.setZ(row.getDouble(ODOM_TWIST_ANG_Z_IDX));
 
-      odomLinearVel.setX(Double.parseDouble(elements[ODOM_TWIST_LIN_X_IDX]));
-      odomLinearVel.setY(Double.parseDouble(elements[ODOM_TWIST_LIN_Y_IDX]));
-      odomLinearVel.setZ(Double.parseDouble(elements[ODOM_TWIST_LIN_Z_IDX]));
+      odomLinearVel.setX(row.getDouble(ODOM_TWIST_LIN_X_IDX));
+      odomLinearVel.setY(row.getDouble(ODOM_TWIST_LIN_Y_IDX));
+      odomLinearVel.setZ(row.getDouble(ODOM_TWIST_LIN_Z_IDX));
 
       odomTwist.setAngular(odomAngularVel);
       odomTwist.setLinear(odomLinearVel);
@@ -156,7 +157,7 @@ public class MockPinPointDriver extends AbstractMockDriver {
 
       double[] odomTwistCovariance = new double[COVARINCE_ELEMENT_COUNT];
       for (int i = 0; i < COVARINCE_ELEMENT_COUNT; i++) {
-        odomTwistCovariance[i] = Double.parseDouble(elements[MIN_ODOM_TWIST_COVAR_IDX + i]);
+        odomTwistCovariance[i] = row.getDouble(MIN_ODOM_TWIST_COVAR_IDX + i);
       }
 
       odomTwistWithCovar.setCovariance(odomTwistCovariance);
@@ -166,22 +167,22 @@ public class MockPinPointDriver extends AbstractMockDriver {
       geometry_msgs.Pose pose = poseWithCovar.getPose();
       geometry_msgs.Quaternion quat = pose.getOrientation();
       geometry_msgs.Point point = pose.getPosition();
-      point.setX(Double.parseDouble(elements[POINT_X_IDX]));
-      point.setY(Double.parseDouble(elements[POINT_Y_IDX]));
-      point.setZ(Double.parseDouble(elements[POINT_Z_IDX]));
+      point.setX(row.getDouble(POINT_X_IDX));
+      point.setY(row.getDouble(POINT_Y_IDX));
+      point.setZ(row.getDouble(POINT_Z_IDX));
       pose.setPosition(point);
 
-      quat.setW(Double.parseDouble(elements[QUAT_W_IDX]));
-      quat.setX(Double.parseDouble(elements[QUAT_X_IDX]));
-      quat.setY(Double.parseDouble(elements[QUAT_Y_IDX]));
-      quat.setZ(Double.parseDouble(elements[QUAT_Z_IDX]));
+      quat.setW(row.getDouble(QUAT_W_IDX));
+      quat.setX(row.getDouble(QUAT_X_IDX));
+      quat.setY(row.getDouble(QUAT_Y_IDX));
+      quat.setZ(row.getDouble(QUAT_Z_IDX));
       pose.setOrientation(quat);
 
       poseWithCovar.setPose(pose);
 
       double[] odomPoseCovariance = new double[COVARINCE_ELEMENT_COUNT];
       for (int i = 0; i < COVARINCE_ELEMENT_COUNT; i++) {
-        odomPoseCovariance[i] = Double.parseDouble(elements[MIN_ODOM_POSE_COVAR_IDX + i]);
+        odomPoseCovariance[i] = row.getDouble(MIN_ODOM_POSE_COVAR_IDX + i);
       }
 
       poseWithCovar.setCovariance(odomPoseCovariance);
@@ -195,13 +196,13 @@ public class MockPinPointDriver extends AbstractMockDriver {
       geometry_msgs.Twist twist = velocityMsg.getTwist();
       geometry_msgs.Vector3 angularVel = odomTwist.getAngular();
       geometry_msgs.Vector3 linearVel = odomTwist.getLinear();
-      angularVel.setX(Double.parseDouble(elements[VEL_ANG_X_IDX]));
-      angularVel.setY(Double.parseDouble(elements[VEL_ANG_Y_IDX]));
-      angularVel.setZ(Double.parseDouble(elements[VEL_ANG_Z_IDX]));
+      angularVel.setX(row.getDouble(VEL_ANG_X_IDX));
+      angularVel.setY(row.getDouble(VEL_ANG_Y_IDX));
+      angularVel.setZ(row.getDouble(VEL_ANG_Z_IDX));
 
-      linearVel.setX(Double.parseDouble(elements[VEL_LIN_X_IDX]));
-      linearVel.setY(Double.parseDouble(elements[VEL_LIN_Y_IDX]));
-      linearVel.setZ(Double.parseDouble(elements[VEL_LIN_Z_IDX]));
+      linearVel.setX(row.getDouble(VEL_LIN_X_IDX));
+      linearVel.setY(row.getDouble(VEL_LIN_Y_IDX));
+      linearVel.setZ(row.getDouble(VEL_LIN_Z_IDX));
 
       twist.setAngular(angularVel);
       twist.setLinear(linearVel);
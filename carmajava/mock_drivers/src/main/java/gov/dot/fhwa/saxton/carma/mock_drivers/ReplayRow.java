@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.mock_drivers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable view of a single line of a memory mapped data file.
+ * <p>
+ * Fields are located and parsed lazily, directly from the mapped bytes, so a row only pays for the
+ * columns a driver actually reads. A single instance is repositioned for every row of a replay, so
+ * values must be copied out before the next row is requested.
+ */
+public class ReplayRow {
+
+  // Largest power of ten which is exactly representable as a double
+  private static final int MAX_EXACT_POW10 = 22;
+  private static final double[] POW10 = new double[MAX_EXACT_POW10 + 1];
+  // Largest mantissa which is exactly representable as a double
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  static {
+    POW10[0] = 1.0;
+    for (int i = 1; i <= MAX_EXACT_POW10; i++) {
+      POW10[i] = POW10[i - 1] * 10.0;
+    }
+  }
+
+  private final ByteBuffer data;
+  private final char delimiter;
+  private int start;
+  private int end;
+  private int fieldCount = -1; // -1 until the fields of the current row have been located
+  private int[] fieldStarts;
+  private byte[] scratch = new byte[64];
+
+  /**
+   * Constructor
+   *
+   * @param data The mapped file contents
+   * @param delimiter The field delimiter
+   * @param expectedColCount The expected number of fields per row, used to size internal storage
+   */
+  ReplayRow(ByteBuffer data, char delimiter, int expectedColCount) {
+    this.data = data;
+    this.delimiter = delimiter;
+    this.fieldStarts = new int[expectedColCount + 1];
+  }
+
+  /**
+   * Points this view at a new row
+   *
+   * @param start The offset of the first byte in the row
+   * @param end The offset one past the last byte in the row, excluding line terminators
+   */
+  void position(int start, int end) {
+    this.start = start;
+    this.end = end;
+    this.fieldCount = -1;
+  }
+
+  /**
+   * @return The offset of the first byte in the row
+   */
+  int getStart() {
+    return start;
+  }
+
+  /**
+   * @return The offset one past the last byte in the row
+   */
+  int getEnd() {
+    return end;
+  }
+
+  /**
+   * Gets the number of fields in this row using the same rules as String.split,
+   * meaning trailing empty fields are not counted unless the row has no delimiter at all
+   *
+   * @return The number of fields
+   */
+  public int getFieldCount() {
+    locateFields();
+    if (fieldCount == 1) {
+      return 1; // String.split returns the whole input when there is no delimiter, even if it is empty
+    }
+    int count = fieldCount;
+    while (count > 0 && fieldStart(count - 1) == fieldEnd(count - 1)) {
+      count--;
+    }
+    return count;
+  }
+
+  /**
+   * Gets a field as a double. Produces the same result as Double.parseDouble.
+   *
+   * @param col The column index
+   * @return The parsed value
+   * @throws NumberFormatException If the field is not a valid number
+   */
+  public double getDouble(int col) throws NumberFormatException {
+    int i = fieldStart(col);
+    int e = fieldEnd(col);
+    // Trim whitespace like Double.parseDouble. Bytes are compared unsigned so UTF-8 sequences are not trimmed
+    while (i < e && (data.get(i) & 0xFF) <= ' ') {
+      i++;
+    }
+    while (e > i && (data.get(e - 1) & 0xFF) <= ' ') {
+      e--;
+    }
+
+    boolean negative = false;
+    if (i < e && (data.get(i) == '-' || data.get(i) == '+')) {
+      negative = data.get(i) == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean seenDot = false;
+    boolean seenDigit = false;
+    boolean fastPath = i < e;
+    for (; i < e && fastPath; i++) {
+      byte b = data.get(i);
+      if (b >= '0' && b <= '9') {
+        seenDigit = true;
+        if (mantissa > 0 || b != '0') {
+          digits++;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (seenDot) {
+          exponent--;
+        }
+        // Too many significant digits to be exact
+        fastPath = digits <= 15;
+      } else if (b == '.' && !seenDot) {
+        seenDot = true;
+      } else {
+        // Exponents, special values and malformed input use the general parser
+        fastPath = false;
+      }
+    }
+
+    if (fastPath && seenDigit && mantissa < MAX_EXACT_MANTISSA && -exponent <= MAX_EXACT_POW10) {
+      // Both operands are exact so a single division is correctly rounded
+      double value = mantissa / POW10[-exponent];
+      return negative ? -value : value;
+    }
+    return Double.parseDouble(getString(col));
+  }
+
+  /**
+   * Gets a field as a float. Produces the same result as Float.parseFloat.
+   *
+   * @param col The column index
+   * @return The parsed value
+   * @throws NumberFormatException If the field is not a valid number
+   */
+  public float getFloat(int col) throws NumberFormatException {
+    // Rounding a correctly rounded double to float can differ from direct parsing, so use the general parser
+    return Float.parseFloat(getString(col));
+  }
+
+  /**
+   * Gets a field as an int. Produces the same result as Integer.parseInt.
+   *
+   * @param col The column index
+   * @return The parsed value
+   * @throws NumberFormatException If the field is not a valid integer
+   */
+  public int getInt(int col) throws NumberFormatException {
+    int i = fieldStart(col);
+    int e = fieldEnd(col);
+    boolean negative = false;
+    if (i < e && (data.get(i) == '-' || data.get(i) == '+')) {
+      negative = data.get(i) == '-';
+      i++;
+    }
+    // Anything longer than 9 digits may overflow, let the general parser decide
+    if (i == e || e - i > 9) {
+      return Integer.parseInt(getString(col));
+    }
+    int value = 0;
+    for (; i < e; i++) {
+      byte b = data.get(i);
+      if (b < '0' || b > '9') {
+        return Integer.parseInt(getString(col));
+      }
+      value = value * 10 + (b - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Gets a field as a short. Produces the same result as Short.parseShort.
+   *
+   * @param col The column index
+   * @return The parsed value
+   * @throws NumberFormatException If the field is not a valid integer or is out of range for a short
+   */
+  public short getShort(int col) throws NumberFormatException {
+    int value = getInt(col);
+    if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+      throw new NumberFormatException("Value out of range. Value:\"" + getString(col) + "\" Radix:10");
+    }
+    return (short) value;
+  }
+
+  /**
+   * Gets a field as a byte. Produces the same result as Byte.parseByte.
+   *
+   * @param col The column index
+   * @return The parsed value
+   * @throws NumberFormatException If the field is not a valid integer or is out of range for a byte
+   */
+  public byte getByte(int col) throws NumberFormatException {
+    int value = getInt(col);
+    if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+      throw new NumberFormatException("Value out of range. Value:\"" + getString(col) + "\" Radix:10");
+    }
+    return (byte) value;
+  }
+
+  /**
+   * Gets a field as a boolean. Produces the same result as Boolean.parseBoolean.
+   *
+   * @param col The column index
+   * @return True if the field is "true" ignoring case
+   */
+  public boolean getBoolean(int col) {
+    int i = fieldStart(col);
+    int e = fieldEnd(col);
+    if (e - i != 4) {
+      return false;
+    }
+    return (data.get(i) | 0x20) == 't' && (data.get(i + 1) | 0x20) == 'r'
+      && (data.get(i + 2) | 0x20) == 'u' && (data.get(i + 3) | 0x20) == 'e';
+  }
+
+  /**
+   * Gets a field as a String. This allocates and should be reserved for text fields.
+   *
+   * @param col The column index
+   * @return The field contents
+   */
+  public String getString(int col) {
+    int i = fieldStart(col);
+    int len = fieldEnd(col) - i;
+    if (scratch.length < len) {
+      scratch = new byte[len];
+    }
+    for (int k = 0; k < len; k++) {
+      scratch[k] = data.get(i + k);
+    }
+    return new String(scratch, 0, len, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Materializes this row in the format produced by String.split
+   *
+   * @return The fields of this row
+   */
+  public String[] toArray() {
+    String[] fields = new String[getFieldCount()];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = getString(i);
+    }
+    return fields;
+  }
+
+  /**
+   * Gets the offset of the first byte of a field
+   */
+  private int fieldStart(int col) {
+    locateFields();
+    if (col < 0 || col >= fieldCount) {
+      throw new IndexOutOfBoundsException("Column " + col + " requested from a row with " + fieldCount + " columns");
+    }
+    return fieldStarts[col];
+  }
+
+  /**
+   * Gets the offset one past the last byte of a field
+   */
+  private int fieldEnd(int col) {
+    // The next field starts one byte after the delimiter ending this field
+    return fieldStarts[col + 1] - 1;
+  }
+
+  /**
+   * Scans the current row once for delimiters
+   */
+  private void locateFields() {
+    if (fieldCount >= 0) {
+      return;
+    }
+    int count = 0;
+    fieldStarts[count++] = start;
+    for (int i = start; i < end; i++) {
+      if (data.get(i) == delimiter) {
+        if (count == fieldStarts.length) {
+          int[] grown = new int[fieldStarts.length * 2];
+          System.arraycopy(fieldStarts, 0, grown, 0, fieldStarts.length);
+          fieldStarts = grown;
+        }
+        fieldStarts[count++] = i + 1;
+      }
+    }
+    // Sentinel so the end of the last field can be found like any other
+    if (count == fieldStarts.length) {
+      int[] grown = new int[fieldStarts.length + 1];
+      System.arraycopy(fieldStarts, 0, grown, 0, fieldStarts.length);
+      fieldStarts = grown;
+    }
+    fieldStarts[count] = end + 1;
+    fieldCount = count;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.mock_drivers;
+
+/**
+ * A reusable view of one sample of a replay data file, which is the set of consecutive rows sharing a sample id.
+ * <p>
+ * Rows are accessed through a single {@link ReplayRow} which is repositioned on each call to {@link #row(int)}.
+ */
+public class ReplaySample {
+
+  private final CsvReplayEngine engine;
+  private final ReplayRow row;
+  private int firstRow;
+  private int rowCount;
+  private int sampleId;
+  private long timestamp;
+
+  ReplaySample(CsvReplayEngine engine, ReplayRow row) {
+    this.engine = engine;
+    this.row = row;
+  }
+
+  /**
+   * Points this view at a new sample
+   */
+  void set(int firstRow, int rowCount, int sampleId, long timestamp) {
+    this.firstRow = firstRow;
+    this.rowCount = rowCount;
+    this.sampleId = sampleId;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * @return The number of rows in this sample
+   */
+  public int size() {
+    return rowCount;
+  }
+
+  /**
+   * Gets a row of this sample. The returned object is shared and only valid until the next call.
+   *
+   * @param i The index of the row within this sample
+   * @return The requested row
+   */
+  public ReplayRow row(int i) {
+    if (i < 0 || i >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + i + " requested from a sample with " + rowCount + " rows");
+    }
+    engine.positionRow(row, firstRow + i);
+    return row;
+  }
+
+  /**
+   * @return The sample id shared by all rows of this sample
+   */
+  public int getSampleId() {
+    return sampleId;
+  }
+
+  /**
+   * @return The time of this sample in ms measured from the start of the data file
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+}
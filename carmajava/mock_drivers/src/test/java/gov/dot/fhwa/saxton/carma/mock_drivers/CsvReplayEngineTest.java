@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.mock_drivers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CsvReplayEngineTest {
+
+  // Rows "bad" and "x,e" are malformed. Rows 3,d and 3,f form one sample once x,e is skipped
+  private static final String DATA = "SampleId,Value\n1,a\n1,b\n2,c\nbad\n3,d\nx,e\n3,f\r\n4,g";
+
+  protected File dataFile;
+  protected CsvReplayEngine replay;
+
+  @Before
+  public void setup() throws IOException {
+    dataFile = File.createTempFile("CsvReplayEngineTest", ".csv");
+    Files.write(dataFile.toPath(), DATA.getBytes(StandardCharsets.UTF_8));
+    replay = new CsvReplayEngine(dataFile.getPath(), ',', 0, 2, 100);
+  }
+
+  @After
+  public void tearDown() {
+    replay = null;
+    dataFile.delete();
+  }
+
+  private String nextValues() {
+    ReplaySample sample = replay.next();
+    StringBuilder values = new StringBuilder();
+    for (int i = 0; i < sample.size(); i++) {
+      values.append(sample.row(i).getString(1));
+    }
+    return values.toString();
+  }
+
+  @Test
+  public void testIndex() {
+    assertEquals(6, replay.getRowCount());
+    assertEquals(2, replay.getSkippedRowCount());
+    assertEquals(4, replay.getSampleCount());
+    assertEquals(400, replay.getDuration());
+
+    int[] expectedIds = { 1, 2, 3, 4 };
+    String[] expectedValues = { "ab", "c", "df", "g" };
+    for (int i = 0; i < expectedIds.length; i++) {
+      ReplaySample sample = replay.next();
+      assertEquals(expectedIds[i], sample.getSampleId());
+      assertEquals(i * 100, sample.getTimestamp());
+      assertEquals(expectedValues[i].length(), sample.size());
+      StringBuilder values = new StringBuilder();
+      for (int r = 0; r < sample.size(); r++) {
+        values.append(sample.row(r).getString(1));
+      }
+      assertEquals(expectedValues[i], values.toString());
+    }
+    // Playback loops back to the first sample
+    assertEquals(1, replay.next().getSampleId());
+  }
+
+  @Test
+  public void testSeek() {
+    replay.seek(150);
+    assertEquals("df", nextValues());
+    replay.seek(200);
+    assertEquals("df", nextValues());
+    replay.seek(0);
+    assertEquals("ab", nextValues());
+    // Times before the start clamp to the first sample
+    replay.seek(-10);
+    assertEquals("ab", nextValues());
+    // Times past the end wrap around like continuous playback
+    replay.seek(450);
+    assertEquals("c", nextValues());
+    replay.seek(399);
+    assertEquals("ab", nextValues());
+    replay.seek(300);
+    assertEquals("g", nextValues());
+    assertEquals("ab", nextValues());
+  }
+
+  @Test
+  public void testTimeScale() {
+    assertEquals(1.0, replay.getTimeScale(), 0.0);
+    assertEquals(100, replay.getDelayToNextSample());
+    replay.setTimeScale(2.0);
+    assertEquals(50, replay.getDelayToNextSample());
+    replay.setTimeScale(0.5);
+    assertEquals(200, replay.getDelayToNextSample());
+    replay.setTimeScale(3.0);
+    assertEquals(33, replay.getDelayToNextSample());
+
+    double[] asFastAsPossible = { 0.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY };
+    for (double timeScale : asFastAsPossible) {
+      replay.setTimeScale(timeScale);
+      assertEquals(CsvReplayEngine.AS_FAST_AS_POSSIBLE, replay.getTimeScale(), 0.0);
+      assertEquals(0, replay.getDelayToNextSample());
+    }
+  }
+
+  @Test
+  public void testHeaderOnly() throws IOException {
+    File empty = File.createTempFile("CsvReplayEngineTest", ".csv");
+    try {
+      Files.write(empty.toPath(), "SampleId,Value\n".getBytes(StandardCharsets.UTF_8));
+      CsvReplayEngine emptyReplay = new CsvReplayEngine(empty.getPath(), ',', 0, 2, 100);
+      assertEquals(0, emptyReplay.getSampleCount());
+      emptyReplay.seek(100);
+      assertNull(emptyReplay.next());
+    } finally {
+      empty.delete();
+    }
+  }
+}
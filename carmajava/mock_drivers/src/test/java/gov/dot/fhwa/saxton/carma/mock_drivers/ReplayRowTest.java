@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.mock_drivers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReplayRowTest {
+
+  private static final String[] DOUBLES = {
+    "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "+1", "1.", ".5", "-.5", "+.5", "3.14159", "-273.15",
+    "000123.4500", "0.1", "0.2", "0.3", "123456789012345", "1234567890123456", "12345678901234567890",
+    "0.000000000000000000001", "0.0000000000000000000000001", "9007199254740993", "1.7976931348623157",
+    "38.9549716", "-77.1492803", "4.35", "0.1000000000000000055511151231257827",
+    " 1.5", "1.5 ", "\t-2.25\t", "  ", "",
+    "1e5", "1E-5", "-1.5e+3", "1e", "e5", "1e400", "-1e400", "1e-400", "0x1p3", "1d", "1f", "2.5D",
+    "NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", "infinity", "nan",
+    "-", "+", ".", "-.", "1..2", "1.2.3", "--1", "+-1", "- 1", "1 2", "abc", "1a", "\u00e91", "1\u00e9", "\u00a01"
+  };
+
+  private static final String[] INTS = {
+    "0", "-0", "+0", "7", "-7", "+7", "0012", "-0012", "123456789", "-123456789", "1234567890", "2147483647",
+    "-2147483648", "2147483648", "-2147483649", "99999999999", "",
+    " 1", "1 ", "-", "+", "--1", "1.0", "1e3", "abc", "0x10", "\u0661\u0662", "1\u00e9"
+  };
+
+  private static final String[] SHORTS_AND_BYTES = {
+    "0", "-0", "7", "-7", "+7", "127", "-128", "128", "-129", "255", "32767", "-32768", "32768", "-32769", "65535",
+    "2147483648", "", "-", "1.0", "abc"
+  };
+
+  private static final String[] BOOLEANS = {
+    "true", "TRUE", "True", "tRuE", "false", "FALSE", " true", "true ", "tru", "truee", "yes", "1", "", "tr\u00fce"
+  };
+
+  /**
+   * Builds a row holding the value as its middle field so field boundaries are exercised
+   */
+  private static ReplayRow row(String value) {
+    byte[] bytes = ("x," + value + ",y").getBytes(StandardCharsets.UTF_8);
+    ReplayRow row = new ReplayRow(ByteBuffer.wrap(bytes), ',', 3);
+    row.position(0, bytes.length);
+    return row;
+  }
+
+  private static void assertSameDouble(String value) {
+    double expected;
+    try {
+      expected = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      try {
+        row(value).getDouble(1);
+        fail("Expected NumberFormatException for \"" + value + "\"");
+      } catch (NumberFormatException expectedException) {
+        // Matches the JDK parser
+      }
+      return;
+    }
+    // Compare bits so the sign of zero and NaN are checked as well
+    assertEquals("Parsing \"" + value + "\"", Double.doubleToLongBits(expected),
+      Double.doubleToLongBits(row(value).getDouble(1)));
+  }
+
+  @Test
+  public void testGetDoubleMatchesJdk() {
+    for (String value : DOUBLES) {
+      assertSameDouble(value);
+    }
+  }
+
+  @Test
+  public void testGetDoubleRandomDecimals() {
+    Random rand = new Random(7);
+    for (int i = 0; i < 100000; i++) {
+      int digits = 1 + rand.nextInt(18);
+      StringBuilder value = new StringBuilder();
+      if (rand.nextBoolean()) {
+        value.append(rand.nextBoolean() ? '-' : '+');
+      }
+      int dot = rand.nextInt(digits + 1);
+      for (int d = 0; d < digits; d++) {
+        if (d == dot) {
+          value.append('.');
+        }
+        value.append((char) ('0' + rand.nextInt(10)));
+      }
+      assertSameDouble(value.toString());
+    }
+  }
+
+  @Test
+  public void testGetFloatMatchesJdk() {
+    for (String value : DOUBLES) {
+      float expected;
+      try {
+        expected = Float.parseFloat(value);
+      } catch (NumberFormatException e) {
+        try {
+          row(value).getFloat(1);
+          fail("Expected NumberFormatException for \"" + value + "\"");
+        } catch (NumberFormatException expectedException) {
+          // Matches the JDK parser
+        }
+        continue;
+      }
+      assertEquals("Parsing \"" + value + "\"", Float.floatToIntBits(expected), Float.floatToIntBits(row(value).getFloat(1)));
+    }
+  }
+
+  @Test
+  public void testGetIntMatchesJdk() {
+    for (String value : INTS) {
+      int expected;
+      try {
+        expected = Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        try {
+          row(value).getInt(1);
+          fail("Expected NumberFormatException for \"" + value + "\"");
+        } catch (NumberFormatException expectedException) {
+          // Matches the JDK parser
+        }
+        continue;
+      }
+      assertEquals("Parsing \"" + value + "\"", expected, row(value).getInt(1));
+    }
+  }
+
+  @Test
+  public void testGetShortMatchesJdk() {
+    for (String value : SHORTS_AND_BYTES) {
+      short expected;
+      try {
+        expected = Short.parseShort(value);
+      } catch (NumberFormatException e) {
+        try {
+          row(value).getShort(1);
+          fail("Expected NumberFormatException for \"" + value + "\"");
+        } catch (NumberFormatException expectedException) {
+          // Matches the JDK parser rather than wrapping
+        }
+        continue;
+      }
+      assertEquals("Parsing \"" + value + "\"", expected, row(value).getShort(1));
+    }
+  }
+
+  @Test
+  public void testGetByteMatchesJdk() {
+    for (String value : SHORTS_AND_BYTES) {
+      byte expected;
+      try {
+        expected = Byte.parseByte(value);
+      } catch (NumberFormatException e) {
+        try {
+          row(value).getByte(1);
+          fail("Expected NumberFormatException for \"" + value + "\"");
+        } catch (NumberFormatException expectedException) {
+          // Matches the JDK parser rather than wrapping
+        }
+        continue;
+      }
+      assertEquals("Parsing \"" + value + "\"", expected, row(value).getByte(1));
+    }
+  }
+
+  @Test
+  public void testGetBooleanMatchesJdk() {
+    for (String value : BOOLEANS) {
+      assertEquals("Parsing \"" + value + "\"", Boolean.parseBoolean(value), row(value).getBoolean(1));
+    }
+  }
+
+  @Test
+  public void testFieldsMatchSplit() {
+    String[] lines = { "a,b,c", "a,,c", "a,b,", "a,,", ",,", ",b,c", "", "single", "1.5,\u00e9t\u00e9,-3" };
+    for (String line : lines) {
+      byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+      ReplayRow row = new ReplayRow(ByteBuffer.wrap(bytes), ',', 1);
+      row.position(0, bytes.length);
+      String[] expected = line.split(",");
+      assertEquals(expected.length, row.getFieldCount());
+      assertArrayEquals(expected, row.toArray());
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testMissingColumn() {
+    row("1").getDouble(3);
+  }
+}
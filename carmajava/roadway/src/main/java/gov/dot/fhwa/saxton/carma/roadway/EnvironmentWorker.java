@@ -30,6 +30,7 @@ import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 import gov.dot.fhwa.saxton.carma.route.Route;
 import gov.dot.fhwa.saxton.carma.route.RouteSegment;
+import gov.dot.fhwa.saxton.carma.route.RouteStateCache;
 import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
 import gov.dot.fhwa.saxton.carma.route.WorkerState;
 import org.apache.commons.lang.ArrayUtils;
@@ -72,8 +73,10 @@ public class EnvironmentWorker {
   protected Route activeRoute;
   protected RouteSegment currentSegment;
   protected RouteState routeState;
+  protected final RouteStateCache routeCache = new RouteStateCache();
   protected double distBackward;
   protected double distForward;
+  protected final ObstacleBatchProcessor obstacleProcessor = new ObstacleBatchProcessor(messageFactory);
 
   /**
    * Constructor
@@ -110,7 +113,8 @@ public class EnvironmentWorker {
    * @param route The route message
    */
   public void handleRouteMsg(cav_msgs.Route route) {
-    activeRoute = Route.fromMessage(route);
+    activeRoute = routeCache.setRoute(route);
+    obstacleProcessor.setRoute(activeRoute);
   }
 
   /**
@@ -120,7 +124,9 @@ public class EnvironmentWorker {
    */
   public void handleRouteStateMsg(cav_msgs.RouteState routeState) {
     this.routeState = routeState;
-    this.currentSegment = RouteSegment.fromMessage(routeState.getCurrentSegment());
+    // The segment geometry is only looked up when the host vehicle changes segments
+    routeCache.update(routeState);
+    this.currentSegment = routeCache.getCurrentSegment();
   }
 
   /**
@@ -133,17 +139,16 @@ public class EnvironmentWorker {
       log.debug("Roadway ignoring object message as no route is selected");
       return;
     }
-    List<cav_msgs.ExternalObject> objects = externalObjects.getObjects();
-    List<RoadwayObstacle> roadwayObstacles = new LinkedList<>();
-    // TODO we may want the transform to be done per object
     Transform earthToOdom = roadwayMgr.getTransform(earthFrame, odomFrame, externalObjects.getHeader().getStamp());
     log.debug("Objects Stamp: " + externalObjects.getHeader().getStamp());
     if (earthToOdom == null) {
       log.warn("Roadway could not process object message as earth to odom transform was null");
+      return;
     }
-    for (cav_msgs.ExternalObject obj: objects) {
-      roadwayObstacles.add(buildObstacleFromMsg(obj, earthToOdom));
-    }
+    // All objects share one route subsection lookup and transform
+    int currentSegIndex = currentSegment.getUptrackWaypoint().getWaypointId();
+    List<RoadwayObstacle> roadwayObstacles = obstacleProcessor.process(externalObjects.getObjects(), earthToOdom,
+      routeState, currentSegIndex, distBackward, distForward);
     cav_msgs.RoadwayEnvironment roadwayMsg = messageFactory.newFromType(cav_msgs.RoadwayEnvironment._TYPE);
     roadwayMsg.setRoadwayObstacles(roadwayObstacles);
     roadwayMgr.publishRoadwayEnvironment(roadwayMsg);
@@ -151,6 +156,7 @@ public class EnvironmentWorker {
 
   /**
    * Helper function constructs a RoadwayObstacle from an ExternalObject 
+   * Messages are processed in batches by the {@link ObstacleBatchProcessor}, which produces the same result.
    * 
    * @param obj The external object to convert (Should be defined relative to odom frame)
    * @param earthToOdom The corresponding transform from the earth to the odom frame
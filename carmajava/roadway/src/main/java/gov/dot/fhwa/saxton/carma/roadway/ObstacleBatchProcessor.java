@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.roadway;
+
+import cav_msgs.ExternalObject;
+import cav_msgs.RoadwayObstacle;
+import cav_msgs.RouteState;
+import gov.dot.fhwa.saxton.carma.route.Route;
+import gov.dot.fhwa.saxton.carma.route.RouteSegment;
+import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.ros.message.MessageFactory;
+import org.ros.rosjava_geometry.Quaternion;
+import org.ros.rosjava_geometry.Transform;
+import org.ros.rosjava_geometry.Vector3;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts all the objects of an external object message into roadway obstacles in a single batch.
+ * <p>
+ * The per object path in {@link EnvironmentWorker#buildObstacleFromMsg} repeats the route subsection search,
+ * inverts every candidate segment transform and allocates a point cloud for each object. This class instead
+ * caches the ECEF to segment rotation, origin and starting downtrack of every segment when the route changes.
+ * Each message then performs one subsection lookup and composes the earth to odom transform with each candidate
+ * segment once, after which every object is converted with plain matrix arithmetic on primitive scratch storage
+ * that is reused across messages. Object bounds are computed directly from the rotated box extents.
+ * <p>
+ * Obstacles keep the id of the object they were built from and are emitted in increasing id order, so consumers see
+ * the same object at a predictable position from one message to the next.
+ * Results match the per object path.
+ * <p>
+ * The route may be set from any thread. Its cached geometry is published as a whole and each call to process works on
+ * the route it found at the start. Processing reuses scratch storage, so process must only be called from one thread
+ * at a time, the object callback.
+ */
+public class ObstacleBatchProcessor {
+
+  private static final int MAT_SIZE = 9;
+  private static final int VEC_SIZE = 3;
+  private static final short REMOVED_PRESENCE_FIELDS = (short) (ExternalObject.AZIMUTH_RATE_PRESENCE_VECTOR
+    | ExternalObject.RANGE_RATE_PRESENCE_VECTOR | ExternalObject.VELOCITY_INST_PRESENCE_VECTOR);
+
+  private final MessageFactory messageFactory;
+
+  // Route cache, replaced as a whole when the route changes
+  private volatile RouteGeometry routeGeometry;
+
+  // Per message scratch
+  private final double[] earthToOdomRot = new double[MAT_SIZE];
+  private final double[] earthToOdomTrans = new double[VEC_SIZE];
+  private final double[] objRot = new double[MAT_SIZE];
+  private final double[] objInSegRot = new double[MAT_SIZE];
+  private int[] candidates = new int[16];
+  private double[] odomToCandidateRot = new double[16 * MAT_SIZE];
+
+  // Per object results, grown to the largest message seen
+  private int capacity = 0;
+  private int[] objSegments = new int[0];
+  private double[] objPositions = new double[0];
+  private double[] objVelocities = new double[0];
+  private double[] objHalfSizes = new double[0];
+  private double[] objDowntracks = new double[0];
+  private long[] order = new long[0];
+  private ExternalObject[] inputs = new ExternalObject[0];
+
+  /**
+   * Constructor
+   *
+   * @param messageFactory The factory used to build obstacle messages
+   */
+  public ObstacleBatchProcessor(MessageFactory messageFactory) {
+    this.messageFactory = messageFactory;
+  }
+
+  /**
+   * Sets the route obstacles will be located on and caches its segment geometry
+   *
+   * @param route The active route
+   */
+  public void setRoute(Route route) {
+    List<RouteSegment> routeSegments = Collections.unmodifiableList(new ArrayList<>(route.getSegments()));
+    int n = routeSegments.size();
+    double[] segmentStarts = new double[n];
+    double[] segmentLengths = new double[n];
+    double[] segmentMaxCrosstracks = new double[n];
+    double[] segmentRotations = new double[n * MAT_SIZE];
+    double[] segmentOrigins = new double[n * VEC_SIZE];
+    double[] rot = new double[MAT_SIZE];
+
+    double start = 0.0;
+    for (int i = 0; i < n; i++) {
+      RouteSegment seg = routeSegments.get(i);
+      segmentStarts[i] = start;
+      segmentLengths[i] = seg.length();
+      start += seg.length();
+
+      RouteWaypoint wp = seg.getDowntrackWaypoint();
+      segmentMaxCrosstracks[i] = Math.max(Math.abs(wp.getMinCrossTrack()), Math.abs(wp.getMaxCrossTrack())); //either could be negative
+
+      // The inverse of a rotation is its transpose
+      Transform ecefToSegment = seg.getECEFToSegmentTransform();
+      toRotationMatrix(ecefToSegment.getRotationAndScale(), rot);
+      for (int r = 0; r < 3; r++) {
+        for (int c = 0; c < 3; c++) {
+          segmentRotations[i * MAT_SIZE + r * 3 + c] = rot[c * 3 + r];
+        }
+      }
+      Vector3 origin = ecefToSegment.getTranslation();
+      segmentOrigins[i * VEC_SIZE] = origin.getX();
+      segmentOrigins[i * VEC_SIZE + 1] = origin.getY();
+      segmentOrigins[i * VEC_SIZE + 2] = origin.getZ();
+    }
+    routeGeometry = new RouteGeometry(route, routeSegments, segmentStarts, segmentLengths, segmentMaxCrosstracks,
+      segmentRotations, segmentOrigins);
+  }
+
+  /**
+   * Converts a list of external objects into roadway obstacles
+   *
+   * @param objects The objects to convert. Should be relative to the odom frame
+   * @param earthToOdom The transform from the earth frame to the odom frame at the time of the objects
+   * @param routeState The current route state of the host vehicle
+   * @param hostSegIndex The index of the host vehicle's current segment in the route
+   * @param distBackward The distance in m uptrack of the host vehicles segment which will be searched
+   * @param distForward The distance in m downtrack of the host vehicles segment which will be searched
+   *
+   * @return The roadway obstacles in increasing id order. Empty if no route has been set or the host segment is not on it.
+   */
+  public List<RoadwayObstacle> process(List<ExternalObject> objects, Transform earthToOdom, RouteState routeState,
+    int hostSegIndex, double distBackward, double distForward) {
+    RouteGeometry geo = routeGeometry; // Read once so the whole message uses the same route
+    if (geo == null || hostSegIndex < 0 || hostSegIndex >= geo.segmentStarts.length) {
+      return new ArrayList<>();
+    }
+    double hostSegDowntrack = routeState.getSegmentDownTrack();
+    List<RouteSegment> subsection = geo.route.findRouteSubsection(hostSegIndex, hostSegDowntrack, distBackward, distForward);
+    if (subsection.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // Compose the odom to segment rotation for each candidate segment once per message
+    toRotationMatrix(earthToOdom.getRotationAndScale(), earthToOdomRot);
+    Vector3 t = earthToOdom.getTranslation();
+    earthToOdomTrans[0] = t.getX();
+    earthToOdomTrans[1] = t.getY();
+    earthToOdomTrans[2] = t.getZ();
+    int candidateCount = subsection.size();
+    if (candidates.length < candidateCount) {
+      candidates = new int[candidateCount];
+      odomToCandidateRot = new double[candidateCount * MAT_SIZE];
+    }
+    int c = 0;
+    for (RouteSegment seg : subsection) {
+      int segIdx = seg.getUptrackWaypoint().getWaypointId();
+      candidates[c] = segIdx;
+      multiply(geo.segmentRotations, segIdx * MAT_SIZE, earthToOdomRot, 0, odomToCandidateRot, c * MAT_SIZE);
+      c++;
+    }
+
+    int n = objects.size();
+    ensureCapacity(n);
+    double hostRouteOffset = routeState.getDownTrack() - (geo.segmentStarts[hostSegIndex] + hostSegDowntrack);
+
+    int i = 0;
+    for (ExternalObject obj : objects) {
+      geometry_msgs.Pose pose = obj.getPose().getPose();
+      geometry_msgs.Point p = pose.getPosition();
+
+      // Object position in ECEF
+      double px = p.getX(), py = p.getY(), pz = p.getZ();
+      double ex = earthToOdomRot[0] * px + earthToOdomRot[1] * py + earthToOdomRot[2] * pz + earthToOdomTrans[0];
+      double ey = earthToOdomRot[3] * px + earthToOdomRot[4] * py + earthToOdomRot[5] * pz + earthToOdomTrans[1];
+      double ez = earthToOdomRot[6] * px + earthToOdomRot[7] * py + earthToOdomRot[8] * pz + earthToOdomTrans[2];
+
+      // Find the segment using the same rules as Route.routeSegmentOfPoint
+      int best = 0;
+      double prevMaxCrosstrack = 0.0;
+      for (c = 0; c < candidateCount; c++) {
+        int segIdx = candidates[c];
+        double downTrack = geo.segmentCoord(segIdx, 0, ex, ey, ez);
+        if (-prevMaxCrosstrack < downTrack && downTrack <= geo.segmentLengths[segIdx]) {
+          best = c;
+          if (Math.abs(geo.segmentCoord(segIdx, 1, ex, ey, ez)) <= geo.segmentMaxCrosstracks[segIdx]) {
+            break;
+          }
+        }
+        prevMaxCrosstrack = geo.segmentMaxCrosstracks[segIdx];
+      }
+      int segIdx = candidates[best];
+      int m = best * MAT_SIZE;
+
+      int v = i * VEC_SIZE;
+      objSegments[i] = segIdx;
+      objPositions[v] = geo.segmentCoord(segIdx, 0, ex, ey, ez);
+      objPositions[v + 1] = geo.segmentCoord(segIdx, 1, ex, ey, ez);
+      objPositions[v + 2] = geo.segmentCoord(segIdx, 2, ex, ey, ez);
+      objDowntracks[i] = hostRouteOffset + geo.segmentStarts[segIdx] + objPositions[v];
+
+      // Velocity in the segment frame
+      geometry_msgs.Vector3 vel = obj.getVelocity().getTwist().getLinear();
+      rotate(odomToCandidateRot, m, vel.getX(), vel.getY(), vel.getZ(), objVelocities, v);
+
+      // Half extents of the axis aligned box around the rotated object
+      geometry_msgs.Quaternion q = pose.getOrientation();
+      toRotationMatrix(q.getX(), q.getY(), q.getZ(), q.getW(), objRot);
+      multiply(odomToCandidateRot, m, objRot, 0, objInSegRot, 0);
+      geometry_msgs.Vector3 size = obj.getSize();
+      double sx = Math.abs(size.getX()), sy = Math.abs(size.getY()), sz = Math.abs(size.getZ());
+      for (int r = 0; r < 3; r++) {
+        objHalfSizes[v + r] = Math.abs(objInSegRot[r * 3]) * sx + Math.abs(objInSegRot[r * 3 + 1]) * sy
+          + Math.abs(objInSegRot[r * 3 + 2]) * sz;
+      }
+
+      // Sort key orders by id and remembers the input position
+      inputs[i] = obj;
+      order[i] = ((long) obj.getId() << 32) | i;
+      i++;
+    }
+
+    // Build messages in id order. Messages are handed to the publisher, which serializes them later, so they are never reused.
+    Arrays.sort(order, 0, n);
+    List<RoadwayObstacle> obstacles = new ArrayList<>(n);
+    for (int k = 0; k < n; k++) {
+      int idx = (int) (order[k] & 0xFFFFFFFFL);
+      obstacles.add(buildObstacle(geo, inputs[idx], idx, routeState));
+    }
+    Arrays.fill(inputs, 0, n, null); // Don't hold on to the message
+    return obstacles;
+  }
+
+  /**
+   * Builds the message for one object from the computed results
+   */
+  private RoadwayObstacle buildObstacle(RouteGeometry geo, ExternalObject obj, int i, RouteState routeState) {
+    int v = i * VEC_SIZE;
+    RouteSegment segment = geo.routeSegments.get(objSegments[i]);
+    double crosstrack = objPositions[v + 1];
+
+    int primaryLane = segment.determinePrimaryLane(crosstrack);
+    // If the relative lane field is defined use that instead of calculated lane
+    if ((short) (obj.getPresenceVector() & ExternalObject.RELATIVE_LANE_PRESENCE_VECTOR) != 0) {
+      switch (obj.getRelativeLane()) {
+        case ExternalObject.HOST_LANE:
+          primaryLane = routeState.getLaneIndex();
+          break;
+        case ExternalObject.RIGHT_LANE:
+          primaryLane = routeState.getLaneIndex() - 1;
+          break;
+        case ExternalObject.LEFT_LANE:
+          primaryLane = routeState.getLaneIndex() + 1;
+          break;
+      }
+    }
+    byte[] secondaryLanes = segment.determineSecondaryLanes(crosstrack - objHalfSizes[v + 1],
+      crosstrack + objHalfSizes[v + 1], primaryLane);
+
+    ConnectedVehicleType connectedVehicleType = ConnectedVehicleType.NOT_CONNECTED;
+    if ((short) (obj.getPresenceVector() & ExternalObject.BSM_ID_PRESENCE_VECTOR) != 0) {
+      connectedVehicleType = ConnectedVehicleType.CONNECTED;
+    }
+
+    RoadwayObstacle newObstacle = messageFactory.newFromType(RoadwayObstacle._TYPE);
+    newObstacle.setConnectedVehicleType(connectedVehicleType.toMessage());
+    newObstacle.setCrossTrack(crosstrack);
+    newObstacle.setDownTrack(objDowntracks[i]);
+    newObstacle.setPrimaryLane((byte) primaryLane);
+    if (secondaryLanes.length > 0) { // Ensure we only try to set if secondary lanes are present
+      newObstacle.setSecondaryLanes(ChannelBuffers.copiedBuffer(ByteOrder.LITTLE_ENDIAN, secondaryLanes));
+    }
+    newObstacle.setWaypointId(segment.getDowntrackWaypoint().getWaypointId());
+
+    ExternalObject newObj = newObstacle.getObject();
+    if (obj.getBsmId().hasArray() && obj.getBsmId().readable() && obj.getBsmId().array().length > 0) {
+      newObj.setBsmId(obj.getBsmId());
+    }
+    newObj.setConfidence(obj.getConfidence());
+    newObj.setHeader(obj.getHeader());
+    newObj.getHeader().setFrameId("0"); // Uses a route segment specific frame id which is not on the frame transform tree
+    newObj.setId(obj.getId());
+    newObj.setObjectType(obj.getObjectType());
+
+    newObj.getPose().setCovariance(obj.getPose().getCovariance());
+    geometry_msgs.Pose pose = newObj.getPose().getPose();
+    pose.getPosition().setX(objPositions[v]);
+    pose.getPosition().setY(crosstrack);
+    pose.getPosition().setZ(objPositions[v + 2]);
+    pose.setOrientation(Quaternion.identity().toQuaternionMessage(pose.getOrientation()));
+
+    newObj.setRelativeLane(obj.getRelativeLane());
+    geometry_msgs.Vector3 size = newObj.getSize();
+    size.setX(objHalfSizes[v]);
+    size.setY(objHalfSizes[v + 1]);
+    size.setZ(objHalfSizes[v + 2]);
+
+    newObj.getVelocity().setCovariance(obj.getVelocity().getCovariance());
+    geometry_msgs.Vector3 linear = newObj.getVelocity().getTwist().getLinear();
+    linear.setX(objVelocities[v]);
+    linear.setY(objVelocities[v + 1]);
+    linear.setZ(objVelocities[v + 2]);
+
+    // Remove the object parameters which will not be passed on
+    newObj.setPresenceVector((short) (obj.getPresenceVector() & ~REMOVED_PRESENCE_FIELDS));
+    return newObstacle;
+  }
+
+  /**
+   * Segment geometry cached for one route. Never modified after construction.
+   */
+  private static final class RouteGeometry {
+    final Route route;
+    final List<RouteSegment> routeSegments;
+    final double[] segmentStarts; // Route downtrack of the start of each segment
+    final double[] segmentLengths;
+    final double[] segmentMaxCrosstracks;
+    final double[] segmentRotations; // Row major ECEF to segment frame rotations
+    final double[] segmentOrigins; // Segment frame origins in ECEF
+
+    RouteGeometry(Route route, List<RouteSegment> routeSegments, double[] segmentStarts, double[] segmentLengths,
+      double[] segmentMaxCrosstracks, double[] segmentRotations, double[] segmentOrigins) {
+      this.route = route;
+      this.routeSegments = routeSegments;
+      this.segmentStarts = segmentStarts;
+      this.segmentLengths = segmentLengths;
+      this.segmentMaxCrosstracks = segmentMaxCrosstracks;
+      this.segmentRotations = segmentRotations;
+      this.segmentOrigins = segmentOrigins;
+    }
+
+    /**
+     * Computes one coordinate of an ECEF point in a segment frame
+     */
+    double segmentCoord(int segIdx, int axis, double ex, double ey, double ez) {
+      int r = segIdx * MAT_SIZE + axis * 3;
+      int o = segIdx * VEC_SIZE;
+      return segmentRotations[r] * (ex - segmentOrigins[o])
+        + segmentRotations[r + 1] * (ey - segmentOrigins[o + 1])
+        + segmentRotations[r + 2] * (ez - segmentOrigins[o + 2]);
+    }
+  }
+
+  private void ensureCapacity(int n) {
+    if (n <= capacity) {
+      return;
+    }
+    capacity = Math.max(n, capacity * 2);
+    objSegments = new int[capacity];
+    objPositions = new double[capacity * VEC_SIZE];
+    objVelocities = new double[capacity * VEC_SIZE];
+    objHalfSizes = new double[capacity * VEC_SIZE];
+    objDowntracks = new double[capacity];
+    order = new long[capacity];
+    inputs = new ExternalObject[capacity];
+  }
+
+  /**
+   * Multiplies two row major 3x3 matrices stored at offsets within arrays
+   */
+  private static void multiply(double[] a, int ao, double[] b, int bo, double[] out, int oo) {
+    for (int r = 0; r < 3; r++) {
+      for (int c = 0; c < 3; c++) {
+        out[oo + r * 3 + c] = a[ao + r * 3] * b[bo + c] + a[ao + r * 3 + 1] * b[bo + 3 + c]
+          + a[ao + r * 3 + 2] * b[bo + 6 + c];
+      }
+    }
+  }
+
+  /**
+   * Rotates a vector by a row major 3x3 matrix stored at an offset within an array
+   */
+  private static void rotate(double[] m, int mo, double x, double y, double z, double[] out, int oo) {
+    out[oo] = m[mo] * x + m[mo + 1] * y + m[mo + 2] * z;
+    out[oo + 1] = m[mo + 3] * x + m[mo + 4] * y + m[mo + 5] * z;
+    out[oo + 2] = m[mo + 6] * x + m[mo + 7] * y + m[mo + 8] * z;
+  }
+
+  private static void toRotationMatrix(Quaternion q, double[] out) {
+    toRotationMatrix(q.getX(), q.getY(), q.getZ(), q.getW(), out);
+  }
+
+  /**
+   * Converts a quaternion into a row major rotation matrix. The quaternion does not need to be normalized.
+   * An all zero quaternion, as found in messages with no orientation set, is treated as the identity.
+   */
+  static void toRotationMatrix(double x, double y, double z, double w, double[] out) {
+    double norm = x * x + y * y + z * z + w * w;
+    double s = norm > 0.0 ? 2.0 / norm : 0.0;
+    double xx = x * x * s, yy = y * y * s, zz = z * z * s;
+    double xy = x * y * s, xz = x * z * s, yz = y * z * s;
+    double wx = w * x * s, wy = w * y * s, wz = w * z * s;
+    out[0] = 1.0 - (yy + zz);
+    out[1] = xy - wz;
+    out[2] = xz + wy;
+    out[3] = xy + wz;
+    out[4] = 1.0 - (xx + zz);
+    out[5] = yz - wx;
+    out[6] = xz - wy;
+    out[7] = yz + wx;
+    out[8] = 1.0 - (xx + yy);
+  }
+}
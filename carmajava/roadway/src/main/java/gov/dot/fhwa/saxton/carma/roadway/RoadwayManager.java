@@ -120,7 +120,8 @@ public class RoadwayManager extends SaxtonBaseNode implements IRoadwayManager{
     routeSub = connectedNode.newSubscriber("route", cav_msgs.Route._TYPE);
       routeSub.addMessageListener((cav_msgs.Route message) -> {
         try {
-          Route r = Route.fromMessage(message);
+          environmentWorker.handleRouteMsg(message);
+          Route r = environmentWorker.activeRoute; // Reuse the route decoded by the worker
           geometry_msgs.PoseArray array = posesPub.newMessage();
           array.getHeader().setFrameId("earth");
           array.getHeader().setStamp(connectedNode.getCurrentTime());
@@ -132,7 +133,6 @@ public class RoadwayManager extends SaxtonBaseNode implements IRoadwayManager{
           }
           array.setPoses(poses);
           posesPub.publish(array);
-          environmentWorker.handleRouteMsg(message);
         } catch (Throwable e) {
           handleException(e);
         }
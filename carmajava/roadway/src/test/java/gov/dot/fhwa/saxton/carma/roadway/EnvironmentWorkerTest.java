@@ -18,6 +18,8 @@ package gov.dot.fhwa.saxton.carma.roadway;
 
 import cav_msgs.ExternalObject;
 import cav_msgs.HeadingStamped;
+import cav_msgs.RoadwayObstacle;
+import cav_msgs.RouteState;
 import cav_msgs.SystemAlert;
 import geometry_msgs.PoseWithCovariance;
 import geometry_msgs.TransformStamped;
@@ -25,6 +27,8 @@ import gov.dot.fhwa.saxton.carma.geometry.GeodesicCartesianConverter;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector3D;
 import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import gov.dot.fhwa.saxton.carma.route.Route;
+import gov.dot.fhwa.saxton.carma.route.RouteWaypoint;
 import nav_msgs.Odometry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -41,7 +45,10 @@ import sensor_msgs.NavSatFix;
 import sensor_msgs.NavSatStatus;
 import tf2_msgs.TFMessage;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -95,4 +102,79 @@ public class EnvironmentWorkerTest {
     envWkr.handleSystemAlertMsg(alertMsg);
     assertTrue(roadwayMgr.isShutdown());
   }
+
+  /**
+   * Test that batched obstacle processing matches the per object conversion
+   */
+  @Test
+  public void testBatchedObstacles() {
+    MockRoadwayManager roadwayMgr = new MockRoadwayManager();
+    EnvironmentWorker envWkr = new EnvironmentWorker(roadwayMgr, log, "earth", "map", "odom",
+      "base_link", "pinpoint", "pinpoint", 200, 100);
+
+    // A route with a turn in it
+    List<RouteWaypoint> waypoints = new ArrayList<>();
+    waypoints.add(new RouteWaypoint(new Location(38.95647, -77.15031, 72.0)));
+    waypoints.add(new RouteWaypoint(new Location(38.95631, -77.15070, 72.0)));
+    waypoints.add(new RouteWaypoint(new Location(38.95597, -77.15101, 72.0)));
+    waypoints.add(new RouteWaypoint(new Location(38.95575, -77.15150, 72.0)));
+    for (RouteWaypoint wp : waypoints) {
+      wp.setLaneCount(3);
+    }
+    Route route = new Route(waypoints, "test_route", "test_route");
+    cav_msgs.Route routeMsg = route.toMessage(messageFactory);
+    envWkr.handleRouteMsg(routeMsg);
+
+    RouteState routeState = messageFactory.newFromType(RouteState._TYPE);
+    routeState.setCurrentSegment(routeMsg.getSegments().get(1));
+    routeState.setSegmentDownTrack(10.0);
+    routeState.setDownTrack(route.getSegments().get(0).length() + 10.0);
+    routeState.setLaneIndex((byte) 1);
+    envWkr.handleRouteStateMsg(routeState);
+
+    // Odom frame rotated relative to the second segment
+    Transform earthToOdom = envWkr.activeRoute.getSegments().get(1).getECEFToSegmentTransform()
+      .multiply(new Transform(new Vector3(2.0, -1.0, 0.5), Quaternion.fromAxisAngle(new Vector3(0, 0, 1), 0.3)));
+
+    Random rand = new Random(7);
+    List<ExternalObject> objects = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      ExternalObject obj = messageFactory.newFromType(ExternalObject._TYPE);
+      obj.setId(50 - i);
+      obj.getPose().getPose().getPosition().setX(rand.nextDouble() * 150.0 - 30.0);
+      obj.getPose().getPose().getPosition().setY(rand.nextDouble() * 20.0 - 10.0);
+      obj.getPose().getPose().setOrientation(Quaternion.fromAxisAngle(new Vector3(0, 0, 1), rand.nextDouble() * Math.PI)
+        .toQuaternionMessage(obj.getPose().getPose().getOrientation()));
+      obj.getSize().setX(2.5);
+      obj.getSize().setY(1.0);
+      obj.getSize().setZ(0.8);
+      obj.getVelocity().getTwist().getLinear().setX(rand.nextDouble() * 30.0);
+      obj.getVelocity().getTwist().getLinear().setY(rand.nextDouble() - 0.5);
+      objects.add(obj);
+    }
+
+    List<RoadwayObstacle> batched = envWkr.obstacleProcessor.process(objects, earthToOdom, routeState, 1, 200, 100);
+    assertEquals(objects.size(), batched.size());
+    for (int i = 0; i < batched.size(); i++) {
+      RoadwayObstacle actual = batched.get(i);
+      // Obstacles are emitted in id order
+      assertEquals(i + 1, actual.getObject().getId());
+      RoadwayObstacle expected = envWkr.buildObstacleFromMsg(objects.get(50 - (i + 1)), earthToOdom);
+
+      assertEquals(expected.getWaypointId(), actual.getWaypointId());
+      assertEquals(expected.getDownTrack(), actual.getDownTrack(), 0.0001);
+      assertEquals(expected.getCrossTrack(), actual.getCrossTrack(), 0.0001);
+      assertEquals(expected.getPrimaryLane(), actual.getPrimaryLane());
+      geometry_msgs.Vector3 expectedSize = expected.getObject().getSize();
+      geometry_msgs.Vector3 actualSize = actual.getObject().getSize();
+      assertEquals(expectedSize.getX(), actualSize.getX(), 0.0001);
+      assertEquals(expectedSize.getY(), actualSize.getY(), 0.0001);
+      assertEquals(expectedSize.getZ(), actualSize.getZ(), 0.0001);
+      geometry_msgs.Vector3 expectedVel = expected.getObject().getVelocity().getTwist().getLinear();
+      geometry_msgs.Vector3 actualVel = actual.getObject().getVelocity().getTwist().getLinear();
+      assertEquals(expectedVel.getX(), actualVel.getX(), 0.0001);
+      assertEquals(expectedVel.getY(), actualVel.getY(), 0.0001);
+      assertEquals(expectedVel.getZ(), actualVel.getZ(), 0.0001);
+    }
+  }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.rosutils;
+
+import org.apache.commons.logging.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log which hands records to a writer thread through a bounded queue so that callers never block on log I/O.
+ * <p>
+ * When the queue is full the record is dropped and counted instead of waiting for the writer.
+ * The number of dropped records is logged by the writer thread once the queue has room again.
+ * Level checks are answered by the wrapped log directly.
+ */
+public class AsyncLog implements Log {
+
+  private static final long POLL_PERIOD_MS = 100;
+
+  private enum Level { TRACE, DEBUG, INFO, WARN, ERROR, FATAL }
+
+  private static final class Record {
+    final Level level;
+    final Object message;
+    final Throwable t;
+
+    Record(Level level, Object message, Throwable t) {
+      this.level = level;
+      this.message = message;
+      this.t = t;
+    }
+  }
+
+  private final Log log;
+  private final BlockingQueue<Record> queue;
+  private final AtomicLong dropped = new AtomicLong();
+  private long reportedDropped = 0; // Only accessed by the writer thread
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  /**
+   * Constructor. Starts the writer thread
+   *
+   * @param log The log records are written to
+   * @param capacity The maximum number of records waiting to be written
+   */
+  public AsyncLog(Log log, int capacity) {
+    this.log = log;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.writer = new Thread(this::drain, "AsyncLog");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * @return The number of records dropped because the queue was full
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops the writer thread once all queued records have been written
+   *
+   * @param timeoutMs The maximum time to wait for the queued records in milliseconds
+   */
+  public void close(long timeoutMs) throws InterruptedException {
+    // The writer is not interrupted as that could abort I/O in the wrapped log
+    running = false;
+    writer.join(timeoutMs);
+  }
+
+  private void enqueue(Level level, Object message, Throwable t) {
+    if (!queue.offer(new Record(level, message, t))) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  private void drain() {
+    while (running || !queue.isEmpty()) {
+      try {
+        Record record = queue.poll(POLL_PERIOD_MS, TimeUnit.MILLISECONDS);
+        if (record != null) {
+          write(record);
+        }
+      } catch (InterruptedException e) {
+        // Keep writing until closed
+      }
+      long droppedNow = dropped.get();
+      if (droppedNow != reportedDropped && queue.remainingCapacity() > 0) {
+        log.warn("AsyncLog | NONE | Dropped " + (droppedNow - reportedDropped) + " log records while the log queue was full");
+        reportedDropped = droppedNow;
+      }
+    }
+  }
+
+  private void write(Record record) {
+    boolean hasThrowable = record.t != null;
+    switch (record.level) {
+      case TRACE:
+        if (hasThrowable) {
+          log.trace(record.message, record.t);
+        } else {
+          log.trace(record.message);
+        }
+        break;
+      case DEBUG:
+        if (hasThrowable) {
+          log.debug(record.message, record.t);
+        } else {
+          log.debug(record.message);
+        }
+        break;
+      case INFO:
+        if (hasThrowable) {
+          log.info(record.message, record.t);
+        } else {
+          log.info(record.message);
+        }
+        break;
+      case WARN:
+        if (hasThrowable) {
+          log.warn(record.message, record.t);
+        } else {
+          log.warn(record.message);
+        }
+        break;
+      case ERROR:
+        if (hasThrowable) {
+          log.error(record.message, record.t);
+        } else {
+          log.error(record.message);
+        }
+        break;
+      default:
+        if (hasThrowable) {
+          log.fatal(record.message, record.t);
+        } else {
+          log.fatal(record.message);
+        }
+    }
+  }
+
+  @Override public boolean isTraceEnabled() {
+    return log.isTraceEnabled();
+  }
+
+  @Override public boolean isDebugEnabled() {
+    return log.isDebugEnabled();
+  }
+
+  @Override public boolean isInfoEnabled() {
+    return log.isInfoEnabled();
+  }
+
+  @Override public boolean isWarnEnabled() {
+    return log.isWarnEnabled();
+  }
+
+  @Override public boolean isErrorEnabled() {
+    return log.isErrorEnabled();
+  }
+
+  @Override public boolean isFatalEnabled() {
+    return log.isFatalEnabled();
+  }
+
+  @Override public void trace(Object message) {
+    enqueue(Level.TRACE, message, null);
+  }
+
+  @Override public void trace(Object message, Throwable t) {
+    enqueue(Level.TRACE, message, t);
+  }
+
+  @Override public void debug(Object message) {
+    enqueue(Level.DEBUG, message, null);
+  }
+
+  @Override public void debug(Object message, Throwable t) {
+    enqueue(Level.DEBUG, message, t);
+  }
+
+  @Override public void info(Object message) {
+    enqueue(Level.INFO, message, null);
+  }
+
+  @Override public void info(Object message, Throwable t) {
+    enqueue(Level.INFO, message, t);
+  }
+
+  @Override public void warn(Object message) {
+    enqueue(Level.WARN, message, null);
+  }
+
+  @Override public void warn(Object message, Throwable t) {
+    enqueue(Level.WARN, message, t);
+  }
+
+  @Override public void error(Object message) {
+    enqueue(Level.ERROR, message, null);
+  }
+
+  @Override public void error(Object message, Throwable t) {
+    enqueue(Level.ERROR, message, t);
+  }
+
+  @Override public void fatal(Object message) {
+    enqueue(Level.FATAL, message, null);
+  }
+
+  @Override public void fatal(Object message, Throwable t) {
+    enqueue(Level.FATAL, message, t);
+  }
+}
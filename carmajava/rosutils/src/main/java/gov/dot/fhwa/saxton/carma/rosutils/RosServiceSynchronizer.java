@@ -16,6 +16,8 @@
 
 package gov.dot.fhwa.saxton.carma.rosutils;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.ros.node.service.*;
 import org.ros.exception.*;
 
@@ -52,6 +54,34 @@ public class RosServiceSynchronizer {
     return res;
   }
 
+  /**
+   * Call a ROS service without blocking, returning a composable future for the response
+   * <p>
+   * The future is completed on the ROS thread which receives the response, or exceptionally with the
+   * {@link RemoteException} reported by the service.
+   *
+   * @param client the {@link org.ros.node.service.ServiceClient} instance to use for communication
+   * @param request The request message to send
+   * @returns A future for the response message
+   */
+  public static <R, T> CompletableFuture<T> callFuture(ServiceClient<R, T> client, R request) {
+    final CompletableFuture<T> res = new CompletableFuture<>();
+
+    client.call(request, new ServiceResponseListener<T>() {
+      @Override
+      public void onSuccess(T success) {
+        res.complete(success);
+      }
+
+      @Override
+      public void onFailure(RemoteException e) {
+        res.completeExceptionally(e);
+      }
+    });
+
+    return res;
+  }
+
   /**
    * Synchronously call a ROS service, handling the results with the ServiceResponseListener
    * 
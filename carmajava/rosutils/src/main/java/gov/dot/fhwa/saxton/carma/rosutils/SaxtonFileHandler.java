@@ -18,11 +18,48 @@ package gov.dot.fhwa.saxton.carma.rosutils;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.logging.FileHandler;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.zip.GZIPOutputStream;
 
-public class SaxtonFileHandler extends FileHandler {
+/**
+ * Log handler which writes records to the node's log file from a dedicated writer thread.
+ * <p>
+ * Callers only add the record to a bounded queue. When the queue is full the record is dropped and counted,
+ * and the number of dropped records is written to the file once the queue has room again.
+ * The writer thread formats all queued records into a single buffer and writes it with one sequential write.
+ * As records are formatted on the writer thread, the formatter should not rely on inferring the caller class.
+ * <p>
+ * The file is rotated once it would exceed a size limit or has been open for longer than a rotation period.
+ * Rotated files are renamed with a timestamp suffix and can be compressed with gzip in the background.
+ * <p>
+ * Configured through the LogManager properties prefixed with the class name:
+ * level, formatter, encoding, limit (bytes, 0 for no limit), rotationPeriod (seconds, 0 for none),
+ * compress (true or false) and queueSize (records).
+ */
+public class SaxtonFileHandler extends Handler {
   private static String filePath = "";
   // Static code for generating the logs in a timestamped folder
   static {
@@ -31,7 +68,7 @@ public class SaxtonFileHandler extends FileHandler {
       //1) sudo mkdir -p /opt/carma/logs and
       //2) sudo chmod -R ugo+rw /opt/carma
       //log file name is generated and stored in /opt/carma/logname.txt
-      BufferedReader br = new BufferedReader(new FileReader("/opt/carma/logname.txt")); 
+      BufferedReader br = new BufferedReader(new FileReader("/opt/carma/logname.txt"));
       String folderName = br.readLine();
       // One liner for getting the path of the jar file running this code
       String jarPath = new File(SaxtonBaseNode.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
@@ -40,7 +77,7 @@ public class SaxtonFileHandler extends FileHandler {
       String nodeName = jarPathParts[jarPathParts.length - 3];
       String fileName = nodeName + ".txt";
       // Create folder and log
-      File file = new File("/opt/carma/logs/" + folderName + "/" + fileName); 
+      File file = new File("/opt/carma/logs/" + folderName + "/" + fileName);
       file.getParentFile().mkdirs();
       SaxtonFileHandler.filePath = file.getAbsolutePath();
       br.close();
@@ -51,7 +88,282 @@ public class SaxtonFileHandler extends FileHandler {
       SaxtonFileHandler.filePath = "/opt/carma/logs/carma_%u.log"; // %u will be a unique integer value for each log
     }
   }
+
+  private static final int DEFAULT_QUEUE_SIZE = 8192;
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long POLL_PERIOD_MS = 100;
+  private static final long CLOSE_TIMEOUT_MS = 5000;
+  private static final String ROTATION_SUFFIX_FORMAT = "yyyyMMdd-HHmmss-SSS";
+
+  private final File file;
+  private final long limit;
+  private final long rotationPeriodMs;
+  private final boolean compress;
+  private final BlockingQueue<LogRecord> queue;
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread writer;
+  private final ExecutorService compressor;
+  private volatile boolean running = true;
+
+  // Only accessed by the writer thread
+  private OutputStream out;
+  private long bytesWritten;
+  private long openedAt;
+  private long reportedDropped = 0;
+  private final List<LogRecord> batch = new ArrayList<>(MAX_BATCH_SIZE);
+  private final StringBuilder buffer = new StringBuilder();
+
+  /**
+   * Constructor used by the LogManager. Reads the configuration from the LogManager properties
+   */
   public SaxtonFileHandler() throws IOException {
-    super(SaxtonFileHandler.filePath);
+    this(resolveUniquePath(SaxtonFileHandler.filePath),
+      getLongProperty("limit", 0),
+      getLongProperty("rotationPeriod", 0) * 1000,
+      Boolean.parseBoolean(getProperty("compress", "false")),
+      (int) getLongProperty("queueSize", DEFAULT_QUEUE_SIZE), true);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param path The path of the log file. Records are appended if it exists
+   * @param limit The size in bytes after which the file is rotated or 0 to never rotate by size
+   * @param rotationPeriodMs The time in milliseconds after which the file is rotated or 0 to never rotate by time
+   * @param compress True if rotated files should be compressed with gzip
+   * @param queueSize The maximum number of records waiting to be written
+   */
+  public SaxtonFileHandler(String path, long limit, long rotationPeriodMs, boolean compress, int queueSize) throws IOException {
+    this(path, limit, rotationPeriodMs, compress, queueSize, false);
+  }
+
+  private SaxtonFileHandler(String path, long limit, long rotationPeriodMs, boolean compress, int queueSize,
+    boolean useLogManagerProperties) throws IOException {
+    this.file = new File(path);
+    this.limit = limit;
+    this.rotationPeriodMs = rotationPeriodMs;
+    this.compress = compress;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    setFormatter(new SimpleFormatter());
+    if (useLogManagerProperties) {
+      configure();
+    }
+    open();
+    this.compressor = Executors.newSingleThreadExecutor((r) -> {
+      Thread thread = new Thread(r, "SaxtonFileHandlerCompressor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.writer = new Thread(this::drain, "SaxtonFileHandler");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * @return The number of records dropped because the queue was full
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public void publish(LogRecord record) {
+    if (!running || !isLoggable(record)) {
+      return;
+    }
+    if (!queue.offer(record)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Does nothing as the writer thread flushes the file after every batch
+   */
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * Writes all queued records and closes the file.
+   * Waits for the rotated files to be compressed for a bounded time
+   */
+  @Override
+  public void close() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      writer.join(CLOSE_TIMEOUT_MS);
+      compressor.shutdown();
+      compressor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain() {
+    while (running || !queue.isEmpty()) {
+      try {
+        LogRecord first = queue.poll(POLL_PERIOD_MS, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        }
+      } catch (InterruptedException e) {
+        // Keep writing until closed
+      }
+      long droppedNow = dropped.get();
+      if (droppedNow != reportedDropped && queue.remainingCapacity() > 0) {
+        batch.add(new LogRecord(Level.WARNING, "SaxtonFileHandler | NONE | Dropped " + (droppedNow - reportedDropped)
+          + " log records while the log queue was full"));
+        reportedDropped = droppedNow;
+      }
+      if (!batch.isEmpty()) {
+        writeBatch();
+      }
+    }
+    closeFile();
+  }
+
+  private void writeBatch() {
+    Formatter formatter = getFormatter();
+    buffer.setLength(0);
+    for (LogRecord record : batch) {
+      try {
+        buffer.append(formatter.format(record));
+      } catch (Exception e) {
+        reportError(null, e, ErrorManager.FORMAT_FAILURE);
+      }
+    }
+    batch.clear();
+    byte[] bytes = buffer.toString().getBytes(getCharset());
+    try {
+      if (out == null) {
+        open();
+      } else if (shouldRotate(bytes.length)) {
+        rotate();
+      }
+      out.write(bytes);
+      out.flush();
+      bytesWritten += bytes.length;
+    } catch (IOException e) {
+      reportError(null, e, ErrorManager.WRITE_FAILURE);
+    }
+  }
+
+  private boolean shouldRotate(int nextWrite) {
+    boolean sizeExceeded = limit > 0 && bytesWritten > 0 && bytesWritten + nextWrite > limit;
+    boolean periodElapsed = rotationPeriodMs > 0 && bytesWritten > 0 && System.currentTimeMillis() - openedAt >= rotationPeriodMs;
+    return sizeExceeded || periodElapsed;
+  }
+
+  private void open() throws IOException {
+    bytesWritten = file.length();
+    openedAt = System.currentTimeMillis();
+    out = new FileOutputStream(file, true);
+    byte[] head = getFormatter().getHead(this).getBytes(getCharset());
+    out.write(head);
+    bytesWritten += head.length;
+  }
+
+  private void closeFile() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.write(getFormatter().getTail(this).getBytes(getCharset()));
+      out.close();
+    } catch (IOException e) {
+      reportError(null, e, ErrorManager.CLOSE_FAILURE);
+    }
+    out = null;
+  }
+
+  /**
+   * Renames the current file with a timestamp suffix and opens a new file at the original path
+   */
+  private void rotate() throws IOException {
+    closeFile();
+    String suffix = new SimpleDateFormat(ROTATION_SUFFIX_FORMAT).format(new Date());
+    File rotated = new File(file.getPath() + "." + suffix);
+    for (int i = 1; rotated.exists(); i++) {
+      rotated = new File(file.getPath() + "." + suffix + "." + i);
+    }
+    if (file.exists() && !file.renameTo(rotated)) {
+      reportError("Failed to rotate log file " + file, null, ErrorManager.GENERIC_FAILURE);
+    } else if (compress && rotated.exists()) {
+      final File toCompress = rotated;
+      compressor.execute(() -> compress(toCompress));
+    }
+    open();
+  }
+
+  private void compress(File source) {
+    File target = new File(source.getPath() + ".gz");
+    try (InputStream in = new FileInputStream(source);
+      OutputStream gzip = new GZIPOutputStream(new FileOutputStream(target), 1 << 16)) {
+      byte[] chunk = new byte[1 << 16];
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        gzip.write(chunk, 0, read);
+      }
+    } catch (IOException e) {
+      reportError("Failed to compress log file " + source, e, ErrorManager.GENERIC_FAILURE);
+      target.delete();
+      return;
+    }
+    source.delete();
+  }
+
+  private Charset getCharset() {
+    String encoding = getEncoding();
+    return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+  }
+
+  /**
+   * Applies the level, formatter and encoding configured in the LogManager properties
+   */
+  private void configure() {
+    try {
+      setLevel(Level.parse(getProperty("level", "ALL")));
+      String formatterName = getProperty("formatter", null);
+      if (formatterName != null) {
+        setFormatter((Formatter) ClassLoader.getSystemClassLoader().loadClass(formatterName).newInstance());
+      }
+      setEncoding(getProperty("encoding", null));
+    } catch (Exception e) {
+      reportError("Invalid SaxtonFileHandler configuration", e, ErrorManager.GENERIC_FAILURE);
+    }
+  }
+
+  private static String getProperty(String name, String defaultValue) {
+    String value = LogManager.getLogManager().getProperty(SaxtonFileHandler.class.getName() + "." + name);
+    return value == null ? defaultValue : value.trim();
+  }
+
+  private static long getLongProperty(String name, long defaultValue) {
+    try {
+      return Long.parseLong(getProperty(name, Long.toString(defaultValue)));
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Replaces a %u in the path with the lowest integer for which no file exists yet.
+   * The file is created so that other nodes starting at the same time pick a different integer
+   */
+  private static String resolveUniquePath(String path) throws IOException {
+    if (!path.contains("%u")) {
+      return path;
+    }
+    for (int unique = 0; ; unique++) {
+      File candidate = new File(path.replace("%u", Integer.toString(unique)));
+      candidate.getParentFile().mkdirs();
+      if (candidate.createNewFile()) {
+        return candidate.getPath();
+      }
+    }
   }
-}
\ No newline at end of file
+}
@@ -27,6 +27,7 @@ import java.io.PrintWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
 
 /**
@@ -67,126 +68,300 @@ public class SaxtonLogger {
 
   /**
    * The log methods below were created to leverage the ROS node log and then adds the source and tag from the calling procedure
-   * onto the message.
+   * onto the message. The message is only built if the level is enabled.
+   * The Supplier and format variants also defer building the message itself until the level is known to be enabled,
+   * so callers should prefer them when the message is expensive to build.
    */
   public void debug(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.debug(messageToStore);
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(emptyTag, message));
+    }
   }
 
   public void debug(String message, Throwable t) {
-    String messageToStore =  getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.debug(messageToStore, t);
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(emptyTag, message), t);
+    }
   }
 
   public void debug(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.debug(messageToStore);
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(tag, message));
+    }
   }
 
   public void debug(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.debug(messageToStore, t);
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(tag, message), t);
+    }
+  }
+
+  public void debug(Supplier<String> message) {
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void debug(String tag, Supplier<String> message) {
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(tag, message.get()));
+    }
+  }
+
+  public void debugf(String format, Object... args) {
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void debugf(String tag, String format, Object... args) {
+    if (saxtonLog.isDebugEnabled()) {
+      saxtonLog.debug(toStore(tag, String.format(format, args)));
+    }
   }
 
   public void info(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.info(messageToStore);
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(emptyTag, message));
+    }
   }
 
   public void info(String message, Throwable t) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.info(messageToStore, t);
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(emptyTag, message), t);
+    }
   }
 
   public void info(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.info(messageToStore);
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(tag, message));
+    }
   }
 
   public void info(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.info(messageToStore, t);
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(tag, message), t);
+    }
+  }
+
+  public void info(Supplier<String> message) {
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void info(String tag, Supplier<String> message) {
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(tag, message.get()));
+    }
+  }
+
+  public void infof(String format, Object... args) {
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void infof(String tag, String format, Object... args) {
+    if (saxtonLog.isInfoEnabled()) {
+      saxtonLog.info(toStore(tag, String.format(format, args)));
+    }
   }
 
   public void warn(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.warn(messageToStore);
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(emptyTag, message));
+    }
   }
 
   public void warn(String message, Throwable t) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.warn(messageToStore, t);
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(emptyTag, message), t);
+    }
   }
 
   public void warn(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.warn(messageToStore);
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(tag, message));
+    }
   }
 
   public void warn(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.warn(messageToStore, t);
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(tag, message), t);
+    }
+  }
+
+  public void warn(Supplier<String> message) {
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void warn(String tag, Supplier<String> message) {
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(tag, message.get()));
+    }
+  }
+
+  public void warnf(String format, Object... args) {
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void warnf(String tag, String format, Object... args) {
+    if (saxtonLog.isWarnEnabled()) {
+      saxtonLog.warn(toStore(tag, String.format(format, args)));
+    }
   }
 
   public void error(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.error(messageToStore);
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(emptyTag, message));
+    }
   }
 
   public void error(String message, Throwable t) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.error(messageToStore, t);
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(emptyTag, message), t);
+    }
   }
 
   public void error(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.error(messageToStore);
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(tag, message));
+    }
   }
 
   public void error(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.error(messageToStore, t);
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(tag, message), t);
+    }
+  }
+
+  public void error(Supplier<String> message) {
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void error(String tag, Supplier<String> message) {
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(tag, message.get()));
+    }
+  }
+
+  public void errorf(String format, Object... args) {
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void errorf(String tag, String format, Object... args) {
+    if (saxtonLog.isErrorEnabled()) {
+      saxtonLog.error(toStore(tag, String.format(format, args)));
+    }
   }
 
   public void fatal(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.fatal(messageToStore);
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(emptyTag, message));
+    }
   }
 
   public void fatal(String message, Throwable t) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.fatal(messageToStore, t);
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(emptyTag, message), t);
+    }
   }
 
   public void fatal(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.fatal(messageToStore);
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(tag, message));
+    }
   }
 
   public void fatal(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.fatal(messageToStore, t);
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(tag, message), t);
+    }
+  }
+
+  public void fatal(Supplier<String> message) {
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void fatal(String tag, Supplier<String> message) {
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(tag, message.get()));
+    }
+  }
+
+  public void fatalf(String format, Object... args) {
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void fatalf(String tag, String format, Object... args) {
+    if (saxtonLog.isFatalEnabled()) {
+      saxtonLog.fatal(toStore(tag, String.format(format, args)));
+    }
   }
 
   public void trace(String message) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.trace(messageToStore);
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(emptyTag, message));
+    }
   }
 
   public void trace(String message, Throwable t) {
-    String messageToStore = getSource() + " | " + emptyTag + " | " + message;
-    saxtonLog.trace(messageToStore, t);
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(emptyTag, message), t);
+    }
   }
 
   public void trace(String tag, String message) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.trace(messageToStore);
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(tag, message));
+    }
   }
 
   public void trace(String tag, String message, Throwable t) {
-    String messageToStore = getSource() + " | " + tag + " | " + message;
-    saxtonLog.trace(messageToStore, t);
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(tag, message), t);
+    }
+  }
+
+  public void trace(Supplier<String> message) {
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(emptyTag, message.get()));
+    }
+  }
+
+  public void trace(String tag, Supplier<String> message) {
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(tag, message.get()));
+    }
+  }
+
+  public void tracef(String format, Object... args) {
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(emptyTag, String.format(format, args)));
+    }
+  }
+
+  public void tracef(String tag, String format, Object... args) {
+    if (saxtonLog.isTraceEnabled()) {
+      saxtonLog.trace(toStore(tag, String.format(format, args)));
+    }
+  }
+
+  private String toStore(String tag, String message) {
+    return getSource() + " | " + tag + " | " + message;
   }
 
   /**
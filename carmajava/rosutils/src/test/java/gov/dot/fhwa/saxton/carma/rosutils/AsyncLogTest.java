@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.rosutils;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.junit.Test;
+
+public class AsyncLogTest {
+
+  /**
+   * Log which records messages and blocks its first write until released
+   */
+  private static class BlockingLog implements Log {
+    final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    boolean debugEnabled = true;
+
+    private void record(String level, Object message) {
+      writing.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        fail();
+      }
+      messages.add(level + " " + message);
+    }
+
+    @Override public boolean isTraceEnabled() { return false; }
+    @Override public boolean isDebugEnabled() { return debugEnabled; }
+    @Override public boolean isInfoEnabled() { return true; }
+    @Override public boolean isWarnEnabled() { return true; }
+    @Override public boolean isErrorEnabled() { return true; }
+    @Override public boolean isFatalEnabled() { return true; }
+    @Override public void trace(Object message) { record("TRACE", message); }
+    @Override public void trace(Object message, Throwable t) { record("TRACE", message); }
+    @Override public void debug(Object message) { record("DEBUG", message); }
+    @Override public void debug(Object message, Throwable t) { record("DEBUG", message); }
+    @Override public void info(Object message) { record("INFO", message); }
+    @Override public void info(Object message, Throwable t) { record("INFO", message); }
+    @Override public void warn(Object message) { record("WARN", message); }
+    @Override public void warn(Object message, Throwable t) { record("WARN", message); }
+    @Override public void error(Object message) { record("ERROR", message); }
+    @Override public void error(Object message, Throwable t) { record("ERROR", message); }
+    @Override public void fatal(Object message) { record("FATAL", message); }
+    @Override public void fatal(Object message, Throwable t) { record("FATAL", message); }
+  }
+
+  @Test
+  public void testDropsWhenFull() throws InterruptedException {
+    BlockingLog baseLog = new BlockingLog();
+    AsyncLog log = new AsyncLog(baseLog, 2);
+
+    log.info("first");
+    // The writer is now blocked on the first record so the queue fills up
+    assertTrue(baseLog.writing.await(5, TimeUnit.SECONDS));
+    log.info("second");
+    log.error("third");
+    log.info("fourth");
+    log.info("fifth");
+    assertEquals(2, log.getDroppedCount());
+
+    baseLog.release.countDown();
+    log.close(5000);
+
+    // The dropped count is reported as soon as the queue has room again
+    assertEquals(4, baseLog.messages.size());
+    assertEquals("INFO first", baseLog.messages.get(0));
+    assertEquals("INFO second", baseLog.messages.get(1));
+    assertTrue(baseLog.messages.get(2).startsWith("WARN"));
+    assertTrue(baseLog.messages.get(2).contains("Dropped 2 log records"));
+    assertEquals("ERROR third", baseLog.messages.get(3));
+  }
+
+  @Test
+  public void testDeferredFormatting() throws InterruptedException {
+    BlockingLog baseLog = new BlockingLog();
+    baseLog.debugEnabled = false;
+    baseLog.release.countDown();
+    AsyncLog asyncLog = new AsyncLog(baseLog, 16);
+    SaxtonLogger log = new SaxtonLogger("AsyncLogTest", asyncLog);
+
+    final int[] calls = { 0 };
+    log.debug("TAG", () -> {
+      calls[0]++;
+      return "debug";
+    });
+    log.debugf("TAG", "%d", 1);
+    log.info("TAG", () -> {
+      calls[0]++;
+      return "info";
+    });
+    asyncLog.close(5000);
+
+    assertEquals(1, calls[0]);
+    assertEquals(1, baseLog.messages.size());
+    assertTrue(baseLog.messages.get(0).startsWith("INFO"));
+    assertTrue(baseLog.messages.get(0).contains("info"));
+  }
+}
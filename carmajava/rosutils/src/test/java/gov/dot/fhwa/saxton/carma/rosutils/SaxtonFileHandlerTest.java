@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.rosutils;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SaxtonFileHandlerTest {
+
+  protected File folder;
+
+  @Before
+  public void setup() throws IOException {
+    folder = Files.createTempDirectory("SaxtonFileHandlerTest").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : folder.listFiles()) {
+      file.delete();
+    }
+    folder.delete();
+  }
+
+  private static SaxtonFileHandler withMessageFormatter(SaxtonFileHandler handler) {
+    handler.setFormatter(new Formatter() {
+      @Override
+      public String format(LogRecord record) {
+        return record.getMessage() + "\n";
+      }
+    });
+    return handler;
+  }
+
+  private static List<String> readLines(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    if (file.getName().endsWith(".gz")) {
+      in = new GZIPInputStream(in);
+    }
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  @Test
+  public void testWritesAllRecords() throws IOException {
+    File log = new File(folder, "node.txt");
+    SaxtonFileHandler handler = withMessageFormatter(new SaxtonFileHandler(log.getPath(), 0, 0, false, 1000));
+    for (int i = 0; i < 500; i++) {
+      handler.publish(new LogRecord(Level.INFO, "record " + i));
+    }
+    handler.close();
+    // Records published after closing are ignored
+    handler.publish(new LogRecord(Level.INFO, "closed"));
+
+    List<String> lines = readLines(log);
+    assertEquals(500, lines.size());
+    for (int i = 0; i < 500; i++) {
+      assertEquals("record " + i, lines.get(i));
+    }
+    assertEquals(0, handler.getDroppedCount());
+    assertEquals(1, folder.listFiles().length);
+  }
+
+  @Test
+  public void testSizeRotationWithCompression() throws IOException, InterruptedException {
+    File log = new File(folder, "node.txt");
+    SaxtonFileHandler handler = withMessageFormatter(new SaxtonFileHandler(log.getPath(), 100, 0, true, 1000));
+    for (int i = 0; i < 50; i++) {
+      // Each record is 10 bytes so the file is rotated after every 10 records written
+      handler.publish(new LogRecord(Level.INFO, String.format("record %02d", i)));
+      Thread.sleep(5);
+    }
+    handler.close();
+
+    List<String> lines = new ArrayList<>();
+    File[] rotated = folder.listFiles((dir, name) -> name.startsWith("node.txt."));
+    assertTrue(rotated.length >= 1);
+    for (File file : rotated) {
+      assertTrue(file.getName().endsWith(".gz"));
+      assertTrue(file.length() > 0);
+      lines.addAll(readLines(file));
+    }
+    List<String> current = readLines(log);
+    assertTrue(current.size() * 10 <= 100);
+    lines.addAll(current);
+
+    // Rotated files written within the same millisecond are not ordered by name
+    Collections.sort(lines);
+    assertEquals(50, lines.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(String.format("record %02d", i), lines.get(i));
+    }
+  }
+
+  @Test
+  public void testLevelFiltering() throws IOException {
+    File log = new File(folder, "node.txt");
+    SaxtonFileHandler handler = withMessageFormatter(new SaxtonFileHandler(log.getPath(), 0, 0, false, 10));
+    handler.setLevel(Level.WARNING);
+    handler.publish(new LogRecord(Level.FINE, "debug"));
+    handler.publish(new LogRecord(Level.SEVERE, "error"));
+    handler.close();
+
+    List<String> lines = readLines(log);
+    assertEquals(1, lines.size());
+    assertEquals("error", lines.get(0));
+  }
+}
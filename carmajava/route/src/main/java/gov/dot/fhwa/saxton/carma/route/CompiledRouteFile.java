@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import org.ros.rosjava_geometry.Quaternion;
+import org.ros.rosjava_geometry.Transform;
+import org.ros.rosjava_geometry.Vector3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes routes in a compiled binary format which can be loaded without parsing or validating the route
+ * file it was compiled from.
+ * <p>
+ * A compiled file starts with a small header holding the checksum and length of the source file, the route name and
+ * the result of validating the route. The header can be read on its own, so the list of available routes can be
+ * built without loading any route geometry. The header is followed by the waypoints, including their ECEF points,
+ * and the segments as pairs of waypoint indices with their precomputed ECEF to segment FRD frame transforms.
+ * <p>
+ * Files are memory mapped when read and written to a temporary file which is then moved into place, so a partially
+ * written file is never read. Any file which cannot be read is treated as missing and the route is compiled again.
+ */
+public class CompiledRouteFile {
+
+  /**
+   * The extension appended to the route file name to give the compiled file name
+   */
+  public static final String EXTENSION = ".compiled";
+
+  private static final int MAGIC = 0x43524F55; // "CROU"
+  // Must be incremented whenever the layout below or the route validation rules change
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * The header of a compiled route file
+   */
+  public static class Header {
+    private final long sourceChecksum;
+    private final long sourceLength;
+    private final String routeName;
+    private final String routeID;
+    private final boolean valid;
+
+    private Header(long sourceChecksum, long sourceLength, String routeName, String routeID, boolean valid) {
+      this.sourceChecksum = sourceChecksum;
+      this.sourceLength = sourceLength;
+      this.routeName = routeName;
+      this.routeID = routeID;
+      this.valid = valid;
+    }
+
+    /**
+     * @return The checksum of the route file this file was compiled from
+     */
+    public long getSourceChecksum() {
+      return sourceChecksum;
+    }
+
+    /**
+     * @return The length in bytes of the route file this file was compiled from
+     */
+    public long getSourceLength() {
+      return sourceLength;
+    }
+
+    /**
+     * @return The name of the compiled route
+     */
+    public String getRouteName() {
+      return routeName;
+    }
+
+    /**
+     * @return The id of the compiled route. May be null
+     */
+    public String getRouteID() {
+      return routeID;
+    }
+
+    /**
+     * @return True if the route passed validation when it was compiled
+     */
+    public boolean isValid() {
+      return valid;
+    }
+  }
+
+  private CompiledRouteFile() {}
+
+  /**
+   * Writes a compiled route file
+   * Routes with waypoints that require maneuvers cannot be compiled.
+   *
+   * @param route The route to compile. It should already have been validated
+   * @param sourceChecksum The checksum of the route file
+   * @param sourceLength The length of the route file in bytes
+   * @param file The file to write
+   * @throws IOException If the file could not be written
+   * @throws IllegalArgumentException If the route cannot be compiled
+   */
+  public static void write(Route route, long sourceChecksum, long sourceLength, File file) throws IOException {
+    List<RouteWaypoint> waypoints = route.getWaypoints();
+    Map<RouteWaypoint, Integer> waypointIndices = new IdentityHashMap<>();
+    for (RouteWaypoint wp : waypoints) {
+      if (!wp.getNeededManeuvers().isEmpty()) {
+        throw new IllegalArgumentException("Routes with needed maneuvers cannot be compiled: " + route);
+      }
+      waypointIndices.put(wp, waypointIndices.size());
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeLong(sourceChecksum);
+    out.writeLong(sourceLength);
+    writeString(out, route.getRouteName());
+    writeString(out, route.getRouteID());
+    out.writeBoolean(route.isValid());
+    out.writeDouble(route.getMaxJoinDistance());
+
+    out.writeInt(waypoints.size());
+    for (RouteWaypoint wp : waypoints) {
+      Location loc = wp.getLocation();
+      Point3D ecefPoint = wp.getECEFPoint();
+      out.writeDouble(loc.getLatitude());
+      out.writeDouble(loc.getLongitude());
+      out.writeDouble(loc.getAltitude());
+      out.writeDouble(ecefPoint.getX());
+      out.writeDouble(ecefPoint.getY());
+      out.writeDouble(ecefPoint.getZ());
+      out.writeDouble(wp.getMinCrossTrack());
+      out.writeDouble(wp.getMaxCrossTrack());
+      out.writeDouble(wp.getLaneWidth());
+      out.writeDouble(wp.getNearestMileMarker());
+      out.writeInt(wp.getLaneCount());
+      out.writeInt(wp.getLaneIndex());
+      out.writeInt(wp.getRequiredLaneIndex());
+      out.writeInt(wp.getLowerSpeedLimit());
+      out.writeInt(wp.getUpperSpeedLimit());
+      writeString(out, wp.getRoadType() == null ? null : wp.getRoadType().name());
+      writeString(out, wp.getInteriorLaneMarkings() == null ? null : wp.getInteriorLaneMarkings().name());
+      writeString(out, wp.getLeftMostLaneMarking() == null ? null : wp.getLeftMostLaneMarking().name());
+      writeString(out, wp.getRightMostLaneMarking() == null ? null : wp.getRightMostLaneMarking().name());
+      out.writeInt(wp.getLaneClosures().size());
+      for (int lane : wp.getLaneClosures()) {
+        out.writeInt(lane);
+      }
+      out.writeInt(wp.getDisabledGuidanceAlgorithms().size());
+      for (String algorithm : wp.getDisabledGuidanceAlgorithms()) {
+        writeString(out, algorithm);
+      }
+    }
+
+    List<RouteSegment> segments = route.getSegments();
+    out.writeInt(segments.size());
+    for (RouteSegment seg : segments) {
+      out.writeInt(waypointIndices.get(seg.getUptrackWaypoint()));
+      out.writeInt(waypointIndices.get(seg.getDowntrackWaypoint()));
+      Transform transform = seg.getECEFToSegmentTransform();
+      Vector3 translation = transform.getTranslation();
+      Quaternion rotation = transform.getRotationAndScale();
+      out.writeDouble(translation.getX());
+      out.writeDouble(translation.getY());
+      out.writeDouble(translation.getZ());
+      out.writeDouble(rotation.getX());
+      out.writeDouble(rotation.getY());
+      out.writeDouble(rotation.getZ());
+      out.writeDouble(rotation.getW());
+    }
+    out.flush();
+
+    // Write to a temporary file first so readers never see a partial file
+    Path target = file.toPath();
+    Path parent = target.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, file.getName(), ".tmp");
+    try {
+      Files.write(temp, bytes.toByteArray());
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Reads only the header of a compiled route file
+   *
+   * @param file The compiled file
+   * @return The header or null if the file does not exist or is not a readable compiled route file
+   */
+  public static Header readHeader(File file) {
+    ByteBuffer buffer = map(file);
+    if (buffer == null) {
+      return null;
+    }
+    try {
+      return readHeader(buffer);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads a route from a compiled route file
+   * The returned route has the validity it was compiled with and is not validated again.
+   *
+   * @param file The compiled file
+   * @return The route or null if the file does not exist or is not a readable compiled route file
+   */
+  public static Route read(File file) {
+    ByteBuffer buffer = map(file);
+    if (buffer == null) {
+      return null;
+    }
+    try {
+      Header header = readHeader(buffer);
+      double maxJoinDistance = buffer.getDouble();
+
+      int waypointCount = readCount(buffer);
+      List<RouteWaypoint> waypoints = new ArrayList<>(waypointCount);
+      for (int i = 0; i < waypointCount; i++) {
+        waypoints.add(readWaypoint(buffer));
+      }
+
+      int segmentCount = readCount(buffer);
+      List<RouteSegment> segments = new ArrayList<>(segmentCount);
+      for (int i = 0; i < segmentCount; i++) {
+        RouteWaypoint uptrack = waypoints.get(buffer.getInt());
+        RouteWaypoint downtrack = waypoints.get(buffer.getInt());
+        Vector3 translation = new Vector3(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        Quaternion rotation = new Quaternion(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        segments.add(new RouteSegment(uptrack, downtrack, new Transform(translation, rotation)));
+      }
+
+      Route route = new Route(waypoints, segments, header.getRouteID(), header.getRouteName());
+      route.setMaxJoinDistance(maxJoinDistance);
+      route.setValid(header.isValid());
+      return route;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static Header readHeader(ByteBuffer buffer) {
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Not a compiled route file of the current version");
+    }
+    long sourceChecksum = buffer.getLong();
+    long sourceLength = buffer.getLong();
+    String routeName = readString(buffer);
+    String routeID = readString(buffer);
+    boolean valid = buffer.get() != 0;
+    return new Header(sourceChecksum, sourceLength, routeName, routeID, valid);
+  }
+
+  private static RouteWaypoint readWaypoint(ByteBuffer buffer) {
+    RouteWaypoint wp = new RouteWaypoint();
+    // Set the fields directly so the stored ECEF point is used rather than converting the location again
+    wp.location = new Location(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    wp.ecefPoint = new Point3D(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    wp.setMinCrossTrack(buffer.getDouble());
+    wp.setMaxCrossTrack(buffer.getDouble());
+    wp.setLaneWidth(buffer.getDouble());
+    wp.setNearestMileMarker(buffer.getDouble());
+    wp.setLaneCount(buffer.getInt());
+    wp.setLaneIndex(buffer.getInt());
+    wp.setRequiredLaneIndex(buffer.getInt());
+    wp.setLowerSpeedLimit(buffer.getInt());
+    wp.setUpperSpeedLimit(buffer.getInt());
+    String roadType = readString(buffer);
+    wp.setRoadType(roadType == null ? null : RoadType.valueOf(roadType));
+    wp.setInteriorLaneMarkings(readLaneEdgeType(buffer));
+    wp.setLeftMostLaneMarking(readLaneEdgeType(buffer));
+    wp.setRightMostLaneMarking(readLaneEdgeType(buffer));
+
+    int laneClosureCount = readCount(buffer);
+    List<Integer> laneClosures = new ArrayList<>(laneClosureCount);
+    for (int i = 0; i < laneClosureCount; i++) {
+      laneClosures.add(buffer.getInt());
+    }
+    wp.setLaneClosures(laneClosures);
+
+    int disabledCount = readCount(buffer);
+    List<String> disabledGuidanceAlgorithms = new ArrayList<>(disabledCount);
+    for (int i = 0; i < disabledCount; i++) {
+      disabledGuidanceAlgorithms.add(readString(buffer));
+    }
+    wp.setDisabledGuidanceAlgorithms(disabledGuidanceAlgorithms);
+    return wp;
+  }
+
+  private static LaneEdgeType readLaneEdgeType(ByteBuffer buffer) {
+    String name = readString(buffer);
+    return name == null ? null : LaneEdgeType.valueOf(name);
+  }
+
+  private static int readCount(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid element count: " + count);
+    }
+    return count;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    if (length > buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Maps a file into memory for reading
+   * The mapping remains valid after the channel is closed
+   */
+  private static ByteBuffer map(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import org.apache.commons.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+/**
+ * Loads a route from a route file through a compiled copy of it kept in a cache directory.
+ * If the compiled copy is missing or was compiled from a different version of the route file
+ * the route file is loaded and validated as in the FileStrategy and then compiled for future loads.
+ */
+public class CompiledRouteStrategy extends FileStrategy {
+  protected final File compiledFile;
+
+  /**
+   * Constructor
+   *
+   * @param path The route file path
+   * @param cacheDirectory The directory in which the compiled route file is kept
+   * @param log The logger
+   */
+  public CompiledRouteStrategy(String path, String cacheDirectory, Log log) {
+    super(path, log);
+    this.compiledFile = new File(cacheDirectory, new File(path).getName() + CompiledRouteFile.EXTENSION);
+  }
+
+  /**
+   * Reads the header of the compiled route if it is up to date with the route file
+   *
+   * @return The header or null if the route file must be compiled again
+   */
+  public CompiledRouteFile.Header loadHeader() {
+    CompiledRouteFile.Header header = CompiledRouteFile.readHeader(compiledFile);
+    if (header == null) {
+      return null;
+    }
+    try {
+      byte[] source = Files.readAllBytes(new File(filePath).toPath());
+      if (header.getSourceLength() == source.length && header.getSourceChecksum() == checksum(source)) {
+        return header;
+      }
+      log.info("Route file has changed since it was compiled: " + filePath);
+    } catch (IOException e) {
+      log.warn("IOException reading route file: " + filePath, e);
+    }
+    return null;
+  }
+
+  @Override public Route load() {
+    if (loadHeader() != null) {
+      Route route = CompiledRouteFile.read(compiledFile);
+      if (route != null) {
+        log.info("Loaded compiled route: " + compiledFile.getPath());
+        return route;
+      }
+    }
+
+    byte[] source;
+    try {
+      source = Files.readAllBytes(new File(filePath).toPath());
+    } catch (IOException e) {
+      log.warn("IOException reading route file: " + filePath, e);
+      return null;
+    }
+    Route route = super.load();
+    if (route == null) {
+      return null;
+    }
+    try {
+      CompiledRouteFile.write(route, checksum(source), source.length, compiledFile);
+      log.info("Compiled route file: " + filePath + " to: " + compiledFile.getPath());
+    } catch (IOException | IllegalArgumentException e) {
+      // The route is still usable. It will be loaded from the route file next time
+      log.warn("Failed to compile route file: " + filePath, e);
+    }
+    return route;
+  }
+
+  /**
+   * @return The compiled route file
+   */
+  public File getCompiledFile() {
+    return compiledFile;
+  }
+
+  private static long checksum(byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length);
+    return crc.getValue();
+  }
+}
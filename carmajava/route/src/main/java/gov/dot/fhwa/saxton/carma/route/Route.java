@@ -22,6 +22,7 @@ import org.ros.message.Time;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
 import gov.dot.fhwa.saxton.carma.geometry.cartesian.Vector;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +40,7 @@ public class Route {
   protected List<RouteSegment> segments;
   protected List<RouteWaypoint> waypoints;
   protected boolean valid = false;
+  protected volatile RouteSegmentIndex segmentIndex; // Built on first use and cleared when the segments change
 
   /**
    * Default constructor does nothing.
@@ -62,6 +64,23 @@ public class Route {
     this.setWaypoints(waypoints);
   }
 
+  /**
+   * Constructor for routes whose segments have already been built from the waypoints, such as compiled routes.
+   * The waypoints are not adjusted for lane changes as this was done when the segments were built
+   *
+   * @param waypoints The list of waypoints in the route
+   * @param segments  The segments connecting the waypoints
+   * @param routeID   The id to assign to the route. Should be unique
+   * @param routeName The display name of the route
+   */
+  Route(List<RouteWaypoint> waypoints, List<RouteSegment> segments, String routeID, String routeName) {
+    this.routeID = routeID;
+    this.routeName = routeName;
+    this.waypoints = waypoints;
+    this.segments = segments;
+    calculateLength();
+  }
+
   /**
    * Constructs a ros message from this route
    *
@@ -168,6 +187,7 @@ public class Route {
     waypoints.add(index,waypoint);
 
     calculateLength();
+    segmentIndex = null;
   }
 
   /**
@@ -256,7 +276,7 @@ public class Route {
     RouteWaypoint prevPrevWaypoint = null;
     boolean updatePreviousWP = false;
     // Build segments from waypoints
-    segments = new LinkedList<>(); // Clear currnet waypoints
+    segments = new ArrayList<>(); // Clear currnet waypoints
 
     for(RouteWaypoint waypoint: waypointList){
 
@@ -276,6 +296,7 @@ public class Route {
       firstWaypoint = false;
     }
     calculateLength();
+    segmentIndex = null;
   }
 
 
@@ -430,6 +451,56 @@ public class Route {
     return bestSegment;
   }
 
+  /**
+   * Gets the spatial index over the segments of this route. The index is built on the first call
+   * after the route segments change and shared by all later callers.
+   *
+   * @return The segment index
+   */
+  public RouteSegmentIndex getSegmentIndex() {
+    RouteSegmentIndex index = segmentIndex;
+    if (index == null) {
+      index = new RouteSegmentIndex(segments);
+      segmentIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the route segments within the provided horizontal distance of a point.
+   * The returned list is in route order so it can be passed to routeSegmentOfPoint
+   *
+   * @param point The point in the ECEF frame
+   * @param radius The search radius in m
+   * @return The segments within the radius. Empty if there are none
+   */
+  public List<RouteSegment> findSegmentsNear(Point3D point, double radius) {
+    int[] indices = getSegmentIndex().segmentsWithin(point, radius);
+    List<RouteSegment> nearby = new ArrayList<>(indices.length);
+    for (int i : indices) {
+      nearby.add(segments.get(i));
+    }
+    return nearby;
+  }
+
+  /**
+   * Get the route segment which the provided point should be considered in, searching the whole route.
+   * The segments within searchRadius of the point are matched using the same rules as
+   * {@link #routeSegmentOfPoint(Point3D, List)}. If there are none the nearest segment is returned.
+   *
+   * @param point The point in the ECEF frame
+   * @param searchRadius The distance in m from the point within which segments are considered
+   * @return The matching route segment or null if the route has no segments
+   */
+  public RouteSegment routeSegmentOfPoint(Point3D point, double searchRadius) {
+    List<RouteSegment> nearby = findSegmentsNear(point, searchRadius);
+    if (!nearby.isEmpty()) {
+      return routeSegmentOfPoint(point, nearby);
+    }
+    int nearest = getSegmentIndex().nearestSegment(point);
+    return nearest < 0 ? null : segments.get(nearest);
+  }
+
   @Override
   public String toString() {
     return "Route{ name: " + routeName + " id: " + routeID + " }";
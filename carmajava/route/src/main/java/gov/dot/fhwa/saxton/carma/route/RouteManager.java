@@ -109,6 +109,11 @@ public class RouteManager extends SaxtonBaseNode implements IRouteManager {
     } else {
       finalDatabasePath = packagePath + "/" + databasePath;
     }
+    String cachePath = params.getString("~route_cache_path", "");
+    String finalCachePath = null; // Routes are not compiled if no cache path is provided
+    if (!cachePath.isEmpty()) {
+      finalCachePath = cachePath.charAt(0) == '/' ? cachePath : packagePath + "/" + cachePath;
+    }
 
     String earthFrame = params.getString("~earth_frame_id", "earth");
     String hostVehicleFrame = params.getString("~host_vehicle_frame_id", "host_vehicle");
@@ -117,11 +122,13 @@ public class RouteManager extends SaxtonBaseNode implements IRouteManager {
     // Echo params
     log.info("LoadedParam: package_path = " + packagePath);
     log.info("LoadedParam: default_database_path = " + databasePath);
+    log.info("LoadedParam: route_cache_path = " + cachePath);
     log.info("LoadedParam: earth_frame_id = " + earthFrame);
     log.info("LoadedParam: host_vehicle_frame_id = " + hostVehicleFrame);
     log.info("LoadedParam: required_left_route_count = " + requiredLeftRouteCount);
 
-    routeWorker = new RouteWorker(this, connectedNode.getLog(), finalDatabasePath, requiredLeftRouteCount, earthFrame, hostVehicleFrame);
+    routeWorker = new RouteWorker(this, connectedNode.getLog(), finalDatabasePath, finalCachePath, requiredLeftRouteCount,
+      earthFrame, hostVehicleFrame);
 
     // Used Services
     // Ensure transforms can be obtained
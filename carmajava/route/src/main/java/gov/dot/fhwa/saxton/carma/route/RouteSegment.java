@@ -45,6 +45,7 @@ public class RouteSegment {
   final protected double length;
   final protected GeodesicCartesianConverter gcc = new GeodesicCartesianConverter();
   final protected Transform ecefToUptrackWP;
+  final protected Transform uptrackWPToECEF; // Cached inverse used to move ECEF points into the segment frame
 
   /**
    * Constructor initializes this segment with the given waypoints.
@@ -57,20 +58,22 @@ public class RouteSegment {
     this.lineSegment = new LineSegment3D(this.uptrackWP.getECEFPoint(), this.downtrackWP.getECEFPoint());
     this.length = this.lineSegment.length();
     this.ecefToUptrackWP = getSegmentAllignedFRDFrame();
+    this.uptrackWPToECEF = this.ecefToUptrackWP.invert();
   }
 
     /**
-   * Constructor for use in the fromMessage function
+   * Constructor for use in the fromMessage function and when loading compiled routes
    * @param uptrackWP The uptrack waypoint for the segment to be built.
    * @param downtrackWP The downtrack waypoint for the segment to be built.
    * @param ecefToUptrackWP A precalculated transform to the FRD frame of this segment
    */
-  private RouteSegment(RouteWaypoint uptrackWP, RouteWaypoint downtrackWP, Transform ecefToUptrackWP) {
+  RouteSegment(RouteWaypoint uptrackWP, RouteWaypoint downtrackWP, Transform ecefToUptrackWP) {
     this.uptrackWP = uptrackWP;
     this.downtrackWP = downtrackWP;
     this.lineSegment = new LineSegment3D(this.uptrackWP.getECEFPoint(), this.downtrackWP.getECEFPoint());
     this.length = this.lineSegment.length();
     this.ecefToUptrackWP = ecefToUptrackWP;
+    this.uptrackWPToECEF = ecefToUptrackWP.invert();
   }
 
   /**
@@ -137,12 +140,9 @@ public class RouteSegment {
    * @param ecefPoint A point located in an ecef frame
    */
   private Point3D ecefPointInSegmentFrame(Point3D ecefPoint) {
-    Transform ecefToPoint = new Transform(new Vector3(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()), Quaternion.identity());
-    Transform segmentToPoint = getECEFToSegmentTransform().invert().multiply(ecefToPoint); // Find the transform from the segment to this object
-    Vector3 pntVec = segmentToPoint.getTranslation();
-    Point3D pntPosition = new Point3D(pntVec.getX(), pntVec.getY(), pntVec.getZ());
-
-    return pntPosition;
+    // Equivalent to the translation of uptrackWPToECEF * ecefToPoint without building the intermediate transforms
+    Vector3 pntVec = uptrackWPToECEF.apply(new Vector3(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ()));
+    return new Point3D(pntVec.getX(), pntVec.getY(), pntVec.getZ());
   }
 
   /**
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import gov.dot.fhwa.saxton.carma.geometry.EcefConverter;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable bounding volume hierarchy over the segments of a route which answers nearest segment and
+ * segments within radius queries in O(log n) for localized queries.
+ * <p>
+ * Consecutive route segments are adjacent in space, so the tree is packed by grouping NODE_CAPACITY consecutive
+ * segments (and then consecutive nodes) under one axis aligned bounding box. No sorting is needed and the leaves stay
+ * in route order, which lets radius queries return segment indices in increasing order.
+ * <p>
+ * Distances are measured between ECEF points on the ellipsoid surface. Waypoints and query points are projected to
+ * zero altitude first, so a vehicle far above or below the route's waypoint altitudes is still matched by its
+ * horizontal position, as the segment crosstrack calculations are.
+ * <p>
+ * Instances are immutable once built and may be shared between threads.
+ */
+public class RouteSegmentIndex {
+
+  private static final int NODE_CAPACITY = 8;
+  private static final int BOX_SIZE = 6; // minX, minY, minZ, maxX, maxY, maxZ
+
+  private final int segmentCount;
+  private final double[] segmentEnds; // x1, y1, z1, x2, y2, z2 per segment on the surface
+  private final double[][] levels; // levels[0] holds segment boxes, the last level holds the root
+  private final int[] levelSizes;
+  private final double maxCrossTrack;
+
+  /**
+   * Constructor builds the index
+   *
+   * @param segments The route segments in route order
+   */
+  public RouteSegmentIndex(List<RouteSegment> segments) {
+    this.segmentCount = segments.size();
+    this.segmentEnds = new double[segmentCount * 6];
+    double[] surface = new double[3];
+    double widest = 0.0;
+    int i = 0;
+    for (RouteSegment seg : segments) {
+      RouteWaypoint wp = seg.getDowntrackWaypoint();
+      widest = Math.max(widest, Math.max(Math.abs(wp.getMinCrossTrack()), Math.abs(wp.getMaxCrossTrack())));
+      toSurface(seg.getUptrackWaypoint().getLocation(), surface);
+      System.arraycopy(surface, 0, segmentEnds, i * 6, 3);
+      toSurface(seg.getDowntrackWaypoint().getLocation(), surface);
+      System.arraycopy(surface, 0, segmentEnds, i * 6 + 3, 3);
+      i++;
+    }
+    this.maxCrossTrack = widest;
+
+    List<double[]> levelList = new ArrayList<>();
+    double[] leafBoxes = new double[Math.max(1, segmentCount) * BOX_SIZE];
+    for (i = 0; i < segmentCount; i++) {
+      for (int d = 0; d < 3; d++) {
+        double a = segmentEnds[i * 6 + d];
+        double b = segmentEnds[i * 6 + 3 + d];
+        leafBoxes[i * BOX_SIZE + d] = Math.min(a, b);
+        leafBoxes[i * BOX_SIZE + 3 + d] = Math.max(a, b);
+      }
+    }
+    levelList.add(leafBoxes);
+    int size = segmentCount;
+    while (size > 1) {
+      double[] children = levelList.get(levelList.size() - 1);
+      int parentCount = (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+      double[] parents = new double[parentCount * BOX_SIZE];
+      for (int p = 0; p < parentCount; p++) {
+        int first = p * NODE_CAPACITY;
+        int last = Math.min(first + NODE_CAPACITY, size);
+        System.arraycopy(children, first * BOX_SIZE, parents, p * BOX_SIZE, BOX_SIZE);
+        for (int c = first + 1; c < last; c++) {
+          for (int d = 0; d < 3; d++) {
+            parents[p * BOX_SIZE + d] = Math.min(parents[p * BOX_SIZE + d], children[c * BOX_SIZE + d]);
+            parents[p * BOX_SIZE + 3 + d] = Math.max(parents[p * BOX_SIZE + 3 + d], children[c * BOX_SIZE + 3 + d]);
+          }
+        }
+      }
+      levelList.add(parents);
+      size = parentCount;
+    }
+
+    this.levels = levelList.toArray(new double[levelList.size()][]);
+    this.levelSizes = new int[levels.length];
+    size = segmentCount;
+    for (int l = 0; l < levels.length; l++) {
+      levelSizes[l] = size;
+      size = (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+    }
+  }
+
+  /**
+   * Gets the index of the segment closest to the provided point
+   *
+   * @param ecefPoint The point in the ECEF frame
+   * @return The segment index or -1 if the route has no segments
+   */
+  public int nearestSegment(Point3D ecefPoint) {
+    if (segmentCount == 0) {
+      return -1;
+    }
+    double[] q = new double[3];
+    toSurface(ecefPoint, q);
+    double[] best = { Double.POSITIVE_INFINITY, -1 };
+    nearest(levels.length - 1, 0, q, best);
+    return (int) best[1];
+  }
+
+  /**
+   * Gets the indices of all segments within the provided horizontal distance of a point
+   *
+   * @param ecefPoint The point in the ECEF frame
+   * @param radius The search radius in m
+   * @return The matching segment indices in increasing order
+   */
+  public int[] segmentsWithin(Point3D ecefPoint, double radius) {
+    if (segmentCount == 0 || radius < 0) {
+      return new int[0];
+    }
+    double[] q = new double[3];
+    toSurface(ecefPoint, q);
+    List<Integer> found = new ArrayList<>();
+    within(levels.length - 1, 0, q, radius * radius, found);
+    int[] result = new int[found.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = found.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * @return The largest absolute crosstrack bound of any segment's downtrack waypoint in m
+   */
+  public double getMaxCrossTrack() {
+    return maxCrossTrack;
+  }
+
+  /**
+   * @return The number of indexed segments
+   */
+  public int size() {
+    return segmentCount;
+  }
+
+  private void nearest(int level, int node, double[] q, double[] best) {
+    if (level == 0) {
+      double distSqr = segmentDistanceSqr(node, q);
+      if (distSqr < best[0]) {
+        best[0] = distSqr;
+        best[1] = node;
+      }
+      return;
+    }
+    int first = node * NODE_CAPACITY;
+    int last = Math.min(first + NODE_CAPACITY, levelSizes[level - 1]);
+    // Visit the closest child first so the rest are usually pruned
+    double[] childDist = new double[last - first];
+    int closest = first;
+    for (int c = first; c < last; c++) {
+      childDist[c - first] = boxDistanceSqr(levels[level - 1], c, q);
+      if (childDist[c - first] < childDist[closest - first]) {
+        closest = c;
+      }
+    }
+    nearest(level - 1, closest, q, best);
+    for (int c = first; c < last; c++) {
+      if (c != closest && childDist[c - first] < best[0]) {
+        nearest(level - 1, c, q, best);
+      }
+    }
+  }
+
+  private void within(int level, int node, double[] q, double radiusSqr, List<Integer> found) {
+    if (level == 0) {
+      if (segmentDistanceSqr(node, q) <= radiusSqr) {
+        found.add(node);
+      }
+      return;
+    }
+    int first = node * NODE_CAPACITY;
+    int last = Math.min(first + NODE_CAPACITY, levelSizes[level - 1]);
+    for (int c = first; c < last; c++) {
+      if (boxDistanceSqr(levels[level - 1], c, q) <= radiusSqr) {
+        within(level - 1, c, q, radiusSqr, found);
+      }
+    }
+  }
+
+  private static double boxDistanceSqr(double[] boxes, int box, double[] q) {
+    double distSqr = 0;
+    int o = box * BOX_SIZE;
+    for (int d = 0; d < 3; d++) {
+      double v = q[d];
+      if (v < boxes[o + d]) {
+        distSqr += (boxes[o + d] - v) * (boxes[o + d] - v);
+      } else if (v > boxes[o + 3 + d]) {
+        distSqr += (v - boxes[o + 3 + d]) * (v - boxes[o + 3 + d]);
+      }
+    }
+    return distSqr;
+  }
+
+  private double segmentDistanceSqr(int seg, double[] q) {
+    int o = seg * 6;
+    double ax = segmentEnds[o], ay = segmentEnds[o + 1], az = segmentEnds[o + 2];
+    double abx = segmentEnds[o + 3] - ax, aby = segmentEnds[o + 4] - ay, abz = segmentEnds[o + 5] - az;
+    double aqx = q[0] - ax, aqy = q[1] - ay, aqz = q[2] - az;
+    double lengthSqr = abx * abx + aby * aby + abz * abz;
+    double t = lengthSqr == 0.0 ? 0.0 : (aqx * abx + aqy * aby + aqz * abz) / lengthSqr;
+    t = Math.max(0.0, Math.min(1.0, t));
+    double dx = aqx - t * abx, dy = aqy - t * aby, dz = aqz - t * abz;
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  private static void toSurface(Location loc, double[] out) {
+    EcefConverter.WGS84.geodesicToEcef(loc.getLatitude(), loc.getLongitude(), 0.0, out);
+  }
+
+  private static void toSurface(Point3D ecefPoint, double[] out) {
+    EcefConverter.WGS84.ecefToGeodesic(ecefPoint.getX(), ecefPoint.getY(), ecefPoint.getZ(), out);
+    EcefConverter.WGS84.geodesicToEcef(out[0], out[1], 0.0, out);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import cav_msgs.RouteState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the decoded active route for a route consumer and applies RouteState progress updates against it.
+ * <p>
+ * Every RouteState message carries a full copy of the current segment. Decoding it with RouteSegment.fromMessage
+ * rebuilds the segment geometry on each message, even though the segment only changes when the host vehicle passes
+ * a waypoint. This cache decodes the route once per route message and assigns it a new route version.
+ * A RouteState message for the cached route only updates the progress fields. The current segment is looked up by index
+ * in the decoded route. A RouteState message for any other route falls back to decoding the embedded segment.
+ * <p>
+ * Routes and RouteState messages may arrive on different threads. Setting the route and applying an update are
+ * synchronized so an update always sees a route together with its own segments. Decoding a new route happens before
+ * the lock is taken, so it does not hold up RouteState updates.
+ */
+public class RouteStateCache {
+
+  private Route route;
+  private List<RouteSegment> segments = Collections.emptyList();
+  private long routeVersion = 0;
+
+  private RouteSegment currentSegment;
+  private int currentSegmentIndex = -1;
+  private double downtrack;
+  private double crosstrack;
+  private double segmentDowntrack;
+  private int laneIndex;
+
+  /**
+   * Decodes a new route message and makes it the cached route
+   *
+   * @param routeMsg The route message
+   * @return The decoded route
+   */
+  public Route setRoute(cav_msgs.Route routeMsg) {
+    Route decoded = Route.fromMessage(routeMsg);
+    setRoute(decoded);
+    return decoded;
+  }
+
+  /**
+   * Makes an already decoded route the cached route. Progress is reset until the next RouteState message.
+   *
+   * @param route The route
+   */
+  public void setRoute(Route route) {
+    List<RouteSegment> routeSegments = new ArrayList<>(route.getSegments());
+    route.getSegmentIndex(); // Build the spatial index when the route is received rather than on first lookup
+    synchronized (this) {
+      this.route = route;
+      this.segments = routeSegments;
+      this.routeVersion++;
+      this.currentSegment = null;
+      this.currentSegmentIndex = -1;
+    }
+  }
+
+  /**
+   * Applies a RouteState message
+   *
+   * @param state The route state message
+   * @return True if the current segment changed as a result of this message
+   */
+  public synchronized boolean update(RouteState state) {
+    downtrack = state.getDownTrack();
+    crosstrack = state.getCrossTrack();
+    segmentDowntrack = state.getSegmentDownTrack();
+    laneIndex = state.getLaneIndex();
+
+    int index = state.getCurrentSegment().getPrevWaypoint().getWaypointId();
+    boolean sameRoute = route != null && route.getRouteID() != null && route.getRouteID().equals(state.getRouteID());
+    if (sameRoute && index == currentSegmentIndex && currentSegment != null) {
+      return false;
+    }
+
+    currentSegmentIndex = index;
+    if (sameRoute && index >= 0 && index < segments.size()) {
+      currentSegment = segments.get(index);
+    } else {
+      currentSegment = RouteSegment.fromMessage(state.getCurrentSegment());
+    }
+    return true;
+  }
+
+  /**
+   * @return The cached route or null if no route has been received
+   */
+  public synchronized Route getRoute() {
+    return route;
+  }
+
+  /**
+   * Gets the version of the cached route. The version changes each time a route is set,
+   * so consumers can detect route changes by comparing a single number.
+   *
+   * @return The route version. 0 if no route has been received
+   */
+  public synchronized long getRouteVersion() {
+    return routeVersion;
+  }
+
+  /**
+   * @return The host vehicle's current segment or null if no RouteState has been applied for the current route
+   */
+  public synchronized RouteSegment getCurrentSegment() {
+    return currentSegment;
+  }
+
+  /**
+   * @return The index of the host vehicle's current segment in the route
+   */
+  public synchronized int getCurrentSegmentIndex() {
+    return currentSegmentIndex;
+  }
+
+  /**
+   * @return The host vehicle's downtrack distance along the route in m
+   */
+  public synchronized double getDowntrack() {
+    return downtrack;
+  }
+
+  /**
+   * @return The host vehicle's crosstrack distance from the route in m
+   */
+  public synchronized double getCrosstrack() {
+    return crosstrack;
+  }
+
+  /**
+   * @return The host vehicle's downtrack distance along the current segment in m
+   */
+  public synchronized double getSegmentDowntrack() {
+    return segmentDowntrack;
+  }
+
+  /**
+   * @return The host vehicle's current lane index
+   */
+  public synchronized int getLaneIndex() {
+    return laneIndex;
+  }
+}
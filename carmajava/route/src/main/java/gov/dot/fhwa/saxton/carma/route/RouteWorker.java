@@ -34,8 +34,10 @@ import sensor_msgs.NavSatFix;
 import sensor_msgs.NavSatStatus;
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * The RouteWorker is responsible for implementing all non pub-sub logic of the RouteManager node
@@ -70,9 +72,12 @@ public class RouteWorker {
 
   protected Route activeRoute;
   protected HashMap<String, Route> availableRoutes = new HashMap<>();
+  protected HashMap<String, IRouteLoadStrategy> deferredRoutes = new HashMap<>(); // Routes loaded on selection
   protected RouteSegment currentSegment;
   protected int currentSegmentIndex = 0;
   protected final GeodesicCartesianConverter gcc = new GeodesicCartesianConverter();
+  // Slack in m added to the largest crosstrack bound when searching for a starting segment
+  protected static final double START_SEARCH_MARGIN = 5.0;
   //protected Location hostVehicleLocation = new Location();
 
   protected int currentWaypointIndex = 0;
@@ -113,6 +118,21 @@ public class RouteWorker {
    */
   public RouteWorker(IRouteManager manager, Log log, String database_path, int requiredLeftRouteCount,
    String earthFrameId, String hostVehicleFrameId) {
+    this(manager, log, database_path, null, requiredLeftRouteCount, earthFrameId, hostVehicleFrameId);
+  }
+
+  /**
+   * Constructor initializes the state and transitions and starts the timeout timer for the starting state
+   * When a cache path is provided routes are compiled into the cache directory. Routes with an up to date
+   * compiled file are only loaded once they are selected.
+   *
+   * @param manager negotiation manager which is used to publish data
+   * @param log     the logger
+   * @param database_path The directory containing the route files
+   * @param cache_path The directory containing compiled route files. If null routes are loaded from the route files
+   */
+  public RouteWorker(IRouteManager manager, Log log, String database_path, String cache_path,
+   int requiredLeftRouteCount, String earthFrameId, String hostVehicleFrameId) {
     this.routeManager = manager;
     this.log = new SaxtonLogger(this.getClass().getSimpleName(), log);
     this.requiredLeftRouteCount = requiredLeftRouteCount;
@@ -133,9 +153,20 @@ public class RouteWorker {
       return;
     }
     for (int i = 0; i < listOfFiles.length; i++) {
-      if (listOfFiles[i].isFile()) {
+      if (!listOfFiles[i].isFile()) {
+        continue;
+      }
+      if (cache_path == null) {
         FileStrategy loadStrategy = new FileStrategy(listOfFiles[i].getPath(), log);
         loadAdditionalRoute(loadStrategy);
+        continue;
+      }
+      CompiledRouteStrategy loadStrategy = new CompiledRouteStrategy(listOfFiles[i].getPath(), cache_path, log);
+      CompiledRouteFile.Header header = loadStrategy.loadHeader();
+      if (header != null) {
+        addDeferredRoute(header.getRouteName(), header.isValid(), loadStrategy);
+      } else {
+        loadAdditionalRoute(loadStrategy); // Compiles the route for the next start
       }
     }
     // At this point the current state should be WaitingForRouteSelection
@@ -231,6 +262,22 @@ public class RouteWorker {
     handleEvent(WorkerEvent.FILES_LOADED);
   }
 
+  /**
+   * Makes a route available for selection without loading it
+   * Until the route is selected it is represented by a route with no waypoints
+   *
+   * @param routeName The name of the route
+   * @param valid The validity of the route
+   * @param loadStrategy The strategy used to load the route once it is selected
+   */
+  protected void addDeferredRoute(String routeName, boolean valid, IRouteLoadStrategy loadStrategy) {
+    Route placeholder = new Route(new ArrayList<RouteWaypoint>(), routeName, routeName);
+    placeholder.setValid(valid);
+    availableRoutes.put(placeholder.getRouteID(), placeholder);
+    deferredRoutes.put(placeholder.getRouteID(), loadStrategy);
+    handleEvent(WorkerEvent.FILES_LOADED);
+  }
+
   /**
    * Returns true when the host vehicle has passed the end of the current route segment
    * @return indication of vehicle in next segment
@@ -265,6 +312,17 @@ public class RouteWorker {
    */
   public byte setActiveRoute(String routeID) {
     Route route = availableRoutes.get(routeID);
+    IRouteLoadStrategy deferredLoad = deferredRoutes.get(routeID);
+    if (deferredLoad != null) {
+      route = deferredLoad.load();
+      if (route == null) {
+        log.warn("Failed to load selected route: " + routeID);
+        return SetActiveRouteResponse.NO_ROUTE;
+      }
+      route.setRouteID(routeID);
+      deferredRoutes.remove(routeID);
+      availableRoutes.put(routeID, route);
+    }
     // Check if the specified route exists.
     if (route == null) {
       return SetActiveRouteResponse.NO_ROUTE;
@@ -315,27 +373,53 @@ public class RouteWorker {
    * @return the valid waypoint index (-1 if not waypoint is valid)
    */
   protected int getValidStartingWPIndex() {
-    if (activeRoute == null) {
+    if (activeRoute == null || activeRoute.getSegments().isEmpty()) {
       return -1;
     }
     double maxJoinDistance = activeRoute.getMaxJoinDistance();
     Location hostLocation =  gcc.cartesian2Geodesic(hostVehicleInECEF, Transform.identity());
     log.debug("getValidStartingWPIndex: lat = " + hostLocation.getLatitude() + ", lon = " + hostLocation.getLongitude());
-    
-    int count = 0;
-    for (RouteSegment seg: activeRoute.getSegments()) {      
-      RouteWaypoint wp = seg.getDowntrackWaypoint();
-      double crossTrack = seg.crossTrackDistance(hostVehicleInECEF);
-      double downTrack = seg.downTrackDistance(hostVehicleInECEF);
-
-      if (0.0 <= downTrack && downTrack <= seg.length()
-          && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
-          return count = count + 1; // On valid segment return the index
-      } else if (count == 0 && downTrack < 0.0 && Math.abs(downTrack) < maxJoinDistance
-                 && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
-        return count; // Before the first waypoint return 0 and we will add a new waypoint on the vehicle
+
+    // Only segments near the vehicle can satisfy the crosstrack bounds so the rest of the route is not checked
+    RouteSegmentIndex index = activeRoute.getSegmentIndex();
+    int[] candidates = index.segmentsWithin(hostVehicleInECEF, index.getMaxCrossTrack() + START_SEARCH_MARGIN);
+    List<RouteSegment> segments = activeRoute.getSegments();
+
+    // The first segment is always checked as the vehicle may be before the start of the route
+    if (candidates.length == 0 || candidates[0] != 0) {
+      int result = startingIndexOnSegment(segments.get(0), 0, maxJoinDistance);
+      if (result != -1) {
+        return result;
+      }
+    }
+    for (int count: candidates) {
+      int result = startingIndexOnSegment(segments.get(count), count, maxJoinDistance);
+      if (result != -1) {
+        return result;
       }
-      count++;
+    }
+    return -1;
+  }
+
+  /**
+   * Helper function which checks if the host vehicle can start the route on the provided segment
+   *
+   * @param seg The segment
+   * @param count The index of the segment in the route
+   * @param maxJoinDistance The max distance before the first waypoint at which the route can be joined
+   * @return The starting waypoint index or -1 if the route can not be started on this segment
+   */
+  private int startingIndexOnSegment(RouteSegment seg, int count, double maxJoinDistance) {
+    RouteWaypoint wp = seg.getDowntrackWaypoint();
+    double crossTrack = seg.crossTrackDistance(hostVehicleInECEF);
+    double downTrack = seg.downTrackDistance(hostVehicleInECEF);
+
+    if (0.0 <= downTrack && downTrack <= seg.length()
+        && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
+        return count + 1; // On valid segment return the index
+    } else if (count == 0 && downTrack < 0.0 && Math.abs(downTrack) < maxJoinDistance
+               && wp.getMinCrossTrack() < crossTrack && crossTrack < wp.getMaxCrossTrack()) {
+      return count; // Before the first waypoint return 0 and we will add a new waypoint on the vehicle
     }
     return -1;
   }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros.rosjava_geometry.Transform;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs unit tests for the CompiledRouteStrategy and CompiledRouteFile classes
+ */
+public class CompiledRouteStrategyTest {
+
+  private Log log;
+  private Path cacheDir;
+  private Path routeDir;
+
+  @Before
+  public void setUp() throws Exception {
+    log = LogFactory.getLog(CompiledRouteStrategyTest.class);
+    cacheDir = Files.createTempDirectory("compiled_routes");
+    routeDir = Files.createTempDirectory("routes");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (Path dir : new Path[] { cacheDir, routeDir }) {
+      for (File file : dir.toFile().listFiles()) {
+        file.delete();
+      }
+      Files.delete(dir);
+    }
+  }
+
+  private String copyRoute(String name) throws Exception {
+    Path target = routeDir.resolve(name);
+    Files.copy(new File("src/test/resources/routes/" + name).toPath(), target);
+    return target.toString();
+  }
+
+  private static void assertSameRoute(Route expected, Route actual) {
+    assertEquals(expected.getRouteName(), actual.getRouteName());
+    assertEquals(expected.isValid(), actual.isValid());
+    assertEquals(expected.getMaxJoinDistance(), actual.getMaxJoinDistance(), 0.0);
+    assertEquals(expected.getRouteLength(), actual.getRouteLength(), 1e-9);
+
+    List<RouteWaypoint> expectedWPs = expected.getWaypoints();
+    List<RouteWaypoint> actualWPs = actual.getWaypoints();
+    assertEquals(expectedWPs.size(), actualWPs.size());
+    for (int i = 0; i < expectedWPs.size(); i++) {
+      RouteWaypoint e = expectedWPs.get(i);
+      RouteWaypoint a = actualWPs.get(i);
+      assertTrue(e.getLocation().almostEqual(a.getLocation(), 0.0, 0.0));
+      assertTrue(e.getECEFPoint().almostEquals(a.getECEFPoint(), 0.0));
+      assertEquals(e.getLaneIndex(), a.getLaneIndex());
+      assertEquals(e.getLaneCount(), a.getLaneCount());
+      assertEquals(e.getLaneWidth(), a.getLaneWidth(), 0.0);
+      assertEquals(e.getMinCrossTrack(), a.getMinCrossTrack(), 0.0);
+      assertEquals(e.getMaxCrossTrack(), a.getMaxCrossTrack(), 0.0);
+      assertEquals(e.getUpperSpeedLimit(), a.getUpperSpeedLimit());
+      assertEquals(e.getNearestMileMarker(), a.getNearestMileMarker(), 0.0);
+      assertEquals(e.getRoadType(), a.getRoadType());
+      assertEquals(e.getLeftMostLaneMarking(), a.getLeftMostLaneMarking());
+      assertEquals(e.getSetFields(), a.getSetFields());
+    }
+
+    List<RouteSegment> expectedSegs = expected.getSegments();
+    List<RouteSegment> actualSegs = actual.getSegments();
+    assertEquals(expectedSegs.size(), actualSegs.size());
+    for (int i = 0; i < expectedSegs.size(); i++) {
+      RouteSegment e = expectedSegs.get(i);
+      RouteSegment a = actualSegs.get(i);
+      assertEquals(expectedWPs.indexOf(e.getUptrackWaypoint()), actualWPs.indexOf(a.getUptrackWaypoint()));
+      assertEquals(expectedWPs.indexOf(e.getDowntrackWaypoint()), actualWPs.indexOf(a.getDowntrackWaypoint()));
+      assertEquals(e.length(), a.length(), 0.0);
+      Transform eTransform = e.getECEFToSegmentTransform();
+      Transform aTransform = a.getECEFToSegmentTransform();
+      assertTrue(eTransform.getTranslation().almostEquals(aTransform.getTranslation(), 0.0));
+      assertTrue(eTransform.getRotationAndScale().almostEquals(aTransform.getRotationAndScale(), 0.0));
+
+      Point3D point = new Point3D(e.getDowntrackWaypoint().getECEFPoint().getX() + 3.0,
+        e.getDowntrackWaypoint().getECEFPoint().getY() - 2.0, e.getDowntrackWaypoint().getECEFPoint().getZ());
+      assertEquals(e.crossTrackDistance(point), a.crossTrackDistance(point), 1e-9);
+      assertEquals(e.downTrackDistance(point), a.downTrackDistance(point), 1e-9);
+    }
+  }
+
+  /**
+   * Tests that a compiled route matches the route loaded from the route file
+   */
+  @Test
+  public void testCompiledRouteMatchesRouteFile() throws Exception {
+    for (String name : new String[] { "colonial_farm_rd_outbound.yaml", "AIHPMerge.yaml" }) {
+      String path = copyRoute(name);
+      Route expected = new FileStrategy(path, log).load();
+
+      CompiledRouteStrategy strategy = new CompiledRouteStrategy(path, cacheDir.toString(), log);
+      assertNull(strategy.loadHeader());
+      assertSameRoute(expected, strategy.load()); // Compiles the route
+      assertTrue(strategy.getCompiledFile().isFile());
+
+      CompiledRouteFile.Header header = strategy.loadHeader();
+      assertNotNull(header);
+      assertEquals(expected.getRouteName(), header.getRouteName());
+      assertEquals(expected.isValid(), header.isValid());
+      assertSameRoute(expected, strategy.load()); // Loaded from the compiled file
+    }
+  }
+
+  /**
+   * Tests that routes are compiled again when the route file changes or the compiled file is damaged
+   */
+  @Test
+  public void testRecompile() throws Exception {
+    String path = copyRoute("colonial_farm_rd_outbound.yaml");
+    CompiledRouteStrategy strategy = new CompiledRouteStrategy(path, cacheDir.toString(), log);
+    strategy.load();
+    assertNotNull(strategy.loadHeader());
+
+    // Changing the route file invalidates the compiled file
+    Files.write(new File(path).toPath(), "\n# Edited\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    assertNull(strategy.loadHeader());
+    assertNotNull(strategy.load());
+    assertNotNull(strategy.loadHeader());
+
+    // A truncated file is ignored
+    File compiled = strategy.getCompiledFile();
+    byte[] bytes = Files.readAllBytes(compiled.toPath());
+    Files.write(compiled.toPath(), java.util.Arrays.copyOf(bytes, bytes.length / 2));
+    assertNull(CompiledRouteFile.read(compiled));
+    assertSameRoute(new FileStrategy(path, log).load(), strategy.load());
+  }
+
+  /**
+   * Tests that the route worker only loads compiled routes once they are selected
+   */
+  @Test
+  public void testDeferredLoading() throws Exception {
+    copyRoute("colonial_farm_rd_outbound.yaml");
+    copyRoute("tfhrc_circle.yaml");
+    MockRouteManager routeMgr = new MockRouteManager();
+
+    RouteWorker first = new RouteWorker(routeMgr, log, routeDir.toString(), cacheDir.toString(), 3, "earth", "host_vehicle");
+    assertEquals(2, first.getAvailableRoutes().size());
+    assertTrue(first.deferredRoutes.isEmpty()); // Compiled on the first start
+
+    RouteWorker second = new RouteWorker(routeMgr, log, routeDir.toString(), cacheDir.toString(), 3, "earth", "host_vehicle");
+    assertEquals(2, second.getAvailableRoutes().size());
+    assertEquals(2, second.deferredRoutes.size());
+    Route placeholder = second.availableRoutes.get("Colonial Farm Rd. Outbound");
+    assertTrue(placeholder.getSegments().isEmpty());
+
+    assertEquals(cav_srvs.SetActiveRouteResponse.NO_ERROR, second.setActiveRoute("Colonial Farm Rd. Outbound"));
+    assertEquals(1, second.deferredRoutes.size());
+    assertSameRoute(first.availableRoutes.get("Colonial Farm Rd. Outbound"), second.activeRoute);
+    assertEquals("Colonial Farm Rd. Outbound", second.activeRoute.getRouteID());
+  }
+}
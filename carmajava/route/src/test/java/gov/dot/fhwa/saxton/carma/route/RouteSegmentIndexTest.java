@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import gov.dot.fhwa.saxton.carma.geometry.EcefConverter;
+import gov.dot.fhwa.saxton.carma.geometry.cartesian.Point3D;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs unit tests for the RouteSegmentIndex class
+ */
+public class RouteSegmentIndexTest {
+
+  private Route route;
+  private RouteSegmentIndex index;
+
+  /**
+   * Builds a long winding single lane route with dense waypoints
+   */
+  @Before
+  public void setUp() {
+    List<RouteWaypoint> waypoints = new ArrayList<>();
+    double lat = 38.95;
+    double lon = -77.15;
+    for (int i = 0; i < 2000; i++) {
+      double heading = 0.5 * Math.sin(i / 50.0);
+      lat += 0.0001 * Math.cos(heading);
+      lon += 0.0001 * Math.sin(heading);
+      RouteWaypoint wp = new RouteWaypoint(new Location(lat, lon, 100.0 + (i % 7)));
+      wp.setMinCrossTrack(-5.0);
+      wp.setMaxCrossTrack(5.0);
+      waypoints.add(wp);
+    }
+    route = new Route(waypoints, "winding", "winding");
+    index = route.getSegmentIndex();
+  }
+
+  private static double[] surface(Point3D point) {
+    double[] out = new double[3];
+    EcefConverter.WGS84.ecefToGeodesic(point.getX(), point.getY(), point.getZ(), out);
+    EcefConverter.WGS84.geodesicToEcef(out[0], out[1], 0.0, out);
+    return out;
+  }
+
+  // Brute force horizontal distance from a point to a segment
+  private static double distance(RouteSegment seg, Point3D point) {
+    double[] q = surface(point);
+    double[] a = surface(seg.getUptrackWaypoint().getECEFPoint());
+    double[] b = surface(seg.getDowntrackWaypoint().getECEFPoint());
+    double[] ab = { b[0] - a[0], b[1] - a[1], b[2] - a[2] };
+    double[] aq = { q[0] - a[0], q[1] - a[1], q[2] - a[2] };
+    double lengthSqr = ab[0] * ab[0] + ab[1] * ab[1] + ab[2] * ab[2];
+    double t = Math.max(0.0, Math.min(1.0, (aq[0] * ab[0] + aq[1] * ab[1] + aq[2] * ab[2]) / lengthSqr));
+    double dx = aq[0] - t * ab[0], dy = aq[1] - t * ab[1], dz = aq[2] - t * ab[2];
+    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+
+  private Point3D randomPointNearRoute(Random rand) {
+    RouteWaypoint wp = route.getWaypoints().get(rand.nextInt(route.getWaypoints().size()));
+    Location loc = wp.getLocation();
+    return EcefConverter.WGS84.locationToEcef(new Location(
+      loc.getLatitude() + (rand.nextDouble() - 0.5) * 0.002,
+      loc.getLongitude() + (rand.nextDouble() - 0.5) * 0.002,
+      rand.nextDouble() * 300.0));
+  }
+
+  /**
+   * Compares the indexed queries against a linear scan of the route
+   */
+  @Test
+  public void testQueriesMatchLinearScan() {
+    List<RouteSegment> segments = route.getSegments();
+    assertEquals(segments.size(), index.size());
+    assertEquals(5.0, index.getMaxCrossTrack(), 0.0);
+
+    Random rand = new Random(42);
+    for (int n = 0; n < 200; n++) {
+      Point3D point = randomPointNearRoute(rand);
+
+      double bestDist = Double.POSITIVE_INFINITY;
+      List<Integer> expectedWithin = new ArrayList<>();
+      for (int i = 0; i < segments.size(); i++) {
+        double dist = distance(segments.get(i), point);
+        bestDist = Math.min(bestDist, dist);
+        if (dist <= 25.0) {
+          expectedWithin.add(i);
+        }
+      }
+
+      int nearest = index.nearestSegment(point);
+      assertEquals(bestDist, distance(segments.get(nearest), point), 1e-6);
+
+      int[] within = index.segmentsWithin(point, 25.0);
+      assertEquals(expectedWithin.size(), within.length);
+      for (int i = 0; i < within.length; i++) {
+        assertEquals((int) expectedWithin.get(i), within[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests that locating a point over the whole route matches the linear routeSegmentOfPoint search
+   */
+  @Test
+  public void testRouteSegmentOfPoint() {
+    List<RouteSegment> segments = route.getSegments();
+    Random rand = new Random(7);
+    for (int n = 0; n < 100; n++) {
+      RouteSegment seg = segments.get(rand.nextInt(segments.size()));
+      // A point on the segment a few meters from its center line
+      double fraction = rand.nextDouble();
+      Location start = seg.getUptrackWaypoint().getLocation();
+      Location end = seg.getDowntrackWaypoint().getLocation();
+      Point3D point = EcefConverter.WGS84.locationToEcef(new Location(
+        start.getLatitude() + fraction * (end.getLatitude() - start.getLatitude()) + 0.00002,
+        start.getLongitude() + fraction * (end.getLongitude() - start.getLongitude()),
+        start.getAltitude()));
+
+      assertSame(route.routeSegmentOfPoint(point, segments), route.routeSegmentOfPoint(point, 50.0));
+    }
+
+    // Far from the route the nearest segment is returned
+    Point3D far = EcefConverter.WGS84.locationToEcef(new Location(38.0, -77.15, 0.0));
+    assertSame(segments.get(0), route.routeSegmentOfPoint(far, 50.0));
+    assertTrue(route.findSegmentsNear(far, 50.0).isEmpty());
+  }
+
+  /**
+   * Tests that the index is rebuilt when the route changes
+   */
+  @Test
+  public void testIndexRebuiltOnChange() {
+    assertSame(index, route.getSegmentIndex());
+    RouteWaypoint last = route.getWaypoints().get(route.getWaypoints().size() - 1);
+    Location loc = last.getLocation();
+    RouteWaypoint extra = new RouteWaypoint(new Location(loc.getLatitude() + 0.0001, loc.getLongitude(), 0.0));
+    route.insertWaypoint(extra, route.getWaypoints().size());
+    assertNotSame(index, route.getSegmentIndex());
+    assertEquals(route.getSegments().size(), route.getSegmentIndex().size());
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.route;
+
+import cav_msgs.RouteState;
+import gov.dot.fhwa.saxton.carma.geometry.geodesic.Location;
+import org.junit.Test;
+import org.ros.message.MessageFactory;
+import org.ros.node.NodeConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs unit tests for the RouteStateCache class
+ */
+public class RouteStateCacheTest {
+
+  NodeConfiguration nodeConfiguration = NodeConfiguration.newPrivate();
+  MessageFactory messageFactory = nodeConfiguration.getTopicMessageFactory();
+
+  @Test
+  public void testUpdate() throws Exception {
+    List<RouteWaypoint> waypoints = new ArrayList<>();
+    waypoints.add(new RouteWaypoint(new Location(38.95511, -77.15171, 0)));
+    waypoints.add(new RouteWaypoint(new Location(38.95551, -77.15147, 0)));
+    waypoints.add(new RouteWaypoint(new Location(38.95591, -77.15127, 0)));
+    cav_msgs.Route routeMsg = new Route(waypoints, "route_a", "route_a").toMessage(messageFactory);
+
+    RouteStateCache cache = new RouteStateCache();
+    assertEquals(0, cache.getRouteVersion());
+    Route route = cache.setRoute(routeMsg);
+    assertEquals(1, cache.getRouteVersion());
+
+    RouteState state = messageFactory.newFromType(RouteState._TYPE);
+    state.setRouteID("route_a");
+    state.setCurrentSegment(routeMsg.getSegments().get(1));
+    state.setDownTrack(60.0);
+    state.setSegmentDownTrack(10.0);
+
+    // The segment comes from the decoded route rather than the message
+    assertTrue(cache.update(state));
+    assertSame(route.getSegments().get(1), cache.getCurrentSegment());
+    assertEquals(1, cache.getCurrentSegmentIndex());
+
+    // Progress within the same segment only updates the progress fields
+    state.setDownTrack(61.0);
+    state.setSegmentDownTrack(11.0);
+    assertFalse(cache.update(state));
+    assertEquals(61.0, cache.getDowntrack(), 0.0001);
+    assertEquals(11.0, cache.getSegmentDowntrack(), 0.0001);
+
+    // State for an unknown route is decoded from the message
+    state.setRouteID("route_b");
+    assertTrue(cache.update(state));
+    assertNotSame(route.getSegments().get(1), cache.getCurrentSegment());
+    assertEquals(1, cache.getCurrentSegment().getUptrackWaypoint().getWaypointId());
+
+    // A new route increments the version and resets progress
+    cache.setRoute(routeMsg);
+    assertEquals(2, cache.getRouteVersion());
+    assertEquals(null, cache.getCurrentSegment());
+  }
+}
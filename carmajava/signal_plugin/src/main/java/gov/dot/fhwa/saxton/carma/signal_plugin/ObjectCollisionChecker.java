@@ -31,21 +31,17 @@ import org.apache.commons.lang.ArrayUtils;
 import org.ros.message.Time;
 
 import cav_msgs.RoadwayObstacle;
-import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.ISpatialStructureFactory;
-import gov.dot.fhwa.saxton.carma.geometry.cartesian.spatialstructure.NSpatialHashMapFactory;
 import gov.dot.fhwa.saxton.carma.guidance.ArbitratorService;
-import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.ConflictSpace;
-import gov.dot.fhwa.saxton.carma.guidance.conflictdetector.IConflictDetector;
 import gov.dot.fhwa.saxton.carma.guidance.plugins.PluginServiceLocator;
 import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
 import gov.dot.fhwa.saxton.carma.guidance.util.ITimeProvider;
 import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
 import gov.dot.fhwa.saxton.carma.guidance.util.RouteService;
-import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
 import gov.dot.fhwa.saxton.carma.rosutils.SaxtonLogger;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.IMotionInterpolator;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.IMotionPredictor;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.INodeCollisionChecker;
+import gov.dot.fhwa.saxton.carma.signal_plugin.ead.StampedPath;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ITrafficSignalPluginCollisionChecker;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
 
@@ -59,13 +55,13 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
  */
 public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChecker {
 
-  private final IConflictDetector conflictDetector;
-
   // Tracked objects
   Map<Integer, PriorityQueue<RoadwayObstacle>> trackedLaneObjectsHistory = new HashMap<>();  
-  Map<Integer, List<RoutePointStamped>> trackedLaneObjectsPredictions = new HashMap<>();
+  Map<Integer, StampedPath> trackedLaneObjectsPredictions = new HashMap<>();
 
-  private final AtomicReference<List<RoutePointStamped>> interpolatedHostPlan = new AtomicReference<>(new LinkedList<>()); // Current Host Plan
+  private final AtomicReference<StampedPath> interpolatedHostPlan = new AtomicReference<>(new StampedPath()); // Current Host Plan
+  // Reused by hasCollision for each candidate plan. Thread local as planning and plan updates may run on different threads
+  private final ThreadLocal<StampedPath> candidatePath = ThreadLocal.withInitial(StampedPath::new);
 
   private final ILogger log;
   private final RouteService routeService;
@@ -89,8 +85,6 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
   private final double lateralBias;
   private final double temporalBias;
 
-  private final ISpatialStructureFactory structureFactory;
-
 
   private final long NCVReplanPeriod; // ms
   private static final double MS_PER_S = 1000.0; // ms
@@ -112,7 +106,6 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
     this.routeService = psl.getRouteService();
     this.arbitratorService = psl.getArbitratorService();
     this.timeProvider = psl.getTimeProvider();
-    this.conflictDetector = psl.getConflictDetector();
 
     String predictionModel = psl.getParameterSource().getString("~ead/NCVHandling/objectMotionPredictorModel");
     this.motionPredictor = modelFactory.getMotionPredictor(predictionModel);
@@ -134,14 +127,6 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
     this.lateralBias = psl.getParameterSource().getDouble("~ead/NCVHandling/collision/lateralBias");
     this.temporalBias = psl.getParameterSource().getDouble("~ead/NCVHandling/collision/temporalBias");
 
-    double[] cellSize = new double[] {
-      psl.getParameterSource().getDouble("~ead/NCVHandling/collision/cell_downtrack_size"),
-      psl.getParameterSource().getDouble("~ead/NCVHandling/collision/cell_crosstrack_size"),
-      psl.getParameterSource().getDouble("~ead/NCVHandling/collision/cell_time_size")
-    };
-
-    this.structureFactory = new NSpatialHashMapFactory(cellSize);
-
     this.motionInterpolator = motionInterpolator;
 
     this.replanHandle = replanHandle;
@@ -212,11 +197,11 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
         continue; // No point in computing prediction if the object is expired anyway
       }
 
-      List<RoutePointStamped> predictions = motionPredictor.predictMotion(e.getKey().toString(), new ArrayList<>(e.getValue()), distanceStep, timeDuration);
+      // A new path is used for each update as the previous prediction may still be read by the planning thread
+      StampedPath previous = trackedLaneObjectsPredictions.get(e.getKey());
+      StampedPath predictions = new StampedPath(previous == null ? 0 : previous.size());
+      motionPredictor.predictMotion(e.getKey().toString(), new ArrayList<>(e.getValue()), distanceStep, timeDuration, predictions);
       //log.info("CollisionChecker", "Found " + predictions.size() + " stamped route points for the NCV prediction:");
-      for(RoutePointStamped pp : predictions) {
-    	  //log.info("CollisionChecker", pp.toString());
-      }
       trackedLaneObjectsPredictions.put(e.getKey(), predictions);
     }
 
@@ -262,43 +247,41 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
 
   @Override
   public void setHostPlan(List<Node> hostPlan, double startTime, double startDowntrack) {
-    List<RoutePointStamped> hostPlanPoints = motionInterpolator.interpolateMotion(hostPlan, distanceStep, startTime, startDowntrack);
+    StampedPath hostPlanPoints = motionInterpolator.interpolateMotion(hostPlan, distanceStep, startTime, startDowntrack, new StampedPath());
     log.info("CollisionChecker", "Found " + hostPlanPoints.size() + " stamped route points for the host plan:");
-    for(RoutePointStamped hpp : hostPlanPoints) {
-    	log.info("CollisionChecker", hpp.toString());
-    }
+    log.info("CollisionChecker", hostPlanPoints::toString);
     interpolatedHostPlan.set(hostPlanPoints);
   }
 
   /**
    * Helper function to check collisions between predicted object trajectories and the provided plan
    * 
+   * The bounds used match those of IConflictDetector.getConflicts(), but as only the existence of a conflict is needed
+   * the paths are compared directly using a binary search by time over each object prediction.
+   * 
    * @param routePlan The plan to check for collisions with
    * @param marginFactor Factor multiplied by margins to modify their size. NOTE: Not applied to crosstrack margins
    * 
    * @return True if a collision was found. False otherwise
    */
-  private boolean checkCollision(List<RoutePointStamped> routePlan, double marginFactor) {
+  private boolean checkCollision(StampedPath routePlan, double marginFactor) {
     // Check the proposed trajectory against all tracked objects for collisions
-    for (Entry<Integer, List<RoutePointStamped>> objPrediction: trackedLaneObjectsPredictions.entrySet()) {
-      List<RoutePointStamped> objPlan = objPrediction.getValue();
+    for (Entry<Integer, StampedPath> objPrediction: trackedLaneObjectsPredictions.entrySet()) {
+      StampedPath objPlan = objPrediction.getValue();
+      if (routePlan.isEmpty() || objPlan.isEmpty()) {
+        continue;
+      }
       double dynamicTimeMargin = timeMargin;
       
       // Compute an estimated time margin to ensure overlap of collision bounds
-      if (objPrediction.getValue().size() > 1) {
+      if (objPlan.size() > 1) {
         // TODO this assumes linear regression used for motion prediction resulting in constant slope
         // The time margin should be half delta t plus a small bit of overlap
-        dynamicTimeMargin = ((objPlan.get(1).getStamp() - objPlan.get(0).getStamp()) / 2.0) + 0.0001;
+        dynamicTimeMargin = ((objPlan.getTime(1) - objPlan.getTime(0)) / 2.0) + 0.0001;
       }
       // Check for conflicts against each object and return true if any conflict is found
-      List<ConflictSpace> conflictSpaces = conflictDetector.getConflicts(
-        routePlan, objPlan, structureFactory.buildSpatialStructure(),
-        downtrackMargin * marginFactor, crosstrackMargin, dynamicTimeMargin * marginFactor,
-        longitudinalBias, lateralBias, temporalBias
-      );
-      
-      if (!conflictSpaces.isEmpty()) {
-       // System.out.println("ConflictSpaces: " + conflictSpaces);
+      if (routePlan.hasConflict(objPlan, downtrackMargin * marginFactor, crosstrackMargin, dynamicTimeMargin * marginFactor,
+        longitudinalBias, lateralBias, temporalBias)) {
         return true;
       }
     }
@@ -312,8 +295,8 @@ public class ObjectCollisionChecker implements ITrafficSignalPluginCollisionChec
    // System.out.println("Checking collision with traj: " + trajectory);
    // System.out.println("timeOffest: " + timeOffset + " distanceOffset: " + distanceOffset + " distanceStep: " + distanceStep);
     // Convert the proposed trajectory to route points
-    List<RoutePointStamped> routePlan = motionInterpolator.interpolateMotion(trajectory, distanceStep,
-      timeOffset, distanceOffset
+    StampedPath routePlan = motionInterpolator.interpolateMotion(trajectory, distanceStep,
+      timeOffset, distanceOffset, candidatePath.get()
     );
 
   //  System.out.println("RoutePlan: " + routePlan);
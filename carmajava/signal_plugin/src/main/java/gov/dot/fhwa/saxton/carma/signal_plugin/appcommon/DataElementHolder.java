@@ -30,7 +30,7 @@ public class DataElementHolder {
     private SortedMap<DataElementKey, DataElement> dataElements = Collections.synchronizedSortedMap(new TreeMap<DataElementKey, DataElement>());
 
     //the set of keys that are checked to be sure an end-of-cycle data holder is complete
-    private static final DataElementKey[] validationKeys = {
+    static final DataElementKey[] validationKeys = {
             OPERATING_SPEED,				// user-defined desired cruise speed, m/s
             SPEED_COMMAND,					// command to be sent to the XGV, m/s
             SMOOTHED_SPEED,                 // computed speed via filtering based on configured filter
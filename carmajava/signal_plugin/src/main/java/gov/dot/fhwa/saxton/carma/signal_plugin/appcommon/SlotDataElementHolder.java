@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.appcommon;
+
+import gov.dot.fhwa.saxton.carma.signal_plugin.logger.ILogger;
+import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
+
+import java.util.concurrent.locks.StampedLock;
+
+import static gov.dot.fhwa.saxton.carma.signal_plugin.appcommon.DataElementKey.*;
+
+/**
+ * Alternative to DataElementHolder for data which is written by one thread and read many times per cycle by others
+ *
+ * Each DataElementKey owns a slot indexed by its ordinal. Double and int elements are stored unboxed with the
+ * timestamp of the element they came from, so reading a value does not allocate or take a lock. Other element
+ * types are stored by reference. Writers are serialized; readers use the optimistic read of a StampedLock (a seqlock)
+ * and only fall back to a read lock if a write happened while they were copying.
+ *
+ * Readers which need several fields from the same update should copy them with snapshot() instead of calling
+ * the single value getters one after another.
+ */
+public class SlotDataElementHolder {
+
+    private static ILogger logger = LoggerManager.getLogger(SlotDataElementHolder.class);
+
+    private static final int NUM_KEYS = DataElementKey.values().length;
+
+    static final byte EMPTY = 0;
+    static final byte DOUBLE = 1;
+    static final byte INT = 2;
+    static final byte OBJECT = 3;
+
+    private final StampedLock lock = new StampedLock();
+    private final byte[] kinds = new byte[NUM_KEYS];
+    private final long[] bits = new long[NUM_KEYS];            // raw double bits or int value
+    private final long[] stamps = new long[NUM_KEYS];          // element timestamps, ms
+    private final DataElement[] objects = new DataElement[NUM_KEYS];
+
+    public SlotDataElementHolder()   {
+    }
+
+    /**
+     * Stores a double value stamped with the current time
+     */
+    public void putDouble(DataElementKey key, double value)   {
+        putDouble(key, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a double value
+     *
+     * @param key the element key
+     * @param value the element value
+     * @param timeStamp the time the value was created in ms
+     */
+    public void putDouble(DataElementKey key, double value, long timeStamp)   {
+        long stamp = lock.writeLock();
+        try {
+            setSlot(key.ordinal(), DOUBLE, Double.doubleToRawLongBits(value), timeStamp, null);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores an int value stamped with the current time
+     */
+    public void putInt(DataElementKey key, int value)   {
+        putInt(key, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores an int value
+     *
+     * @param key the element key
+     * @param value the element value
+     * @param timeStamp the time the value was created in ms
+     */
+    public void putInt(DataElementKey key, int value, long timeStamp)   {
+        long stamp = lock.writeLock();
+        try {
+            setSlot(key.ordinal(), INT, value, timeStamp, null);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores an element. Double and int elements are unpacked into their primitive slot and keep their timestamp.
+     */
+    public void put(DataElementKey key, DataElement element)   {
+        long stamp = lock.writeLock();
+        try {
+            store(key.ordinal(), element);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets an element in the same form as DataElementHolder.get()
+     *
+     * Double and int slots are returned as new elements carrying the stored timestamp, so this allocates for
+     * those keys. Prefer getDouble(), getInt() or snapshot() in per-cycle code.
+     *
+     * @return the element or null if the key is not present
+     */
+    public DataElement get(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.tryOptimisticRead();
+        byte kind = kinds[i];
+        long value = bits[i];
+        long timeStamp = stamps[i];
+        DataElement object = objects[i];
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                kind = kinds[i];
+                value = bits[i];
+                timeStamp = stamps[i];
+                object = objects[i];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return toElement(kind, value, timeStamp, object);
+    }
+
+    /**
+     * Gets a double value with the same defaults as DataElementHolder.getDoubleElement():
+     * 0.0 for a missing key, or -1.0 if the key is SPEED
+     */
+    public double getDouble(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.tryOptimisticRead();
+        byte kind = kinds[i];
+        long value = bits[i];
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                kind = kinds[i];
+                value = bits[i];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return doubleValue(key, kind, value);
+    }
+
+    /**
+     * Gets an int value, or 0 if the key is not present
+     */
+    public int getInt(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.tryOptimisticRead();
+        byte kind = kinds[i];
+        long value = bits[i];
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                kind = kinds[i];
+                value = bits[i];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return kind == INT ? (int) value : 0;
+    }
+
+    /**
+     * Gets the timestamp of an element, or 0 if the key is not present
+     */
+    public long getTimeStamp(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.tryOptimisticRead();
+        long timeStamp = kinds[i] == EMPTY ? 0 : stamps[i];
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                timeStamp = kinds[i] == EMPTY ? 0 : stamps[i];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return timeStamp;
+    }
+
+    public boolean contains(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.tryOptimisticRead();
+        boolean present = kinds[i] != EMPTY;
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                present = kinds[i] != EMPTY;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return present;
+    }
+
+    public double getSpeed()   {
+        return getDouble(SPEED);
+    }
+
+    public double getLatitude()   {
+        return getDouble(LATITUDE);
+    }
+
+    public double getLongitude()   {
+        return getDouble(LONGITUDE);
+    }
+
+    /**
+     * Creates a snapshot sized for this holder which can be refilled by snapshot(Snapshot) every cycle
+     */
+    public Snapshot newSnapshot()   {
+        return new Snapshot();
+    }
+
+    /**
+     * Copies every slot into the provided snapshot. All values in the snapshot come from the same point between
+     * writes, so a reader never sees, e.g., a latitude from one update and a longitude from the next.
+     *
+     * @param into the snapshot to fill
+     * @return the filled snapshot
+     */
+    public Snapshot snapshot(Snapshot into)   {
+        long stamp = lock.tryOptimisticRead();
+        into.copyFrom(this);
+        if (!lock.validate(stamp))   {
+            stamp = lock.readLock();
+            try {
+                into.copyFrom(this);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Appends to the existing status message element, as DataElementHolder.appendStatusMessage() does
+     */
+    public void appendStatusMessage(String statusMessage)   {
+        DataElement currentValue = get(STATUS_MESSAGE);
+        if (currentValue instanceof StringBufferDataElement)   {
+            ((StringBufferDataElement) currentValue).append(" " + statusMessage);
+        }
+    }
+
+    /**
+     * Copies all elements of a DataElementHolder into this holder as a single write
+     */
+    public void putAll(DataElementHolder newData)   {
+        DataElement[] elements = new DataElement[NUM_KEYS];
+        for (DataElementKey key : DataElementKey.values())   {
+            elements[key.ordinal()] = newData.get(key);
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < NUM_KEYS; i++)   {
+                if (elements[i] != null)   {
+                    store(i, elements[i]);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies all present elements of another holder into this holder as a single write
+     */
+    public void putAll(SlotDataElementHolder newData)   {
+        Snapshot source = newData.snapshot(new Snapshot());
+
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < NUM_KEYS; i++)   {
+                if (source.kinds[i] != EMPTY)   {
+                    setSlot(i, source.kinds[i], source.bits[i], source.stamps[i], source.objects[i]);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Ensure we have a fully loaded holder that contains ALL keys checked by DataElementHolder.validate()
+     *
+     * @return  boolean
+     */
+    public boolean validate()   {
+        Snapshot current = snapshot(new Snapshot());
+        for (DataElementKey key : DataElementHolder.validationKeys)   {
+            if (!current.contains(key))  {
+                String statusMessage = "validateHolder missing " + key.toString() + " element.";
+                logger.warn(ILogger.TAG_EXECUTOR, statusMessage);
+                appendStatusMessage(statusMessage);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes the element from the holder and returns its value
+     */
+    public DataElement remove(DataElementKey key)   {
+        int i = key.ordinal();
+        long stamp = lock.writeLock();
+        try {
+            DataElement element = toElement(kinds[i], bits[i], stamps[i], objects[i]);
+            setSlot(i, EMPTY, 0, 0, null);
+            return element;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear()   {
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < NUM_KEYS; i++)   {
+                setSlot(i, EMPTY, 0, 0, null);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size()   {
+        return snapshot(new Snapshot()).size();
+    }
+
+    /**
+     * Builds a DataElementHolder with the same contents for consumers which take the map backed holder
+     */
+    public DataElementHolder toDataElementHolder()   {
+        return snapshot(new Snapshot()).toDataElementHolder();
+    }
+
+    /**
+     * Must be called while holding the write lock
+     */
+    private void store(int i, DataElement element)   {
+        if (element == null)   {
+            setSlot(i, EMPTY, 0, 0, null);
+        }
+        else if (element instanceof DoubleDataElement)   {
+            setSlot(i, DOUBLE, Double.doubleToRawLongBits(((DoubleDataElement) element).value()), element.timeStamp(), null);
+        }
+        else if (element instanceof IntDataElement)   {
+            setSlot(i, INT, ((IntDataElement) element).value(), element.timeStamp(), null);
+        }
+        else   {
+            setSlot(i, OBJECT, 0, element.timeStamp(), element);
+        }
+    }
+
+    private void setSlot(int i, byte kind, long value, long timeStamp, DataElement object)   {
+        kinds[i] = kind;
+        bits[i] = value;
+        stamps[i] = timeStamp;
+        objects[i] = object;
+    }
+
+    private static double doubleValue(DataElementKey key, byte kind, long value)   {
+        if (kind == DOUBLE)   {
+            return Double.longBitsToDouble(value);
+        }
+        // not sure, but i think we wanna provide something other than 0 if no speed element
+        return (kind == EMPTY && key == SPEED) ? -1.0 : 0.0;
+    }
+
+    private static DataElement toElement(byte kind, long value, long timeStamp, DataElement object)   {
+        DataElement element;
+        switch (kind)   {
+            case DOUBLE:
+                element = new DoubleDataElement(Double.longBitsToDouble(value));
+                break;
+            case INT:
+                element = new IntDataElement((int) value);
+                break;
+            case OBJECT:
+                return object;
+            default:
+                return null;
+        }
+        element.timeStamp_ = timeStamp;
+        return element;
+    }
+
+    /**
+     * A consistent copy of every slot of a SlotDataElementHolder. A reader can keep one instance and refill it each cycle.
+     * Not thread safe; each reader should own its snapshot.
+     */
+    public static class Snapshot   {
+        private final byte[] kinds = new byte[NUM_KEYS];
+        private final long[] bits = new long[NUM_KEYS];
+        private final long[] stamps = new long[NUM_KEYS];
+        private final DataElement[] objects = new DataElement[NUM_KEYS];
+
+        private Snapshot()   {
+        }
+
+        private void copyFrom(SlotDataElementHolder holder)   {
+            System.arraycopy(holder.kinds, 0, kinds, 0, NUM_KEYS);
+            System.arraycopy(holder.bits, 0, bits, 0, NUM_KEYS);
+            System.arraycopy(holder.stamps, 0, stamps, 0, NUM_KEYS);
+            System.arraycopy(holder.objects, 0, objects, 0, NUM_KEYS);
+        }
+
+        public boolean contains(DataElementKey key)   {
+            return kinds[key.ordinal()] != EMPTY;
+        }
+
+        /**
+         * @return the double value, 0.0 if missing or -1.0 if the missing key is SPEED
+         */
+        public double getDouble(DataElementKey key)   {
+            int i = key.ordinal();
+            return doubleValue(key, kinds[i], bits[i]);
+        }
+
+        /**
+         * @return the int value or 0 if missing
+         */
+        public int getInt(DataElementKey key)   {
+            int i = key.ordinal();
+            return kinds[i] == INT ? (int) bits[i] : 0;
+        }
+
+        /**
+         * @return the element timestamp in ms or 0 if missing
+         */
+        public long getTimeStamp(DataElementKey key)   {
+            int i = key.ordinal();
+            return kinds[i] == EMPTY ? 0 : stamps[i];
+        }
+
+        /**
+         * @return the element as a DataElement, or null if missing. Allocates for double and int keys.
+         */
+        public DataElement get(DataElementKey key)   {
+            int i = key.ordinal();
+            return toElement(kinds[i], bits[i], stamps[i], objects[i]);
+        }
+
+        public int size()   {
+            int count = 0;
+            for (byte kind : kinds)   {
+                if (kind != EMPTY)   {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public DataElementHolder toDataElementHolder()   {
+            DataElementHolder holder = new DataElementHolder();
+            for (DataElementKey key : DataElementKey.values())   {
+                DataElement element = get(key);
+                if (element != null)   {
+                    holder.put(key, element);
+                }
+            }
+            return holder;
+        }
+    }
+}
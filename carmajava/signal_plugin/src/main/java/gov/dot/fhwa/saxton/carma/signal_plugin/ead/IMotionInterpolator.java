@@ -43,5 +43,22 @@ public interface IMotionInterpolator {
    * 
    * @return A list of route point stamped. The lanes and route segment values will not be set.
    */
-  public List<RoutePointStamped> interpolateMotion(List<Node> trajectory, double distanceStep, double timeOffset, double distanceOffset);
+  public default List<RoutePointStamped> interpolateMotion(List<Node> trajectory, double distanceStep, double timeOffset, double distanceOffset) {
+    return interpolateMotion(trajectory, distanceStep, timeOffset, distanceOffset, new StampedPath()).toRoutePoints();
+  }
+
+  /**
+   * Interpolates the vehicle position between each pair of nodes in a vehicle's path into the provided path.
+   * The provided path is cleared before use, so a caller can reuse one path and its storage across calls.
+   * The crosstrack of each point will be 0
+   * 
+   * @param trajectory A time sorted list of nodes which define the host vehicle's desired trajectory
+   * @param distanceStep The max distance gap between each point in the output path
+   * @param timeOffset A time offset which will be applied to the time of each input node
+   * @param distanceOffset A distance offset which will be applied to the distance of each input node
+   * @param output The path which will be filled with the interpolated points
+   * 
+   * @return The output path
+   */
+  public StampedPath interpolateMotion(List<Node> trajectory, double distanceStep, double timeOffset, double distanceOffset, StampedPath output);
 }
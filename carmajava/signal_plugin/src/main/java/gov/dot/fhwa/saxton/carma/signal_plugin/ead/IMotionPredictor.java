@@ -41,6 +41,22 @@ public interface IMotionPredictor {
    * 
    * @return A list of RoutePointStamped which can be plugged into the conflict detection system provided by CARMA. The returned list is exclusive of the history data.
    */
-  public List<RoutePointStamped> predictMotion(String objId, List<RoadwayObstacle> objTrajectory, double distanceStep, double timeDuration);
+  public default List<RoutePointStamped> predictMotion(String objId, List<RoadwayObstacle> objTrajectory, double distanceStep, double timeDuration) {
+    return predictMotion(objId, objTrajectory, distanceStep, timeDuration, new StampedPath()).toRoutePoints();
+  }
+
+  /**
+   * Predicts the continued motion of a vehicle into the provided path
+   * The provided path is cleared before use, so a caller can reuse one path and its storage for each tracked object
+   * 
+   * @param objId A unique id which corresponds to the specific object the provided historical trajectory describes.
+   * @param objTrajectory A time sorted list of nodes describing the historical behavior of the vehicle
+   * @param distanceStep The max distance gap by which points in the output path will be separated
+   * @param timeDuration The amount of time to project motion forward for
+   * @param output The path which will be filled with the predicted points
+   * 
+   * @return The output path
+   */
+  public StampedPath predictMotion(String objId, List<RoadwayObstacle> objTrajectory, double distanceStep, double timeDuration, StampedPath output);
   
 }
@@ -16,32 +16,30 @@
 
 package gov.dot.fhwa.saxton.carma.signal_plugin.ead;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import gov.dot.fhwa.saxton.carma.guidance.util.ITimeProvider;
-import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
 import gov.dot.fhwa.saxton.carma.signal_plugin.ead.trajectorytree.Node;
 
 /**
  * A MotionInterpolator is responsible for interpolating the position of the host vehicle between two or more nodes in a plan
- * The returned list of RoutePointStamped objects can be used to check conflicts with the CARMA conflict detection system
+ * The returned path can be used to check conflicts with the CARMA conflict detection system
  * 
- * NOTE: Returned route points do not have valid lane, crosstrack, or route segment index
+ * NOTE: Returned points do not have valid lane, crosstrack, or route segment index
  */
 public class PlanInterpolator implements IMotionInterpolator {
 
   double MIN_ACCELERATION = 0.000001;
   @Override
-  public List<RoutePointStamped> interpolateMotion(List<Node> trajectory, double distanceStep, double timeOffset, double distanceOffset) {
+  public StampedPath interpolateMotion(List<Node> trajectory, double distanceStep, double timeOffset, double distanceOffset, StampedPath points) {
     Node prevNode = null;
-    List<RoutePointStamped> points = new LinkedList<>();
+    points.clear();
 
     // Iterate over list of nodes
     for (Node n: trajectory) {
       if (prevNode == null) {
 
-        points.add(new RoutePointStamped(n.getDistanceAsDouble() + distanceOffset, 0, n.getTimeAsDouble() + timeOffset)); // Add the first node to the list
+        points.add(n.getDistanceAsDouble() + distanceOffset, 0, n.getTimeAsDouble() + timeOffset); // Add the first node to the list
         prevNode = n;
         continue;
       }
@@ -60,7 +58,7 @@ public class PlanInterpolator implements IMotionInterpolator {
       
       // If the distance is less than our distance step we will directly add the current point to our path with no interpolation
       if (dx < distanceStep) {
-        points.add(new RoutePointStamped(x_f, 0, t_f));
+        points.add(x_f, 0, t_f);
         continue;
       }
 
@@ -78,7 +76,7 @@ public class PlanInterpolator implements IMotionInterpolator {
         // Interpolate between current node and previous node
         while (x < x_f) {
 
-          points.add(new RoutePointStamped(x, 0, t)); // Add previous node and the new interpolated nodes to list
+          points.add(x, 0, t); // Add previous node and the new interpolated nodes to list
           t += distanceStep / v;
           x += distanceStep;
         }
@@ -90,7 +88,7 @@ public class PlanInterpolator implements IMotionInterpolator {
         // Interpolate between current node and previous node
         while (x < x_f) {
 
-          points.add(new RoutePointStamped(x, 0, t)); // Add previous node and the new interpolated nodes to list
+          points.add(x, 0, t); // Add previous node and the new interpolated nodes to list
           v_old = v;
           v = Math.sqrt(v_old * v_old + two_a_x);
           t += (v - v_old) / a;
@@ -99,7 +97,7 @@ public class PlanInterpolator implements IMotionInterpolator {
       }
 
       // Add the current node to the list
-      points.add(new RoutePointStamped(x_f, 0, t_f));
+      points.add(x_f, 0, t_f);
 
       prevNode = n;
     }
@@ -16,15 +16,13 @@
 
 package gov.dot.fhwa.saxton.carma.signal_plugin.ead;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import cav_msgs.RoadwayObstacle;
-import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
 
 /**
  * The SimpleNCVMotionPredictor provides an implementation of IMotionPredictor using average vehicle speed to predict future detected vehicle motions.
- * The returned list of RoutePointStamped objects can be used to check conflicts with the CARMA conflict detection system
+ * The returned path can be used to check conflicts with the CARMA conflict detection system
  */
 public class SimpleNCVMotionPredictor implements IMotionPredictor {
 	
@@ -32,11 +30,11 @@ public class SimpleNCVMotionPredictor implements IMotionPredictor {
   protected static double RADAR_DETECTION_NOISE  = 1.0;
 
    @Override
-  public List<RoutePointStamped> predictMotion(String objId, List<RoadwayObstacle> objTrajectory, double distanceStep, double timeDuration) {
+  public StampedPath predictMotion(String objId, List<RoadwayObstacle> objTrajectory, double distanceStep, double timeDuration, StampedPath projection) {
 
-    List<RoutePointStamped> projection = new LinkedList<>();
+    projection.clear();
 
-    // Return an empty list if provided with an empty list
+    // Return an empty path if provided with an empty list
     if (objTrajectory.isEmpty()) {
       return projection; 
     }
@@ -57,19 +55,19 @@ public class SimpleNCVMotionPredictor implements IMotionPredictor {
     double endDist = startDist + timeDuration * averageSpeed;
 
     // Add the initial point
-    projection.add(new RoutePointStamped(d, 0, t));
+    projection.add(d, 0, t);
     if (averageSpeed < RADAR_DETECTION_NOISE) { // If the m/s is smaller than 1 m/s (2.23694 mph) then assume the vehicle is stopped
       // Use small time increments instead of distance steps
       while (t + FLOATING_POINT_EPSILON < endTime) {
     	t += 0.1;
-        projection.add(new RoutePointStamped(d, 0, t)); // Assume that the vehicle is stationary
+        projection.add(d, 0, t); // Assume that the vehicle is stationary
       }
     } else { // Vehicle is in motion so use distance steps
       double timeStep = distanceStep / averageSpeed;
       while (d + FLOATING_POINT_EPSILON < endDist) {
         d += distanceStep;        
         t += timeStep;
-        projection.add(new RoutePointStamped(d, 0, t));
+        projection.add(d, 0, t);
       }
     }
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.trajectoryconverter.RoutePointStamped;
+
+/**
+ * A time sorted path of downtrack, crosstrack, time points stored in parallel primitive arrays
+ * <p>
+ * Used as the output of motion prediction and plan interpolation in place of a list of RoutePointStamped.
+ * A path can be cleared and refilled, so callers which predict or interpolate repeatedly can reuse one instance
+ * and its arrays across calls. Points must be added in non-decreasing time order, which allows lookups by time
+ * to use binary search.
+ * <p>
+ * This class is not thread safe.
+ */
+public class StampedPath {
+
+  private static final int DEFAULT_CAPACITY = 32;
+  // Slack used when selecting candidate points by time. Candidates are still checked against the exact bounds.
+  private static final double TIME_WINDOW_SLACK = 1.0e-6;
+
+  private double[] downtracks;
+  private double[] crosstracks;
+  private double[] times;
+  private int size = 0;
+
+  /**
+   * Constructor
+   */
+  public StampedPath() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param capacity The initial number of points which can be stored without growing
+   */
+  public StampedPath(int capacity) {
+    capacity = Math.max(1, capacity);
+    downtracks = new double[capacity];
+    crosstracks = new double[capacity];
+    times = new double[capacity];
+  }
+
+  /**
+   * Removes all points while keeping the allocated storage
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Adds a point to the end of the path
+   *
+   * @param downtrack The downtrack distance in m
+   * @param crosstrack The crosstrack distance in m
+   * @param time The time in s. Must not be less than the time of the previous point
+   */
+  public void add(double downtrack, double crosstrack, double time) {
+    if (size == times.length) {
+      int capacity = times.length * 2;
+      downtracks = Arrays.copyOf(downtracks, capacity);
+      crosstracks = Arrays.copyOf(crosstracks, capacity);
+      times = Arrays.copyOf(times, capacity);
+    }
+    downtracks[size] = downtrack;
+    crosstracks[size] = crosstrack;
+    times[size] = time;
+    size++;
+  }
+
+  /**
+   * @return The number of points in the path
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return True if the path has no points
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public double getDowntrack(int i) {
+    checkIndex(i);
+    return downtracks[i];
+  }
+
+  public double getCrosstrack(int i) {
+    checkIndex(i);
+    return crosstracks[i];
+  }
+
+  public double getTime(int i) {
+    checkIndex(i);
+    return times[i];
+  }
+
+  /**
+   * Gets the index of the first point with a time greater than or equal to the provided time
+   *
+   * @param time The time in s
+   * @return The index or size() if all points occur before the provided time
+   */
+  public int firstAtOrAfterTime(double time) {
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (times[mid] < time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Checks if any point of this path conflicts with any point of another path
+   * <p>
+   * Gives the same result as checking whether ConflictManager.getConflicts() returns a non empty list for these paths.
+   * Each point of the other path is given a bounding box of +/- the margins, and each point of this path is offset by
+   * margin * bias before being given the same box. Two points conflict if their boxes overlap in all three dimensions.
+   * Instead of building a spatial hash of the other path, the candidate points are found by a binary search on time.
+   *
+   * @param other The path to check against
+   * @param downtrackMargin The downtrack margin in m
+   * @param crosstrackMargin The crosstrack margin in m
+   * @param timeMargin The time margin in s
+   * @param longitudinalBias The downtrack bias applied to this path as a multiple of the downtrack margin
+   * @param lateralBias The crosstrack bias applied to this path as a multiple of the crosstrack margin
+   * @param temporalBias The time bias applied to this path as a multiple of the time margin
+   *
+   * @return True if any conflict was found
+   */
+  public boolean hasConflict(StampedPath other, double downtrackMargin, double crosstrackMargin, double timeMargin,
+    double longitudinalBias, double lateralBias, double temporalBias) {
+
+    for (int i = 0; i < size; i++) {
+      final double d = downtracks[i] + (downtrackMargin * longitudinalBias);
+      final double c = crosstracks[i] + (crosstrackMargin * lateralBias);
+      final double t = times[i] + (timeMargin * temporalBias);
+
+      final double minD = d - downtrackMargin;
+      final double maxD = d + downtrackMargin;
+      final double minC = c - crosstrackMargin;
+      final double maxC = c + crosstrackMargin;
+      final double minT = t - timeMargin;
+      final double maxT = t + timeMargin;
+
+      final double windowEnd = maxT + timeMargin + TIME_WINDOW_SLACK;
+      for (int j = other.firstAtOrAfterTime(minT - timeMargin - TIME_WINDOW_SLACK); j < other.size && other.times[j] <= windowEnd; j++) {
+        final double od = other.downtracks[j];
+        final double oc = other.crosstracks[j];
+        final double ot = other.times[j];
+        if (Math.max(minD, od - downtrackMargin) <= Math.min(maxD, od + downtrackMargin)
+          && Math.max(minC, oc - crosstrackMargin) <= Math.min(maxC, oc + crosstrackMargin)
+          && Math.max(minT, ot - timeMargin) <= Math.min(maxT, ot + timeMargin)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Converts this path into RoutePointStamped objects for use with the CARMA conflict detection system
+   * NOTE: The lane and route segment values of the returned points are not set
+   *
+   * @return A new list containing one point for each point in this path
+   */
+  public List<RoutePointStamped> toRoutePoints() {
+    List<RoutePointStamped> points = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      points.add(new RoutePointStamped(downtracks[i], crosstracks[i], times[i]));
+    }
+    return points;
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("StampedPath [");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append("(").append(downtracks[i]).append(", ").append(crosstracks[i]).append(", ").append(times[i]).append(")");
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -25,6 +25,10 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.logger.LoggerManager;
  * 15 historical points, and the second derivative using 11 historical points.  The
  * Holoborodko method is used courtesy of Pavel Holoborodko (http://www.holoborodko.com/pavel).
  * 
+ * Since the sample times are fixed relative to the history window, the least squares fit evaluated at the
+ * most recent point is a fixed linear combination of the raw values. Those weights are computed once in
+ * initialize(), so each new point costs a few dot products over a circular buffer and allocates nothing.
+ * 
  * @author starkj
  *
  */
@@ -39,25 +43,60 @@ public class PolyHoloA implements IDataFilter {
 	public void initialize(double timeStep) {
 		timeStep_ = timeStep;
 		arraySize_ = Math.max(polyPoints_, HOLO_MAX_PTS);
-		raw_ = new double[arraySize_];
-		coefA_ = 0.0;
-		coefB_ = 0.0;
-		coefC_ = 0.0;
+		buf_ = new double[2*arraySize_];
+		next_ = 0;
+		numPoints_ = 0;
+		smoothed_ = 0.0;
 		
 		//since the X values are are time since the beginning of the historical buffer, we can pre-compute these sums
-		sumX_ = 0.0;
-		sumX2_ = 0.0;
-		sumX3_ = 0.0;
-		sumX4_ = 0.0;
+		double sumX = 0.0;
+		double sumX2 = 0.0;
+		double sumX3 = 0.0;
+		double sumX4 = 0.0;
 		double time;
 		double time2;
 		for (int i = 0;  i < polyPoints_;  ++i) {
 			time = timeStep * (double)i;
 			time2 = time*time;
-			sumX_ += time;
-			sumX2_ += time2;
-			sumX3_ += time*time2;
-			sumX4_ += time2*time2;
+			sumX += time;
+			sumX2 += time2;
+			sumX3 += time*time2;
+			sumX4 += time2*time2;
+		}
+		
+		//Note: we are using the polynomial notation that y = a + b*x + c*x^2
+		//The fit evaluated at the most recent point is e' * inv(A) * X' * y, where A is the normal matrix and
+		// e = [1, x, x^2] at that point. A is symmetric, so solving A z = e once gives the weight of each point
+		// as z0 + z1*x + z2*x^2.
+		double xLast = timeStep * (double)(polyPoints_-1);
+		MatrixSolver m = new MatrixSolver();
+		m.setAElement(0, 0, polyPoints_);
+		m.setAElement(0, 1, sumX);
+		m.setAElement(0, 2, sumX2);
+		
+		m.setAElement(1, 0, sumX);
+		m.setAElement(1, 1, sumX2);
+		m.setAElement(1, 2, sumX3);
+		
+		m.setAElement(2, 0, sumX2);
+		m.setAElement(2, 1, sumX3);
+		m.setAElement(2, 2, sumX4);
+		
+		m.setBElement(0, 1.0);
+		m.setBElement(1, xLast);
+		m.setBElement(2, xLast*xLast);
+		
+		weights_ = new double[polyPoints_];
+		try {
+			double[] z = m.getResult();
+			for (int i = 0;  i < polyPoints_;  ++i) {
+				time = timeStep * (double)i;
+				weights_[i] = z[0] + time*(z[1] + time*z[2]);
+			}
+			singular_ = false;
+		} catch (Exception e) {
+			//the matrix depends only on the time step, so no data point can be analyzed
+			singular_ = true;
 		}
 		
 		failedPoint_ = false;
@@ -71,86 +110,43 @@ public class PolyHoloA implements IDataFilter {
 		++numPoints_;
 		failedPoint_ = false;
 
-		//Note: we are using the polynomial notation that y = a + b*x + c*x^2
-		
 		//if the array of historical data is full then
 		if (numPoints_ >= polyPoints_) {
-
-			//initialize the coefficients in case we can't solve the matrix (divide by zero)
-			coefA_ = 0.0;
-			coefB_ = 0.0;
-			coefC_ = 0.0;
-			
-			//compute the sums necessary for the matrix elements; X represents time since the beginning of the array
-			// at a constant time step separation, Y (the array values) represents the raw speed value at that time.
-			// Our convention for time will be that 0 equates to the oldest data point and increments SIZE times to
-			// the most recent data point.  Since our look-back distance is always the same number of points, all of
-			// the sums involving only X will always be the same, so they are pre-calculated. We only need
-			// to compute the sums involving Y.
-			double sumY = 0.0;
-			double sumXY = 0.0;
-			double sumX2Y = 0.0;
-			
-			int offset = arraySize_ - polyPoints_; //polyPoints_ may be less than array size; we only want the most recent points
-			for (int i = 0;  i < polyPoints_;  ++i) {
-				sumY += raw_[i + offset];
-				double time = timeStep_ * (double)i;
-				sumXY += time * raw_[i + offset];
-				sumX2Y += time*time * raw_[i + offset];
-			}
-			
-			//set up the matrix equation and solve it
-			MatrixSolver m = new MatrixSolver();
-			m.setAElement(0, 0, polyPoints_);
-			m.setAElement(0, 1, sumX_);
-			m.setAElement(0, 2, sumX2_);
-			
-			m.setAElement(1, 0, sumX_);
-			m.setAElement(1, 1, sumX2_);
-			m.setAElement(1, 2, sumX3_);
-			
-			m.setAElement(2, 0, sumX2_);
-			m.setAElement(2, 1, sumX3_);
-			m.setAElement(2, 2, sumX4_);
-			
-			m.setBElement(0, sumY);
-			m.setBElement(1, sumXY);
-			m.setBElement(2, sumX2Y);
-			
-			double[] coef = new double[3];
-			try {
-				coef = m.getResult();
-			} catch (Exception e) {
+			if (singular_) {
 				//indicate this data point can't be analyzed
 				failedPoint_ = true;
+				smoothed_ = 0.0;
+			}else {
+				//polyPoints_ may be less than array size; we only want the most recent points
+				int oldest = newest() - polyPoints_ + 1;
+				double sum = 0.0;
+				for (int i = 0;  i < polyPoints_;  ++i) {
+					sum += weights_[i] * buf_[oldest + i];
+				}
+				smoothed_ = sum;
 			}
-			coefA_ = coef[0];
-			coefB_ = coef[1];
-			coefC_ = coef[2];
-			
 		} //endif have a full array
 		
 	}
 
 	@Override
 	public double getSmoothedValue() {
-		double x = 0.0;
-		double y = 0.0;
+		double y;
+		int newest = newest();
 		
 		//if we are dealing with a failed data point solution then
 		if (failedPoint_) {
 			//extrapolate from the 1st and 3rd raw points
-			double slope = (raw_[arraySize_-1] - raw_[arraySize_-3]) / (2.0*timeStep_);
-			y = raw_[polyPoints_-1] + timeStep_*slope;
+			double slope = (buf_[newest] - buf_[newest-2]) / (2.0*timeStep_);
+			y = buf_[newest - (arraySize_ - polyPoints_)] + timeStep_*slope;
 			log_.debug("FILT", "Failed smoothing point. Interpolating.");
 		
 		//else
 		}else {
-			//solve the polynomial at the current value
-			x = timeStep_ * (double)(polyPoints_-1);
-			y = coefA_ + x*(coefB_ + x*coefC_);
+			//the polynomial evaluated at the current value
+			y = smoothed_;
 		}
-		double noise = raw_[arraySize_ - 1] - y;
+		double noise = buf_[newest] - y;
 		log_.infof("FILN", "getSmoothedValue noise =\t%.4f", noise);
 
 		return y;
@@ -158,26 +154,11 @@ public class PolyHoloA implements IDataFilter {
 
 	@Override
 	public double getSmoothedDerivative() {
+		int newest = newest();
 		double sum = 0.0;
-		final int i = 15; //for ease of reading since we are storing newest data at highest index
-		int offset = arraySize_ - i - 1;
-		
-		sum += 322.0*raw_[i-0 + offset];
-		sum += 217.0*raw_[i-1 + offset];
-		sum += 110.0*raw_[i-2 + offset];
-		sum +=  35.0*raw_[i-3 + offset];
-		sum -=  42.0*raw_[i-4 + offset];
-		sum -=  87.0*raw_[i-5 + offset];
-		sum -= 134.0*raw_[i-6 + offset];
-		sum -= 149.0*raw_[i-7 + offset];
-		sum -= 166.0*raw_[i-8 + offset];
-		sum -= 151.0*raw_[i-9 + offset];
-		sum -= 138.0*raw_[i-10 + offset];
-		sum -=  93.0*raw_[i-11 + offset];
-		sum -=  50.0*raw_[i-12 + offset];
-		sum +=  25.0*raw_[i-13 + offset];
-		sum +=  98.0*raw_[i-14 + offset];
-		sum += 203.0*raw_[i-15 + offset];
+		for (int age = 0;  age < HOLO_D1.length;  ++age) {
+			sum += HOLO_D1[age]*buf_[newest - age];
+		}
 		
 		double result = sum/2856.0/timeStep_;
 		
@@ -186,17 +167,11 @@ public class PolyHoloA implements IDataFilter {
 
 	@Override
 	public double getSmoothedSecondDerivative() {
+		int newest = newest();
 		double sum = 0.0;
-		final int n = 11; //for ease of reading since we are storing newest data at highest index
-		final int m = 5;
-		int offset = arraySize_ - n - 1;
-		
-		sum -= 28.0*raw_[n-m + offset];
-		sum -= 14.0*(raw_[n-m-1 + offset] + raw_[n-m+1 + offset]);
-		sum +=  8.0*(raw_[n-m-2 + offset] + raw_[n-m+2 + offset]);
-		sum += 13.0*(raw_[n-m-3 + offset] + raw_[n-m+3 + offset]);
-		sum +=  6.0*(raw_[n-m-4 + offset] + raw_[n-m+4 + offset]);
-		sum +=      (raw_[n-m-5 + offset] + raw_[n-m+5 + offset]);
+		for (int age = 0;  age < HOLO_D2.length;  ++age) {
+			sum += HOLO_D2[age]*buf_[newest - age];
+		}
 		
 		double result = sum / (256.0*timeStep_*timeStep_);
 		
@@ -223,30 +198,42 @@ public class PolyHoloA implements IDataFilter {
 	//////////////////
 	
 	/**
-	 * always : shifts array contents to the left by one cell (toward lower indexes) and overwrites the highest index
-	 * 			with the input value (data is newer as index increases)
+	 * always : stores the input value in the circular buffer, overwriting the oldest value
+	 * 
+	 * Note: every value is written twice, arraySize_ cells apart, so the most recent arraySize_ values are always
+	 * contiguous in buf_ (oldest first) and the filters can index them without wrapping.
 	 */
 	private void updateArray(double value) {
-		for (int i = 0;  i < arraySize_-1;  ++i) {
-			raw_[i] = raw_[i+1];
+		buf_[next_] = value;
+		buf_[next_ + arraySize_] = value;
+		if (++next_ == arraySize_) {
+			next_ = 0;
 		}
-		raw_[arraySize_-1] = value;
+	}
+	
+	/**
+	 * always : index in buf_ of the most recent value, with the older history at the preceding indexes
+	 */
+	private int newest() {
+		return next_ + arraySize_ - 1;
 	}
 	
 	private double				timeStep_;
-	private double[]			raw_;			//array of raw data, most recent is at [SIZE-1], oldest is at [0]
+	private double[]			buf_;			//circular buffer of raw data, each value stored twice (see updateArray)
+	private int					next_;			//index in buf_ of the next value to be written (the oldest value)
 	private int					numPoints_;		//number of data points stored so far
-	private double				coefA_;			//constant coefficient
-	private double				coefB_;			//coefficient for x
-	private double				coefC_;			//coefficient for x^2
-	private double				sumX_;			//sum of X values
-	private double				sumX2_;			//sum of X^2 values
-	private double				sumX3_;			//sum of X^3 values
-	private double				sumX4_;			//sum of X^4 values
+	private double[]			weights_;		//least squares weight of each historical point, oldest first
+	private double				smoothed_;		//polynomial evaluated at the most recent point
+	private boolean				singular_;		//is the least squares matrix unsolvable for this time step?
 	private boolean				failedPoint_;	//did the most recent data point fail a solution (e.g. matrix divide by zero)?
 	private int					polyPoints_;	//total number of historical data points we will look at for the polynomial curve fit
 	private int					arraySize_;		//number of historical points stored
 	
 	private static final int	HOLO_MAX_PTS = 16;	//max number of data points needed for Holoborodko filters
+	//Holoborodko first derivative coefficients, most recent point first
+	private static final double[] HOLO_D1 = {322.0, 217.0, 110.0, 35.0, -42.0, -87.0, -134.0, -149.0,
+											-166.0, -151.0, -138.0, -93.0, -50.0, 25.0, 98.0, 203.0};
+	//Holoborodko second derivative coefficients, most recent point first
+	private static final double[] HOLO_D2 = {1.0, 6.0, 13.0, 8.0, -14.0, -28.0, -14.0, 8.0, 13.0, 6.0, 1.0};
 	private static ILogger log_ = LoggerManager.getLogger(PolyHoloA.class);
 }
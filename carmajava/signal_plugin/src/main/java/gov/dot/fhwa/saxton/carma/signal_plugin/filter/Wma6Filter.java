@@ -23,6 +23,9 @@ import gov.dot.fhwa.saxton.carma.signal_plugin.filter.IDataFilter;
  * A weighted moving average filter using 6 historical points.  Weights are linear starting with
  * 6 on the most recent point to 1 on the oldest point.
  * 
+ * The history is a circular buffer and the smoothed value is computed once per new point,
+ * so repeated queries are free and nothing is allocated after initialization.
+ * 
  * @author starkj
  *
  */
@@ -33,19 +36,20 @@ public class Wma6Filter implements IDataFilter {
 		timeStep_ = timeStep;
 		numPoints_ = 0;
 		totalWeight_ = 0.0;
-		next_ = SIZE - 1;		//start filling the buffer on the right end
+		newest_ = SIZE - 1;
+		smoothed_ = Double.NaN;	//no data yet, callers treat NaN as no value
 		raw_ = new double[SIZE];
 	}
 	
 	@Override
 	public void addRawDataPoint(double rawValue) {
 		addToHistory(rawValue);
+		smoothed_ = smooth();
 	}
 
 	@Override
 	public double getSmoothedValue() {
-		double smoothed = smooth();
-		return smoothed;
+		return smoothed_;
 	}
 	
 	@Override
@@ -63,16 +67,13 @@ public class Wma6Filter implements IDataFilter {
 	//////////////////
 	
 	/**
-	 * always : adds raw to the historical record of raw data points
-	 * 
-	 * Note: we will fill the buffer from right to left to avoid having to put an if test inside the smooth() loop.
-	 * When the loop counter is counting up we can use modulo instead.
+	 * always : adds raw to the historical record of raw data points, overwriting the oldest point once the buffer is full
 	 */
 	private void addToHistory(double raw) {
-		raw_[next_--] = raw;
-		if (next_ < 0) {
-			next_ = SIZE - 1;
+		if (++newest_ == SIZE) {
+			newest_ = 0;
 		}
+		raw_[newest_] = raw;
 		if (numPoints_ < SIZE) {
 			totalWeight_ += (double)(SIZE - numPoints_);
 			++numPoints_;
@@ -82,15 +83,18 @@ public class Wma6Filter implements IDataFilter {
 	/**
 	 * always : computes the smoothed value to replace the latest raw point
 	 * 
-	 * Note: guaranteed by caller to always be called after addToHistory()
+	 * Note: walks from the newest point back through the buffer, which avoids a modulo on every element
 	 */
 	private double smooth() {
 		double sum = 0.0;
-		double weight;
-		
-		for (int i = SIZE - numPoints_;  i < SIZE;  ++i) { 
-			weight = (double)((next_ - i + SIZE) % SIZE + 1); //next_ represents the index of the oldest data point
+		double weight = (double)SIZE;
+		int i = newest_;
+		for (int n = 0;  n < numPoints_;  ++n) {
 			sum += weight * raw_[i];
+			weight -= 1.0;
+			if (--i < 0) {
+				i = SIZE - 1;
+			}
 		}
 		
 		return sum / totalWeight_;
@@ -98,7 +102,8 @@ public class Wma6Filter implements IDataFilter {
 	
 	private int					numPoints_;
 	private double				totalWeight_;
-	private int					next_;
+	private int					newest_;		//index of the most recent data point
+	private double				smoothed_;		//smoothed value as of the most recent data point
 	private double[]			raw_;
 	private double				timeStep_;
 	
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.appcommon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Runs unit tests for the SlotDataElementHolder class
+ */
+public class SlotDataElementHolderTest {
+
+  @Test
+  public void testPrimitiveSlots() throws Exception {
+    SlotDataElementHolder holder = new SlotDataElementHolder();
+    assertEquals(-1.0, holder.getSpeed(), 0.0);
+    assertEquals(0.0, holder.getDouble(DataElementKey.LATITUDE), 0.0);
+    assertEquals(0, holder.getInt(DataElementKey.CYCLE_EAD));
+
+    holder.putDouble(DataElementKey.SMOOTHED_SPEED, 12.5, 1000L);
+    holder.putInt(DataElementKey.CYCLE_EAD, 42, 2000L);
+    assertEquals(12.5, holder.getDouble(DataElementKey.SMOOTHED_SPEED), 0.0);
+    assertEquals(1000L, holder.getTimeStamp(DataElementKey.SMOOTHED_SPEED));
+    assertEquals(42, holder.getInt(DataElementKey.CYCLE_EAD));
+    assertEquals(2, holder.size());
+
+    // Elements read back keep the timestamp they were stored with
+    DataElement element = holder.get(DataElementKey.SMOOTHED_SPEED);
+    assertEquals(12.5, ((DoubleDataElement) element).value(), 0.0);
+    assertEquals(1000L, element.timeStamp());
+
+    // Other element types are stored by reference
+    StringBufferDataElement status = new StringBufferDataElement(new StringBuffer());
+    holder.put(DataElementKey.STATUS_MESSAGE, status);
+    assertSame(status, holder.get(DataElementKey.STATUS_MESSAGE));
+
+    assertEquals(12.5, ((DoubleDataElement) holder.remove(DataElementKey.SMOOTHED_SPEED)).value(), 0.0);
+    assertNull(holder.get(DataElementKey.SMOOTHED_SPEED));
+    assertEquals(0L, holder.getTimeStamp(DataElementKey.SMOOTHED_SPEED));
+  }
+
+  @Test
+  public void testConversionAndValidate() throws Exception {
+    DataElementHolder legacy = new DataElementHolder();
+    for (DataElementKey key : DataElementHolder.validationKeys) {
+      legacy.put(key, new DoubleDataElement(key.ordinal()));
+    }
+    legacy.put(DataElementKey.STATUS_MESSAGE, new StringBufferDataElement(new StringBuffer()));
+    legacy.put(DataElementKey.CYCLE_EAD, new IntDataElement(7));
+
+    SlotDataElementHolder holder = new SlotDataElementHolder();
+    holder.putAll(legacy);
+    assertTrue(holder.validate());
+    assertEquals(legacy.size(), holder.size());
+    assertEquals(7, holder.getInt(DataElementKey.CYCLE_EAD));
+    assertEquals(legacy.getLogString(), holder.toDataElementHolder().getLogString());
+
+    SlotDataElementHolder copy = new SlotDataElementHolder();
+    copy.putAll(holder);
+    assertEquals(holder.getDouble(DataElementKey.LATITUDE), copy.getDouble(DataElementKey.LATITUDE), 0.0);
+
+    copy.remove(DataElementKey.JERK);
+    assertFalse(copy.validate());
+    assertTrue(((StringBufferDataElement) copy.get(DataElementKey.STATUS_MESSAGE)).value().contains("JERK"));
+  }
+
+  @Test
+  public void testSnapshotIsConsistent() throws Exception {
+    final SlotDataElementHolder holder = new SlotDataElementHolder();
+    holder.putDouble(DataElementKey.LATITUDE, 0.0, 0L);
+    holder.putDouble(DataElementKey.LONGITUDE, 0.0, 0L);
+
+    Thread writer = new Thread(() -> {
+      for (int i = 1; i <= 200000; i++) {
+        SlotDataElementHolder update = new SlotDataElementHolder();
+        update.putDouble(DataElementKey.LATITUDE, i, i);
+        update.putDouble(DataElementKey.LONGITUDE, -i, i);
+        holder.putAll(update);
+      }
+    });
+    writer.start();
+
+    SlotDataElementHolder.Snapshot snapshot = holder.newSnapshot();
+    while (writer.isAlive()) {
+      holder.snapshot(snapshot);
+      assertEquals(snapshot.getDouble(DataElementKey.LATITUDE), -snapshot.getDouble(DataElementKey.LONGITUDE), 0.0);
+      assertEquals(snapshot.getTimeStamp(DataElementKey.LATITUDE), snapshot.getTimeStamp(DataElementKey.LONGITUDE));
+    }
+    writer.join();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.ead;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Runs unit tests for the StampedPath class
+ */
+public class StampedPathTest {
+
+  @Test
+  public void testAddAndSearch() throws Exception {
+    StampedPath path = new StampedPath(2);
+    for (int i = 0; i < 10; i++) {
+      path.add(i * 2.0, 0.0, i * 0.5);
+    }
+    assertEquals(10, path.size());
+    assertEquals(18.0, path.getDowntrack(9), 0.0);
+    assertEquals(4.5, path.getTime(9), 0.0);
+
+    assertEquals(0, path.firstAtOrAfterTime(-1.0));
+    assertEquals(2, path.firstAtOrAfterTime(1.0));
+    assertEquals(3, path.firstAtOrAfterTime(1.1));
+    assertEquals(10, path.firstAtOrAfterTime(5.0));
+
+    path.clear();
+    assertTrue(path.isEmpty());
+    path.add(1.0, 0.0, 1.0);
+    assertEquals(1, path.toRoutePoints().size());
+    assertEquals(1.0, path.toRoutePoints().get(0).getDowntrack(), 0.0);
+  }
+
+  @Test
+  public void testConflictMatchesBoxOverlap() throws Exception {
+    Random rand = new Random(7);
+    for (int trial = 0; trial < 500; trial++) {
+      StampedPath host = randomPath(rand, rand.nextInt(20));
+      StampedPath other = randomPath(rand, rand.nextInt(20));
+      double dm = 1.0 + rand.nextDouble() * 5.0;
+      double cm = 1.0 + rand.nextDouble();
+      double tm = 0.05 + rand.nextDouble() * 0.3;
+      double lonBias = rand.nextDouble() - 0.5;
+
+      assertEquals(bruteForceConflict(host, other, dm, cm, tm, lonBias, -0.25, 0.0),
+        host.hasConflict(other, dm, cm, tm, lonBias, -0.25, 0.0));
+    }
+  }
+
+  @Test
+  public void testConflict() throws Exception {
+    StampedPath host = new StampedPath();
+    host.add(0.0, 0.0, 0.0);
+    host.add(5.0, 0.0, 1.0);
+    StampedPath other = new StampedPath();
+    other.add(12.0, 0.0, 1.0);
+
+    assertFalse(host.hasConflict(other, 3.0, 1.0, 0.1, 0.0, 0.0, 0.0));
+    assertTrue(host.hasConflict(other, 3.5, 1.0, 0.1, 0.0, 0.0, 0.0));
+    // Time offset beyond twice the time margin
+    other.clear();
+    other.add(5.0, 0.0, 1.3);
+    assertFalse(host.hasConflict(other, 3.5, 1.0, 0.1, 0.0, 0.0, 0.0));
+  }
+
+  private StampedPath randomPath(Random rand, int size) {
+    StampedPath path = new StampedPath();
+    double d = rand.nextDouble() * 20.0;
+    double t = rand.nextDouble() * 2.0;
+    for (int i = 0; i < size; i++) {
+      path.add(d, rand.nextDouble() - 0.5, t);
+      d += rand.nextDouble() * 3.0;
+      t += rand.nextDouble() * 0.4;
+    }
+    return path;
+  }
+
+  /**
+   * Overlap check between the bounding boxes of every pair of points, as built by ConflictManager
+   */
+  private boolean bruteForceConflict(StampedPath host, StampedPath other, double dm, double cm, double tm,
+    double lonBias, double latBias, double tempBias) {
+    for (int i = 0; i < host.size(); i++) {
+      double d = host.getDowntrack(i) + (dm * lonBias);
+      double c = host.getCrosstrack(i) + (cm * latBias);
+      double t = host.getTime(i) + (tm * tempBias);
+      for (int j = 0; j < other.size(); j++) {
+        double[][] a = {{d - dm, d + dm}, {c - cm, c + cm}, {t - tm, t + tm}};
+        double[][] b = {{other.getDowntrack(j) - dm, other.getDowntrack(j) + dm},
+          {other.getCrosstrack(j) - cm, other.getCrosstrack(j) + cm}, {other.getTime(j) - tm, other.getTime(j) + tm}};
+        boolean overlap = true;
+        for (int k = 0; k < 3; k++) {
+          if (Math.max(a[k][0], b[k][0]) > Math.min(a[k][1], b[k][1])) {
+            overlap = false;
+          }
+        }
+        if (overlap) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+
+/**
+ * Runs unit tests for the PolyHoloA class, comparing it against the original implementation which
+ * solved the least squares matrix on every data point and shifted the history array
+ */
+public class PolyHoloATest {
+
+  private static final int NUM_SAMPLES = 5000;
+  private static final double TOLERANCE = 1.0e-9;
+
+  @Before
+  public void setUp() throws Exception {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class, Mockito.withSettings().stubOnly());
+    ILogger log = mock(ILogger.class, Mockito.withSettings().stubOnly());
+    when(mockFact.createLoggerForClass(any())).thenReturn(log);
+    LoggerManager.setLoggerFactory(mockFact);
+  }
+
+  @Test
+  public void testMatchesOriginalDefault() {
+    compare(new PolyHoloA(), new OriginalPolyHoloA(), 0.1, 1L);
+  }
+
+  @Test
+  public void testMatchesOriginalTimeSteps() {
+    compare(new PolyHoloA(), new OriginalPolyHoloA(), 0.8888, 2L);
+    compare(new PolyHoloA(), new OriginalPolyHoloA(), 0.02, 3L);
+  }
+
+  @Test
+  public void testMatchesOriginalAlternatePolyPoints() {
+    for (int polyPoints : new int[] { 3, 7, 16, 20 }) {
+      PolyHoloA filter = new PolyHoloA();
+      filter.setAlternatePolyPoints(polyPoints);
+      OriginalPolyHoloA original = new OriginalPolyHoloA();
+      original.setAlternatePolyPoints(polyPoints);
+      compare(filter, original, 0.1, polyPoints);
+    }
+  }
+
+  @Test
+  public void testReinitialize() {
+    PolyHoloA filter = new PolyHoloA();
+    compare(filter, new OriginalPolyHoloA(), 0.1, 4L);
+    // Initializing again discards the history, so the filter warms up like a new one
+    compare(filter, new OriginalPolyHoloA(), 0.1, 5L);
+  }
+
+  /**
+   * Feeds the same noisy speed profile to both filters and checks every output after each point, including
+   * the warm up period before the history is full
+   */
+  private void compare(PolyHoloA filter, OriginalPolyHoloA original, double timeStep, long seed) {
+    Random random = new Random(seed);
+    filter.initialize(timeStep);
+    original.initialize(timeStep);
+
+    for (int i = 0; i < NUM_SAMPLES; ++i) {
+      double t = timeStep * i;
+      double raw = 10.0 + 5.0 * Math.sin(0.05 * t) + 0.2 * t % 7.0 + 0.3 * random.nextGaussian();
+      filter.addRawDataPoint(raw);
+      original.addRawDataPoint(raw);
+
+      String msg = "seed " + seed + " point " + i;
+      assertEquals(msg, original.getSmoothedValue(), filter.getSmoothedValue(), TOLERANCE);
+      assertEquals(msg, original.getSmoothedDerivative(), filter.getSmoothedDerivative(), TOLERANCE);
+      assertEquals(msg, original.getSmoothedSecondDerivative(), filter.getSmoothedSecondDerivative(),
+        TOLERANCE / (timeStep * timeStep));
+    }
+  }
+
+  /**
+   * The PolyHoloA algorithm as it was before the smoothing weights were precomputed
+   */
+  private static class OriginalPolyHoloA {
+
+    OriginalPolyHoloA() {
+      polyPoints_ = 15;
+      timeStep_ = 0.8888888;
+    }
+
+    void setAlternatePolyPoints(int newSize) {
+      if (newSize >= 3 && Math.abs(timeStep_ - 0.8888) < 0.0002) {
+        polyPoints_ = newSize;
+      }
+    }
+
+    void initialize(double timeStep) {
+      timeStep_ = timeStep;
+      arraySize_ = Math.max(polyPoints_, 16);
+      raw_ = new double[arraySize_];
+      coefA_ = 0.0;
+      coefB_ = 0.0;
+      coefC_ = 0.0;
+
+      sumX_ = 0.0;
+      sumX2_ = 0.0;
+      sumX3_ = 0.0;
+      sumX4_ = 0.0;
+      for (int i = 0; i < polyPoints_; ++i) {
+        double time = timeStep * (double) i;
+        double time2 = time * time;
+        sumX_ += time;
+        sumX2_ += time2;
+        sumX3_ += time * time2;
+        sumX4_ += time2 * time2;
+      }
+      failedPoint_ = false;
+    }
+
+    void addRawDataPoint(double rawValue) {
+      for (int i = 0; i < arraySize_ - 1; ++i) {
+        raw_[i] = raw_[i + 1];
+      }
+      raw_[arraySize_ - 1] = rawValue;
+      ++numPoints_;
+      failedPoint_ = false;
+
+      if (numPoints_ >= polyPoints_) {
+        double sumY = 0.0;
+        double sumXY = 0.0;
+        double sumX2Y = 0.0;
+        int offset = arraySize_ - polyPoints_;
+        for (int i = 0; i < polyPoints_; ++i) {
+          sumY += raw_[i + offset];
+          double time = timeStep_ * (double) i;
+          sumXY += time * raw_[i + offset];
+          sumX2Y += time * time * raw_[i + offset];
+        }
+
+        MatrixSolver m = new MatrixSolver();
+        m.setAElement(0, 0, polyPoints_);
+        m.setAElement(0, 1, sumX_);
+        m.setAElement(0, 2, sumX2_);
+        m.setAElement(1, 0, sumX_);
+        m.setAElement(1, 1, sumX2_);
+        m.setAElement(1, 2, sumX3_);
+        m.setAElement(2, 0, sumX2_);
+        m.setAElement(2, 1, sumX3_);
+        m.setAElement(2, 2, sumX4_);
+        m.setBElement(0, sumY);
+        m.setBElement(1, sumXY);
+        m.setBElement(2, sumX2Y);
+
+        double[] coef = new double[3];
+        try {
+          coef = m.getResult();
+        } catch (Exception e) {
+          failedPoint_ = true;
+        }
+        coefA_ = coef[0];
+        coefB_ = coef[1];
+        coefC_ = coef[2];
+      }
+    }
+
+    double getSmoothedValue() {
+      if (failedPoint_) {
+        double slope = (raw_[arraySize_ - 1] - raw_[arraySize_ - 3]) / (2.0 * timeStep_);
+        return raw_[polyPoints_ - 1] + timeStep_ * slope;
+      }
+      double x = timeStep_ * (double) (polyPoints_ - 1);
+      return coefA_ + x * (coefB_ + x * coefC_);
+    }
+
+    double getSmoothedDerivative() {
+      double[] r = raw_;
+      int o = arraySize_ - 16;
+      double sum = 322.0 * r[15 + o] + 217.0 * r[14 + o] + 110.0 * r[13 + o] + 35.0 * r[12 + o]
+        - 42.0 * r[11 + o] - 87.0 * r[10 + o] - 134.0 * r[9 + o] - 149.0 * r[8 + o]
+        - 166.0 * r[7 + o] - 151.0 * r[6 + o] - 138.0 * r[5 + o] - 93.0 * r[4 + o]
+        - 50.0 * r[3 + o] + 25.0 * r[2 + o] + 98.0 * r[1 + o] + 203.0 * r[o];
+      return sum / 2856.0 / timeStep_;
+    }
+
+    double getSmoothedSecondDerivative() {
+      double[] r = raw_;
+      int o = arraySize_ - 12;
+      double sum = -28.0 * r[6 + o]
+        - 14.0 * (r[5 + o] + r[7 + o])
+        + 8.0 * (r[4 + o] + r[8 + o])
+        + 13.0 * (r[3 + o] + r[9 + o])
+        + 6.0 * (r[2 + o] + r[10 + o])
+        + (r[1 + o] + r[11 + o]);
+      return sum / (256.0 * timeStep_ * timeStep_);
+    }
+
+    private double timeStep_;
+    private double[] raw_;
+    private int numPoints_;
+    private double coefA_;
+    private double coefB_;
+    private double coefC_;
+    private double sumX_;
+    private double sumX2_;
+    private double sumX3_;
+    private double sumX4_;
+    private boolean failedPoint_;
+    private int polyPoints_;
+    private int arraySize_;
+  }
+}
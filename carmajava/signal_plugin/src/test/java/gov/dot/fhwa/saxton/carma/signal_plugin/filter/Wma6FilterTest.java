@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.signal_plugin.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Runs unit tests for the Wma6Filter class, comparing it against the original implementation which
+ * recomputed the weighted average on every query
+ */
+public class Wma6FilterTest {
+
+  private static final int NUM_SAMPLES = 5000;
+  private static final double TOLERANCE = 1.0e-12;
+
+  @Test
+  public void testNoData() {
+    Wma6Filter filter = new Wma6Filter();
+    filter.initialize(0.1);
+    assertTrue(Double.isNaN(filter.getSmoothedValue()));
+
+    filter.addRawDataPoint(4.0);
+    assertEquals(4.0, filter.getSmoothedValue(), TOLERANCE);
+
+    // Initializing again discards the history
+    filter.initialize(0.1);
+    assertTrue(Double.isNaN(filter.getSmoothedValue()));
+  }
+
+  @Test
+  public void testWeights() {
+    Wma6Filter filter = new Wma6Filter();
+    filter.initialize(0.1);
+    filter.addRawDataPoint(1.0);
+    filter.addRawDataPoint(2.0);
+    assertEquals((6.0 * 2.0 + 5.0 * 1.0) / 11.0, filter.getSmoothedValue(), TOLERANCE);
+    for (int i = 3; i <= 8; ++i) {
+      filter.addRawDataPoint(i);
+    }
+    // Only the 6 most recent points are used, weighted 6 on the newest down to 1 on the oldest
+    assertEquals((6.0 * 8 + 5.0 * 7 + 4.0 * 6 + 3.0 * 5 + 2.0 * 4 + 1.0 * 3) / 21.0, filter.getSmoothedValue(),
+      TOLERANCE);
+  }
+
+  @Test
+  public void testMatchesOriginal() {
+    Random random = new Random(1L);
+    Wma6Filter filter = new Wma6Filter();
+    OriginalWma6Filter original = new OriginalWma6Filter();
+    filter.initialize(0.1);
+    original.initialize(0.1);
+    assertEquals(original.getSmoothedValue(), filter.getSmoothedValue(), TOLERANCE);
+
+    for (int i = 0; i < NUM_SAMPLES; ++i) {
+      double raw = 10.0 + 5.0 * Math.sin(0.005 * i) + 0.3 * random.nextGaussian();
+      filter.addRawDataPoint(raw);
+      original.addRawDataPoint(raw);
+      assertEquals("point " + i, original.getSmoothedValue(), filter.getSmoothedValue(), TOLERANCE);
+    }
+  }
+
+  /**
+   * The Wma6Filter algorithm as it was before the smoothed value was cached
+   */
+  private static class OriginalWma6Filter {
+
+    void initialize(double timeStep) {
+      numPoints_ = 0;
+      totalWeight_ = 0.0;
+      next_ = SIZE - 1;
+      raw_ = new double[SIZE];
+    }
+
+    void addRawDataPoint(double raw) {
+      raw_[next_--] = raw;
+      if (next_ < 0) {
+        next_ = SIZE - 1;
+      }
+      if (numPoints_ < SIZE) {
+        totalWeight_ += (double) (SIZE - numPoints_);
+        ++numPoints_;
+      }
+    }
+
+    double getSmoothedValue() {
+      double sum = 0.0;
+      for (int i = SIZE - numPoints_; i < SIZE; ++i) {
+        double weight = (double) ((next_ - i + SIZE) % SIZE + 1);
+        sum += weight * raw_[i];
+      }
+      return sum / totalWeight_;
+    }
+
+    private int numPoints_;
+    private double totalWeight_;
+    private int next_;
+    private double[] raw_;
+
+    private static final int SIZE = 6;
+  }
+}
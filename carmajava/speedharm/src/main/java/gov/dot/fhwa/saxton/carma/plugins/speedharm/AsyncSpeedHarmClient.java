@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import gov.dot.fhwa.saxton.speedharm.api.objects.VehicleCommand;
+import gov.dot.fhwa.saxton.speedharm.api.objects.VehicleStatusUpdate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import static gov.dot.fhwa.saxton.carma.plugins.speedharm.UrlConstants.*;
+
+/**
+ * Non-blocking alternative to running a {@link StatusUpdater} and a {@link CommandReceiver} on dedicated threads
+ * <p>
+ * Status updates are sampled on a fixed schedule and handed to a single sender. If the previous update is still
+ * in flight when a new one is sampled, the pending update is replaced so only the latest status is ever sent and
+ * a slow server can not build up a backlog. Command requests are pipelined, keeping up to pipelineDepth requests
+ * outstanding at once, and the newest command by timestamp is kept so responses arriving out of order never
+ * replace a newer command with an older one.
+ * <p>
+ * All requests run on an internal pool so no caller ever waits on the network. The vehicle session is registered
+ * on the scheduler when the client starts, retrying until the server accepts it, and updates begin once it has.
+ * Request timeouts are enforced by the HTTP request factory of the RestTemplate, see {@link #newRequestFactory(int)}.
+ */
+public class AsyncSpeedHarmClient {
+  protected static final long COMMAND_RETRY_DELAY_MS = 100;
+  protected static final long REGISTRATION_RETRY_DELAY_MS = 100;
+
+  protected ILogger log = LoggerManager.getLogger();
+  protected final String serverUrl;
+  protected final SessionManager sessionManager;
+  protected final RestTemplate restClient;
+  protected final long timestepDuration;
+  protected final int pipelineDepth;
+  protected final VehicleDataManager vehicleDataManager;
+  // Set once the vehicle session is registered
+  protected volatile int vehicleSessionId = 0;
+  protected volatile StatusUpdater statusUpdater = null;
+
+  private final AtomicReference<VehicleStatusUpdate> pendingStatus = new AtomicReference<>(null);
+  private final AtomicBoolean statusInFlight = new AtomicBoolean(false);
+  private final AtomicInteger commandsInFlight = new AtomicInteger(0);
+  private final AtomicReference<VehicleCommand> lastCommand = new AtomicReference<>(null);
+  private final AtomicLong statusesSent = new AtomicLong(0);
+  private final AtomicLong statusesCoalesced = new AtomicLong(0);
+  private final AtomicLong commandsReceived = new AtomicLong(0);
+  private final AtomicLong failedRequests = new AtomicLong(0);
+
+  private volatile boolean running = false;
+  private ScheduledExecutorService scheduler;
+  private ExecutorService requestExecutor;
+
+  /**
+   * Constructor
+   *
+   * @param serverUrl The base url of the infrastructure server
+   * @param sessionManager The session manager used to register the vehicle session when the client starts
+   * @param restClient The client used for requests. Should be configured with request timeouts
+   * @param timestepDuration The period between status updates in ms
+   * @param pipelineDepth The maximum number of command requests outstanding at once
+   * @param vehicleDataManager The source of vehicle data for status updates
+   */
+  public AsyncSpeedHarmClient(String serverUrl, SessionManager sessionManager, RestTemplate restClient,
+      long timestepDuration, int pipelineDepth, VehicleDataManager vehicleDataManager) {
+    this.serverUrl = serverUrl;
+    this.sessionManager = sessionManager;
+    this.restClient = restClient;
+    this.timestepDuration = timestepDuration;
+    this.pipelineDepth = Math.max(1, pipelineDepth);
+    this.vehicleDataManager = vehicleDataManager;
+  }
+
+  /**
+   * Creates a request factory which bounds the time spent connecting to and waiting on the server
+   *
+   * @param timeoutMs The connect and read timeout in ms
+   */
+  public static SimpleClientHttpRequestFactory newRequestFactory(int timeoutMs) {
+    SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+    factory.setConnectTimeout(timeoutMs);
+    factory.setReadTimeout(timeoutMs);
+    return factory;
+  }
+
+  /**
+   * Registers the vehicle session, then starts sending status updates and requesting commands. Returns immediately
+   */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("SpeedHarm Status Sampler"));
+    // One thread for status updates plus one for each pipelined command request
+    requestExecutor = Executors.newFixedThreadPool(pipelineDepth + 1, daemonThreads("SpeedHarm Request"));
+    running = true;
+
+    scheduler.execute(this::registerSession);
+  }
+
+  /**
+   * Registers the vehicle session and starts the timesteps, or schedules another attempt if registration fails
+   */
+  private void registerSession() {
+    // Checked under the session manager lock so a session is never registered after the owner has ended it
+    synchronized (sessionManager) {
+      if (!running) {
+        return;
+      }
+      try {
+        sessionManager.registerNewVehicleSession();
+      } catch (RuntimeException e) {
+        failedRequests.incrementAndGet();
+        log.warn("Unable to register with server, caught exception.", e);
+        try {
+          scheduler.schedule(this::registerSession, REGISTRATION_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+          // Stopped
+        }
+        return;
+      }
+      vehicleSessionId = sessionManager.getServerSessionId();
+    }
+
+    statusUpdater = new StatusUpdater(serverUrl, vehicleSessionId, restClient, timestepDuration, vehicleDataManager);
+    try {
+      scheduler.scheduleAtFixedRate(this::onTimestep, 0, timestepDuration, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // Stopped
+    }
+  }
+
+  /**
+   * Stops all activity. Requests which are already in flight are interrupted and their results discarded
+   */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    scheduler.shutdownNow();
+    requestExecutor.shutdownNow();
+    pendingStatus.set(null);
+  }
+
+  /**
+   * @return True if the client has been started and not stopped
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * @return The newest command received from the server or null if none has been received
+   */
+  public VehicleCommand getLastCommand() {
+    return lastCommand.get();
+  }
+
+  /**
+   * @return The session id assigned by the server or 0 if the session has not been registered yet
+   */
+  public int getVehicleSessionId() {
+    return vehicleSessionId;
+  }
+
+  /**
+   * @return The time at which the server last accepted a status update or null if the session is not registered yet
+   */
+  public LocalDateTime getLastUpdateTime() {
+    StatusUpdater updater = statusUpdater;
+    return (updater != null) ? updater.lastUpdateTime : null;
+  }
+
+  /**
+   * @return The number of status updates accepted by the server
+   */
+  public long getStatusesSent() {
+    return statusesSent.get();
+  }
+
+  /**
+   * @return The number of status updates replaced by a newer update before they could be sent
+   */
+  public long getStatusesCoalesced() {
+    return statusesCoalesced.get();
+  }
+
+  /**
+   * @return The number of non null commands received from the server
+   */
+  public long getCommandsReceived() {
+    return commandsReceived.get();
+  }
+
+  /**
+   * @return The number of requests which failed or timed out
+   */
+  public long getFailedRequests() {
+    return failedRequests.get();
+  }
+
+  private void onTimestep() {
+    // An exception escaping a fixed rate task would silently cancel all future timesteps
+    try {
+      submitStatus(statusUpdater.buildStatusUpdate());
+      // Refill the pipeline in case a request was lost to a rejected execution
+      fillCommandPipeline();
+    } catch (Throwable t) {
+      log.error("Speed harmonization timestep failed", t);
+    }
+  }
+
+  /**
+   * Queues a status update for sending, replacing any update which has not yet been sent
+   */
+  protected void submitStatus(VehicleStatusUpdate vsu) {
+    if (pendingStatus.getAndSet(vsu) != null) {
+      statusesCoalesced.incrementAndGet();
+    }
+    drainStatus();
+  }
+
+  private void drainStatus() {
+    if (running && statusInFlight.compareAndSet(false, true)) {
+      if (!execute(this::sendPendingStatus)) {
+        statusInFlight.set(false);
+      }
+    }
+  }
+
+  private void sendPendingStatus() {
+    try {
+      VehicleStatusUpdate vsu;
+      while (running && (vsu = pendingStatus.getAndSet(null)) != null) {
+        log.info("Sending VehicleStatusUpdate: " + vsu.toString());
+        LocalDateTime sendTime = LocalDateTime.now();
+        try {
+          VehicleStatusUpdate response = restClient.postForObject(serverUrl + STATUS_LIST + "/" + vehicleSessionId,
+              vsu, VehicleStatusUpdate.class);
+          statusUpdater.handleResponse(vsu, response, sendTime);
+          if (response != null) {
+            statusesSent.incrementAndGet();
+          }
+        } catch (RestClientException rce) {
+          failedRequests.incrementAndGet();
+          log.warn("Infrastructure server rejected status update: " + vsu);
+        }
+      }
+    } finally {
+      statusInFlight.set(false);
+    }
+
+    // An update may have been submitted after the loop exited but before the flag was cleared
+    if (pendingStatus.get() != null) {
+      drainStatus();
+    }
+  }
+
+  /**
+   * Issues command requests until pipelineDepth requests are outstanding
+   */
+  protected void fillCommandPipeline() {
+    while (running) {
+      int inFlight = commandsInFlight.get();
+      if (inFlight >= pipelineDepth) {
+        return;
+      }
+      if (commandsInFlight.compareAndSet(inFlight, inFlight + 1)) {
+        if (!execute(this::requestCommand)) {
+          commandsInFlight.decrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+
+  private void requestCommand() {
+    boolean succeeded = false;
+    try {
+      LocalDateTime requestStart = LocalDateTime.now();
+      VehicleCommand cmd = restClient.getForObject(serverUrl + COMMANDS_LIST + "/" + vehicleSessionId,
+          VehicleCommand.class);
+      succeeded = true;
+      if (cmd != null) {
+        commandsReceived.incrementAndGet();
+        lastCommand.accumulateAndGet(cmd, AsyncSpeedHarmClient::newerCommand);
+        log.info(String.format("Received speed command %s after %dms from server!", cmd.toString(),
+            java.time.Duration.between(requestStart, LocalDateTime.now()).toMillis()));
+      } else {
+        log.warn("Null command received");
+      }
+    } catch (RestClientException rce) {
+      failedRequests.incrementAndGet();
+      log.warn("Unable to wait for server speed command, received exception.", rce);
+    } finally {
+      commandsInFlight.decrementAndGet();
+    }
+
+    if (succeeded) {
+      fillCommandPipeline();
+    } else {
+      // Back off before retrying so an unreachable server is not polled in a tight loop
+      try {
+        scheduler.schedule(this::fillCommandPipeline, COMMAND_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // Stopped
+      }
+    }
+  }
+
+  private static VehicleCommand newerCommand(VehicleCommand current, VehicleCommand received) {
+    if (current == null || current.getTimestamp() == null || received.getTimestamp() == null) {
+      return received;
+    }
+    return received.getTimestamp().isBefore(current.getTimestamp()) ? current : received;
+  }
+
+  private boolean execute(Runnable task) {
+    try {
+      requestExecutor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    AtomicInteger count = new AtomicInteger(0);
+    return r -> {
+      Thread t = new Thread(r, name + " " + count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+}
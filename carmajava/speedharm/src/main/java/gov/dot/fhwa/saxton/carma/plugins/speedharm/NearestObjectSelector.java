@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+/**
+ * Selects the nearest objects ahead of the host vehicle and within its lane from a stream of radar detections.
+ * <p>
+ * Detections for one radar message are supplied between calls to {@link #begin()} and {@link #end()} in a single
+ * pass. The k nearest are kept in a bounded max-heap, so a message of n objects costs O(n log k) with no sorting of
+ * the full list, and O(n) when only the nearest object is needed (k = 1). All storage is allocated on construction
+ * and reused across messages. Queries may be made from other threads and always see the results of the last completed message.
+ */
+public class NearestObjectSelector {
+
+  private final int capacity;
+  private final double laneHalfWidth;
+
+  // Working max-heap keyed on range, filled by the radar callback
+  private final double[] heapRanges;
+  private final double[] heapRangeRates;
+  private int heapSize = 0;
+
+  // Results of the last completed message, sorted by increasing range
+  private final double[] ranges;
+  private final double[] rangeRates;
+  private int count = 0;
+
+  /**
+   * Constructor
+   *
+   * @param capacity The maximum number of nearest objects retained for k-nearest queries
+   * @param laneHalfWidth The maximum lateral offset in m at which an object is considered in the host lane
+   */
+  public NearestObjectSelector(int capacity, double laneHalfWidth) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("NearestObjectSelector capacity must be at least 1");
+    }
+    this.capacity = capacity;
+    this.laneHalfWidth = laneHalfWidth;
+    heapRanges = new double[capacity];
+    heapRangeRates = new double[capacity];
+    ranges = new double[capacity];
+    rangeRates = new double[capacity];
+  }
+
+  /**
+   * Starts processing of a new set of detections
+   */
+  public void begin() {
+    heapSize = 0;
+  }
+
+  /**
+   * Considers a single detection. Objects behind the host vehicle or outside its lane are ignored.
+   *
+   * @param x The longitudinal distance to the object in m, positive ahead of the host vehicle
+   * @param y The lateral offset of the object in m
+   * @param rangeRate The relative speed of the object in m/s
+   */
+  public void offer(double x, double y, double rangeRate) {
+    if (x < 0.0 || Math.abs(y) > laneHalfWidth) {
+      return;
+    }
+
+    if (heapSize < capacity) {
+      heapRanges[heapSize] = x;
+      heapRangeRates[heapSize] = rangeRate;
+      siftUp(heapSize++);
+    } else if (x < heapRanges[0]) {
+      // Replace the farthest retained object
+      heapRanges[0] = x;
+      heapRangeRates[0] = rangeRate;
+      siftDown(0, heapSize);
+    }
+  }
+
+  /**
+   * Completes processing of the current set of detections and makes the results visible to queries
+   */
+  public void end() {
+    // Heap sort in place so the retained objects are in increasing range order
+    for (int last = heapSize - 1; last > 0; last--) {
+      swap(0, last);
+      siftDown(0, last);
+    }
+    synchronized (this) {
+      System.arraycopy(heapRanges, 0, ranges, 0, heapSize);
+      System.arraycopy(heapRangeRates, 0, rangeRates, 0, heapSize);
+      count = heapSize;
+    }
+  }
+
+  /**
+   * @return True if an object was found ahead in the host lane during the last message
+   */
+  public synchronized boolean hasNearest() {
+    return count > 0;
+  }
+
+  /**
+   * @return The range in m to the nearest object ahead in the host lane, or positive infinity if there is none
+   */
+  public synchronized double getNearestRange() {
+    return count > 0 ? ranges[0] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * @return The range rate in m/s of the nearest object ahead in the host lane, or 0 if there is none
+   */
+  public synchronized double getNearestRangeRate() {
+    return count > 0 ? rangeRates[0] : 0.0;
+  }
+
+  /**
+   * Copies the k nearest objects ahead in the host lane into caller provided arrays in increasing range order
+   *
+   * @param k The number of objects requested, at most the capacity of this selector
+   * @param rangesOut Receives the object ranges in m. Must hold at least k elements.
+   * @param rangeRatesOut Receives the object range rates in m/s. Must hold at least k elements.
+   * @return The number of objects written, which may be less than k
+   */
+  public synchronized int getNearest(int k, double[] rangesOut, double[] rangeRatesOut) {
+    int n = Math.min(Math.min(k, count), capacity);
+    System.arraycopy(ranges, 0, rangesOut, 0, n);
+    System.arraycopy(rangeRates, 0, rangeRatesOut, 0, n);
+    return n;
+  }
+
+  /**
+   * @return The maximum number of objects retained for k-nearest queries
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private void siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (heapRanges[parent] >= heapRanges[i]) {
+        return;
+      }
+      swap(parent, i);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i, int size) {
+    while (true) {
+      int left = 2 * i + 1;
+      if (left >= size) {
+        return;
+      }
+      int largest = left;
+      int right = left + 1;
+      if (right < size && heapRanges[right] > heapRanges[left]) {
+        largest = right;
+      }
+      if (heapRanges[i] >= heapRanges[largest]) {
+        return;
+      }
+      swap(i, largest);
+      i = largest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    double r = heapRanges[a];
+    heapRanges[a] = heapRanges[b];
+    heapRanges[b] = r;
+    double rr = heapRangeRates[a];
+    heapRangeRates[a] = heapRangeRates[b];
+    heapRangeRates[b] = rr;
+  }
+}
@@ -30,6 +30,8 @@ import org.springframework.web.client.RestTemplate;
 
 /** * Handles the communications necessary to create and destroy vehicle sessions on the
  * STOL infrastructure server
+ * <p>
+ * Sessions may be registered on a client thread while the plugin ends them, so all methods are synchronized.
  */
 public class SessionManager {
   protected String serverUrl;
@@ -45,7 +47,7 @@ public class SessionManager {
 
   protected ILogger log = LoggerManager.getLogger();
 
-  public void registerNewVehicleSession() {
+  public synchronized void registerNewVehicleSession() {
     if (serverVehicleId > 0) {
       log.warn("Attempted vehicle registration while session still open.");
       return;
@@ -72,11 +74,11 @@ public class SessionManager {
     log.info("Registration successful, assigned vehicle session ID: " + serverVehicleId);
   }
 
-  public int getServerSessionId() {
+  public synchronized int getServerSessionId() {
     return serverVehicleId;
   }
 
-  public void endVehicleSession() {
+  public synchronized void endVehicleSession() {
     if (serverVehicleId > 0) {
       restClient.delete(serverUrl + UrlConstants.VEHICLE_LIST + "/" + serverVehicleId);
       serverVehicleId = 0;
@@ -29,6 +29,7 @@ import gov.dot.fhwa.saxton.carma.guidance.plugins.AbstractPlugin;
 import gov.dot.fhwa.saxton.carma.guidance.plugins.IStrategicPlugin;
 import gov.dot.fhwa.saxton.carma.guidance.plugins.PluginServiceLocator;
 import gov.dot.fhwa.saxton.carma.guidance.trajectory.Trajectory;
+import gov.dot.fhwa.saxton.speedharm.api.objects.VehicleCommand;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -50,6 +51,9 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
   protected double minimumManeuverLength = 10.0;
   protected double maxAccel = 2.0;
   protected long maneuverTimeout = 3000; //ms
+  protected boolean asyncClientEnabled = false;
+  protected int requestTimeout = 2000; //ms
+  protected int commandPipelineDepth = 2;
 
   protected StatusUpdater statusUpdater = null;
   protected Thread statusUpdaterThread = null;
@@ -57,6 +61,8 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
   protected CommandReceiver commandReceiver = null;
   protected Thread commandReceiverThread = null;
 
+  protected AsyncSpeedHarmClient asyncClient = null;
+
   protected SessionManager sessionManager;
   protected VehicleDataManager vehicleDataManager;
   protected LocalDateTime lastUpdateTime = LocalDateTime.now();
@@ -85,18 +91,28 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
         10.0);
     maxAccel = pluginServiceLocator.getParameterSource().getDouble("~speed_harm_max_accel", 2.0);
     maneuverTimeout = pluginServiceLocator.getParameterSource().getInteger("~speed_harm_maneuver_timeout", 3000);
+    asyncClientEnabled = pluginServiceLocator.getParameterSource().getBoolean("~speed_harm_async_client", false);
+    requestTimeout = pluginServiceLocator.getParameterSource().getInteger("~speed_harm_request_timeout", 2000);
+    commandPipelineDepth = pluginServiceLocator.getParameterSource().getInteger("~speed_harm_command_pipeline_depth", 2);
 
     log.info("LoadedParam: infrastructure_server_url: " + serverUrl);
     log.info("LoadedParam: vehicle_id: " + vehicleId);
     log.info("LoadedParam: speed_harm_min_maneuver_length: " + minimumManeuverLength);
     log.info("LoadedParam: speed_harm_max_accel: " + maxAccel);
     log.info("LoadedParam: speed_harm_maneuver_timeout: " + maneuverTimeout);
+    log.info("LoadedParam: speed_harm_async_client: " + asyncClientEnabled);
+    log.info("LoadedParam: speed_harm_request_timeout: " + requestTimeout);
+    log.info("LoadedParam: speed_harm_command_pipeline_depth: " + commandPipelineDepth);
     
     List<HttpMessageConverter<?>> httpMappers = new ArrayList<HttpMessageConverter<?>>();
     MappingJackson2HttpMessageConverter jsonMapper = new MappingJackson2HttpMessageConverter();
     jsonMapper.getObjectMapper().findAndRegisterModules();
     httpMappers.add(jsonMapper);
     restClient.setMessageConverters(httpMappers);
+    if (asyncClientEnabled) {
+      // Bound every request so a slow server can never hold a request thread indefinitely
+      restClient.setRequestFactory(AsyncSpeedHarmClient.newRequestFactory(requestTimeout));
+    }
 
     vehicleDataManager = new VehicleDataManager();
     vehicleDataManager.init(pubSubService);
@@ -106,6 +122,16 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
 
   @Override
   public void onResume() {
+    if (asyncClientEnabled) {
+      if (asyncClient == null) {
+        // The client registers the session on its own scheduler, so resuming never waits on the server
+        asyncClient = new AsyncSpeedHarmClient(serverUrl, sessionManager, restClient, timestepDuration,
+            commandPipelineDepth, vehicleDataManager);
+        asyncClient.start();
+      }
+      return;
+    }
+
     // Loop until we connect to the server
     while (true) {
       try {
@@ -140,10 +166,10 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
   @Override
   public void loop() throws InterruptedException {
     long tsStart = System.currentTimeMillis();
-    if (statusUpdater.lastUpdateTime != null) {
+    LocalDateTime lastStatusTime = getLastStatusUpdateTime();
+    if (lastStatusTime != null) {
       // If we've successfully communicated with the server recently, signal our availability
-      java.time.Duration timeSinceLastUpdate = java.time.Duration.between(statusUpdater.lastUpdateTime,
-          LocalDateTime.now());
+      java.time.Duration timeSinceLastUpdate = java.time.Duration.between(lastStatusTime, LocalDateTime.now());
       if (timeSinceLastUpdate.toMillis() < 3 * timestepDuration) {
         setAvailability(true);
       } else {
@@ -161,6 +187,11 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
 
   @Override
   public void onSuspend() {
+    if (asyncClient != null) {
+      asyncClient.stop();
+      asyncClient = null;
+    }
+
     if (statusUpdaterThread != null && statusUpdater != null) {
       statusUpdaterThread.interrupt();
       statusUpdaterThread = null;
@@ -226,9 +257,10 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
 
   @Override
   public double getSpeedCommand() {
-    if (commandReceiver.getLastCommand() != null) {
+    VehicleCommand lastCommand = getLastCommand();
+    if (lastCommand != null) {
       log.info("Using received command");
-      return commandReceiver.getLastCommand().getSpeed();
+      return lastCommand.getSpeed();
     } else {
       log.info("Using previous vehicle speed");
       return vehicleDataManager.getSpeed();
@@ -242,12 +274,37 @@ public class SpeedHarmonizationPlugin extends AbstractPlugin implements ISpeedHa
 
   @Override
   public Duration getTimeSinceLastUpdate() {
-    if (commandReceiver != null && commandReceiver.getLastCommand() != null) {
+    VehicleCommand lastCommand = getLastCommand();
+    if (lastCommand != null) {
       LocalDateTime now = LocalDateTime.now();
-      long millis = java.time.Duration.between(commandReceiver.getLastCommand().getTimestamp(), now).toMillis();
+      long millis = java.time.Duration.between(lastCommand.getTimestamp(), now).toMillis();
       return Duration.fromMillis(millis);
     } else {
       return Duration.fromMillis(0);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * @return The latest command received by whichever client is active or null if none has been received
+   */
+  private VehicleCommand getLastCommand() {
+    if (asyncClient != null) {
+      return asyncClient.getLastCommand();
+    } else if (commandReceiver != null) {
+      return commandReceiver.getLastCommand();
+    }
+    return null;
+  }
+
+  /**
+   * @return The time the server last accepted a status update from whichever client is active
+   */
+  private LocalDateTime getLastStatusUpdateTime() {
+    if (asyncClient != null) {
+      return asyncClient.getLastUpdateTime();
+    } else if (statusUpdater != null) {
+      return statusUpdater.lastUpdateTime;
+    }
+    return null;
+  }
+}
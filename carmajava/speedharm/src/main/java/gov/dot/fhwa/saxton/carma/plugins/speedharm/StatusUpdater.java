@@ -38,9 +38,10 @@ public class StatusUpdater implements Runnable {
   protected VehicleDataManager vehicleDataManager;
   protected RestTemplate restClient;
   protected int vehicleId;
-  protected LocalDateTime lastUpdateTime = LocalDateTime.now();
-  protected Duration prevLatency = null;
-  protected Duration measuredLatency = null;
+  // Written by the thread sending updates and read by the plugin thread
+  protected volatile LocalDateTime lastUpdateTime = LocalDateTime.now();
+  protected volatile Duration prevLatency = null;
+  protected volatile Duration measuredLatency = null;
 
   StatusUpdater(String serverUrl, int vehicleId, RestTemplate restClient, long timestepDuration,
       VehicleDataManager vehicleDataManager) {
@@ -56,55 +57,14 @@ public class StatusUpdater implements Runnable {
     while (!Thread.currentThread().isInterrupted()) {
       long timestepStart = System.currentTimeMillis();
 
-      NetworkLatencyInformation latencyData = new NetworkLatencyInformation();
-      latencyData.setVehicleTxTimestamp(LocalDateTime.now());
-      latencyData.setVehicleMeasuredNetworkLatency(measuredLatency);
-
-      VehicleStatusUpdate vsu = new VehicleStatusUpdate();
-      vsu.setAutomatedControlState(vehicleDataManager.getAutomatedControl());
-      vsu.setDistanceToNearestRadarObject(vehicleDataManager.getRange());
-      vsu.setHeading(vehicleDataManager.getHeading());
-      vsu.setLat(vehicleDataManager.getLatitude());
-      vsu.setLon(vehicleDataManager.getLongitude());
-      vsu.setRelativeSpeedOfNearestRadarObject(vehicleDataManager.getRangeRate());
-      vsu.setSpeed(vehicleDataManager.getSpeed());
-      vsu.setAccel(vehicleDataManager.getAccel());
-      vsu.setNetworkLatencyInformation(latencyData);
-      vsu.setId((long) vehicleId);
+      VehicleStatusUpdate vsu = buildStatusUpdate();
 
       log.info("Sending VehicleStatusUpdate: " + vsu.toString());
 
-      VehicleStatusUpdate response = new VehicleStatusUpdate();
       LocalDateTime sendTime = LocalDateTime.now();
       try {
-        response = restClient.postForObject(serverUrl + STATUS_LIST + "/" + vehicleId, vsu, VehicleStatusUpdate.class);
-
-        if (response == null) {
-          log.warn("Infrastructure server rejected status update: " + vsu);
-        } else {
-          lastUpdateTime = LocalDateTime.now();
-          prevLatency = measuredLatency;
-          measuredLatency = Duration.between(sendTime, lastUpdateTime).dividedBy(2L);
-
-          long prevMs = 0;
-          if (prevLatency != null) {
-            prevMs = prevLatency.toMillis();
-          }
-
-          long curMs = measuredLatency.toMillis();
-          double diff = 0.0;
-          if (prevMs > 0) {
-            diff = 100 * (curMs - prevMs) / prevMs;
-          }
-
-          if (Math.abs(diff) > 20.0) {
-            //log.warn(String.format("Large network jitter detected! Latency was %.02f and now is %.02f, delta = %.02f%%",
-            //    prevMs, curMs, diff));
-          } else {
-            //log.info(String.format("Latency was %.02f and now is %.02f, delta = %.02f%%", prevMs, curMs, diff));
-          }
-
-        }
+        VehicleStatusUpdate response = restClient.postForObject(serverUrl + STATUS_LIST + "/" + vehicleId, vsu, VehicleStatusUpdate.class);
+        handleResponse(vsu, response, sendTime);
       } catch (RestClientException rce) {
         log.warn("Infrastructure server rejected status update: " + vsu);
       }
@@ -120,4 +80,63 @@ public class StatusUpdater implements Runnable {
       }
     }
   }
+
+  /**
+   * Builds a status update from the current vehicle data and the last measured network latency
+   */
+  protected VehicleStatusUpdate buildStatusUpdate() {
+    NetworkLatencyInformation latencyData = new NetworkLatencyInformation();
+    latencyData.setVehicleTxTimestamp(LocalDateTime.now());
+    latencyData.setVehicleMeasuredNetworkLatency(measuredLatency);
+
+    VehicleStatusUpdate vsu = new VehicleStatusUpdate();
+    vsu.setAutomatedControlState(vehicleDataManager.getAutomatedControl());
+    vsu.setDistanceToNearestRadarObject(vehicleDataManager.getRange());
+    vsu.setHeading(vehicleDataManager.getHeading());
+    vsu.setLat(vehicleDataManager.getLatitude());
+    vsu.setLon(vehicleDataManager.getLongitude());
+    vsu.setRelativeSpeedOfNearestRadarObject(vehicleDataManager.getRangeRate());
+    vsu.setSpeed(vehicleDataManager.getSpeed());
+    vsu.setAccel(vehicleDataManager.getAccel());
+    vsu.setNetworkLatencyInformation(latencyData);
+    vsu.setId((long) vehicleId);
+    return vsu;
+  }
+
+  /**
+   * Records the outcome of a status update sent to the server
+   *
+   * @param vsu The status update which was sent
+   * @param response The server response, null if the update was rejected
+   * @param sendTime The time at which the update was sent
+   */
+  protected void handleResponse(VehicleStatusUpdate vsu, VehicleStatusUpdate response, LocalDateTime sendTime) {
+    if (response == null) {
+      log.warn("Infrastructure server rejected status update: " + vsu);
+      return;
+    }
+
+    LocalDateTime responseTime = LocalDateTime.now();
+    prevLatency = measuredLatency;
+    measuredLatency = Duration.between(sendTime, responseTime).dividedBy(2L);
+    lastUpdateTime = responseTime;
+
+    long prevMs = 0;
+    if (prevLatency != null) {
+      prevMs = prevLatency.toMillis();
+    }
+
+    long curMs = measuredLatency.toMillis();
+    double diff = 0.0;
+    if (prevMs > 0) {
+      diff = 100 * (curMs - prevMs) / prevMs;
+    }
+
+    if (Math.abs(diff) > 20.0) {
+      //log.warn(String.format("Large network jitter detected! Latency was %.02f and now is %.02f, delta = %.02f%%",
+      //    prevMs, curMs, diff));
+    } else {
+      //log.info(String.format("Latency was %.02f and now is %.02f, delta = %.02f%%", prevMs, curMs, diff));
+    }
+  }
 }
@@ -15,9 +15,6 @@
 
 package gov.dot.fhwa.saxton.carma.plugins.speedharm;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
 import cav_msgs.ExternalObject;
 import cav_msgs.ExternalObjectList;
 import cav_msgs.HeadingStamped;
@@ -33,13 +30,22 @@ import sensor_msgs.NavSatFix;
  * Manages recieving data from the vehicle
  */
 public class VehicleDataManager {
+  // Number of nearest radar objects retained for k-nearest queries
+  protected static final int NEAREST_OBJECT_CAPACITY = 8;
+  // Half of a standard 3.7 m lane, objects with a larger lateral offset are not in the host lane
+  protected static final double LANE_HALF_WIDTH = 1.85;
+  // Range and range rate reported while no radar object is ahead in the host lane
+  protected static final double NO_OBJECT_RANGE = 0.0;
+  protected static final double NO_OBJECT_RANGE_RATE = 0.0;
+
   protected IPubSubService pubSubService;
+  protected final NearestObjectSelector nearestObjects = new NearestObjectSelector(NEAREST_OBJECT_CAPACITY, LANE_HALF_WIDTH);
   protected volatile AutomatedControlStatus automatedControl;
-  protected volatile double range;
+  protected volatile double range = NO_OBJECT_RANGE;
   protected volatile double heading;
   protected volatile double latitude;
   protected volatile double longitude;
-  protected volatile double rangeRate;
+  protected volatile double rangeRate = NO_OBJECT_RANGE_RATE;
   protected volatile double speed;
   protected volatile double accel;
   protected volatile boolean maneuverRunning = false;
@@ -78,16 +84,21 @@ public class VehicleDataManager {
     });
 
     radarSubscriber.registerOnMessageCallback(msg -> {
-      Optional<ExternalObject> closest = msg.getObjects().stream()
-          .sorted((ExternalObject obj1, ExternalObject obj2) -> {
-            return Double.compare(obj2.getPose().getPose().getPosition().getX(),
-                obj1.getPose().getPose().getPosition().getX());
-          }).findFirst();
-
-      closest.ifPresent((obj) -> {
-        range = obj.getPose().getPose().getPosition().getX();
-        rangeRate = obj.getRangeRate();
-      });
+      nearestObjects.begin();
+      for (ExternalObject obj : msg.getObjects()) {
+        geometry_msgs.Point position = obj.getPose().getPose().getPosition();
+        nearestObjects.offer(position.getX(), position.getY(), obj.getRangeRate());
+      }
+      nearestObjects.end();
+
+      if (nearestObjects.hasNearest()) {
+        range = nearestObjects.getNearestRange();
+        rangeRate = nearestObjects.getNearestRangeRate();
+      } else {
+        // Don't keep reporting an object which has left the lane
+        range = NO_OBJECT_RANGE;
+        rangeRate = NO_OBJECT_RANGE_RATE;
+      }
     });
 
     navSatSubscriber.registerOnMessageCallback(msg -> {
@@ -114,12 +125,24 @@ public class VehicleDataManager {
   }
 
   /**
-   * Get the distance to the nearest radar object on the long range radars
+   * Get the distance to the nearest radar object ahead in the host lane, or {@link #NO_OBJECT_RANGE} if there is none
    */
   public double getRange() {
     return range;
   }
 
+  /**
+   * Copies the k nearest radar objects ahead in the host lane, in increasing range order, into the provided arrays
+   *
+   * @param k The number of objects requested, at most {@link #NEAREST_OBJECT_CAPACITY}
+   * @param rangesOut Receives the object ranges in m
+   * @param rangeRatesOut Receives the object relative speeds in m/s
+   * @return The number of objects written
+   */
+  public int getNearestObjects(int k, double[] rangesOut, double[] rangeRatesOut) {
+    return nearestObjects.getNearest(k, rangesOut, rangeRatesOut);
+  }
+
   /**
    * Get the heading of the vehicle in degrees
    */
@@ -142,7 +165,7 @@ public class VehicleDataManager {
   }
 
   /**
-   * Get the relative speed of the nearest radar object in meters per second
+   * Get the relative speed of the nearest radar object in meters per second, or {@link #NO_OBJECT_RANGE_RATE} if there is none
    */
   public double getRangeRate() {
     return rangeRate;
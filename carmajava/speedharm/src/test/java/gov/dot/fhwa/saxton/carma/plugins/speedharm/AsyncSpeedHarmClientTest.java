@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+import gov.dot.fhwa.saxton.carma.guidance.util.ILogger;
+import gov.dot.fhwa.saxton.carma.guidance.util.ILoggerFactory;
+import gov.dot.fhwa.saxton.carma.guidance.util.LoggerManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyObject;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the non-blocking speed harmonization client against an in-process stub server
+ */
+public class AsyncSpeedHarmClientTest {
+  private StubInfrastructureServer server;
+  private RestTemplate restClient;
+  private AsyncSpeedHarmClient client;
+
+  @Before
+  public void setup() throws Exception {
+    ILoggerFactory mockFact = mock(ILoggerFactory.class);
+    ILogger mockLogger = mock(ILogger.class);
+    when(mockFact.createLoggerForClass(anyObject())).thenReturn(mockLogger);
+    LoggerManager.setLoggerFactory(mockFact);
+
+    server = new StubInfrastructureServer();
+    server.start();
+
+    restClient = new RestTemplate(AsyncSpeedHarmClient.newRequestFactory(500));
+    List<HttpMessageConverter<?>> httpMappers = new ArrayList<HttpMessageConverter<?>>();
+    MappingJackson2HttpMessageConverter jsonMapper = new MappingJackson2HttpMessageConverter();
+    jsonMapper.getObjectMapper().findAndRegisterModules();
+    httpMappers.add(jsonMapper);
+    restClient.setMessageConverters(httpMappers);
+  }
+
+  @After
+  public void teardown() {
+    if (client != null) {
+      client.stop();
+    }
+    server.stop();
+  }
+
+  private AsyncSpeedHarmClient newClient(long timestep, int pipelineDepth) {
+    return newClient(timestep, pipelineDepth, new VehicleDataManager());
+  }
+
+  private AsyncSpeedHarmClient newClient(long timestep, int pipelineDepth, VehicleDataManager vehicleDataManager) {
+    SessionManager sessionManager = new SessionManager(server.getUrl(), "test_vehicle", restClient);
+    return new AsyncSpeedHarmClient(server.getUrl(), sessionManager, restClient, timestep, pipelineDepth,
+        vehicleDataManager);
+  }
+
+  @Test
+  public void testStatusAndCommands() throws Exception {
+    server.setCommandDelay(20);
+    server.setCommandSpeed(12.5);
+    client = newClient(20, 3);
+    client.start();
+
+    waitFor(() -> client.getStatusesSent() >= 5 && client.getCommandsReceived() >= 5, 5000);
+    assertNotNull(client.getLastCommand());
+    assertEquals(12.5, client.getLastCommand().getSpeed(), 0.0001);
+    assertNotNull(client.getLastUpdateTime());
+    assertTrue(server.getMaxConcurrentCommands() <= 3);
+    assertEquals(0, client.getFailedRequests());
+
+    // Commands follow changes on the server
+    server.setCommandSpeed(5.0);
+    waitFor(() -> client.getLastCommand().getSpeed() == 5.0, 5000);
+
+    client.stop();
+    assertFalse(client.isRunning());
+  }
+
+  @Test
+  public void testSlowServerCoalescesStatus() throws Exception {
+    // Each update takes several timesteps so most samples must be replaced rather than queued
+    server.setStatusDelay(100);
+    client = newClient(10, 1);
+
+    long start = System.currentTimeMillis();
+    client.start();
+    assertTrue(System.currentTimeMillis() - start < 100); // Starting never waits on the server
+
+    waitFor(() -> client.getStatusesCoalesced() >= 10 && client.getStatusesSent() >= 2, 5000);
+    client.stop();
+
+    // Only one update is ever in flight, so the server saw at most one per delay period
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue(server.getStatusCount() <= elapsed / 100 + 1);
+  }
+
+  @Test
+  public void testTimeouts() throws Exception {
+    // Commands take longer than the request timeout so every request fails
+    server.setCommandDelay(1000);
+    client = newClient(50, 2);
+    client.start();
+
+    waitFor(() -> client.getFailedRequests() >= 2, 5000);
+    assertEquals(null, client.getLastCommand());
+
+    // Recovers once the server speeds up
+    server.setCommandDelay(0);
+    waitFor(() -> client.getLastCommand() != null, 5000);
+  }
+
+  @Test
+  public void testRegistrationRetriedInBackground() throws Exception {
+    server.setRegistrationFailures(3);
+    client = newClient(20, 1);
+
+    long start = System.currentTimeMillis();
+    client.start();
+    assertTrue(System.currentTimeMillis() - start < 100); // Starting never waits for registration
+    assertEquals(0, client.getVehicleSessionId());
+
+    waitFor(() -> client.getStatusesSent() >= 1, 5000);
+    assertTrue(client.getVehicleSessionId() > 0);
+    assertEquals(3, client.getFailedRequests());
+  }
+
+  @Test
+  public void testTimestepSurvivesException() throws Exception {
+    AtomicInteger samples = new AtomicInteger(0);
+    client = newClient(10, 1, new VehicleDataManager() {
+      @Override
+      public double getSpeed() {
+        if (samples.incrementAndGet() <= 2) {
+          throw new IllegalStateException("No speed yet");
+        }
+        return super.getSpeed();
+      }
+    });
+    client.start();
+
+    // The failed samples do not cancel the schedule
+    waitFor(() -> client.getStatusesSent() >= 2, 5000);
+    assertTrue(samples.get() > 2);
+  }
+
+  private interface Condition {
+    boolean isMet();
+  }
+
+  private static void waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (!condition.isMet()) {
+      assertTrue("Timed out waiting for condition", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NearestObjectSelectorTest {
+
+  @Test public void testNearestInLane() {
+    NearestObjectSelector selector = new NearestObjectSelector(3, 1.85);
+
+    selector.begin();
+    selector.offer(50.0, 0.5, -1.0);
+    selector.offer(20.0, 3.0, -2.0); // Adjacent lane
+    selector.offer(-5.0, 0.0, -3.0); // Behind
+    selector.offer(30.0, -1.0, -4.0);
+    selector.end();
+
+    assertTrue(selector.hasNearest());
+    assertEquals(30.0, selector.getNearestRange(), 0.0001);
+    assertEquals(-4.0, selector.getNearestRangeRate(), 0.0001);
+
+    // A message with nothing in lane clears the result
+    selector.begin();
+    selector.offer(10.0, 5.0, 0.0);
+    selector.end();
+    assertFalse(selector.hasNearest());
+    assertEquals(Double.POSITIVE_INFINITY, selector.getNearestRange(), 0.0);
+  }
+
+  @Test public void testKNearest() {
+    NearestObjectSelector selector = new NearestObjectSelector(4, 2.0);
+    Random rand = new Random(42);
+    double[] ranges = new double[4];
+    double[] rates = new double[4];
+
+    // Compare against a full sort over several reused messages
+    for (int msg = 0; msg < 20; msg++) {
+      int n = rand.nextInt(50);
+      double[] expected = new double[n];
+      selector.begin();
+      for (int i = 0; i < n; i++) {
+        expected[i] = rand.nextDouble() * 200.0;
+        selector.offer(expected[i], 0.0, -expected[i]);
+      }
+      selector.end();
+      Arrays.sort(expected);
+
+      int count = selector.getNearest(4, ranges, rates);
+      assertEquals(Math.min(4, n), count);
+      for (int i = 0; i < count; i++) {
+        assertEquals(expected[i], ranges[i], 0.0);
+        assertEquals(-expected[i], rates[i], 0.0);
+      }
+    }
+
+    // Requests smaller than the capacity are honored
+    selector.begin();
+    selector.offer(3.0, 0.0, 0.0);
+    selector.offer(1.0, 0.0, 0.0);
+    selector.offer(2.0, 0.0, 0.0);
+    selector.end();
+    assertEquals(2, selector.getNearest(2, ranges, rates));
+    assertEquals(1.0, ranges[0], 0.0);
+    assertEquals(2.0, ranges[1], 0.0);
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gov.dot.fhwa.saxton.speedharm.api.objects.VehicleCommand;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gov.dot.fhwa.saxton.carma.plugins.speedharm.UrlConstants.*;
+
+/**
+ * In-process stand in for the STOL infrastructure server used to exercise the speed harmonization clients offline
+ * <p>
+ * Registers vehicle sessions, echoes status updates back to the sender and answers command requests with a
+ * configurable speed. Response delays can be changed at any time to simulate a slow server.
+ */
+public class StubInfrastructureServer {
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final AtomicInteger nextSessionId = new AtomicInteger(1);
+  private final AtomicInteger statusCount = new AtomicInteger(0);
+  private final AtomicInteger commandCount = new AtomicInteger(0);
+  private final AtomicInteger maxConcurrentCommands = new AtomicInteger(0);
+  private final AtomicInteger concurrentCommands = new AtomicInteger(0);
+  private volatile long statusDelayMs = 0;
+  private volatile long commandDelayMs = 0;
+  private volatile double commandSpeed = 10.0;
+  private final AtomicInteger registrationFailures = new AtomicInteger(0);
+
+  public StubInfrastructureServer() throws IOException {
+    mapper.findAndRegisterModules();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(executor);
+    server.createContext(VEHICLE_LIST, this::handleVehicles);
+    server.createContext(STATUS_LIST, this::handleStatus);
+    server.createContext(COMMANDS_LIST, this::handleCommand);
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  public String getUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public void setStatusDelay(long ms) {
+    statusDelayMs = ms;
+  }
+
+  public void setCommandDelay(long ms) {
+    commandDelayMs = ms;
+  }
+
+  public void setCommandSpeed(double speed) {
+    commandSpeed = speed;
+  }
+
+  public void setRegistrationFailures(int count) {
+    registrationFailures.set(count);
+  }
+
+  public int getStatusCount() {
+    return statusCount.get();
+  }
+
+  public int getCommandCount() {
+    return commandCount.get();
+  }
+
+  public int getMaxConcurrentCommands() {
+    return maxConcurrentCommands.get();
+  }
+
+  private void handleVehicles(HttpExchange exchange) throws IOException {
+    readBody(exchange);
+    if ("POST".equals(exchange.getRequestMethod()) && registrationFailures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+      respond(exchange, 503, null);
+    } else if ("POST".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("Location", VEHICLE_LIST + "/" + nextSessionId.getAndIncrement());
+      respond(exchange, 201, "[]");
+    } else {
+      respond(exchange, 200, null);
+    }
+  }
+
+  private void handleStatus(HttpExchange exchange) throws IOException {
+    byte[] body = readBody(exchange);
+    sleep(statusDelayMs);
+    statusCount.incrementAndGet();
+    respond(exchange, 200, new String(body, StandardCharsets.UTF_8));
+  }
+
+  private void handleCommand(HttpExchange exchange) throws IOException {
+    readBody(exchange);
+    maxConcurrentCommands.accumulateAndGet(concurrentCommands.incrementAndGet(), Math::max);
+    try {
+      sleep(commandDelayMs);
+      VehicleCommand cmd = new VehicleCommand();
+      cmd.setSpeed(commandSpeed);
+      cmd.setTimestamp(LocalDateTime.now());
+      commandCount.incrementAndGet();
+      respond(exchange, 200, mapper.writeValueAsString(cmd));
+    } finally {
+      concurrentCommands.decrementAndGet();
+    }
+  }
+
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] buf = new byte[1024];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        out.write(buf, 0, n);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+    if (json == null) {
+      exchange.sendResponseHeaders(code, -1);
+      exchange.close();
+      return;
+    }
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void sleep(long ms) {
+    if (ms <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
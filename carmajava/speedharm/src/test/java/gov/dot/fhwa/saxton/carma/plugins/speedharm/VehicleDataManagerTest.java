@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2018-2019 LEIDOS.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package gov.dot.fhwa.saxton.carma.plugins.speedharm;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ros.message.MessageFactory;
+import org.ros.node.NodeConfiguration;
+
+import cav_msgs.ExternalObject;
+import cav_msgs.ExternalObjectList;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.IPubSubService;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.ISubscriber;
+import gov.dot.fhwa.saxton.carma.guidance.pubsub.OnMessageCallback;
+
+public class VehicleDataManagerTest {
+
+  NodeConfiguration nodeConfiguration = NodeConfiguration.newPrivate();
+  MessageFactory messageFactory = nodeConfiguration.getTopicMessageFactory();
+
+  private VehicleDataManager vehicleDataManager;
+  private OnMessageCallback<ExternalObjectList> radarCallback;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    IPubSubService pubSub = mock(IPubSubService.class);
+    when(pubSub.getSubscriberForTopic(anyString(), anyString())).thenAnswer((invocation) -> mock(ISubscriber.class));
+    ISubscriber<ExternalObjectList> radarSub = mock(ISubscriber.class);
+    when(pubSub.getSubscriberForTopic(eq("objects"), anyString())).thenReturn((ISubscriber) radarSub);
+
+    vehicleDataManager = new VehicleDataManager();
+    vehicleDataManager.init(pubSub);
+
+    ArgumentCaptor<OnMessageCallback> radarCaptor = ArgumentCaptor.forClass(OnMessageCallback.class);
+    verify(radarSub).registerOnMessageCallback(radarCaptor.capture());
+    radarCallback = radarCaptor.getValue();
+  }
+
+  private ExternalObjectList objects(double[]... objects) {
+    ExternalObjectList msg = messageFactory.newFromType(ExternalObjectList._TYPE);
+    List<ExternalObject> list = new ArrayList<>();
+    for (double[] object : objects) {
+      ExternalObject obj = messageFactory.newFromType(ExternalObject._TYPE);
+      obj.getPose().getPose().getPosition().setX(object[0]);
+      obj.getPose().getPose().getPosition().setY(object[1]);
+      obj.setRangeRate((float) object[2]);
+      list.add(obj);
+    }
+    msg.setObjects(list);
+    return msg;
+  }
+
+  @Test
+  public void testNearestInLaneObject() {
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE, vehicleDataManager.getRange(), 0.0);
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE_RATE, vehicleDataManager.getRangeRate(), 0.0);
+
+    radarCallback.onMessage(objects(new double[] { 50.0, 0.5, -1.0 }, new double[] { 30.0, -1.0, -4.0 }));
+    assertEquals(30.0, vehicleDataManager.getRange(), 0.0001);
+    assertEquals(-4.0, vehicleDataManager.getRangeRate(), 0.0001);
+  }
+
+  @Test
+  public void testObjectsPresentNoneInLane() {
+    radarCallback.onMessage(objects(new double[] { 30.0, 0.0, -4.0 }));
+    assertEquals(30.0, vehicleDataManager.getRange(), 0.0001);
+
+    // Objects in the adjacent lane and behind must not leave the previous object reported
+    radarCallback.onMessage(objects(new double[] { 20.0, 3.0, -2.0 }, new double[] { -5.0, 0.0, -3.0 }));
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE, vehicleDataManager.getRange(), 0.0);
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE_RATE, vehicleDataManager.getRangeRate(), 0.0);
+
+    radarCallback.onMessage(objects(new double[] { 40.0, 0.0, -1.0 }));
+    radarCallback.onMessage(objects());
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE, vehicleDataManager.getRange(), 0.0);
+    assertEquals(VehicleDataManager.NO_OBJECT_RANGE_RATE, vehicleDataManager.getRangeRate(), 0.0);
+  }
+}
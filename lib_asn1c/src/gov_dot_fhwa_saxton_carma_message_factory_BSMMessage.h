@@ -7,6 +7,58 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MSG_COUNT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MSG_COUNT 0L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ID
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ID 1L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEC_MARK
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEC_MARK 5L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LAT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LAT 6L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LON
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LON 7L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ELEV
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ELEV 8L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MAJOR
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MAJOR 9L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MINOR
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MINOR 10L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ORIENTATION
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ORIENTATION 11L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRANSMISSION
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRANSMISSION 12L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SPEED
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SPEED 13L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_HEADING
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_HEADING 14L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ANGLE
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ANGLE 15L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LAT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LAT 16L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LONG
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LONG 17L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_VERT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_VERT 18L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_YAW
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_YAW 19L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WHEEL_BRAKES
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WHEEL_BRAKES 20L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRACTION
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRACTION 21L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ABS
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ABS 22L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SCS
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SCS 23L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BRAKE_BOOST
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BRAKE_BOOST 24L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_AUX_BRAKES
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_AUX_BRAKES 25L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WIDTH
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WIDTH 26L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LENGTH
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LENGTH 27L
+#undef gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_FIELD_COUNT
+#define gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_FIELD_COUNT 28L
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
  * Method:    encode_BSM
@@ -23,6 +75,22 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMM
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decode_1BSM
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jobject, jobject, jobject, jbyteArray, jobject);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    encodeBSMDirect
+ * Signature: ([ILjava/nio/ByteBuffer;)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encodeBSMDirect
+  (JNIEnv *, jobject, jintArray, jobject);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
+ * Method:    decodeBSMDirect
+ * Signature: (Ljava/nio/ByteBuffer;I[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decodeBSMDirect
+  (JNIEnv *, jobject, jobject, jint, jintArray);
+
 #ifdef __cplusplus
 }
 #endif
@@ -23,6 +23,22 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPath
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathDirect
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray);
+
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathFlat
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathFlat
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jbyteArray, jintArray);
+
 #ifdef __cplusplus
 }
 #endif
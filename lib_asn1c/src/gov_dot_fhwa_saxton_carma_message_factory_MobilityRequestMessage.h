@@ -23,6 +23,14 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
   (JNIEnv *, jobject, jbyteArray, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jobject, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray, jbyteArray);
 
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage
+ * Method:    decodeMobilityRequestDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[B[BLjava/lang/Object;Ljava/lang/Object;[B[BLjava/lang/Object;[B[[I[B)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequestDirect
+  (JNIEnv *, jobject, jobject, jint, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jobject, jobject, jbyteArray, jbyteArray, jobject, jbyteArray, jobjectArray, jbyteArray);
+
 #ifdef __cplusplus
 }
 #endif
@@ -15,6 +15,7 @@
  */
 
 #include <stdio.h>
+#include <string.h>
 #include <sys/types.h>
 #include "gov_dot_fhwa_saxton_carma_message_factory_BSMMessage.h"
 #include "gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage.h"
@@ -25,6 +26,76 @@
 #include "gov_dot_fhwa_saxton_carma_message_factory_SPATMessage.h"
 #include "MessageFrame.h"
 
+/* Indices of the BSM core data fields in the flat layout shared with BSMMessage */
+#define BSM_MSG_COUNT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_MSG_COUNT
+#define BSM_ID gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ID
+#define BSM_SEC_MARK gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEC_MARK
+#define BSM_LAT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LAT
+#define BSM_LON gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LON
+#define BSM_ELEV gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ELEV
+#define BSM_SEMI_MAJOR gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MAJOR
+#define BSM_SEMI_MINOR gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SEMI_MINOR
+#define BSM_ORIENTATION gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ORIENTATION
+#define BSM_TRANSMISSION gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRANSMISSION
+#define BSM_SPEED gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SPEED
+#define BSM_HEADING gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_HEADING
+#define BSM_ANGLE gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ANGLE
+#define BSM_ACCEL_LAT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LAT
+#define BSM_ACCEL_LONG gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_LONG
+#define BSM_ACCEL_VERT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_VERT
+#define BSM_ACCEL_YAW gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ACCEL_YAW
+#define BSM_WHEEL_BRAKES gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WHEEL_BRAKES
+#define BSM_TRACTION gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_TRACTION
+#define BSM_ABS gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_ABS
+#define BSM_SCS gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_SCS
+#define BSM_BRAKE_BOOST gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_BRAKE_BOOST
+#define BSM_AUX_BRAKES gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_AUX_BRAKES
+#define BSM_WIDTH gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_WIDTH
+#define BSM_LENGTH gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_LENGTH
+#define BSM_FIELD_COUNT gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_FIELD_COUNT
+
+/**
+ * Decodes a MessageFrame from the content of a Java byte array.
+ * The array content is released without being copied back because it is only read.
+ * Returns NULL when decoding failed or the frame does not hold the expected message type.
+ * The caller is responsible for freeing the returned frame with ASN_STRUCT_FREE.
+ */
+static MessageFrame_t *decode_array_frame(JNIEnv *env, jbyteArray encoded, MessageFrame__value_PR expected) {
+	MessageFrame_t *message = 0; /* Type to decode */
+	jsize len = (*env) -> GetArrayLength(env, encoded); /* Number of bytes in encoded array */
+	jbyte *content = (*env) -> GetByteArrayElements(env, encoded, 0); /* Get Java byte array content */
+	if(content == NULL) {
+		return NULL;
+	}
+	asn_dec_rval_t rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, content, len, 0, 0);
+	(*env) -> ReleaseByteArrayElements(env, encoded, content, JNI_ABORT);
+	if(rval.code != RC_OK || message -> value.present != expected) {
+		ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+		return NULL;
+	}
+	return message;
+}
+
+/**
+ * Decodes a MessageFrame from the first length bytes of a direct java.nio.ByteBuffer.
+ * The decoder reads the buffer memory in place so no copy of the encoded message is made.
+ * Returns NULL when the buffer is not direct, decoding failed or the frame does not hold the expected message type.
+ * The caller is responsible for freeing the returned frame with ASN_STRUCT_FREE.
+ */
+static MessageFrame_t *decode_direct_frame(JNIEnv *env, jobject encoded, jint length, MessageFrame__value_PR expected) {
+	MessageFrame_t *message = 0; /* Type to decode */
+	void *content = (*env) -> GetDirectBufferAddress(env, encoded);
+	if(content == NULL || length < 0 || length > (*env) -> GetDirectBufferCapacity(env, encoded)) {
+		return NULL;
+	}
+	asn_dec_rval_t rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, content, length, 0, 0);
+	if(rval.code != RC_OK || message -> value.present != expected) {
+		ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+		return NULL;
+	}
+	return message;
+}
+
 /**
  * BSM Encoder:
  * This function can encode an BSM object from Java to a byte array in J2735 standards.
@@ -251,6 +322,127 @@ JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage
 	return 0;
 }
 
+/**
+ * BSM Direct Encoder:
+ * This function encodes BSM core data passed as a flat int array in the layout defined by BSMMessage
+ * into a direct java.nio.ByteBuffer, so neither the fields nor the encoded message need a Java object per call.
+ * Return the number of encoded bytes written to the buffer or -1 when an error happened.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_encodeBSMDirect
+  (JNIEnv *env, jobject cls, jintArray fields, jobject encodedBuffer) {
+
+	uint8_t *buffer = (*env) -> GetDirectBufferAddress(env, encodedBuffer);
+	jlong buffer_size = (*env) -> GetDirectBufferCapacity(env, encodedBuffer);
+	if(buffer == NULL || buffer_size <= 0 || (*env) -> GetArrayLength(env, fields) < BSM_FIELD_COUNT) {
+		return -1;
+	}
+	jint f[BSM_FIELD_COUNT];
+	(*env) -> GetIntArrayRegion(env, fields, 0, BSM_FIELD_COUNT, f);
+
+	MessageFrame_t message;
+	memset(&message, 0, sizeof(message));
+
+	//set default fields of BSM
+	message.messageId = 20;
+	message.value.present = MessageFrame__value_PR_BasicSafetyMessage;
+
+	//Set fields
+	BSMcoreData_t *core = &message.value.choice.BasicSafetyMessage.coreData;
+	core -> msgCnt = f[BSM_MSG_COUNT];
+	uint8_t id_content[4];
+	for(int i = 0; i < 4; i++) {
+		id_content[i] = (uint8_t) f[BSM_ID + i];
+	}
+	core -> id.buf = id_content;
+	core -> id.size = 4;
+	core -> secMark = f[BSM_SEC_MARK];
+	core -> lat = f[BSM_LAT];
+	core -> Long = f[BSM_LON];
+	core -> elev = f[BSM_ELEV];
+	core -> accuracy.semiMajor = f[BSM_SEMI_MAJOR];
+	core -> accuracy.semiMinor = f[BSM_SEMI_MINOR];
+	core -> accuracy.orientation = f[BSM_ORIENTATION];
+	core -> transmission = f[BSM_TRANSMISSION];
+	core -> speed = f[BSM_SPEED];
+	core -> heading = f[BSM_HEADING];
+	core -> angle = f[BSM_ANGLE];
+	core -> accelSet.lat = f[BSM_ACCEL_LAT];
+	core -> accelSet.Long = f[BSM_ACCEL_LONG];
+	core -> accelSet.vert = f[BSM_ACCEL_VERT];
+	core -> accelSet.yaw = f[BSM_ACCEL_YAW];
+	uint8_t brake_content[1];
+	brake_content[0] = (uint8_t) f[BSM_WHEEL_BRAKES];
+	core -> brakes.wheelBrakes.bits_unused = 3;
+	core -> brakes.wheelBrakes.buf = brake_content;
+	core -> brakes.wheelBrakes.size = 1;
+	core -> brakes.traction = f[BSM_TRACTION];
+	core -> brakes.abs = f[BSM_ABS];
+	core -> brakes.scs = f[BSM_SCS];
+	core -> brakes.brakeBoost = f[BSM_BRAKE_BOOST];
+	core -> brakes.auxBrakes = f[BSM_AUX_BRAKES];
+	core -> size.width = f[BSM_WIDTH];
+	core -> size.length = f[BSM_LENGTH];
+
+	//all members point to stack memory, so the frame is not freed
+	asn_enc_rval_t ec = uper_encode_to_buffer(&asn_DEF_MessageFrame, 0, &message, buffer, buffer_size);
+	if(ec.encoded == -1) {
+		return -1;
+	}
+	return ec.encoded / 8;
+}
+
+/**
+ * BSM Direct Decoder:
+ * This function decodes the first length bytes of a direct java.nio.ByteBuffer in J2735 standards
+ * and writes the BSM core data into a flat int array in the layout defined by BSMMessage with a single copy.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_BSMMessage_decodeBSMDirect
+  (JNIEnv *env, jobject cls, jobject encodedBuffer, jint length, jintArray fields) {
+
+	if((*env) -> GetArrayLength(env, fields) < BSM_FIELD_COUNT) {
+		return -1;
+	}
+	MessageFrame_t *message = decode_direct_frame(env, encodedBuffer, length, MessageFrame__value_PR_BasicSafetyMessage);
+	if(message == NULL) {
+		return -1;
+	}
+
+	BSMcoreData_t *core = &message -> value.choice.BasicSafetyMessage.coreData;
+	jint f[BSM_FIELD_COUNT];
+	f[BSM_MSG_COUNT] = core -> msgCnt;
+	for(int i = 0; i < 4; i++) {
+		f[BSM_ID + i] = i < core -> id.size ? core -> id.buf[i] : 0;
+	}
+	f[BSM_SEC_MARK] = core -> secMark;
+	f[BSM_LAT] = core -> lat;
+	f[BSM_LON] = core -> Long;
+	f[BSM_ELEV] = core -> elev;
+	f[BSM_SEMI_MAJOR] = core -> accuracy.semiMajor;
+	f[BSM_SEMI_MINOR] = core -> accuracy.semiMinor;
+	f[BSM_ORIENTATION] = core -> accuracy.orientation;
+	f[BSM_TRANSMISSION] = core -> transmission;
+	f[BSM_SPEED] = core -> speed;
+	f[BSM_HEADING] = core -> heading;
+	f[BSM_ANGLE] = core -> angle;
+	f[BSM_ACCEL_LAT] = core -> accelSet.lat;
+	f[BSM_ACCEL_LONG] = core -> accelSet.Long;
+	f[BSM_ACCEL_VERT] = core -> accelSet.vert;
+	f[BSM_ACCEL_YAW] = core -> accelSet.yaw;
+	f[BSM_WHEEL_BRAKES] = core -> brakes.wheelBrakes.size > 0 ? core -> brakes.wheelBrakes.buf[0] : 0;
+	f[BSM_TRACTION] = core -> brakes.traction;
+	f[BSM_ABS] = core -> brakes.abs;
+	f[BSM_SCS] = core -> brakes.scs;
+	f[BSM_BRAKE_BOOST] = core -> brakes.brakeBoost;
+	f[BSM_AUX_BRAKES] = core -> brakes.auxBrakes;
+	f[BSM_WIDTH] = core -> size.width;
+	f[BSM_LENGTH] = core -> size.length;
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+
+	(*env) -> SetIntArrayRegion(env, fields, 0, BSM_FIELD_COUNT, f);
+	return 0;
+}
+
 /**
  * MobilityRequest Encoder:
  * This function can encode an MobilityRequest message object from Java to
@@ -500,129 +692,135 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 }
 
 /**
- * Mobility Reuqest Decoder:
- * This function can decode a byte array in J2735 standards to
- * a messageFrame structure and map to a ROS MobilityRequest object.
- * Return -1 means an error has happened; return 0 means decoding succeed.
+ * Maps the content of a decoded MobilityRequest frame to the Java output objects and arrays.
  */
+static void map_mobility_request(JNIEnv *env, MessageFrame_t *message, jobject request, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType, jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation, jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
+	//get jclass of each jobject
+	jclass mobility_class = (*env) -> GetObjectClass(env, request);
+	jclass plan_type_class = (*env) -> GetObjectClass(env, planType);
+	jclass current_location_class = (*env) -> GetObjectClass(env, location);
+	jclass start_location_class = (*env) -> GetObjectClass(env, startLocation);
+
+	//set senderId, targetId, bsmId, planId and creation timestamp
+	uint8_t *sender_id_content = message -> value.choice.TestMessage00.header.hostStaticId.buf;
+	size_t sender_id_size = message -> value.choice.TestMessage00.header.hostStaticId.size;
+	(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
+	uint8_t *target_id_content = message -> value.choice.TestMessage00.header.targetStaticId.buf;
+	size_t target_id_size = message -> value.choice.TestMessage00.header.targetStaticId.size;
+	(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
+	uint8_t *bsm_id_content = message -> value.choice.TestMessage00.header.hostBSMId.buf;
+	(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
+	uint8_t *plan_id_content = message -> value.choice.TestMessage00.header.planId.buf;
+	(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
+	uint8_t *creation_time_content = message -> value.choice.TestMessage00.header.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
 
-JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
-  (JNIEnv *env, jobject cls, jbyteArray encodedReq, jobject request, jbyteArray senderId, jbyteArray targetId,
-   jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType,
-   jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation,
-   jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
+	//set strategy string
+	uint8_t *strategy_content = message -> value.choice.TestMessage00.body.strategy.buf;
+	size_t strategy_size = message -> value.choice.TestMessage00.body.strategy.size;
+	(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
 
-	//Build a log in test file to debug if necessary
-	//FILE *fp;
-	//fp = fopen("/home/qsw/carma/log_C.txt", "w");
-	//fprintf(fp, "decodeMobilityRequest function is called\n");
+	//set plan type
+	jmethodID mid_setPlanType = (*env) -> GetMethodID(env, plan_type_class, "setType", "(B)V");
+	jbyte plan_type = message -> value.choice.TestMessage00.body.planType;
+	(*env) -> CallVoidMethod(env, planType, mid_setPlanType, plan_type);
+
+	//set urgency
+	jmethodID mid_setUrgency = (*env) -> GetMethodID(env, mobility_class, "setUrgency", "(S)V");
+	jshort urgency_value = message -> value.choice.TestMessage00.body.urgency;
+	(*env) -> CallVoidMethod(env, request, mid_setUrgency, urgency_value);
+
+	//set current location in ECEF frame
+	jmethodID mid_setEcefX = (*env) -> GetMethodID(env, current_location_class, "setEcefX", "(I)V");
+	jmethodID mid_setEcefY = (*env) -> GetMethodID(env, current_location_class, "setEcefY", "(I)V");
+	jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, current_location_class, "setEcefZ", "(I)V");
+	jint ecef_x = message -> value.choice.TestMessage00.body.location.ecefX;
+	jint ecef_y = message -> value.choice.TestMessage00.body.location.ecefY;
+	jint ecef_z = message -> value.choice.TestMessage00.body.location.ecefZ;
+	(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
+	uint8_t *location_time_content = message -> value.choice.TestMessage00.body.location.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
 
-	asn_dec_rval_t rval; /* Decoder return value */
-	MessageFrame_t *message = 0; /* Construct MessageFrame */
+	//set strategy parameters
+	uint8_t *strategy_params_content = message -> value.choice.TestMessage00.body.strategyParams.buf;
+	size_t strategy_params_size = message -> value.choice.TestMessage00.body.strategyParams.size;
+	(*env) -> SetByteArrayRegion(env, strategyParams, 0, strategy_params_size, strategy_params_content);
+
+	//set trajectory start location if necessary
+	if(message -> value.choice.TestMessage00.body.trajectoryStart) {
+		jint start_ecef_x = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefX;
+		jint start_ecef_y = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefY;
+		jint start_ecef_z = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefZ;
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefX, start_ecef_x);
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefY, start_ecef_y);
+		(*env) -> CallVoidMethod(env, startLocation, mid_setEcefZ, start_ecef_z);
+		uint8_t *start_location_time_content = message -> value.choice.TestMessage00.body.trajectoryStart -> timestamp.buf;
+		(*env) -> SetByteArrayRegion(env, startTimestamp, 0, 19, start_location_time_content);
+	}
+
+	// set trajectory offset data if necessary
+	if(message -> value.choice.TestMessage00.body.trajectory) {
+		jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
+		jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
+		jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
+		int count = message -> value.choice.TestMessage00.body.trajectory -> list.count;
+		int temp_offsets_X[60] = {0};
+		int temp_offsets_Y[60] = {0};
+		int temp_offsets_Z[60] = {0};
+		for(int i = 0; i < count; i++) {
+			temp_offsets_X[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetX;
+			temp_offsets_Y[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetY;
+			temp_offsets_Z[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetZ;
+		}
+		(*env) -> SetIntArrayRegion(env, offsets_X, 0, 60, temp_offsets_X);
+		(*env) -> SetIntArrayRegion(env, offsets_Y, 0, 60, temp_offsets_Y);
+		(*env) -> SetIntArrayRegion(env, offsets_Z, 0, 60, temp_offsets_Z);
+		(*env) -> DeleteLocalRef(env, offsets_X);
+		(*env) -> DeleteLocalRef(env, offsets_Y);
+		(*env) -> DeleteLocalRef(env, offsets_Z);
+	}
 
-	int len = (*env) -> GetArrayLength(env, encodedReq); /* Number of bytes in encoded mobility request */
-	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedReq, 0); /* Get Java byte array content */
-	char buf[len]; /* Input buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-	    buf[i] = encodedMsg[i];
-	} /* Copy into buffer */
-	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
+	if(message -> value.choice.TestMessage00.body.expiration) {
+		uint8_t *expiration_time_content = message -> value.choice.TestMessage00.body.expiration -> buf;
+		(*env) -> SetByteArrayRegion(env, expiration, 0, 19, expiration_time_content);
+	}
+}
 
-	if(rval.code == RC_OK) {
-		//get jclass of each jobject
-		jclass mobility_class = (*env) -> GetObjectClass(env, request);
-		jclass plan_type_class = (*env) -> GetObjectClass(env, planType);
-		jclass current_location_class = (*env) -> GetObjectClass(env, location);
-		jclass start_location_class = (*env) -> GetObjectClass(env, startLocation);
+/**
+ * Mobility Reuqest Decoder:
+ * This function can decode a byte array in J2735 standards to
+ * a messageFrame structure and map to a ROS MobilityRequest object.
+ * Return -1 means an error has happened; return 0 means decoding succeed.
+ */
 
-		//set senderId, targetId, bsmId, planId and creation timestamp
-		uint8_t *sender_id_content = message -> value.choice.TestMessage00.header.hostStaticId.buf;
-		size_t sender_id_size = message -> value.choice.TestMessage00.header.hostStaticId.size;
-		(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
-		uint8_t *target_id_content = message -> value.choice.TestMessage00.header.targetStaticId.buf;
-		size_t target_id_size = message -> value.choice.TestMessage00.header.targetStaticId.size;
-		(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
-		uint8_t *bsm_id_content = message -> value.choice.TestMessage00.header.hostBSMId.buf;
-		(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
-		uint8_t *plan_id_content = message -> value.choice.TestMessage00.header.planId.buf;
-		(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
-		uint8_t *creation_time_content = message -> value.choice.TestMessage00.header.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequest
+  (JNIEnv *env, jobject cls, jbyteArray encodedReq, jobject request, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType, jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation, jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
 
-		//set strategy string
-		uint8_t *strategy_content = message -> value.choice.TestMessage00.body.strategy.buf;
-		size_t strategy_size = message -> value.choice.TestMessage00.body.strategy.size;
-		(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
-
-		//set plan type
-		jmethodID mid_setPlanType = (*env) -> GetMethodID(env, plan_type_class, "setType", "(B)V");
-		jbyte plan_type = message -> value.choice.TestMessage00.body.planType;
-		(*env) -> CallVoidMethod(env, planType, mid_setPlanType, plan_type);
-
-		//set urgency
-		jmethodID mid_setUrgency = (*env) -> GetMethodID(env, mobility_class, "setUrgency", "(S)V");
-		jshort urgency_value = message -> value.choice.TestMessage00.body.urgency;
-		(*env) -> CallVoidMethod(env, request, mid_setUrgency, urgency_value);
-
-		//set current location in ECEF frame
-		jmethodID mid_setEcefX = (*env) -> GetMethodID(env, current_location_class, "setEcefX", "(I)V");
-		jmethodID mid_setEcefY = (*env) -> GetMethodID(env, current_location_class, "setEcefY", "(I)V");
-		jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, current_location_class, "setEcefZ", "(I)V");
-		jint ecef_x = message -> value.choice.TestMessage00.body.location.ecefX;
-		jint ecef_y = message -> value.choice.TestMessage00.body.location.ecefY;
-		jint ecef_z = message -> value.choice.TestMessage00.body.location.ecefZ;
-		(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
-		uint8_t *location_time_content = message -> value.choice.TestMessage00.body.location.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
-
-		//set strategy parameters
-		uint8_t *strategy_params_content = message -> value.choice.TestMessage00.body.strategyParams.buf;
-		size_t strategy_params_size = message -> value.choice.TestMessage00.body.strategyParams.size;
-		(*env) -> SetByteArrayRegion(env, strategyParams, 0, strategy_params_size, strategy_params_content);
-
-		//set trajectory start location if necessary
-		if(message -> value.choice.TestMessage00.body.trajectoryStart) {
-			jint start_ecef_x = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefX;
-			jint start_ecef_y = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefY;
-			jint start_ecef_z = message -> value.choice.TestMessage00.body.trajectoryStart -> ecefZ;
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefX, start_ecef_x);
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefY, start_ecef_y);
-			(*env) -> CallVoidMethod(env, startLocation, mid_setEcefZ, start_ecef_z);
-			uint8_t *start_location_time_content = message -> value.choice.TestMessage00.body.trajectoryStart -> timestamp.buf;
-			(*env) -> SetByteArrayRegion(env, startTimestamp, 0, 19, start_location_time_content);
-		}
+	MessageFrame_t *message = decode_array_frame(env, encodedReq, MessageFrame__value_PR_TestMessage00); /* Decoded MessageFrame */
+	if(message == NULL) {
+		return -1;
+	}
+	map_mobility_request(env, message, request, senderId, targetId, bsmId, planId, timestamp, strategy, planType, location, locationTimestamp, strategyParams, startLocation, startTimestamp, trajectoryOffsets, expiration);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
+}
 
-		// set trajectory offset data if necessary
-		if(message -> value.choice.TestMessage00.body.trajectory) {
-			jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
-			jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
-			jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
-			int count = message -> value.choice.TestMessage00.body.trajectory -> list.count;
-			int temp_offsets_X[60] = {0};
-			int temp_offsets_Y[60] = {0};
-			int temp_offsets_Z[60] = {0};
-			for(int i = 0; i < count; i++) {
-				temp_offsets_X[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetX;
-				temp_offsets_Y[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetY;
-				temp_offsets_Z[i] = message -> value.choice.TestMessage00.body.trajectory -> list.array[i] -> offsetZ;
-			}
-			(*env) -> SetIntArrayRegion(env, offsets_X, 0, 60, temp_offsets_X);
-			(*env) -> SetIntArrayRegion(env, offsets_Y, 0, 60, temp_offsets_Y);
-			(*env) -> SetIntArrayRegion(env, offsets_Z, 0, 60, temp_offsets_Z);
-			(*env) -> DeleteLocalRef(env, offsets_X);
-			(*env) -> DeleteLocalRef(env, offsets_Y);
-			(*env) -> DeleteLocalRef(env, offsets_Z);
-		}
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage
+ * Method:    decodeMobilityRequestDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[B[BLjava/lang/Object;Ljava/lang/Object;[B[BLjava/lang/Object;[B[[I[B)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityRequestMessage_decodeMobilityRequestDirect
+  (JNIEnv *env, jobject cls, jobject encodedBuffer, jint length, jobject request, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jobject planType, jobject location, jbyteArray locationTimestamp, jbyteArray strategyParams, jobject startLocation, jbyteArray startTimestamp, jobjectArray trajectoryOffsets, jbyteArray expiration) {
 
-		if(message -> value.choice.TestMessage00.body.expiration) {
-			uint8_t *expiration_time_content = message -> value.choice.TestMessage00.body.expiration -> buf;
-			(*env) -> SetByteArrayRegion(env, expiration, 0, 19, expiration_time_content);
-		}
-	} else {
+	MessageFrame_t *message = decode_direct_frame(env, encodedBuffer, length, MessageFrame__value_PR_TestMessage00); /* Decoded MessageFrame */
+	if(message == NULL) {
 		return -1;
 	}
+	map_mobility_request(env, message, request, senderId, targetId, bsmId, planId, timestamp, strategy, planType, location, locationTimestamp, strategyParams, startLocation, startTimestamp, trajectoryOffsets, expiration);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
 	return 0;
 }
 
@@ -790,6 +988,68 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	return outputJNIArray;
   }
 
+/**
+ * Maps the header and starting location of a decoded MobilityPath frame to the Java output objects and arrays.
+ */
+static void map_mobility_path_header(JNIEnv *env, MessageFrame_t *message, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp) {
+	jclass start_location_class = (*env) -> GetObjectClass(env, location);
+
+	//set senderId, targetId, bsmId, planId and creation timestamp
+	uint8_t *sender_id_content = message -> value.choice.TestMessage02.header.hostStaticId.buf;
+	size_t sender_id_size = message -> value.choice.TestMessage02.header.hostStaticId.size;
+	(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
+	uint8_t *target_id_content = message -> value.choice.TestMessage02.header.targetStaticId.buf;
+	size_t target_id_size = message -> value.choice.TestMessage02.header.targetStaticId.size;
+	(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
+	uint8_t *bsm_id_content = message -> value.choice.TestMessage02.header.hostBSMId.buf;
+	(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
+	uint8_t *plan_id_content = message -> value.choice.TestMessage02.header.planId.buf;
+	(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
+	uint8_t *creation_time_content = message -> value.choice.TestMessage02.header.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+
+	//set current location in ECEF frame
+	jmethodID mid_setEcefX = (*env) -> GetMethodID(env, start_location_class, "setEcefX", "(I)V");
+	jmethodID mid_setEcefY = (*env) -> GetMethodID(env, start_location_class, "setEcefY", "(I)V");
+	jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, start_location_class, "setEcefZ", "(I)V");
+	jint ecef_x = message -> value.choice.TestMessage02.body.location.ecefX;
+	jint ecef_y = message -> value.choice.TestMessage02.body.location.ecefY;
+	jint ecef_z = message -> value.choice.TestMessage02.body.location.ecefZ;
+	(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
+	(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
+
+	uint8_t *location_time_content = message -> value.choice.TestMessage02.body.location.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
+}
+
+/**
+ * Maps the content of a decoded MobilityPath frame to the Java output objects and arrays.
+ */
+static void map_mobility_path(JNIEnv *env, MessageFrame_t *message, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
+	map_mobility_path_header(env, message, senderId, targetId, bsmId, planId, timestamp, location, locationTimestamp);
+
+	// set trajectory offset
+	jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
+	jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
+	jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
+	int count = message -> value.choice.TestMessage02.body.trajectory.list.count;
+	int temp_offsets_X[60] = {0};
+	int temp_offsets_Y[60] = {0};
+	int temp_offsets_Z[60] = {0};
+	for(int i = 0; i < count; i++) {
+		temp_offsets_X[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetX;
+		temp_offsets_Y[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetY;
+		temp_offsets_Z[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetZ;
+	}
+	(*env) -> SetIntArrayRegion(env, offsets_X, 0, count, temp_offsets_X);
+	(*env) -> SetIntArrayRegion(env, offsets_Y, 0, count, temp_offsets_Y);
+	(*env) -> SetIntArrayRegion(env, offsets_Z, 0, count, temp_offsets_Z);
+	(*env) -> DeleteLocalRef(env, offsets_X);
+	(*env) -> DeleteLocalRef(env, offsets_Y);
+	(*env) -> DeleteLocalRef(env, offsets_Z);
+}
+
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
  * Method:    decodeMobilityPath
@@ -797,72 +1057,66 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
  */
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPath
   (JNIEnv *env, jobject this, jbyteArray encodedArray, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
-	asn_dec_rval_t rval; /* Decoder return value */
-	MessageFrame_t *message = 0; /* Construct MessageFrame */
 
-	int len = (*env) -> GetArrayLength(env, encodedArray); /* Number of bytes in encoded mobility path */
-	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedArray, 0); /* Get Java byte array content */
-	char buf[len]; /* Input buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-	    buf[i] = encodedMsg[i];
-	} /* Copy into buffer */
-	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
-	if(rval.code == RC_OK) {
-		jclass start_location_class = (*env) -> GetObjectClass(env, location);
+	MessageFrame_t *message = decode_array_frame(env, encodedArray, MessageFrame__value_PR_TestMessage02); /* Decoded MessageFrame */
+	if(message == NULL) {
+		return -1;
+	}
+	map_mobility_path(env, message, pathObj, senderId, targetId, bsmId, planId, timestamp, location, locationTimestamp, trajectoryOffsets);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
+}
 
-		//set senderId, targetId, bsmId, planId and creation timestamp
-		uint8_t *sender_id_content = message -> value.choice.TestMessage02.header.hostStaticId.buf;
-		size_t sender_id_size = message -> value.choice.TestMessage02.header.hostStaticId.size;
-		(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
-		uint8_t *target_id_content = message -> value.choice.TestMessage02.header.targetStaticId.buf;
-		size_t target_id_size = message -> value.choice.TestMessage02.header.targetStaticId.size;
-		(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
-		uint8_t *bsm_id_content = message -> value.choice.TestMessage02.header.hostBSMId.buf;
-		(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
-		uint8_t *plan_id_content = message -> value.choice.TestMessage02.header.planId.buf;
-		(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
-		uint8_t *creation_time_content = message -> value.choice.TestMessage02.header.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathDirect
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathDirect
+  (JNIEnv *env, jobject this, jobject encodedBuffer, jint length, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jobjectArray trajectoryOffsets) {
 
-		//set current location in ECEF frame
-		jmethodID mid_setEcefX = (*env) -> GetMethodID(env, start_location_class, "setEcefX", "(I)V");
-		jmethodID mid_setEcefY = (*env) -> GetMethodID(env, start_location_class, "setEcefY", "(I)V");
-		jmethodID mid_setEcefZ = (*env) -> GetMethodID(env, start_location_class, "setEcefZ", "(I)V");
-		jint ecef_x = message -> value.choice.TestMessage02.body.location.ecefX;
-		jint ecef_y = message -> value.choice.TestMessage02.body.location.ecefY;
-		jint ecef_z = message -> value.choice.TestMessage02.body.location.ecefZ;
-		(*env) -> CallVoidMethod(env, location, mid_setEcefX, ecef_x);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefY, ecef_y);
-		(*env) -> CallVoidMethod(env, location, mid_setEcefZ, ecef_z);
-
-		uint8_t *location_time_content = message -> value.choice.TestMessage02.body.location.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, locationTimestamp, 0, 19, location_time_content);
-
-		// set trajectory offset
-		jintArray offsets_X =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 0);
-		jintArray offsets_Y =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 1);
-		jintArray offsets_Z =  (jintArray) (*env) -> GetObjectArrayElement(env, trajectoryOffsets, 2);
-		int count = message -> value.choice.TestMessage02.body.trajectory.list.count;
-		int temp_offsets_X[60] = {0};
-		int temp_offsets_Y[60] = {0};
-		int temp_offsets_Z[60] = {0};
-		for(int i = 0; i < count; i++) {
-			temp_offsets_X[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetX;
-			temp_offsets_Y[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetY;
-			temp_offsets_Z[i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetZ;
-		}
-		(*env) -> SetIntArrayRegion(env, offsets_X, 0, count, temp_offsets_X);
-		(*env) -> SetIntArrayRegion(env, offsets_Y, 0, count, temp_offsets_Y);
-		(*env) -> SetIntArrayRegion(env, offsets_Z, 0, count, temp_offsets_Z);
-		(*env) -> DeleteLocalRef(env, offsets_X);
-		(*env) -> DeleteLocalRef(env, offsets_Y);
-		(*env) -> DeleteLocalRef(env, offsets_Z);
+	MessageFrame_t *message = decode_direct_frame(env, encodedBuffer, length, MessageFrame__value_PR_TestMessage02); /* Decoded MessageFrame */
+	if(message == NULL) {
+		return -1;
+	}
+	map_mobility_path(env, message, pathObj, senderId, targetId, bsmId, planId, timestamp, location, locationTimestamp, trajectoryOffsets);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
+}
 
-		return 0;
-	} else {
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage
+ * Method:    decodeMobilityPathFlat
+ * Signature: (Ljava/nio/ByteBuffer;ILjava/lang/Object;[B[B[B[B[BLjava/lang/Object;[B[I)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityPathMessage_decodeMobilityPathFlat
+  (JNIEnv *env, jobject this, jobject encodedBuffer, jint length, jobject pathObj, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jobject location, jbyteArray locationTimestamp, jintArray trajectoryOffsets) {
+
+	MessageFrame_t *message = decode_direct_frame(env, encodedBuffer, length, MessageFrame__value_PR_TestMessage02); /* Decoded MessageFrame */
+	if(message == NULL) {
 		return -1;
 	}
-  }
+	map_mobility_path_header(env, message, senderId, targetId, bsmId, planId, timestamp, location, locationTimestamp);
+
+	// set trajectory offsets as consecutive x, y, z triples with a single copy
+	int count = message -> value.choice.TestMessage02.body.trajectory.list.count;
+	jsize capacity = (*env) -> GetArrayLength(env, trajectoryOffsets) / 3;
+	if(count > capacity) {
+		count = capacity;
+	}
+	if(count > 60) {
+		count = 60;
+	}
+	jint flat_offsets[180];
+	for(int i = 0; i < count; i++) {
+		flat_offsets[3 * i] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetX;
+		flat_offsets[3 * i + 1] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetY;
+		flat_offsets[3 * i + 2] = message -> value.choice.TestMessage02.body.trajectory.list.array[i] -> offsetZ;
+	}
+	(*env) -> SetIntArrayRegion(env, trajectoryOffsets, 0, 3 * count, flat_offsets);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return count;
+}
 
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityResponseMessage
@@ -1160,52 +1414,65 @@ JNIEXPORT jbyteArray JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_Mobi
 	return outputJNIArray;
 }
 
+/**
+ * Maps the content of a decoded MobilityOperation frame to the Java output objects and arrays.
+ */
+static void map_mobility_operation(JNIEnv *env, MessageFrame_t *message, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jbyteArray params) {
+	//set senderId, targetId, bsmId, planId and creation timestamp
+	uint8_t *sender_id_content = message -> value.choice.TestMessage03.header.hostStaticId.buf;
+	size_t sender_id_size = message -> value.choice.TestMessage03.header.hostStaticId.size;
+	(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
+	uint8_t *target_id_content = message -> value.choice.TestMessage03.header.targetStaticId.buf;
+	size_t target_id_size = message -> value.choice.TestMessage03.header.targetStaticId.size;
+	(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
+	uint8_t *bsm_id_content = message -> value.choice.TestMessage03.header.hostBSMId.buf;
+	(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
+	uint8_t *plan_id_content = message -> value.choice.TestMessage03.header.planId.buf;
+	(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
+	uint8_t *creation_time_content = message -> value.choice.TestMessage03.header.timestamp.buf;
+	(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+
+	//set strategy and params
+	uint8_t *strategy_content = message -> value.choice.TestMessage03.body.strategy.buf;
+	size_t strategy_size = message -> value.choice.TestMessage03.body.strategy.size;
+	(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
+	uint8_t *strategy_params_content = message -> value.choice.TestMessage03.body.operationParams.buf;
+	size_t strategy_params_size = message -> value.choice.TestMessage03.body.operationParams.size;
+	(*env) -> SetByteArrayRegion(env, params, 0, strategy_params_size, strategy_params_content);
+}
+
 /*
  * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityOperationMessage
  * Method:    decodeMobilityOperation
  * Signature: ([B[B[B[B[B[B[B[B)I
  */
 JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityOperationMessage_decodeMobilityOperation
-  (JNIEnv *env, jobject obj, jbyteArray encodedArray, jbyteArray senderId, jbyteArray targetId,
-   jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jbyteArray params) {
-
-	asn_dec_rval_t rval; /* Decoder return value */
-	MessageFrame_t *message = 0; /* Construct MessageFrame */
+  (JNIEnv *env, jobject obj, jbyteArray encodedArray, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jbyteArray params) {
 
-	int len = (*env) -> GetArrayLength(env, encodedArray); /* Number of bytes in encoded mobility path */
-	jbyte *encodedMsg = (*env) -> GetByteArrayElements(env, encodedArray, 0); /* Get Java byte array content */
-	char buf[len]; /* Input buffer for decoder function */
-	for(int i = 0; i < len; i++) {
-	    buf[i] = encodedMsg[i];
-	} /* Copy into buffer */
-	rval = uper_decode(0, &asn_DEF_MessageFrame, (void **) &message, buf, len, 0, 0);
-	if(rval.code == RC_OK) {
-		//set senderId, targetId, bsmId, planId and creation timestamp
-		uint8_t *sender_id_content = message -> value.choice.TestMessage03.header.hostStaticId.buf;
-		size_t sender_id_size = message -> value.choice.TestMessage03.header.hostStaticId.size;
-		(*env) -> SetByteArrayRegion(env, senderId, 0, sender_id_size, sender_id_content);
-		uint8_t *target_id_content = message -> value.choice.TestMessage03.header.targetStaticId.buf;
-		size_t target_id_size = message -> value.choice.TestMessage03.header.targetStaticId.size;
-		(*env) -> SetByteArrayRegion(env, targetId, 0, target_id_size, target_id_content);
-		uint8_t *bsm_id_content = message -> value.choice.TestMessage03.header.hostBSMId.buf;
-		(*env) -> SetByteArrayRegion(env, bsmId, 0, 8, bsm_id_content);
-		uint8_t *plan_id_content = message -> value.choice.TestMessage03.header.planId.buf;
-		(*env) -> SetByteArrayRegion(env, planId, 0, 36, plan_id_content);
-		uint8_t *creation_time_content = message -> value.choice.TestMessage03.header.timestamp.buf;
-		(*env) -> SetByteArrayRegion(env, timestamp, 0, 19, creation_time_content);
+	MessageFrame_t *message = decode_array_frame(env, encodedArray, MessageFrame__value_PR_TestMessage03); /* Decoded MessageFrame */
+	if(message == NULL) {
+		return -1;
+	}
+	map_mobility_operation(env, message, senderId, targetId, bsmId, planId, timestamp, strategy, params);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
+}
 
-		//set strategy and params
-		uint8_t *strategy_content = message -> value.choice.TestMessage03.body.strategy.buf;
-		size_t strategy_size = message -> value.choice.TestMessage03.body.strategy.size;
-		(*env) -> SetByteArrayRegion(env, strategy, 0, strategy_size, strategy_content);
-		uint8_t *strategy_params_content = message -> value.choice.TestMessage03.body.operationParams.buf;
-		size_t strategy_params_size = message -> value.choice.TestMessage03.body.operationParams.size;
-		(*env) -> SetByteArrayRegion(env, params, 0, strategy_params_size, strategy_params_content);
+/*
+ * Class:     gov_dot_fhwa_saxton_carma_message_factory_MobilityOperationMessage
+ * Method:    decodeMobilityOperationDirect
+ * Signature: (Ljava/nio/ByteBuffer;I[B[B[B[B[B[B[B)I
+ */
+JNIEXPORT jint JNICALL Java_gov_dot_fhwa_saxton_carma_message_factory_MobilityOperationMessage_decodeMobilityOperationDirect
+  (JNIEnv *env, jobject obj, jobject encodedBuffer, jint length, jbyteArray senderId, jbyteArray targetId, jbyteArray bsmId, jbyteArray planId, jbyteArray timestamp, jbyteArray strategy, jbyteArray params) {
 
-		return 0;
-	} else {
+	MessageFrame_t *message = decode_direct_frame(env, encodedBuffer, length, MessageFrame__value_PR_TestMessage03); /* Decoded MessageFrame */
+	if(message == NULL) {
 		return -1;
 	}
+	map_mobility_operation(env, message, senderId, targetId, bsmId, planId, timestamp, strategy, params);
+	ASN_STRUCT_FREE(asn_DEF_MessageFrame, message);
+	return 0;
 }
 
 /**